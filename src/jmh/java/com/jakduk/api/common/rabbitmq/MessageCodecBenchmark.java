@@ -0,0 +1,114 @@
+package com.jakduk.api.common.rabbitmq;
+
+import com.jakduk.api.common.util.JakdukUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.MessageCodec;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import com.jakduk.api.model.elasticsearch.EsArticle;
+import com.jakduk.api.model.embedded.CommonWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 색인 메시지(EsArticle) 를 codec, 압축 여부 별로 만들고 읽는 시간.
+ *
+ * 본문은 문장을 섞어 만든 문단 paragraphs 개를 htmlToText 로 걷어낸 것이다. 메시지 크기는 MessageCodecsTest.bytesPerMessage 가 찍는다.
+ *
+ * ./gradlew jmh -PjmhInclude=MessageCodecBenchmark
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MessageCodecBenchmark {
+
+    private static final String[] SENTENCES = {
+            "오늘 수원과 서울의 경기는 정말 치열했습니다.",
+            "후반 35분 교체로 들어간 공격수가 극장골을 넣었어요.",
+            "관중석 분위기가 대단했고 원정석도 꽉 찼습니다.",
+            "전반에는 점유율에서 밀렸지만 역습이 날카로웠습니다.",
+            "다음 주 전북 원정도 이 기세로 이겼으면 좋겠네요.",
+            "주심 판정에 대해서는 말이 많았지만 결과는 깔끔했습니다.",
+            "K League 1 Round 12, Suwon Samsung Bluewings vs FC Seoul, attendance 24,117.",
+            "골키퍼 선방이 없었다면 전반에 이미 두 골은 먹었을 겁니다."
+    };
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public MessageCodec codec;
+
+    @Param({"false", "true"})
+    public boolean compress;
+
+    @Param({"1", "10", "100"})
+    public int paragraphs;
+
+    private MessageCodecs messageCodecs;
+    private EsArticle esArticle;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        RabbitMQ queueProperties = new RabbitMQ();
+        queueProperties.setCodec(codec);
+        queueProperties.setCompressThresholdBytes(compress ? 0 : null);
+
+        JakdukProperties.Rabbitmq rabbitmqProperties = new JakdukProperties().new Rabbitmq();
+        rabbitmqProperties.getQueues().put("elasticsearch", queueProperties);
+
+        messageCodecs = new MessageCodecs();
+        Field field = ReflectionUtils.findField(MessageCodecs.class, "rabbitmqProperties");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, messageCodecs, rabbitmqProperties);
+
+        esArticle = this.newEsArticle();
+        message = messageCodecs.toMessage("elasticsearch", esArticle);
+    }
+
+    @Benchmark
+    public Message encode() {
+        return messageCodecs.toMessage("elasticsearch", esArticle);
+    }
+
+    @Benchmark
+    public EsArticle decode() throws IOException {
+        return messageCodecs.fromMessage(message, EsArticle.class);
+    }
+
+    private EsArticle newEsArticle() {
+        Random random = new Random(paragraphs);
+        StringBuilder html = new StringBuilder();
+
+        for (int i = 0; i < paragraphs; i++) {
+            html.append("<p>");
+
+            for (int j = 0; j < 4; j++)
+                html.append(SENTENCES[random.nextInt(SENTENCES.length)]).append(' ');
+
+            html.append("</p>");
+        }
+
+        CommonWriter writer = new CommonWriter();
+        writer.setUserId("58b2dbe4807d714eaf50a111");
+        writer.setUsername("수원블루윙즈");
+
+        EsArticle esArticle = new EsArticle();
+        esArticle.setId("595bb024290ad3035636f2ba");
+        esArticle.setSeq(262);
+        esArticle.setBoard("FREE");
+        esArticle.setCategory("FOOTBALL");
+        esArticle.setWriter(writer);
+        esArticle.setSubject("수원 vs 서울 경기 후기");
+        esArticle.setContent(JakdukUtils.htmlToText(html.toString()));
+        esArticle.setGalleries(Arrays.asList("58b9050b807d714eaf50a111", "58b9050b807d714eaf50a112"));
+
+        return esArticle;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.jakduk.api.common.rabbitmq;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import com.jakduk.api.model.elasticsearch.EsArticle;
+import com.jakduk.api.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 글쓰기 요청 스레드가 색인 메시지를 보내는 데 걸리는 시간. broker 지연을 바꿔가며 바로 보낼 때와 outbox 에 쌓을 때를 비교한다.
+ *
+ * broker 는 send 한번에 brokerLatencyMillis 만큼 걸리는 RabbitTemplate 으로 대신한다.
+ * outbox 저장은 DB 없이 바로 돌아오므로, 실제로는 Mongo insert 한번 만큼 더 걸린다.
+ * 결과의 p0.99 가 DIRECT 는 broker 지연을 따라가고 OUTBOX 는 그대로여야 한다.
+ *
+ * ./gradlew jmh -PjmhInclude=OutboxPublishBenchmark
+ */
+
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class OutboxPublishBenchmark {
+
+    private static final String ROUTING_KEY = "dev.elasticsearch.index-document-article";
+
+    @Param({"DIRECT", "OUTBOX"})
+    public String mode;
+
+    @Param({"0", "5", "50"})
+    public long brokerLatencyMillis;
+
+    private RabbitMQPublisher publisher;
+    private EsArticle esArticle;
+
+    @Setup
+    public void setUp() {
+        RabbitTemplate rabbitTemplate = new RabbitTemplate() {
+            @Override
+            public void send(String exchange, String routingKey, Message message) throws AmqpException {
+                sleep(brokerLatencyMillis);
+            }
+        };
+
+        OutboxMessageRepository outboxMessageRepository = (OutboxMessageRepository) Proxy.newProxyInstance(
+                OutboxMessageRepository.class.getClassLoader(), new Class[]{OutboxMessageRepository.class},
+                (proxy, method, args) -> method.getName().equals("insert") ? args[0] : null);
+
+        JakdukProperties jakdukProperties = new JakdukProperties();
+
+        RabbitMQ queueProperties = new RabbitMQ();
+        queueProperties.setEnabled(true);
+
+        JakdukProperties.Rabbitmq rabbitmqProperties = jakdukProperties.new Rabbitmq();
+        rabbitmqProperties.setExchangeName("jakduk-dev");
+        rabbitmqProperties.getQueues().put("elasticsearch", queueProperties);
+
+        JakdukProperties.Outbox outboxProperties = jakdukProperties.new Outbox();
+        outboxProperties.setEnabled(mode.equals("OUTBOX"));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        MessageCodecs messageCodecs = new MessageCodecs();
+        setField(messageCodecs, "rabbitmqProperties", rabbitmqProperties);
+
+        OutboxRelay outboxRelay = new OutboxRelay();
+        setField(outboxRelay, "outboxProperties", outboxProperties);
+        setField(outboxRelay, "rabbitTemplate", rabbitTemplate);
+        setField(outboxRelay, "outboxMessageRepository", outboxMessageRepository);
+        setField(outboxRelay, "meterRegistry", meterRegistry);
+        outboxRelay.init();
+
+        publisher = new RabbitMQPublisher();
+        setField(publisher, "rabbitmqProperties", rabbitmqProperties);
+        setField(publisher, "outboxProperties", outboxProperties);
+        setField(publisher, "eventBusProperties", jakdukProperties.new EventBus());
+        setField(publisher, "rabbitTemplate", rabbitTemplate);
+        setField(publisher, "outboxRelay", outboxRelay);
+        setField(publisher, "meterRegistry", meterRegistry);
+        setField(publisher, "messageCodecs", messageCodecs);
+
+        esArticle = new EsArticle();
+        esArticle.setId("595bb024290ad3035636f2ba");
+        esArticle.setSeq(262);
+        esArticle.setBoard("FREE");
+        esArticle.setSubject("오늘 경기 후기");
+        esArticle.setContent("오늘 수원과 서울의 경기는 정말 치열했습니다. 후반 극장골로 끝났는데 관중석 분위기가 대단했어요.");
+    }
+
+    @Benchmark
+    public void publishElasticsearch() {
+        publisher.publishElasticsearch(ROUTING_KEY, esArticle);
+    }
+
+    private static void sleep(long millis) {
+        if (millis == 0)
+            return;
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+}
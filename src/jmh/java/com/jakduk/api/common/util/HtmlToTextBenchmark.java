@@ -0,0 +1,75 @@
+package com.jakduk.api.common.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JakdukUtils.stripHtmlTag(Jsoup) 와 htmlToText 비교.
+ *
+ * 본문 크기는 실제 글과 비슷하게 맞췄다. 댓글은 한두 문단, 글은 사진 몇 장과 열 문단 남짓, 긴 글은 그 열 배.
+ *
+ * ./gradlew jmh -PjmhInclude=HtmlToTextBenchmark
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HtmlToTextBenchmark {
+
+    private static final String PARAGRAPH = "<p>오늘 <b>수원</b>과 <a href=\"https://jakduk.com/board/football\">서울</a>의 경기는 " +
+            "정말 치열했습니다.&nbsp;후반 &#39;극장골&#39;로 끝났는데 관중석 분위기가 대단했어요 &amp; 다음 경기도 기대됩니다.</p>";
+
+    private static final String IMAGE = "<p><img src=\"https://api.jakduk.com/gallery/58b9050b807d714eaf50a111\" " +
+            "style=\"width: 100%;\" alt=\"경기장\"><br></p>";
+
+    @Param({"COMMENT", "ARTICLE", "LONG_ARTICLE"})
+    public String size;
+
+    private String html;
+
+    @Setup
+    public void setUp() {
+        switch (size) {
+            case "COMMENT":
+                html = PARAGRAPH;
+                break;
+            case "ARTICLE":
+                html = this.article(1);
+                break;
+            default:
+                html = this.article(10);
+                break;
+        }
+    }
+
+    @Benchmark
+    public String jsoup() {
+        return JakdukUtils.stripHtmlTag(html);
+    }
+
+    @Benchmark
+    public String htmlToText() {
+        return JakdukUtils.htmlToText(html);
+    }
+
+    private String article(int repeat) {
+        StringBuilder article = new StringBuilder();
+
+        for (int i = 0; i < repeat; i++) {
+            article.append(IMAGE);
+
+            for (int j = 0; j < 4; j++)
+                article.append(PARAGRAPH);
+
+            article.append("<div><ul><li>선발: 1. 골키퍼</li><li>교체: 후반 30분</li></ul></div>");
+            article.append(IMAGE);
+
+            for (int j = 0; j < 6; j++)
+                article.append(PARAGRAPH);
+        }
+
+        return article.toString();
+    }
+
+}
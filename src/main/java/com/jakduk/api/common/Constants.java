@@ -29,6 +29,7 @@ public class Constants {
 	 * 화면에 보여질 목록 갯수
 	 */
 	public final static Integer BOARD_MAX_LIMIT = 20;
+	public final static Integer BOARD_MAX_SIZE = 100; // 글 목록 한 페이지의 최대 글 수
 	public final static Integer HOME_SIZE_LINE_NUMBER = 5;
 	public final static Integer HOME_SIZE_POST = 7;
 	public final static Integer HOME_SIZE_GALLERY = 10;
@@ -39,6 +40,7 @@ public class Constants {
 	public final static Integer GALLERY_SIZE = 24;
 	public final static Integer BOARD_TOP_LIMIT = 3;
 	public final static Integer ARTICLE_SHORT_CONTENT_LENGTH = 100;
+	public final static Integer ARTICLE_COMMENT_SHORT_CONTENT_LENGTH = HOME_COMMENT_CONTENT_MAX_LENGTH;
 
 	/**
 	 * Social 프로바이더 종류.
@@ -178,6 +180,7 @@ public class Constants {
 	public final static String COLLECTION_ARTICLE = "article";
 	public final static String COLLECTION_ARTICLE_COMMENT = "articleComment";
 	public final static String COLLECTION_GALLERY = "gallery";
+	public final static String COLLECTION_OUTBOX_DEAD_LETTER = "outboxDeadLetter";
 
 	public enum EMAIL_TYPE {
 		WELCOME,
@@ -185,11 +188,6 @@ public class Constants {
 		BULK
 	}
 
-	/**
-	 * 읽음 수의 쿠키 만료 시간(초)
-	 */
-	public final static Integer VIEWS_COOKIE_EXPIRE_SECONDS = 30;
-
 	/**
 	 * RSS, Sitemap 에서 한번에 읽을 아이템 수
 	 */
@@ -200,13 +198,6 @@ public class Constants {
 	 */
 	public final static Integer NUMBER_OF_ITEMS_IN_SURROUNDINGS_GALLERY=10;
 
-	/**
-	 * 읽음 중복 방지를 위한 쿠키
-	 */
-	public enum VIEWS_COOKIE_TYPE {
-		ARTICLE
-	}
-
 	/**
 	 * SNS 가입시 임시로 저장할 프로필를 담을 세션
 	 * 참고 {@link org.springframework.social.connect.web.ProviderSignInAttempt#SESSION_ATTRIBUTE}
@@ -232,4 +223,13 @@ public class Constants {
 		EDIT
 	}
 
+	/**
+	 * 같은 프로세스 이벤트 버스가 다 찼을 때
+	 */
+	public enum EVENT_BUS_OVERFLOW_POLICY {
+		BLOCK,			// 자리가 날 때까지 보내는 스레드를 세운다
+		DROP_OLDEST,	// 가장 오래 기다린 메시지를 버린다
+		SPILL			// 디스크에 적어두었다가 나중에 다시 넣는다
+	}
+
 }
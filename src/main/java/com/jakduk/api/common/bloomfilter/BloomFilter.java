@@ -0,0 +1,126 @@
+package com.jakduk.api.common.bloomfilter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 크기가 고정된 Bloom filter.
+ *
+ * 비트는 long 배열 하나에 담고, 키는 미리 섞은 64비트 해시로 받는다.
+ * 두 개의 32비트 해시를 조합해(Kirsch-Mitzenmacher) k 개의 비트 위치를 만든다.
+ * 여러 쓰레드가 동시에 넣어도 된다.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long numBits;
+    private final int numHashes;
+
+    public BloomFilter(long numBits, int numHashes) {
+        if (numBits < Long.SIZE || numHashes < 1)
+            throw new IllegalArgumentException("numBits=" + numBits + ", numHashes=" + numHashes);
+
+        this.words = new AtomicLongArray((int) ((numBits + Long.SIZE - 1) / Long.SIZE));
+        this.numBits = (long) words.length() * Long.SIZE;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * 예상 원소 수와 오탐률에 맞는 크기를 구한다. 메모리 한도를 넘으면 한도에 맞춘다.
+     *
+     * @param expectedInsertions 예상 원소 수
+     * @param falsePositiveRate 오탐률
+     * @param maxBits 최대 비트 수
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate, long maxBits) {
+        long numBits = Math.min(optimalNumBits(expectedInsertions, falsePositiveRate), maxBits);
+        int numHashes = optimalNumHashes(expectedInsertions, numBits);
+
+        return new BloomFilter(numBits, numHashes);
+    }
+
+    public static long optimalNumBits(long expectedInsertions, double falsePositiveRate) {
+        return (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    }
+
+    public static int optimalNumHashes(long expectedInsertions, long numBits) {
+        return Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * 이 크기에서 해당 원소 수를 넣었을 때의 오탐률
+     */
+    public double expectedFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) numHashes * insertions / numBits), numHashes);
+    }
+
+    public boolean mightContain(long hash) {
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = this.bitIndex(hash1, hash2, i);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * 원소를 넣는다.
+     *
+     * @return 새로 켠 비트가 있으면 true. false 면 이미 있었을 수 있다.
+     */
+    public boolean put(long hash) {
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        boolean changed = false;
+
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = this.bitIndex(hash1, hash2, i);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            while (true) {
+                long word = words.get(index);
+
+                if ((word & mask) != 0)
+                    break;
+
+                if (words.compareAndSet(index, word, word | mask)) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * 모든 비트를 끈다. 비우는 동안 넣은 원소는 남을 수도, 지워질 수도 있다.
+     */
+    public void clear() {
+        for (int i = 0; i < words.length(); i++)
+            words.set(i, 0L);
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    private long bitIndex(int hash1, int hash2, int i) {
+        long combined = hash1 + (long) i * hash2;
+
+        if (combined < 0)
+            combined = ~combined;
+
+        return combined % numBits;
+    }
+
+}
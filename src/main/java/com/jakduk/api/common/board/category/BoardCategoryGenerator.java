@@ -5,10 +5,7 @@ import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.embedded.LocalSimpleName;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Locale;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -57,17 +54,49 @@ public class BoardCategoryGenerator {
 		}
     }
 
+    // 게시판, 언어, 말머리 목록. 말머리는 바뀌지 않으므로 처음 한번만 만든다.
+	private static final Map<Constants.BOARD_TYPE, Map<String, List<BoardCategory>>> CATEGORIES = buildCategories();
+
     /**
      * 해당 언어에 맞는 게시판 말머리 목록을 가져온다.
      */
     public static List<BoardCategory> getCategories(Constants.BOARD_TYPE boardType, Locale locale) {
+		List<BoardCategory> categories = CATEGORIES.get(boardType).get(locale.getLanguage());
+
+		if (Objects.nonNull(categories))
+			return categories;
+
+		return BoardCategoryGenerator.toCategories(boardType, locale.getLanguage());
+	}
+
+	private static Map<Constants.BOARD_TYPE, Map<String, List<BoardCategory>>> buildCategories() {
+		Set<String> languages = Stream.of(Category.values())
+				.flatMap(category -> category.names.stream())
+				.map(LocalSimpleName::getLanguage)
+				.collect(Collectors.toSet());
+
+		Map<Constants.BOARD_TYPE, Map<String, List<BoardCategory>>> categories = new EnumMap<>(Constants.BOARD_TYPE.class);
+
+		for (Constants.BOARD_TYPE boardType : Constants.BOARD_TYPE.values()) {
+			Map<String, List<BoardCategory>> categoriesByLanguage = new HashMap<>();
+
+			for (String language : languages)
+				categoriesByLanguage.put(language, Collections.unmodifiableList(BoardCategoryGenerator.toCategories(boardType, language)));
+
+			categories.put(boardType, Collections.unmodifiableMap(categoriesByLanguage));
+		}
+
+		return Collections.unmodifiableMap(categories);
+	}
+
+	private static List<BoardCategory> toCategories(Constants.BOARD_TYPE boardType, String language) {
 		return Category.list(boardType)
 				.stream()
 				.map(category -> new BoardCategory() {{
 							setCode(category.name());
 							setNames(
 									category.names.stream()
-											.filter(localSimpleName -> locale.getLanguage().equals(localSimpleName.getLanguage()))
+											.filter(localSimpleName -> language.equals(localSimpleName.getLanguage()))
 											.collect(Collectors.toList()));
 						}}
 				)
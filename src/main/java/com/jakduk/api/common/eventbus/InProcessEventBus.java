@@ -0,0 +1,365 @@
+package com.jakduk.api.common.eventbus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.ObjectMapperUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.listener.ElasticsearchListener;
+import com.jakduk.api.listener.EmailListener;
+import com.jakduk.api.model.elasticsearch.EsArticle;
+import com.jakduk.api.model.elasticsearch.EsComment;
+import com.jakduk.api.model.elasticsearch.EsGallery;
+import com.jakduk.api.model.elasticsearch.EsSearchWord;
+import com.jakduk.api.model.rabbitmq.EmailPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * RabbitMQ 없이 같은 프로세스 안에서 색인, 메일 메시지를 리스너로 넘긴다.
+ *
+ * 꺼둔 큐의 메시지를 버리지 않도록 RabbitMQPublisher 가 대신 여기로 보낸다. RabbitMQ 없이 띄우는 작은 서버용이다.
+ * pool-size 개의 스레드가 queue-capacity 크기의 큐를 비우고, 큐가 다 차면 overflow-policy 를 따른다.
+ * 리스너가 모아둔 메시지가 다 차서 받지 않을 때(색인, 메일 서버가 안 될 때)도 overflow-policy 를 따른다.
+ * 프로세스가 죽으면 큐에 있던 메시지는 사라진다. SPILL 일 때 디스크에 적어둔 메시지만 남는다.
+ */
+
+@Component
+public class InProcessEventBus {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private final String QUEUE_EMAIL = "email";
+    private final String QUEUE_ELASTICSEARCH = "elasticsearch";
+    private final String SPILL_FILE_NAME = "events.spill";
+    private final String DRAINING_FILE_NAME = "events.spill.draining";
+
+    // 디스크에서 다시 읽을 때 허용하는 메시지 본문 타입
+    private static final Map<String, Class<?>> PAYLOAD_TYPES = Stream.of(EsArticle.class, EsComment.class, EsGallery.class,
+            EsSearchWord.class, EmailPayload.class, String.class)
+            .collect(Collectors.toMap(Class::getName, Function.identity()));
+
+    @Resource private JakdukProperties.EventBus eventBusProperties;
+
+    @Autowired private ElasticsearchListener elasticsearchListener;
+    @Autowired private EmailListener emailListener;
+    @Autowired private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Counter deliveredCounter;
+    private Counter failedCounter;
+    private Counter droppedCounter;
+    private Counter spilledCounter;
+
+    @PostConstruct
+    public void init() {
+        Integer poolSize = eventBusProperties.getPoolSize();
+
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(eventBusProperties.getQueueCapacity()), new CustomizableThreadFactory("event-bus-"),
+                (runnable, executor) -> this.overflow((EventTask) runnable));
+
+        // 큐에 직접 넣어도 꺼내갈 스레드가 있도록 미리 띄운다.
+        executor.prestartAllCoreThreads();
+
+        deliveredCounter = this.eventCounter("delivered");
+        failedCounter = this.eventCounter("failed");
+        droppedCounter = this.overflowCounter("dropped");
+        spilledCounter = this.overflowCounter("spilled");
+
+        Gauge.builder("jakduk.event-bus.queue", executor, executor -> executor.getQueue().size())
+                .description("같은 프로세스 이벤트 버스에서 처리를 기다리는 메시지 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 메시지를 리스너로 넘긴다. 큐가 다 찼으면 overflow-policy 를 따른다.
+     *
+     * @param queue 큐 이름. email, elasticsearch
+     * @param routingKey RabbitMQ 로 보낼 때 쓰는 routing key
+     * @param payload 메시지 본문
+     */
+    public void publish(String queue, String routingKey, Object payload) {
+        executor.execute(new EventTask(new Event(queue, routingKey, payload)));
+    }
+
+    /**
+     * SPILL 로 디스크에 적어둔 메시지를 다시 큐에 넣는다. 그래도 넘치는 메시지는 다시 적어둔다.
+     */
+    @Scheduled(fixedDelayString = "${jakduk.event-bus.spill-drain-interval-millis}")
+    public void drainSpill() {
+        Path spillFile = this.getSpillPath().resolve(SPILL_FILE_NAME);
+        Path drainingFile = this.getSpillPath().resolve(DRAINING_FILE_NAME);
+
+        try {
+            // 지난번에 다 읽지 못한 파일이 있으면 그것부터 읽는다.
+            synchronized (this) {
+                if (Files.notExists(drainingFile)) {
+                    if (Files.notExists(spillFile))
+                        return;
+
+                    Files.move(spillFile, drainingFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            int restored = 0;
+
+            try (BufferedReader reader = Files.newBufferedReader(drainingFile, StandardCharsets.UTF_8)) {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    Event event;
+
+                    try {
+                        event = fromLine(line);
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Can not read spilled event. line={}", line, e);
+                        continue;
+                    }
+
+                    if (executor.getQueue().offer(new EventTask(event), eventBusProperties.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                        restored++;
+                    } else {
+                        this.spill(event);
+                    }
+                }
+            }
+
+            Files.delete(drainingFile);
+
+            log.info("spilled events were restored. restored={}", restored);
+        } catch (IOException e) {
+            log.warn("Can not drain spilled events. path={}", drainingFile, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 남은 메시지를 block-timeout-millis 동안 처리하고, 그래도 남으면 SPILL 일 때만 디스크에 적어둔다.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+
+        if (executor.awaitTermination(eventBusProperties.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS))
+            return;
+
+        List<Runnable> remains = executor.shutdownNow();
+
+        if (eventBusProperties.getOverflowPolicy() == Constants.EVENT_BUS_OVERFLOW_POLICY.SPILL) {
+            remains.forEach(runnable -> this.spill(((EventTask) runnable).event));
+        } else {
+            droppedCounter.increment(remains.size());
+            log.warn("in-process events were dropped on shutdown. count={}", remains.size());
+        }
+    }
+
+    private void deliver(Event event) {
+        try {
+            this.dispatch(event);
+            deliveredCounter.increment();
+        } catch (RejectedExecutionException e) {
+            this.rejected(event);
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.warn("in-process event delivery failed. queue={}, routingKey={}", event.queue, event.routingKey, e);
+        }
+    }
+
+    private void dispatch(Event event) {
+        switch (event.queue) {
+            case QUEUE_ELASTICSEARCH:
+                elasticsearchListener.receive(event.routingKey, event.payload);
+                break;
+            case QUEUE_EMAIL:
+                emailListener.receive((EmailPayload) event.payload);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown queue " + event.queue);
+        }
+    }
+
+    /**
+     * 리스너가 받지 않은 메시지. BLOCK 이면 block-timeout-millis 동안 다시 넘겨보고, SPILL 이면 디스크에 적고, 아니면 버린다.
+     */
+    private void rejected(Event event) {
+        if (eventBusProperties.getOverflowPolicy() == Constants.EVENT_BUS_OVERFLOW_POLICY.BLOCK) {
+            long deadline = System.currentTimeMillis() + eventBusProperties.getBlockTimeoutMillis();
+
+            try {
+                while (System.currentTimeMillis() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(Math.min(100, Math.max(1, deadline - System.currentTimeMillis())));
+
+                    try {
+                        this.dispatch(event);
+                        deliveredCounter.increment();
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        // 아직 자리가 없다.
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        this.spillOrDrop(event);
+    }
+
+    private void overflow(EventTask task) {
+        if (executor.isShutdown()) {
+            this.spillOrDrop(task.event);
+            return;
+        }
+
+        switch (eventBusProperties.getOverflowPolicy()) {
+            case BLOCK:
+                try {
+                    if (executor.getQueue().offer(task, eventBusProperties.getBlockTimeoutMillis(), TimeUnit.MILLISECONDS))
+                        return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                this.drop(task.event);
+                break;
+
+            case DROP_OLDEST:
+                Runnable oldest = executor.getQueue().poll();
+
+                if (oldest != null)
+                    this.drop(((EventTask) oldest).event);
+
+                if (! executor.getQueue().offer(task))
+                    this.drop(task.event);
+
+                break;
+
+            case SPILL:
+                this.spill(task.event);
+                break;
+        }
+    }
+
+    private void spillOrDrop(Event event) {
+        if (eventBusProperties.getOverflowPolicy() == Constants.EVENT_BUS_OVERFLOW_POLICY.SPILL) {
+            this.spill(event);
+        } else {
+            this.drop(event);
+        }
+    }
+
+    private void drop(Event event) {
+        droppedCounter.increment();
+        log.warn("in-process event was dropped. queue={}, routingKey={}", event.queue, event.routingKey);
+    }
+
+    private synchronized void spill(Event event) {
+        try {
+            Files.createDirectories(this.getSpillPath());
+            Files.write(this.getSpillPath().resolve(SPILL_FILE_NAME), (toLine(event) + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            spilledCounter.increment();
+        } catch (IOException | RuntimeException e) {
+            log.error("Can not spill in-process event. queue={}, routingKey={}", event.queue, event.routingKey, e);
+            this.drop(event);
+        }
+    }
+
+    private Path getSpillPath() {
+        return Paths.get(eventBusProperties.getSpillPath());
+    }
+
+    private Counter eventCounter(String result) {
+        return Counter.builder("jakduk.event-bus.events")
+                .tag("result", result)
+                .description("같은 프로세스 이벤트 버스에서 리스너로 넘긴 메시지")
+                .register(meterRegistry);
+    }
+
+    private Counter overflowCounter(String action) {
+        return Counter.builder("jakduk.event-bus.overflow")
+                .tag("action", action)
+                .description("같은 프로세스 이벤트 버스가 다 차서 버리거나 디스크에 적은 메시지")
+                .register(meterRegistry);
+    }
+
+    private static String toLine(Event event) throws IOException {
+        ObjectMapper objectMapper = ObjectMapperUtils.getObjectMapper();
+
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("queue", event.queue);
+        node.put("routingKey", event.routingKey);
+        node.put("type", event.payload.getClass().getName());
+        node.set("payload", objectMapper.valueToTree(event.payload));
+
+        return objectMapper.writeValueAsString(node);
+    }
+
+    private static Event fromLine(String line) throws IOException {
+        ObjectMapper objectMapper = ObjectMapperUtils.getObjectMapper();
+        JsonNode node = objectMapper.readTree(line);
+
+        Class<?> type = PAYLOAD_TYPES.get(node.path("type").asText());
+
+        if (type == null)
+            throw new IllegalArgumentException("unknown payload type " + node.path("type").asText());
+
+        return new Event(node.path("queue").asText(), node.path("routingKey").asText(), objectMapper.treeToValue(node.get("payload"), type));
+    }
+
+    private static class Event {
+        private final String queue;
+        private final String routingKey;
+        private final Object payload;
+
+        Event(String queue, String routingKey, Object payload) {
+            this.queue = queue;
+            this.routingKey = routingKey;
+            this.payload = payload;
+        }
+    }
+
+    private class EventTask implements Runnable {
+        private final Event event;
+
+        EventTask(Event event) {
+            this.event = event;
+        }
+
+        @Override
+        public void run() {
+            deliver(event);
+        }
+    }
+
+}
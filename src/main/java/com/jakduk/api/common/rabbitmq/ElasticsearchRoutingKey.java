@@ -2,8 +2,16 @@ package com.jakduk.api.common.rabbitmq;
 
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.elasticsearch.EsArticle;
+import com.jakduk.api.model.elasticsearch.EsComment;
+import com.jakduk.api.model.elasticsearch.EsGallery;
+import com.jakduk.api.model.elasticsearch.EsSearchWord;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Created by pyohwanjang on 2017. 7. 3..
@@ -11,28 +19,39 @@ import java.util.Arrays;
 
 public enum ElasticsearchRoutingKey  {
 
-    ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE("elasticsearch-index-document-article"),
-    ELASTICSEARCH_DELETE_DOCUMENT_ARTICLE("elasticsearch-delete-document-article"),
-    ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE_COMMENT("elasticsearch-index-document-article-comment"),
-    ELASTICSEARCH_DELETE_DOCUMENT_ARTICLE_COMMENT("elasticsearch-delete-document-article-comment"),
-    ELASTICSEARCH_INDEX_DOCUMENT_GALLERY("elasticsearch-index-document-gallery"),
-    ELASTICSEARCH_DELETE_DOCUMENT_GALLERY("elasticsearch-delete-document-gallery"),
-    ELASTICSEARCH_INDEX_DOCUMENT_SEARCH_WORD("elasticsearch-index-document-search-word");
+    ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE("elasticsearch-index-document-article", EsArticle.class),
+    ELASTICSEARCH_DELETE_DOCUMENT_ARTICLE("elasticsearch-delete-document-article", String.class),
+    ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE_COMMENT("elasticsearch-index-document-article-comment", EsComment.class),
+    ELASTICSEARCH_DELETE_DOCUMENT_ARTICLE_COMMENT("elasticsearch-delete-document-article-comment", String.class),
+    ELASTICSEARCH_INDEX_DOCUMENT_GALLERY("elasticsearch-index-document-gallery", EsGallery.class),
+    ELASTICSEARCH_DELETE_DOCUMENT_GALLERY("elasticsearch-delete-document-gallery", String.class),
+    ELASTICSEARCH_INDEX_DOCUMENT_SEARCH_WORD("elasticsearch-index-document-search-word", EsSearchWord.class);
+
+    private static final Map<String, ElasticsearchRoutingKey> ROUTING_KEYS = Arrays.stream(ElasticsearchRoutingKey.values())
+            .collect(Collectors.toMap(ElasticsearchRoutingKey::getRoutingKey, Function.identity()));
 
     private String routingKey;
+    private Class<?> payloadType; // 메시지 본문의 타입
 
-    ElasticsearchRoutingKey(String routingKey) {
+    ElasticsearchRoutingKey(String routingKey, Class<?> payloadType) {
         this.routingKey = routingKey;
+        this.payloadType = payloadType;
     }
 
     static public ElasticsearchRoutingKey find(String value) {
-        return Arrays.stream(ElasticsearchRoutingKey.values())
-                .filter(routingKey -> routingKey.routingKey.equals(value))
-                .findFirst()
-                .orElseThrow(() -> new ServiceException(ServiceError.ILLEGAL_ARGUMENT));
+        ElasticsearchRoutingKey routingKey = ROUTING_KEYS.get(value);
+
+        if (Objects.isNull(routingKey))
+            throw new ServiceException(ServiceError.ILLEGAL_ARGUMENT);
+
+        return routingKey;
     }
 
     public String getRoutingKey() {
         return routingKey;
     }
+
+    public Class<?> getPayloadType() {
+        return payloadType;
+    }
 }
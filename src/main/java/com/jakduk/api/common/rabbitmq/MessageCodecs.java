@@ -0,0 +1,108 @@
+package com.jakduk.api.common.rabbitmq;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.MessageCodec;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.Resource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 큐 별로 설정한 codec 으로 메시지를 만들고, 받은 메시지는 content-type, content-encoding 헤더를 보고 읽는다.
+ *
+ * 본문이 compress-threshold-bytes 이상이면 deflate 로 압축하고 content-encoding 을 deflate 로 단다.
+ * 받는 쪽은 헤더만 보므로 JSON 을 보내는 서버와 SMILE 을 보내는 서버가 섞여 있어도 된다.
+ * 단, 이 클래스가 없는 예전 서버는 JSON 만 읽으므로 받는 서버를 먼저 올린 뒤 보내는 쪽 codec 을 바꾼다.
+ */
+
+@Component
+public class MessageCodecs {
+
+    private final String CONTENT_ENCODING_DEFLATE = "deflate";
+    private final String HEADER_TYPE_ID = "__TypeId__"; // Jackson2JsonMessageConverter 와 같은 타입 헤더
+
+    @Resource private JakdukProperties.Rabbitmq rabbitmqProperties;
+
+    /**
+     * 메시지를 만든다.
+     *
+     * @param queue 큐 이름. email, elasticsearch
+     * @param payload 메시지 본문
+     */
+    public Message toMessage(String queue, Object payload) {
+        RabbitMQ queueProperties = rabbitmqProperties.getQueues().get(queue);
+        MessageCodec codec = Optional.ofNullable(queueProperties.getCodec()).orElse(MessageCodec.JSON);
+
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(codec.getContentType());
+        messageProperties.setHeader(HEADER_TYPE_ID, payload.getClass().getName());
+
+        byte[] body;
+
+        try {
+            body = codec.encode(payload);
+
+            Integer compressThresholdBytes = queueProperties.getCompressThresholdBytes();
+
+            if (Objects.nonNull(compressThresholdBytes) && body.length >= compressThresholdBytes) {
+                body = deflate(body);
+                messageProperties.setContentEncoding(CONTENT_ENCODING_DEFLATE);
+            } else if (codec == MessageCodec.JSON) {
+                messageProperties.setContentEncoding(StandardCharsets.UTF_8.name());
+            }
+        } catch (IOException e) {
+            throw new MessageConversionException("Can not encode message. queue=" + queue, e);
+        }
+
+        messageProperties.setContentLength(body.length);
+
+        return new Message(body, messageProperties);
+    }
+
+    /**
+     * 받은 메시지를 읽는다.
+     */
+    public <T> T fromMessage(Message message, Class<T> type) throws IOException {
+        MessageProperties messageProperties = message.getMessageProperties();
+        byte[] body = message.getBody();
+
+        if (CONTENT_ENCODING_DEFLATE.equals(messageProperties.getContentEncoding()))
+            body = inflate(body);
+
+        return MessageCodec.fromContentType(messageProperties.getContentType()).decode(body, type);
+    }
+
+    private static byte[] deflate(byte[] src) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(src.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try (DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater)) {
+            deflaterOut.write(src);
+        } finally {
+            deflater.end();
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] src) throws IOException {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(src))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+}
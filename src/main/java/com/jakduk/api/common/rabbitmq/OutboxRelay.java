@@ -0,0 +1,324 @@
+package com.jakduk.api.common.rabbitmq;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.OutboxMessage;
+import com.jakduk.api.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 요청 스레드는 메시지를 outbox 컬렉션에 쌓기만 하고, 여기서 모아서 RabbitMQ 로 보낸다.
+ *
+ * batch-size 개씩 선점해서 보낸 뒤 publisher confirm 을 기다려, broker 가 받았다고 확인한 메시지만 지운다.
+ * 서버가 여러 대여도 선점(owner, lockedUntil)한 서버만 보낸다. 선점한 서버가 lease-millis 안에 끝내지 못하면 다른 서버가 가져간다.
+ * 확인을 못 받은 메시지는 늘어나는 간격으로 미뤄 다시 보내므로 같은 메시지가 두번 갈 수 있다(at-least-once).
+ * broker 가 max-attempts 번 거절한 메시지는 redrive-interval-millis 마다 다시 살리되, max-redrives 번까지만 살린다.
+ * 그래도 못 보낸 메시지는 dead letter 컬렉션으로 옮기고, 운영자가 골라서 되살릴 때만 다시 보낸다.
+ */
+
+@Component
+public class OutboxRelay {
+
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Resource private JakdukProperties.Outbox outboxProperties;
+
+    @Autowired private RabbitTemplate rabbitTemplate;
+    @Autowired private OutboxMessageRepository outboxMessageRepository;
+    @Autowired private MeterRegistry meterRegistry;
+
+    // 이 서버의 relay 를 구분하는 값. 선점할 때마다 뒤에 번호를 붙여 owner 로 쓴다.
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong rounds = new AtomicLong();
+
+    // 마지막으로 확인한 outbox 상태. 지표를 읽을 때마다 DB 를 읽지 않도록 relay 가 갱신한다.
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong stuck = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private volatile long oldestCreatedAt; // 0 이면 밀린 메시지가 없다
+
+    private Timer publishTimer;
+    private Counter publishedCounter;
+    private Counter failedCounter;
+    private Counter deferredCounter;
+    private Counter deadLetterCounter;
+
+    @PostConstruct
+    public void init() {
+        publishTimer = Timer.builder("jakduk.outbox.publish")
+                .description("outbox 메시지 한 묶음을 보내고 확인받는 시간")
+                .register(meterRegistry);
+
+        publishedCounter = Counter.builder("jakduk.outbox.messages")
+                .tag("result", "published")
+                .description("outbox 에서 보낸 메시지")
+                .register(meterRegistry);
+
+        failedCounter = Counter.builder("jakduk.outbox.messages")
+                .tag("result", "failed")
+                .description("outbox 에서 보낸 메시지")
+                .register(meterRegistry);
+
+        deferredCounter = Counter.builder("jakduk.outbox.messages")
+                .tag("result", "deferred")
+                .description("outbox 에서 보낸 메시지")
+                .register(meterRegistry);
+
+        deadLetterCounter = Counter.builder("jakduk.outbox.messages")
+                .tag("result", "dead_letter")
+                .description("outbox 에서 보낸 메시지")
+                .register(meterRegistry);
+
+        Gauge.builder("jakduk.outbox.backlog", backlog, AtomicLong::get)
+                .description("보내기를 기다리는 outbox 메시지 수")
+                .register(meterRegistry);
+
+        Gauge.builder("jakduk.outbox.stuck", stuck, AtomicLong::get)
+                .description("max-attempts 를 넘겨 더 보내지 않는 outbox 메시지 수")
+                .register(meterRegistry);
+
+        Gauge.builder("jakduk.outbox.dead-letter", deadLetters, AtomicLong::get)
+                .description("max-redrives 를 넘겨 dead letter 컬렉션으로 옮긴 outbox 메시지 수")
+                .register(meterRegistry);
+
+        Gauge.builder("jakduk.outbox.lag", this, OutboxRelay::getLagSeconds)
+                .description("가장 오래 기다린 outbox 메시지가 쌓인 뒤 지난 시간")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 메시지를 outbox 에 쌓는다. 도메인 쓰기 직후 같은 요청 안에서 부른다.
+     */
+    public void enqueue(String exchange, String routingKey, Message message) {
+        MessageProperties messageProperties = message.getMessageProperties();
+
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setExchange(exchange);
+        outboxMessage.setRoutingKey(routingKey);
+        outboxMessage.setContentType(messageProperties.getContentType());
+        outboxMessage.setContentEncoding(messageProperties.getContentEncoding());
+        outboxMessage.setHeaders(new HashMap<>(messageProperties.getHeaders()));
+        outboxMessage.setBody(message.getBody());
+        outboxMessage.setAttempts(0);
+        outboxMessage.setCreatedAt(new Date());
+
+        outboxMessageRepository.insert(outboxMessage);
+    }
+
+    /**
+     * 밀린 메시지를 오래된 순서로 선점해서 보낸다. 한 묶음이라도 다 보내지 못하면 다음 주기로 미룬다.
+     */
+    @Scheduled(fixedDelayString = "${jakduk.outbox.relay-interval-millis}")
+    public void relay() {
+        Integer batchSize = outboxProperties.getBatchSize();
+        boolean worked = false;
+        List<OutboxMessage> batch;
+
+        do {
+            String owner = nodeId + "#" + rounds.incrementAndGet();
+            Date now = new Date();
+            Date lockedUntil = new Date(now.getTime() + outboxProperties.getLeaseMillis());
+
+            batch = outboxMessageRepository.claim(owner, outboxProperties.getMaxAttempts(), now, lockedUntil, batchSize);
+
+            if (batch.isEmpty())
+                break;
+
+            worked = true;
+
+            if (this.publish(owner, batch) < batch.size())
+                break;
+
+        } while (batch.size() == batchSize);
+
+        if (worked) {
+            this.refreshState();
+        } else {
+            backlog.set(0);
+            oldestCreatedAt = 0;
+        }
+    }
+
+    /**
+     * max-attempts 를 넘겨 멈춘 메시지를 다시 보낸다. 바인딩이 없어 돌아온 메시지는 설정을 고친 뒤 이렇게 다시 간다.
+     * max-redrives 번 다시 보내도 안 되는 메시지는 dead letter 컬렉션으로 옮겨 더 이상 건드리지 않는다.
+     */
+    @Scheduled(fixedDelayString = "${jakduk.outbox.redrive-interval-millis}", initialDelayString = "${jakduk.outbox.redrive-interval-millis}")
+    public void redrive() {
+        Integer maxAttempts = outboxProperties.getMaxAttempts();
+        Integer maxRedrives = outboxProperties.getMaxRedrives();
+
+        long parked = outboxMessageRepository.deadLetter(maxAttempts, maxRedrives);
+
+        if (parked > 0) {
+            deadLetterCounter.increment(parked);
+            log.error("outbox messages exceeded max redrives and were moved to dead letter. count={}", parked);
+        }
+
+        long redriven = outboxMessageRepository.redrive(maxAttempts, maxRedrives);
+
+        if (redriven > 0)
+            log.warn("stuck outbox messages were redriven. count={}", redriven);
+
+        deadLetters.set(outboxMessageRepository.countDeadLetters());
+    }
+
+    /**
+     * 운영자가 고른 dead letter 메시지를 outbox 로 되돌린다. 시도 횟수와 redrive 횟수를 모두 새로 센다.
+     *
+     * @param ids 되돌릴 outbox 메시지 ID
+     * @return 되돌린 메시지 수
+     */
+    public long redriveDeadLetters(List<String> ids) {
+        long redriven = outboxMessageRepository.redriveDeadLetters(ids);
+
+        if (redriven > 0)
+            log.warn("dead letter outbox messages were redriven by operator. count={}, ids={}", redriven, ids);
+
+        deadLetters.set(outboxMessageRepository.countDeadLetters());
+
+        return redriven;
+    }
+
+    /**
+     * 선점한 한 묶음을 보내고 확인받은 메시지를 지운다.
+     *
+     * broker 가 메시지를 거절(nack)하거나 돌려보내면(return) 그 메시지의 attempts 를 올린다.
+     * 연결이 안 되거나 확인이 오지 않는 것은 broker 문제이므로 attempts 는 두고 deferrals 만큼 늘어나는 간격으로 미룬다.
+     *
+     * @return 확인받은 메시지 수
+     */
+    private int publish(String owner, List<OutboxMessage> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<CorrelationData> correlations = new ArrayList<>(batch.size());
+
+        for (OutboxMessage outboxMessage : batch) {
+            CorrelationData correlationData = new CorrelationData(outboxMessage.getId());
+
+            try {
+                rabbitTemplate.send(outboxMessage.getExchange(), outboxMessage.getRoutingKey(), toMessage(outboxMessage), correlationData);
+            } catch (AmqpException e) {
+                // 연결 문제라면 나머지도 실패할테니 보내지 못한 메시지를 모두 미루고 멈춘다.
+                batch.subList(correlations.size(), batch.size()).forEach(deferred -> this.release(owner, deferred, false, e.toString()));
+                break;
+            }
+
+            correlations.add(correlationData);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(outboxProperties.getConfirmTimeoutMillis());
+        List<String> confirmedIds = new ArrayList<>(correlations.size());
+
+        for (int i = 0; i < correlations.size(); i++) {
+            OutboxMessage outboxMessage = batch.get(i);
+            boolean countAttempt = false;
+            String error;
+
+            try {
+                CorrelationData correlationData = correlations.get(i);
+                CorrelationData.Confirm confirm = correlationData.getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+                if (confirm.isAck() && Objects.isNull(correlationData.getReturnedMessage())) {
+                    confirmedIds.add(outboxMessage.getId());
+                    continue;
+                }
+
+                countAttempt = true;
+                error = confirm.isAck() ? "returned: no queue is bound to " + outboxMessage.getRoutingKey() : "nack: " + confirm.getReason();
+            } catch (TimeoutException e) {
+                error = "confirm timeout";
+            } catch (ExecutionException e) {
+                error = e.getCause().toString();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "interrupted";
+            }
+
+            this.release(owner, outboxMessage, countAttempt, error);
+        }
+
+        if (! confirmedIds.isEmpty())
+            outboxMessageRepository.deleteClaimed(owner, confirmedIds);
+
+        sample.stop(publishTimer);
+        publishedCounter.increment(confirmedIds.size());
+
+        return confirmedIds.size();
+    }
+
+    /**
+     * 선점한 메시지를 놓아주고 retry-backoff-millis 부터 두배씩 max-retry-backoff-millis 까지 늘어나는 간격 뒤로 미룬다.
+     *
+     * @param countAttempt 메시지 탓이면 true. attempts 를 올린다
+     */
+    private void release(String owner, OutboxMessage outboxMessage, boolean countAttempt, String error) {
+        Integer failures = countAttempt ? outboxMessage.getAttempts() : outboxMessage.getDeferrals();
+        long backoffMillis = Math.min(outboxProperties.getRetryBackoffMillis() << Math.min(Objects.isNull(failures) ? 0 : failures, 20),
+                outboxProperties.getMaxRetryBackoffMillis());
+
+        outboxMessageRepository.release(owner, outboxMessage.getId(), countAttempt, new Date(System.currentTimeMillis() + backoffMillis), error);
+
+        if (countAttempt) {
+            failedCounter.increment();
+
+            log.warn("outbox message publish failed. id={}, routingKey={}, attempts={}, error={}", outboxMessage.getId(),
+                    outboxMessage.getRoutingKey(), outboxMessage.getAttempts() + 1, error);
+        } else {
+            deferredCounter.increment();
+
+            log.warn("outbox message publish deferred. id={}, routingKey={}, backoff={}ms, error={}", outboxMessage.getId(),
+                    outboxMessage.getRoutingKey(), backoffMillis, error);
+        }
+    }
+
+    private void refreshState() {
+        Integer maxAttempts = outboxProperties.getMaxAttempts();
+        List<OutboxMessage> oldest = outboxMessageRepository.findByAttemptsLessThanOrderByIdAsc(maxAttempts, PageRequest.of(0, 1));
+
+        oldestCreatedAt = oldest.isEmpty() ? 0 : oldest.get(0).getCreatedAt().getTime();
+        backlog.set(oldest.isEmpty() ? 0 : outboxMessageRepository.countByAttemptsLessThan(maxAttempts));
+        stuck.set(outboxMessageRepository.countByAttemptsGreaterThanEqual(maxAttempts));
+    }
+
+    private double getLagSeconds() {
+        long oldest = oldestCreatedAt;
+
+        return oldest == 0 ? 0 : (System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private static Message toMessage(OutboxMessage outboxMessage) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setContentType(outboxMessage.getContentType());
+        messageProperties.setContentEncoding(outboxMessage.getContentEncoding());
+
+        if (Objects.nonNull(outboxMessage.getHeaders()))
+            messageProperties.getHeaders().putAll(outboxMessage.getHeaders());
+
+        return new Message(outboxMessage.getBody(), messageProperties);
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.jakduk.api.common.rabbitmq;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.eventbus.InProcessEventBus;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.model.elasticsearch.EsArticle;
@@ -11,8 +12,10 @@ import com.jakduk.api.model.embedded.ArticleItem;
 import com.jakduk.api.model.embedded.CommonWriter;
 import com.jakduk.api.model.embedded.SimpleWriter;
 import com.jakduk.api.model.rabbitmq.EmailPayload;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -37,8 +40,14 @@ public class RabbitMQPublisher {
     private final String QUEUE_ELASTICSEARCH = "elasticsearch";
 
     @Resource private JakdukProperties.Rabbitmq rabbitmqProperties;
+    @Resource private JakdukProperties.Outbox outboxProperties;
+    @Resource private JakdukProperties.EventBus eventBusProperties;
 
     @Autowired private RabbitTemplate rabbitTemplate;
+    @Autowired private OutboxRelay outboxRelay;
+    @Autowired private InProcessEventBus inProcessEventBus;
+    @Autowired private MessageCodecs messageCodecs;
+    @Autowired private MeterRegistry meterRegistry;
 
     public void sendWelcome(Locale locale, String recipientEmail, String userName) {
         EmailPayload emailPayload = new EmailPayload();
@@ -95,8 +104,8 @@ public class RabbitMQPublisher {
         esArticle.setBoard(board);
         esArticle.setCategory(category);
         esArticle.setWriter(writer);
-        esArticle.setSubject(JakdukUtils.stripHtmlTag(subject));
-        esArticle.setContent(JakdukUtils.stripHtmlTag(content));
+        esArticle.setSubject(JakdukUtils.htmlToText(subject));
+        esArticle.setContent(JakdukUtils.htmlToText(content));
         esArticle.setGalleries(galleryIds);
 
         String routingKey = rabbitmqProperties.getRoutingKeys().get(ElasticsearchRoutingKey.ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE.getRoutingKey());
@@ -113,7 +122,7 @@ public class RabbitMQPublisher {
         EsComment esComment = new EsComment();
         esComment.setId(id);
         esComment.setArticle(articleItem);
-        esComment.setContent(JakdukUtils.stripHtmlTag(content));
+        esComment.setContent(JakdukUtils.htmlToText(content));
         esComment.setGalleries(galleryIds);
 
         String routingKey = rabbitmqProperties.getRoutingKeys().get(ElasticsearchRoutingKey.ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE_COMMENT.getRoutingKey());
@@ -151,18 +160,35 @@ public class RabbitMQPublisher {
     }
 
     public void publishEmail(String routingKey, EmailPayload message) {
-        if (rabbitmqProperties.getQueues().get(QUEUE_EMAIL).getEnabled()) {
-            rabbitTemplate.convertAndSend(rabbitmqProperties.getExchangeName(), routingKey, message);
-        } else {
-            log.info("Can not publish message. {} queue is disabled.", QUEUE_EMAIL);
-        }
+        this.publish(QUEUE_EMAIL, routingKey, message);
     }
 
     public void publishElasticsearch(String routingKey, Object message) {
-        if (rabbitmqProperties.getQueues().get(QUEUE_ELASTICSEARCH).getEnabled()) {
-            rabbitTemplate.convertAndSend(rabbitmqProperties.getExchangeName(), routingKey, message);
+        this.publish(QUEUE_ELASTICSEARCH, routingKey, message);
+    }
+
+    /**
+     * 큐 별 codec 으로 메시지를 만들어 outbox 가 켜져 있으면 outbox 에 쌓고, 아니면 바로 보낸다.
+     * 큐가 꺼져 있으면 event-bus 가 켜져 있을 때 같은 프로세스의 리스너로 넘기고, 아니면 버린 수를 jakduk.rabbitmq.dropped 로 남긴다.
+     */
+    private void publish(String queue, String routingKey, Object message) {
+        if (! rabbitmqProperties.getQueues().get(queue).getEnabled()) {
+            if (eventBusProperties.getEnabled()) {
+                inProcessEventBus.publish(queue, routingKey, message);
+                return;
+            }
+
+            meterRegistry.counter("jakduk.rabbitmq.dropped", "queue", queue).increment();
+            log.warn("Can not publish message. {} queue is disabled. routingKey={}", queue, routingKey);
+            return;
+        }
+
+        Message amqpMessage = messageCodecs.toMessage(queue, message);
+
+        if (outboxProperties.getEnabled()) {
+            outboxRelay.enqueue(rabbitmqProperties.getExchangeName(), routingKey, amqpMessage);
         } else {
-            log.info("Can not publish message. {} queue is disabled.", QUEUE_ELASTICSEARCH);
+            rabbitTemplate.send(rabbitmqProperties.getExchangeName(), routingKey, amqpMessage);
         }
     }
 
@@ -106,15 +106,14 @@ public class FileUtils {
     }
 
     /**
-     * 파일 스트림 읽기
+     * 이미지 파일 경로 가져오기
      *
      * @param imagePath     파일 최상위 경로
      * @param localDate     파일 작성일 (년/월/일 로 폴더 나뉘어짐)
      * @param fileName      파일 제목 (확장자 제외)
      * @param contentType   콘텐츠 타입
-     * @throws IOException  예외 처리 필요함
      */
-    public static ByteArrayOutputStream readImageFile(String imagePath, LocalDate localDate, String fileName, String contentType) throws IOException {
+    public static Path getImageFilePath(String imagePath, LocalDate localDate, String fileName, String contentType) {
 
         // 사진 포맷.
         String formatName = StringUtils.split(contentType, "/")[1];
@@ -122,22 +121,10 @@ public class FileUtils {
         Path filePath = Paths.get(imagePath, String.valueOf(localDate.getYear()), String.valueOf(localDate.getMonthValue()),
                 String.valueOf(localDate.getDayOfMonth()), fileName + "." + formatName);
 
-        if (Files.exists(filePath, LinkOption.NOFOLLOW_LINKS)) {
-            BufferedInputStream in = new BufferedInputStream(new FileInputStream(filePath.toString()));
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream(512);
-
-            int imageByte;
-
-            while ((imageByte = in.read()) != -1){
-                byteStream.write(imageByte);
-            }
-
-            in.close();
-            return byteStream;
-
-        } else {
+        if (Files.notExists(filePath, LinkOption.NOFOLLOW_LINKS))
             throw new ServiceException(ServiceError.NOT_FOUND_GALLERY_FILE);
-        }
+
+        return filePath;
     }
 
     /**
@@ -9,16 +9,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.RandomStringGenerator;
 import org.jsoup.Jsoup;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 
-import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.text.MessageFormat;
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * @author pyohwan
@@ -29,6 +27,36 @@ public class JakdukUtils {
 
     private final static String GALLERIES_FOR_REMOVAL = ":galleries_for_removal";
 
+    // 앞뒤에 공백을 넣지 않는 태그. 나머지 태그는 공백으로 바꾼다.
+    private final static String[] INLINE_TAGS = {"a", "abbr", "b", "bdi", "bdo", "big", "cite", "code", "em", "font", "i", "img",
+            "kbd", "mark", "q", "s", "small", "span", "strike", "strong", "sub", "sup", "u", "var"};
+
+    private final static Map<String, Integer> HTML_ENTITIES;
+
+    static {
+        Map<String, Integer> entities = new HashMap<>();
+        entities.put("amp", (int) '&');
+        entities.put("lt", (int) '<');
+        entities.put("gt", (int) '>');
+        entities.put("quot", (int) '"');
+        entities.put("apos", (int) '\'');
+        entities.put("nbsp", 0xa0);
+        entities.put("copy", 0xa9);
+        entities.put("reg", 0xae);
+        entities.put("middot", 0xb7);
+        entities.put("laquo", 0xab);
+        entities.put("raquo", 0xbb);
+        entities.put("ndash", 0x2013);
+        entities.put("mdash", 0x2014);
+        entities.put("lsquo", 0x2018);
+        entities.put("rsquo", 0x2019);
+        entities.put("ldquo", 0x201c);
+        entities.put("rdquo", 0x201d);
+        entities.put("hellip", 0x2026);
+
+        HTML_ENTITIES = Collections.unmodifiableMap(entities);
+    }
+
     private static RandomStringGenerator generator = new RandomStringGenerator.Builder()
             .withinRange('a', 'z')
             .build();
@@ -106,32 +134,108 @@ public class JakdukUtils {
     }
 
     /**
-     * 쿠키를 저장한다. 이미 있다면 저장하지 않는다.
+     * HTML TAG를 제거한다. DOM 을 만들지 않고 한번 훑으면서 글자만 옮긴다.
      *
-     * @param request HttpServletRequest
-     * @param response HttpServletResponse
-     * @param prefix 쿠키 이름의 Prefix
-     * @param id 쿠키 이름에 쓰일 고유 ID
-     * @return 쿠키를 새로 저장했다면 true, 아니면 false.
+     * stripHtmlTag(Jsoup) 와 같이 블록 태그와 br 은 공백으로 바꾸고, 연이은 공백은 하나로 줄이고, 앞뒤 공백은 없앤다.
+     * script, style, 주석 안의 내용은 버리고, 엔티티(&amp;amp; &amp;#39; &amp;#x27; 등)는 글자로 바꾼다.
+     * 요청마다 본문을 글자로 바꿔야 하는 곳에서 쓴다.
      */
-    public static Boolean addViewsCookie(HttpServletRequest request, HttpServletResponse response, Constants.VIEWS_COOKIE_TYPE prefix, String id) {
-
-        String cookieName = prefix + "_" + id;
-        Cookie[] cookies = request.getCookies();
-        Optional<Cookie> findCookie = Objects.isNull(cookies) ? Optional.empty() : Stream.of(cookies)
-                .filter(cookie -> cookie.getName().equals(cookieName))
-                .findAny();
-
-        if (! findCookie.isPresent()) {
-            Cookie cookie = new Cookie(cookieName, "r");
-            cookie.setHttpOnly(true);
-            cookie.setMaxAge(Constants.VIEWS_COOKIE_EXPIRE_SECONDS);
-            response.addCookie(cookie);
-
-            return true;
-        } else {
-            return false;
+    public static String htmlToText(String html) {
+        if (StringUtils.isBlank(html))
+            return StringUtils.EMPTY;
+
+        int length = html.length();
+        StringBuilder text = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int lastTagEnd = html.lastIndexOf('>'); // 이 뒤에서 시작하는 태그는 닫힐 수 없다
+        int i = 0;
+
+        while (i < length) {
+            char c = html.charAt(i);
+
+            if (c == '<' && i + 1 < length) {
+                char next = html.charAt(i + 1);
+
+                if (html.startsWith("<!--", i)) {
+                    int end = html.indexOf("-->", i + 4);
+                    i = end < 0 ? length : end + 3;
+                    continue;
+                }
+
+                int nameStart = next == '/' ? i + 2 : i + 1;
+                int nameEnd = nameStart;
+
+                while (nameEnd < length && Character.isLetterOrDigit(html.charAt(nameEnd)))
+                    nameEnd++;
+
+                // '>' 로 닫히지 않은 태그는 태그가 아니라 글자로 본다. 뒤의 본문을 모두 버리지 않도록.
+                int end = (Character.isLetter(next) || next == '/' || next == '!' || next == '?') && nameEnd <= lastTagEnd
+                        ? findTagEnd(html, nameEnd) : -1;
+
+                if (end >= 0) {
+                    i = end + 1;
+
+                    if (next != '/' && (isTagName(html, nameStart, nameEnd, "script") || isTagName(html, nameStart, nameEnd, "style"))) {
+                        i = skipRawText(html, i, nameEnd - nameStart == 6 ? "script" : "style");
+                        pendingSpace = true;
+                    } else if (! isInlineTag(html, nameStart, nameEnd)) {
+                        pendingSpace = true;
+                    }
+
+                    continue;
+                }
+            }
+
+            int codePoint = c;
+            int consumed = 1;
+
+            if (c == '&') {
+                // 엔티티는 길지 않으므로 ';' 는 가까운 곳에서만 찾는다. 없으면 '&' 를 그대로 둔다.
+                int end = i + 1;
+                int searchEnd = Math.min(i + 12, length);
+
+                while (end < searchEnd && html.charAt(end) != ';')
+                    end++;
+
+                if (end < searchEnd && end > i + 1) {
+                    int decoded = decodeEntity(html, i + 1, end);
+
+                    if (decoded >= 0) {
+                        codePoint = decoded;
+                        consumed = end - i + 1;
+                    }
+                }
+            }
+
+            i += consumed;
+
+            if (Character.isWhitespace(codePoint) || codePoint == '\u00a0') {
+                pendingSpace = true;
+                continue;
+            }
+
+            if (pendingSpace && text.length() > 0)
+                text.append(' ');
+
+            pendingSpace = false;
+            text.appendCodePoint(codePoint);
         }
+
+        return text.toString();
+    }
+
+    /**
+     * 읽음 중복 확인에 쓸 방문자 구분 값. 회원은 회원 ID, 비회원은 IP 와 User-Agent 로 구분한다.
+     * 프록시 뒤에서는 server.use-forward-headers 가 getRemoteAddr 를 X-Forwarded-For 의 IP 로 바꿔준다.
+     *
+     * @param request HttpServletRequest
+     * @param commonWriter 회원. 비회원이면 null
+     */
+    public static String getVisitorId(HttpServletRequest request, CommonWriter commonWriter) {
+        if (Objects.nonNull(commonWriter))
+            return commonWriter.getUserId();
+
+        return request.getRemoteAddr() + "|" + StringUtils.defaultString(request.getHeader(HttpHeaders.USER_AGENT));
     }
 
     /**
@@ -253,4 +357,94 @@ public class JakdukUtils {
         return localName;
     }
 
+    /**
+     * 태그가 끝나는 '>' 위치. 따옴표 안의 '>' 는 건너뛴다.
+     */
+    private static int findTagEnd(String html, int from) {
+        char quote = 0;
+
+        for (int i = from; i < html.length(); i++) {
+            char c = html.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote)
+                    quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * script, style 이 닫히는 태그 다음 위치.
+     */
+    private static int skipRawText(String html, int from, String tagName) {
+        int i = from;
+
+        while ((i = html.indexOf("</", i)) >= 0) {
+            if (isTagName(html, i + 2, Math.min(html.length(), i + 2 + tagName.length()), tagName)) {
+                int end = findTagEnd(html, i + 2 + tagName.length());
+                return end < 0 ? html.length() : end + 1;
+            }
+
+            i += 2;
+        }
+
+        return html.length();
+    }
+
+    private static boolean isTagName(String html, int start, int end, String tagName) {
+        return end - start == tagName.length() && html.regionMatches(true, start, tagName, 0, tagName.length());
+    }
+
+    private static boolean isInlineTag(String html, int start, int end) {
+        for (String tagName : INLINE_TAGS) {
+            if (isTagName(html, start, end, tagName))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * 엔티티를 코드 포인트로 바꾼다. 모르는 엔티티면 -1.
+     *
+     * @param start '&amp;' 다음 위치
+     * @param end ';' 위치
+     */
+    private static int decodeEntity(String html, int start, int end) {
+        if (html.charAt(start) != '#')
+            return HTML_ENTITIES.getOrDefault(html.substring(start, end), -1);
+
+        boolean hex = start + 1 < end && (html.charAt(start + 1) == 'x' || html.charAt(start + 1) == 'X');
+        int digitsStart = hex ? start + 2 : start + 1;
+
+        if (digitsStart >= end)
+            return -1;
+
+        int codePoint = 0;
+
+        for (int i = digitsStart; i < end; i++) {
+            int digit = Character.digit(html.charAt(i), hex ? 16 : 10);
+
+            if (digit < 0)
+                return -1;
+
+            codePoint = codePoint * (hex ? 16 : 10) + digit;
+
+            if (codePoint > Character.MAX_CODE_POINT)
+                return -1;
+        }
+
+        // NUL 과 surrogate 는 글자가 아니다.
+        if (codePoint == 0 || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE))
+            return -1;
+
+        return codePoint;
+    }
+
 }
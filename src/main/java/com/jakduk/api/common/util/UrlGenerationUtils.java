@@ -99,4 +99,18 @@ public class UrlGenerationUtils {
         return uriComponents.toUriString();
     }
 
+    /**
+     * 사이트맵 파일 URL 생성
+     *
+     * @param shard 사이트맵 파일 번호
+     */
+    public String generateSitemapUrl(Integer shard) {
+
+        UriComponents uriComponents = UriComponentsBuilder.fromHttpUrl(jakdukProperties.getApiServerUrl())
+                .path("/sitemap/{shard}")
+                .buildAndExpand(shard);
+
+        return uriComponents.toUriString();
+    }
+
 }
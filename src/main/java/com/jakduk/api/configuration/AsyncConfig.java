@@ -2,12 +2,15 @@ package com.jakduk.api.configuration;
 
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.aop.interceptor.SimpleAsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import javax.annotation.Resource;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * @author pyohwan
@@ -18,6 +21,8 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig implements AsyncConfigurer {
 
+    @Resource private JakdukProperties.Home homeProperties;
+
     @Override
     public Executor getAsyncExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -33,4 +38,20 @@ public class AsyncConfig implements AsyncConfigurer {
         return new SimpleAsyncUncaughtExceptionHandler();
     }
 
+    /**
+     * 홈 최근 데이터 섹션들을 동시에 가져오는 executor.
+     * 대기열이 차면 요청 쓰레드가 직접 처리한다.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor homeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(homeProperties.getExecutorPoolSize());
+        executor.setMaxPoolSize(homeProperties.getExecutorPoolSize());
+        executor.setQueueCapacity(homeProperties.getExecutorQueueCapacity());
+        executor.setThreadNamePrefix("jakduk-home-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+        return executor;
+    }
+
 }
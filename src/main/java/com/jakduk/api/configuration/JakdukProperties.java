@@ -1,5 +1,6 @@
 package com.jakduk.api.configuration;
 
+import com.jakduk.api.common.Constants;
 import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +26,17 @@ public class JakdukProperties {
     private Rabbitmq rabbitmq = new Rabbitmq();
     private Elasticsearch elasticsearch = new Elasticsearch();
     private Storage storage = new Storage();
+    private ArticleViews articleViews = new ArticleViews();
+    private Home home = new Home();
+    private Sitemap sitemap = new Sitemap();
+    private Rss rss = new Rss();
+    private ArticleCounters articleCounters = new ArticleCounters();
+    private Board board = new Board();
+    private Sequence sequence = new Sequence();
+    private Outbox outbox = new Outbox();
+    private EventBus eventBus = new EventBus();
+    private EmailSender emailSender = new EmailSender();
+    private Scheduler scheduler = new Scheduler();
 
     public String getRememberMeSeed() {
         return rememberMeSeed;
@@ -98,6 +110,94 @@ public class JakdukProperties {
         this.storage = storage;
     }
 
+    public ArticleViews getArticleViews() {
+        return articleViews;
+    }
+
+    public void setArticleViews(ArticleViews articleViews) {
+        this.articleViews = articleViews;
+    }
+
+    public Home getHome() {
+        return home;
+    }
+
+    public void setHome(Home home) {
+        this.home = home;
+    }
+
+    public Sitemap getSitemap() {
+        return sitemap;
+    }
+
+    public void setSitemap(Sitemap sitemap) {
+        this.sitemap = sitemap;
+    }
+
+    public Rss getRss() {
+        return rss;
+    }
+
+    public void setRss(Rss rss) {
+        this.rss = rss;
+    }
+
+    public ArticleCounters getArticleCounters() {
+        return articleCounters;
+    }
+
+    public void setArticleCounters(ArticleCounters articleCounters) {
+        this.articleCounters = articleCounters;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public void setBoard(Board board) {
+        this.board = board;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    public EmailSender getEmailSender() {
+        return emailSender;
+    }
+
+    public void setEmailSender(EmailSender emailSender) {
+        this.emailSender = emailSender;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public Sequence getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Sequence sequence) {
+        this.sequence = sequence;
+    }
+
     @Configuration
     @ConfigurationProperties("jakduk.api-url-path")
     public class ApiUrlPath {
@@ -278,6 +378,7 @@ public class JakdukProperties {
         private String thumbnailPath;
         private String userPictureLargePath;
         private String userPictureSmallPath;
+        private String sitemapPath;
 
         public String getImagePath() {
             return imagePath;
@@ -310,6 +411,492 @@ public class JakdukProperties {
         public void setUserPictureSmallPath(String userPictureSmallPath) {
             this.userPictureSmallPath = userPictureSmallPath;
         }
+
+        public String getSitemapPath() {
+            return sitemapPath;
+        }
+
+        public void setSitemapPath(String sitemapPath) {
+            this.sitemapPath = sitemapPath;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.article-views")
+    public class ArticleViews {
+        private Long flushIntervalMillis; // 읽음수를 DB에 반영하는 주기
+        private Integer maxPendingKeys; // 메모리에 쌓아둘 수 있는 최대 글 수
+        private Long dedupWindowMillis; // 같은 방문자가 같은 글을 다시 읽어도 읽음수를 올리지 않는 시간
+        private Long dedupExpectedViews; // 한 구간 동안 예상하는 (방문자, 글) 수
+        private Double dedupFalsePositiveRate; // 처음 읽었는데 읽은 적 있다고 잘못 판단하는 비율
+        private Long dedupMaxMemoryBytes; // 중복 확인에 쓰는 최대 메모리. 필터 두 개의 합
+
+        public Long getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(Long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public Integer getMaxPendingKeys() {
+            return maxPendingKeys;
+        }
+
+        public void setMaxPendingKeys(Integer maxPendingKeys) {
+            this.maxPendingKeys = maxPendingKeys;
+        }
+
+        public Long getDedupWindowMillis() {
+            return dedupWindowMillis;
+        }
+
+        public void setDedupWindowMillis(Long dedupWindowMillis) {
+            this.dedupWindowMillis = dedupWindowMillis;
+        }
+
+        public Long getDedupExpectedViews() {
+            return dedupExpectedViews;
+        }
+
+        public void setDedupExpectedViews(Long dedupExpectedViews) {
+            this.dedupExpectedViews = dedupExpectedViews;
+        }
+
+        public Double getDedupFalsePositiveRate() {
+            return dedupFalsePositiveRate;
+        }
+
+        public void setDedupFalsePositiveRate(Double dedupFalsePositiveRate) {
+            this.dedupFalsePositiveRate = dedupFalsePositiveRate;
+        }
+
+        public Long getDedupMaxMemoryBytes() {
+            return dedupMaxMemoryBytes;
+        }
+
+        public void setDedupMaxMemoryBytes(Long dedupMaxMemoryBytes) {
+            this.dedupMaxMemoryBytes = dedupMaxMemoryBytes;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.home")
+    public class Home {
+        private Long latestItemsCacheTtlMillis; // 홈 최근 데이터 캐시 유지 시간
+        private Long sectionTimeoutMillis; // 홈 최근 데이터 섹션별 최대 대기 시간
+        private Integer executorPoolSize; // 홈 최근 데이터를 가져오는 쓰레드 수
+        private Integer executorQueueCapacity; // 홈 최근 데이터 작업 대기열 크기
+        private Long encyclopediaRefreshIntervalMillis; // 백과사전 목록을 다시 읽는 주기
+
+        public Long getLatestItemsCacheTtlMillis() {
+            return latestItemsCacheTtlMillis;
+        }
+
+        public void setLatestItemsCacheTtlMillis(Long latestItemsCacheTtlMillis) {
+            this.latestItemsCacheTtlMillis = latestItemsCacheTtlMillis;
+        }
+
+        public Long getSectionTimeoutMillis() {
+            return sectionTimeoutMillis;
+        }
+
+        public void setSectionTimeoutMillis(Long sectionTimeoutMillis) {
+            this.sectionTimeoutMillis = sectionTimeoutMillis;
+        }
+
+        public Integer getExecutorPoolSize() {
+            return executorPoolSize;
+        }
+
+        public void setExecutorPoolSize(Integer executorPoolSize) {
+            this.executorPoolSize = executorPoolSize;
+        }
+
+        public Integer getExecutorQueueCapacity() {
+            return executorQueueCapacity;
+        }
+
+        public void setExecutorQueueCapacity(Integer executorQueueCapacity) {
+            this.executorQueueCapacity = executorQueueCapacity;
+        }
+
+        public Long getEncyclopediaRefreshIntervalMillis() {
+            return encyclopediaRefreshIntervalMillis;
+        }
+
+        public void setEncyclopediaRefreshIntervalMillis(Long encyclopediaRefreshIntervalMillis) {
+            this.encyclopediaRefreshIntervalMillis = encyclopediaRefreshIntervalMillis;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.sitemap")
+    public class Sitemap {
+        private Integer urlsPerFile; // 사이트맵 파일 하나에 들어가는 글 seq 범위 (최대 50,000)
+        private Long refreshIntervalMillis; // 바뀐 글을 사이트맵에 반영하는 주기
+        private String rebuildCron; // 사이트맵 전체를 다시 만드는 시각
+
+        public Integer getUrlsPerFile() {
+            return urlsPerFile;
+        }
+
+        public void setUrlsPerFile(Integer urlsPerFile) {
+            this.urlsPerFile = urlsPerFile;
+        }
+
+        public Long getRefreshIntervalMillis() {
+            return refreshIntervalMillis;
+        }
+
+        public void setRefreshIntervalMillis(Long refreshIntervalMillis) {
+            this.refreshIntervalMillis = refreshIntervalMillis;
+        }
+
+        public String getRebuildCron() {
+            return rebuildCron;
+        }
+
+        public void setRebuildCron(String rebuildCron) {
+            this.rebuildCron = rebuildCron;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.rss")
+    public class Rss {
+        private Integer maxItems; // RSS 피드에 들어가는 최대 글 수
+        private Long ttlMillis; // 만든 피드를 들고 있는 최대 시간
+
+        public Integer getMaxItems() {
+            return maxItems;
+        }
+
+        public void setMaxItems(Integer maxItems) {
+            this.maxItems = maxItems;
+        }
+
+        public Long getTtlMillis() {
+            return ttlMillis;
+        }
+
+        public void setTtlMillis(Long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.article-counters")
+    public class ArticleCounters {
+        private Boolean backfillOnStartup; // 기동할 때 카운터가 없는 글을 채울지 여부
+        private String reconcileCron; // 카운터를 실제 값과 맞추는 주기
+        private Integer batchSize; // 한번에 맞춰보는 글 수
+
+        public Boolean getBackfillOnStartup() {
+            return backfillOnStartup;
+        }
+
+        public void setBackfillOnStartup(Boolean backfillOnStartup) {
+            this.backfillOnStartup = backfillOnStartup;
+        }
+
+        public String getReconcileCron() {
+            return reconcileCron;
+        }
+
+        public void setReconcileCron(String reconcileCron) {
+            this.reconcileCron = reconcileCron;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.board")
+    public class Board {
+        private Long totalCountCacheTtlMillis; // 글 목록 전체 글 수 캐시 유지 시간
+        private Long topsCheckIntervalMillis; // 주간 선두 글을 다시 만들지 확인하는 주기
+        private Long topsRefreshIntervalMillis; // 주간 선두 글을 다시 만드는 주기
+        private Integer topsRefreshWrites; // 이만큼 글, 댓글, 감정 표현이 쌓이면 주기를 기다리지 않고 다시 만든다
+
+        public Long getTotalCountCacheTtlMillis() {
+            return totalCountCacheTtlMillis;
+        }
+
+        public void setTotalCountCacheTtlMillis(Long totalCountCacheTtlMillis) {
+            this.totalCountCacheTtlMillis = totalCountCacheTtlMillis;
+        }
+
+        public Long getTopsCheckIntervalMillis() {
+            return topsCheckIntervalMillis;
+        }
+
+        public void setTopsCheckIntervalMillis(Long topsCheckIntervalMillis) {
+            this.topsCheckIntervalMillis = topsCheckIntervalMillis;
+        }
+
+        public Long getTopsRefreshIntervalMillis() {
+            return topsRefreshIntervalMillis;
+        }
+
+        public void setTopsRefreshIntervalMillis(Long topsRefreshIntervalMillis) {
+            this.topsRefreshIntervalMillis = topsRefreshIntervalMillis;
+        }
+
+        public Integer getTopsRefreshWrites() {
+            return topsRefreshWrites;
+        }
+
+        public void setTopsRefreshWrites(Integer topsRefreshWrites) {
+            this.topsRefreshWrites = topsRefreshWrites;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.sequence")
+    public class Sequence {
+        private Integer defaultBlockSize = 1; // 한번에 예약하는 번호 수
+        private Map<String, Integer> blockSizes = new HashMap<>(); // 시퀀스 이름 별 한번에 예약하는 번호 수
+
+        public Integer getDefaultBlockSize() {
+            return defaultBlockSize;
+        }
+
+        public void setDefaultBlockSize(Integer defaultBlockSize) {
+            this.defaultBlockSize = defaultBlockSize;
+        }
+
+        public Map<String, Integer> getBlockSizes() {
+            return blockSizes;
+        }
+
+        public void setBlockSizes(Map<String, Integer> blockSizes) {
+            this.blockSizes = blockSizes;
+        }
+
+        public int getBlockSize(String name) {
+            return blockSizes.getOrDefault(name, defaultBlockSize);
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.outbox")
+    public class Outbox {
+        private Boolean enabled = false; // 메시지를 outbox 컬렉션에 쌓았다가 따로 보낼지 여부. false 면 요청 스레드에서 바로 보낸다
+        private Long relayIntervalMillis; // outbox 를 비우는 주기
+        private Integer batchSize; // 한번에 보내고 확인을 기다리는 메시지 수
+        private Long confirmTimeoutMillis; // broker 의 확인을 기다리는 최대 시간
+        private Integer maxAttempts; // broker 가 이만큼 거절한 메시지는 redrive 때까지 보내지 않는다
+        private Long leaseMillis; // 선점한 메시지를 다른 서버가 가져가지 못하는 시간. confirm-timeout-millis 보다 길어야 한다
+        private Long retryBackoffMillis; // 실패한 메시지를 다시 보내기 전에 처음 기다리는 시간. 실패할 때마다 두배가 된다
+        private Long maxRetryBackoffMillis; // 다시 보내기 전에 기다리는 최대 시간
+        private Long redriveIntervalMillis; // max-attempts 를 넘긴 메시지를 다시 살리는 주기
+        private Integer maxRedrives; // 이만큼 다시 살려도 보내지 못한 메시지는 dead letter 컬렉션으로 옮긴다
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Long getRelayIntervalMillis() {
+            return relayIntervalMillis;
+        }
+
+        public void setRelayIntervalMillis(Long relayIntervalMillis) {
+            this.relayIntervalMillis = relayIntervalMillis;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Long getConfirmTimeoutMillis() {
+            return confirmTimeoutMillis;
+        }
+
+        public void setConfirmTimeoutMillis(Long confirmTimeoutMillis) {
+            this.confirmTimeoutMillis = confirmTimeoutMillis;
+        }
+
+        public Integer getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(Integer maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Long getLeaseMillis() {
+            return leaseMillis;
+        }
+
+        public void setLeaseMillis(Long leaseMillis) {
+            this.leaseMillis = leaseMillis;
+        }
+
+        public Long getRetryBackoffMillis() {
+            return retryBackoffMillis;
+        }
+
+        public void setRetryBackoffMillis(Long retryBackoffMillis) {
+            this.retryBackoffMillis = retryBackoffMillis;
+        }
+
+        public Long getMaxRetryBackoffMillis() {
+            return maxRetryBackoffMillis;
+        }
+
+        public void setMaxRetryBackoffMillis(Long maxRetryBackoffMillis) {
+            this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+        }
+
+        public Long getRedriveIntervalMillis() {
+            return redriveIntervalMillis;
+        }
+
+        public void setRedriveIntervalMillis(Long redriveIntervalMillis) {
+            this.redriveIntervalMillis = redriveIntervalMillis;
+        }
+
+        public Integer getMaxRedrives() {
+            return maxRedrives;
+        }
+
+        public void setMaxRedrives(Integer maxRedrives) {
+            this.maxRedrives = maxRedrives;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.event-bus")
+    public class EventBus {
+        private Boolean enabled = false; // 꺼둔 큐의 메시지를 RabbitMQ 대신 같은 프로세스의 리스너로 넘길지 여부
+        private Integer poolSize; // 리스너를 부르는 스레드 수
+        private Integer queueCapacity; // 처리를 기다릴 수 있는 최대 메시지 수
+        private Constants.EVENT_BUS_OVERFLOW_POLICY overflowPolicy; // 다 찼을 때
+        private Long blockTimeoutMillis; // BLOCK 일 때 자리가 나기를 기다리는 최대 시간. 넘으면 버린다
+        private String spillPath; // SPILL 일 때 넘친 메시지를 적어두는 디렉토리
+        private Long spillDrainIntervalMillis; // 적어둔 메시지를 다시 읽어 넣는 주기
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(Integer poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public Integer getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Constants.EVENT_BUS_OVERFLOW_POLICY getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(Constants.EVENT_BUS_OVERFLOW_POLICY overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public Long getBlockTimeoutMillis() {
+            return blockTimeoutMillis;
+        }
+
+        public void setBlockTimeoutMillis(Long blockTimeoutMillis) {
+            this.blockTimeoutMillis = blockTimeoutMillis;
+        }
+
+        public String getSpillPath() {
+            return spillPath;
+        }
+
+        public void setSpillPath(String spillPath) {
+            this.spillPath = spillPath;
+        }
+
+        public Long getSpillDrainIntervalMillis() {
+            return spillDrainIntervalMillis;
+        }
+
+        public void setSpillDrainIntervalMillis(Long spillDrainIntervalMillis) {
+            this.spillDrainIntervalMillis = spillDrainIntervalMillis;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.email-sender")
+    public class EmailSender {
+        private Double sendRatePerSecond; // 초당 보내는 최대 메일 수. 0 이면 제한하지 않는다
+        private Integer maxMessagesPerConnection; // SMTP 연결 하나로 보내는 최대 메일 수. 넘으면 다시 연결한다
+
+        public Double getSendRatePerSecond() {
+            return sendRatePerSecond;
+        }
+
+        public void setSendRatePerSecond(Double sendRatePerSecond) {
+            this.sendRatePerSecond = sendRatePerSecond;
+        }
+
+        public Integer getMaxMessagesPerConnection() {
+            return maxMessagesPerConnection;
+        }
+
+        public void setMaxMessagesPerConnection(Integer maxMessagesPerConnection) {
+            this.maxMessagesPerConnection = maxMessagesPerConnection;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.scheduler")
+    public class Scheduler {
+        private Integer poolSize; // @Scheduled 작업들이 같이 쓰는 쓰레드 수. 오래 걸리는 작업이 다른 작업을 막지 않도록 작업 수보다 작게 잡지 않는다
+
+        public Integer getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(Integer poolSize) {
+            this.poolSize = poolSize;
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties("jakduk.reference-data")
+    public class ReferenceData {
+        private Long refreshIntervalMillis; // 축구단, 대회 기준 데이터를 다시 만드는 주기
+
+        public Long getRefreshIntervalMillis() {
+            return refreshIntervalMillis;
+        }
+
+        public void setRefreshIntervalMillis(Long refreshIntervalMillis) {
+            this.refreshIntervalMillis = refreshIntervalMillis;
+        }
     }
 
 }
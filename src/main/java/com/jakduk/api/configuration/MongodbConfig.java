@@ -16,6 +16,8 @@ import javax.annotation.Resource;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -52,6 +54,15 @@ public class MongodbConfig extends AbstractMongoConfiguration {
         return new MongoClient(seeds);
     }
 
+    /**
+     * 모델에 선언한 인덱스(@CompoundIndexes)를 기동할 때 모두 만들도록, 모델 패키지의 @Document 를 처음부터 등록한다.
+     * 기본값(이 설정 클래스의 패키지)이면 처음 쓰일 때에서야 인덱스가 만들어진다.
+     */
+    @Override
+    protected Collection<String> getMappingBasePackages() {
+        return Collections.singleton("com.jakduk.api.model");
+    }
+
     @Override
     public CustomConversions customConversions() {
         List<Converter<?, ?>> converters = new ArrayList<>();
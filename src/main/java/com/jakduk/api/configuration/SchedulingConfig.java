@@ -0,0 +1,32 @@
+package com.jakduk.api.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.annotation.Resource;
+
+/**
+ * 주기적으로 도는 작업(읽음수 반영 등)을 위한 스케줄러 설정
+ *
+ * 메일, 색인 flush 와 outbox relay 는 외부 서버를 기다리고, 사이트맵, 카운터 맞추기는 컬렉션을 통째로 읽는다.
+ * 쓰레드가 모자라면 이런 작업 몇 개가 느려질 때 읽음수 반영 같은 짧은 작업이 밀리므로, pool-size 는 @Scheduled 작업 수보다 작게 잡지 않는다.
+ */
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Resource private JakdukProperties.Scheduler schedulerProperties;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(schedulerProperties.getPoolSize());
+        scheduler.setThreadNamePrefix("jakduk-scheduler-");
+
+        return scheduler;
+    }
+
+}
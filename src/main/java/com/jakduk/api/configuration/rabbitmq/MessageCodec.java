@@ -0,0 +1,68 @@
+package com.jakduk.api.configuration.rabbitmq;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.jakduk.api.common.util.ObjectMapperUtils;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * 큐 메시지 본문의 형식. content-type 헤더로 구분하므로 받는 쪽은 보낸 쪽 설정과 상관없이 읽을 수 있다.
+ */
+
+public enum MessageCodec {
+
+    JSON("application/json", ObjectMapperUtils.getObjectMapper()),
+    SMILE("application/x-jackson-smile", configure(new ObjectMapper(new SmileFactory()))),
+    CBOR("application/cbor", configure(new ObjectMapper(new CBORFactory())));
+
+    private String contentType;
+    private ObjectMapper objectMapper;
+
+    MessageCodec(String contentType, ObjectMapper objectMapper) {
+        this.contentType = contentType;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * content-type 으로 형식을 찾는다. 없거나 모르는 형식이면 JSON 으로 본다.
+     */
+    static public MessageCodec fromContentType(String contentType) {
+        if (Objects.nonNull(contentType)) {
+            for (MessageCodec codec : MessageCodec.values()) {
+                if (contentType.startsWith(codec.contentType))
+                    return codec;
+            }
+        }
+
+        return JSON;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] encode(Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    public <T> T decode(byte[] src, Class<T> type) throws IOException {
+        return objectMapper.readValue(src, type);
+    }
+
+    // ObjectMapperUtils 와 같은 설정
+    private static ObjectMapper configure(ObjectMapper objectMapper) {
+        return objectMapper
+                .registerModule(new JavaTimeModule())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+}
@@ -9,6 +9,17 @@ public class RabbitMQ {
     private String bindingQueueName;
     private String bindingRoutingKey;
     private Boolean enabled;
+    private Integer batchSize; // 한번에 처리할 최대 메시지 수
+    private Long batchWaitMillis; // 배치가 다 차지 않았을 때 기다리는 최대 시간
+    private Integer maxRetries; // 실패한 메시지를 다시 보내는 최대 횟수. 넘으면 dead letter 큐로 보낸다.
+    private Integer concurrency; // 처음 띄우는 consumer 수. 없으면 spring.rabbitmq.listener.simple 을 따른다.
+    private Integer maxConcurrency; // 메시지가 밀리면 늘릴 수 있는 최대 consumer 수
+    private Integer prefetch; // consumer 하나가 ack 하지 않고 받아둘 수 있는 메시지 수
+    private MessageCodec codec; // 보내는 메시지 본문 형식. 없으면 JSON
+    private Integer compressThresholdBytes; // 본문이 이보다 크면 deflate 로 압축한다. 없으면 압축하지 않는다.
+    private Long retryBackoffMillis; // 보낼 곳(엘라스틱서치, SMTP 서버)이 통째로 안 될 때 처음 쉬는 시간. 계속 안 되면 두배씩 늘린다
+    private Long maxRetryBackoffMillis; // 통째로 안 될 때 쉬는 최대 시간
+    private Integer maxPending; // 모아두는 최대 메시지 수. 다 차면 같은 프로세스 이벤트 버스에서 오는 메시지를 받지 않는다
 
     public String getBindingQueueName() {
         return bindingQueueName;
@@ -33,4 +44,96 @@ public class RabbitMQ {
     public void setEnabled(Boolean enabled) {
         this.enabled = enabled;
     }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Long getBatchWaitMillis() {
+        return batchWaitMillis;
+    }
+
+    public void setBatchWaitMillis(Long batchWaitMillis) {
+        this.batchWaitMillis = batchWaitMillis;
+    }
+
+    public Integer getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(Integer maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(Integer maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public Integer getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(Integer prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public MessageCodec getCodec() {
+        return codec;
+    }
+
+    public void setCodec(MessageCodec codec) {
+        this.codec = codec;
+    }
+
+    public Integer getCompressThresholdBytes() {
+        return compressThresholdBytes;
+    }
+
+    public void setCompressThresholdBytes(Integer compressThresholdBytes) {
+        this.compressThresholdBytes = compressThresholdBytes;
+    }
+
+    public Long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(Long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public Long getMaxRetryBackoffMillis() {
+        return maxRetryBackoffMillis;
+    }
+
+    public void setMaxRetryBackoffMillis(Long maxRetryBackoffMillis) {
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+    }
+
+    public Integer getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(Integer maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public String getDeadLetterQueueName() {
+        return bindingQueueName + ".dead-letter";
+    }
 }
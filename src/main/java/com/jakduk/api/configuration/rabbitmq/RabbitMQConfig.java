@@ -2,19 +2,26 @@ package com.jakduk.api.configuration.rabbitmq;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jakduk.api.configuration.JakdukProperties;
+import org.springframework.amqp.core.AcknowledgeMode;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.Resource;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +31,9 @@ import java.util.stream.Collectors;
 @Configuration
 public class RabbitMQConfig {
 
+    private final String QUEUE_EMAIL = "email";
+    private final String QUEUE_ELASTICSEARCH = "elasticsearch";
+
     @Resource private JakdukProperties.Rabbitmq rabbitmqProperties;
 
     @Autowired private ObjectMapper objectMapper;
@@ -60,4 +70,72 @@ public class RabbitMQConfig {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 색인, 메일 발송을 max-retries 만큼 실패했거나 처리할 수 없는 메시지가 쌓이는 큐.
+     * List<Queue> 주입에 섞이지 않도록 Declarables 로 선언한다.
+     */
+    @Bean
+    public Declarables deadLetterQueues() {
+        RabbitMQ email = rabbitmqProperties.getQueues().get(QUEUE_EMAIL);
+        RabbitMQ elasticsearch = rabbitmqProperties.getQueues().get(QUEUE_ELASTICSEARCH);
+
+        return new Declarables(new Queue(email.getDeadLetterQueueName()), new Queue(elasticsearch.getDeadLetterQueueName()));
+    }
+
+    /**
+     * 엘라스틱서치 큐 전용 컨테이너.
+     * 메시지를 모아 bulk 로 색인한 뒤 메시지 별로 직접 ack 하므로 MANUAL 모드이다.
+     * consumer 하나가 batch-size 를 채울 수 있도록 prefetch 는 batch-size 보다 작게 잡지 않는다.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory elasticsearchListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                                      ConnectionFactory connectionFactory) {
+
+        RabbitMQ elasticsearch = rabbitmqProperties.getQueues().get(QUEUE_ELASTICSEARCH);
+
+        SimpleRabbitListenerContainerFactory factory = this.listenerContainerFactory(elasticsearch, configurer, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(Math.max(Optional.ofNullable(elasticsearch.getPrefetch()).orElse(0), elasticsearch.getBatchSize()));
+
+        return factory;
+    }
+
+    /**
+     * 메일 큐 전용 컨테이너.
+     * 메일을 모아 SMTP 연결 하나로 보낸 뒤 메일 별로 직접 ack 하므로 MANUAL 모드이다. prefetch 는 엘라스틱서치 큐와 같은 이유로 잡는다.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory emailListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                              ConnectionFactory connectionFactory) {
+
+        RabbitMQ email = rabbitmqProperties.getQueues().get(QUEUE_EMAIL);
+
+        SimpleRabbitListenerContainerFactory factory = this.listenerContainerFactory(email, configurer, connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(Math.max(Optional.ofNullable(email.getPrefetch()).orElse(0), email.getBatchSize()));
+
+        return factory;
+    }
+
+    /**
+     * spring.rabbitmq.listener.simple 설정 위에 큐 별 concurrency, max-concurrency, prefetch 를 덮어쓴다.
+     */
+    private SimpleRabbitListenerContainerFactory listenerContainerFactory(RabbitMQ queue, SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                          ConnectionFactory connectionFactory) {
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+
+        if (Objects.nonNull(queue.getConcurrency()))
+            factory.setConcurrentConsumers(queue.getConcurrency());
+
+        if (Objects.nonNull(queue.getMaxConcurrency()))
+            factory.setMaxConcurrentConsumers(queue.getMaxConcurrency());
+
+        if (Objects.nonNull(queue.getPrefetch()))
+            factory.setPrefetchCount(queue.getPrefetch());
+
+        return factory;
+    }
+
 }
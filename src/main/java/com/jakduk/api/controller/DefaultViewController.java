@@ -1,42 +1,38 @@
 package com.jakduk.api.controller;
 
 import com.jakduk.api.common.Constants;
-import com.jakduk.api.common.util.DateUtils;
 import com.jakduk.api.common.util.FileUtils;
-import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.db.Gallery;
 import com.jakduk.api.model.db.UserPicture;
-import com.jakduk.api.model.simple.ArticleOnSitemap;
-import com.jakduk.api.service.ArticleService;
 import com.jakduk.api.service.GalleryService;
+import com.jakduk.api.service.RssFeedService;
+import com.jakduk.api.service.SitemapService;
 import com.jakduk.api.service.UserPictureService;
-import com.redfin.sitemapgenerator.ChangeFreq;
-import com.redfin.sitemapgenerator.W3CDateFormat;
-import com.redfin.sitemapgenerator.WebSitemapGenerator;
-import com.redfin.sitemapgenerator.WebSitemapUrl;
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
 import javax.annotation.Resource;
-import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.ZoneId;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Objects;
 
 /**
  * @author <a href="mailto:phjang1983@daum.net">Jang,Pyohwan</a>
@@ -48,145 +44,139 @@ import java.util.List;
 @Controller
 public class DefaultViewController {
 
-	@Resource private JakdukProperties jakdukProperties;
 	@Resource private JakdukProperties.Storage storageProperties;
 
-	@Autowired private UrlGenerationUtils urlGenerationUtils;
 	@Autowired private GalleryService galleryService;
 	@Autowired private UserPictureService userPictureService;
-	@Autowired private ArticleService articleService;
+	@Autowired private SitemapService sitemapService;
+	@Autowired private RssFeedService rssFeedService;
 
 	// RSS
-	@RequestMapping(value = "/rss", method = RequestMethod.GET, produces = "application/*")
-	public String getRss() {
-		return "documentRssFeedView";
+	@GetMapping("/rss")
+	public ResponseEntity<byte[]> getRss() {
+
+		String language = JakdukUtils.getLanguageCode();
+
+		return this.toRssResponse(rssFeedService.getFeed(language, null));
 	}
 
-	// Sitemap
-	@GetMapping(value = "/sitemap", produces = MediaType.APPLICATION_XML_VALUE)
-	public void getSitemap(HttpServletResponse servletResponse) {
+	// 게시판별 RSS
+	@GetMapping("/rss/{board}")
+	public ResponseEntity<byte[]> getRss(@PathVariable String board) {
 
-		try {
-			WebSitemapGenerator wsg =  WebSitemapGenerator.builder(jakdukProperties.getWebServerUrl(), null)
-					.dateFormat(new W3CDateFormat(W3CDateFormat.Pattern.SECOND))
-					.build();
-
-			ObjectId postId = null;
-			Boolean existPosts = true;
-
-			do {
-				List<ArticleOnSitemap> articles = articleService.getBoardFreeOnSitemap(postId, Constants.NUMBER_OF_ITEMS_EACH_PAGES);
-
-				if (CollectionUtils.isEmpty(articles)) {
-					existPosts = false;
-				} else {
-					ArticleOnSitemap article = articles.stream()
-							.sorted(Comparator.comparing(ArticleOnSitemap::getId))
-							.findFirst()
-							.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_ARTICLE));
-
-					postId = new ObjectId(article.getId());
-				}
-
-				if (existPosts) {
-					articles.forEach(post-> {
-						try {
-							WebSitemapUrl url = new WebSitemapUrl
-									.Options(urlGenerationUtils.generateArticleDetailUrl(post.getBoard(), post.getSeq()))
-									.lastMod(DateUtils.localDateTimeToDate(post.getLastUpdated()))
-									.priority(0.5)
-									.changeFreq(ChangeFreq.DAILY)
-									.build();
-
-							wsg.addUrl(url);
-						} catch (MalformedURLException e) {
-							throw new ServiceException(ServiceError.IO_EXCEPTION, e);
-						}
-					});
-				}
-			} while (existPosts);
-
-			servletResponse.setContentType(MediaType.APPLICATION_XML_VALUE);
-			servletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
-			servletResponse.getWriter().println(wsg.writeAsStrings().get(0));
+		Constants.BOARD_TYPE boardType = EnumUtils.getEnum(Constants.BOARD_TYPE.class, StringUtils.upperCase(board));
 
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
-		}
+		if (Objects.isNull(boardType))
+			throw new ServiceException(ServiceError.INVALID_PARAMETER);
+
+		String language = JakdukUtils.getLanguageCode();
 
+		return this.toRssResponse(rssFeedService.getFeed(language, boardType));
+	}
+
+	// Sitemap index
+	@GetMapping("/sitemap")
+	public ResponseEntity<FileSystemResource> getSitemap() {
+
+		Path filePath = sitemapService.getSitemapIndexPath();
+
+		return this.toFileResponse(filePath, MediaType.APPLICATION_XML_VALUE, null);
+	}
+
+	// Sitemap 파일
+	@GetMapping("/sitemap/{shard}")
+	public ResponseEntity<FileSystemResource> getSitemap(@PathVariable Integer shard) {
+
+		Path filePath = sitemapService.getSitemapPath(shard);
+
+		return this.toFileResponse(filePath, MediaType.APPLICATION_XML_VALUE, null);
 	}
 
 	// 사진 가져오기.
 	@GetMapping("/${jakduk.api-url-path.gallery-image}/{id}")
-	public void getGallery(@PathVariable String id,
-						   HttpServletResponse response) {
+	public ResponseEntity<FileSystemResource> getGallery(@PathVariable String id) {
 
 		Gallery gallery = galleryService.findOneById(id);
 
-		ByteArrayOutputStream byteStream = galleryService.getGalleryOutStream(gallery.getId(), gallery.getContentType(),
-				Constants.IMAGE_TYPE.FULL);
-		response.setContentType(gallery.getContentType());
+		Path filePath = galleryService.getGalleryFilePath(gallery.getId(), gallery.getContentType(), Constants.IMAGE_TYPE.FULL);
 
-		try {
-			byteStream.writeTo(response.getOutputStream());
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.NOT_FOUND_GALLERY, e);
-		}
+		return this.toFileResponse(filePath, gallery.getContentType(), gallery.getHash());
 	}
 
 	// 사진 썸네일 가져오기.
 	@GetMapping("/${jakduk.api-url-path.gallery-thumbnail}/{id}")
-	public void getGalleyThumbnail(@PathVariable String id,
-								   HttpServletResponse response) {
+	public ResponseEntity<FileSystemResource> getGalleyThumbnail(@PathVariable String id) {
 
 		Gallery gallery = galleryService.findOneById(id);
 
-		ByteArrayOutputStream byteStream = galleryService.getGalleryOutStream(gallery.getId(), gallery.getContentType(),
-				Constants.IMAGE_TYPE.THUMBNAIL);
-		response.setContentType(gallery.getContentType());
+		Path filePath = galleryService.getGalleryFilePath(gallery.getId(), gallery.getContentType(), Constants.IMAGE_TYPE.THUMBNAIL);
 
-		try {
-			byteStream.writeTo(response.getOutputStream());
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.NOT_FOUND_GALLERY, e);
-		}
+		return this.toFileResponse(filePath, gallery.getContentType(), gallery.getHash());
 	}
 
 	// 회원 프로필 사진 가져오기.
 	@RequestMapping(value = "/${jakduk.api-url-path.user-picture-large}/{id}", method = RequestMethod.GET)
-	public void getUserPicture(@PathVariable String id,
-							 HttpServletResponse response) {
+	public ResponseEntity<FileSystemResource> getUserPicture(@PathVariable String id) {
 
 		UserPicture userPicture = userPictureService.findOneById(id);
 
 		ObjectId objectId = new ObjectId(userPicture.getId());
 		LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
 
-		try {
-			ByteArrayOutputStream byteStream = FileUtils.readImageFile(storageProperties.getUserPictureLargePath(), localDate, userPicture.getId(), userPicture.getContentType());
-			response.setContentType(userPicture.getContentType());
+		Path filePath = FileUtils.getImageFilePath(storageProperties.getUserPictureLargePath(), localDate, userPicture.getId(), userPicture.getContentType());
 
-			byteStream.writeTo(response.getOutputStream());
-		} catch (IOException e) {
-			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
-		}
+		return this.toFileResponse(filePath, userPicture.getContentType(), null);
 	}
 
 	// 회원 프로필 작은 사진 가져오기.
 	@RequestMapping(value = "/${jakduk.api-url-path.user-picture-small}/{id}", method = RequestMethod.GET)
-	public void getUserSmallPicture(@PathVariable String id,
-									HttpServletResponse response) {
+	public ResponseEntity<FileSystemResource> getUserSmallPicture(@PathVariable String id) {
 
 		UserPicture userPicture = userPictureService.findOneById(id);
 
 		ObjectId objectId = new ObjectId(userPicture.getId());
 		LocalDate localDate = objectId.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
 
+		Path filePath = FileUtils.getImageFilePath(storageProperties.getUserPictureSmallPath(), localDate, userPicture.getId(), userPicture.getContentType());
+
+		return this.toFileResponse(filePath, userPicture.getContentType(), null);
+	}
+
+	/**
+	 * 만들어 둔 RSS 피드를 응답한다.
+	 * ETag, Last-Modified 가 있으므로 If-None-Match, If-Modified-Since 요청에는 304 를 응답한다.
+	 */
+	private ResponseEntity<byte[]> toRssResponse(RssFeedService.RssFeed feed) {
+
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType("application/rss+xml;charset=UTF-8"))
+				.eTag(feed.getETag())
+				.lastModified(feed.getLastModified())
+				.body(feed.getBody());
+	}
+
+	/**
+	 * 파일을 메모리에 올리지 않고 그대로 응답으로 흘려 보낸다.
+	 * ETag, Last-Modified 가 있으므로 If-None-Match, If-Modified-Since 요청에는 304 를, Range 요청에는 206 을 응답한다.
+	 *
+	 * @param filePath 파일 경로
+	 * @param contentType 콘텐츠 타입
+	 * @param eTag ETag (null 이면 생략)
+	 */
+	private ResponseEntity<FileSystemResource> toFileResponse(Path filePath, String contentType, String eTag) {
+
 		try {
-			ByteArrayOutputStream byteStream = FileUtils.readImageFile(storageProperties.getUserPictureSmallPath(), localDate, userPicture.getId(), userPicture.getContentType());
-			response.setContentType(userPicture.getContentType());
+			ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+					.contentType(MediaType.parseMediaType(contentType))
+					.contentLength(Files.size(filePath))
+					.lastModified(Files.getLastModifiedTime(filePath).toMillis())
+					.header(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+			if (StringUtils.isNotBlank(eTag))
+				builder.eTag(eTag);
+
+			return builder.body(new FileSystemResource(filePath.toFile()));
 
-			byteStream.writeTo(response.getOutputStream());
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
 		}
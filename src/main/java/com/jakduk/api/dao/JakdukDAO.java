@@ -2,7 +2,6 @@ package com.jakduk.api.dao;
 
 import com.jakduk.api.common.Constants;
 import com.jakduk.api.model.aggregate.SupporterCount;
-import com.jakduk.api.model.db.Competition;
 import com.jakduk.api.model.db.JakduComment;
 import com.jakduk.api.model.db.JakduScheduleGroup;
 import org.bson.types.ObjectId;
@@ -51,22 +50,6 @@ public class JakdukDAO {
 		return users;
 	}
 
-	// 대회 목록.
-	public List<Competition> getCompetitions(List<ObjectId> ids, String language) {
-
-		Query query = new Query();
-		query.addCriteria(Criteria.where("_id").in(ids));
-		query.addCriteria(Criteria.where("names.language").is(language));
-		query.fields().include("code").include("names.$");
-		//query.with(new Sort(Sort.Direction.DESC, "date"));
-		//query.skip(skip);
-		//query.limit(size);
-
-		List<Competition> competitions = mongoTemplate.find(query, Competition.class);
-
-		return competitions;
-	}
-
 	public JakduScheduleGroup getJakduScheduleGroupOrderBySeq() {
 
 		Query query = new Query();
@@ -1,8 +1,9 @@
 package com.jakduk.api.listener;
 
 import com.jakduk.api.common.rabbitmq.ElasticsearchRoutingKey;
-import com.jakduk.api.common.util.ObjectMapperUtils;
+import com.jakduk.api.common.rabbitmq.MessageCodecs;
 import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.elasticsearch.EsArticle;
@@ -10,20 +11,39 @@ import com.jakduk.api.model.elasticsearch.EsComment;
 import com.jakduk.api.model.elasticsearch.EsGallery;
 import com.jakduk.api.model.elasticsearch.EsSearchWord;
 import com.jakduk.api.service.SearchService;
+import com.rabbitmq.client.Channel;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.rest.RestStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.io.IOException;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 /**
+ * 엘라스틱서치 색인 메시지를 모아서 한번의 bulk 요청으로 처리한다.
+ *
+ * batch-size 만큼 모이거나 batch-wait-millis 가 지나면 bulk 요청을 보내고, item 결과에 따라 메시지 별로 ack 한다.
+ * 실패한 메시지는 retry 횟수를 헤더에 달아 다시 발행하고, max-retries 를 넘으면 dead letter 큐로 보낸다.
+ * 같은 문서에 대한 나중 요청을 이미 받았으면 실패한 메시지는 다시 보내지 않는다. 뒤로 밀린 색인 요청이 지운 문서를 되살리지 않도록.
+ * 엘라스틱서치가 통째로 안 될 때(연결 실패, 503, 429)는 retry 로 세지 않고, ack 하지 않은 채로 쥐고 있다가
+ * retry-backoff-millis 부터 두배씩 늘어나는 시간 동안 쉰 뒤에 다시 보낸다. 그 사이에는 prefetch 만큼만 더 받는다.
+ *
  * Created by pyohwanjang on 2017. 6. 20..
  */
 
@@ -32,57 +52,411 @@ public class ElasticsearchListener {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+    private final String QUEUE_ELASTICSEARCH = "elasticsearch";
+    private final String HEADER_RETRY_COUNT = "x-retry-count";
+    private final String HEADER_RETRY_ORIGIN = "x-retry-origin";
+    private final int MAX_TRACKED_DOCUMENTS = 10000;
+
+    // 다시 발행한 메시지가 이 listener 가 받았던 순서를 알아보도록 헤더에 붙이는 값
+    private final String listenerId = UUID.randomUUID().toString();
+
+    // 아직 bulk 요청을 보내지 않은 메시지들
+    private final List<PendingMessage> pendingMessages = new ArrayList<>();
+
+    // 엘라스틱서치가 통째로 안 될 때 이 시각까지 bulk 요청을 보내지 않는다. pendingMessages 로 동기화한다.
+    private long backoffUntilMillis;
+
+    // 엘라스틱서치가 연이어 통째로 안 된 횟수
+    private int unavailableCount;
+
+    // 받은 순서. 문서마다 마지막으로 받은 요청의 순서를 남겨, 실패한 요청보다 나중 요청이 있는지 본다. pendingMessages 로 동기화한다.
+    private long sequence;
+
+    private final Map<String, Long> latestSequences = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_TRACKED_DOCUMENTS;
+        }
+    };
+
+    // 설정한 routing key 값으로 ElasticsearchRoutingKey 를 찾는다. 기동할 때 한번 만든다.
+    private Map<String, ElasticsearchRoutingKey> routingKeys;
+
     @Resource private JakdukProperties.Rabbitmq rabbitmqProperties;
 
     @Autowired private SearchService searchService;
+    @Autowired private RabbitTemplate rabbitTemplate;
+    @Autowired private MessageCodecs messageCodecs;
+
+    @PostConstruct
+    public void init() {
+        Map<String, ElasticsearchRoutingKey> routingKeys = new HashMap<>();
+
+        for (ElasticsearchRoutingKey elasticsearchRoutingKey : ElasticsearchRoutingKey.values()) {
+            String routingKey = rabbitmqProperties.getRoutingKeys().get(elasticsearchRoutingKey.getRoutingKey());
+
+            if (Objects.nonNull(routingKey))
+                routingKeys.put(routingKey, elasticsearchRoutingKey);
+        }
+
+        this.routingKeys = routingKeys;
+    }
+
+    @RabbitListener(queues = "${jakduk.rabbitmq.queues.elasticsearch.binding-queue-name}",
+            containerFactory = "elasticsearchListenerContainerFactory")
+    public void receive(Message message, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                        @Header(AmqpHeaders.RECEIVED_ROUTING_KEY) String routingKey) {
+
+        PendingMessage pendingMessage = new PendingMessage(message, channel, deliveryTag, routingKey);
+
+        try {
+            pendingMessage.request = this.toRequest(routingKey, message);
+        } catch (IOException | RuntimeException e) {
+            // 다시 보내도 변환할 수 없는 메시지이므로 바로 dead letter 큐로 보낸다.
+            log.warn("Can not convert elasticsearch message. routingKey={}", routingKey, e);
+            this.sendToDeadLetter(pendingMessage);
+            return;
+        }
+
+        this.addPendingMessage(pendingMessage);
+    }
+
+    /**
+     * RabbitMQ 를 거치지 않고 같은 프로세스에서 받은 색인 요청. RabbitMQ 로 받은 메시지와 같이 모아서 bulk 로 처리한다.
+     * ack 할 채널이 없으므로 실패하면 max-retries 까지 다시 모으고, 넘으면 버린다.
+     *
+     * @throws RejectedExecutionException 모아둔 메시지가 max-pending 만큼 찼을 때. 이벤트 버스가 overflow-policy 를 따른다.
+     */
+    public void receive(String routingKey, Object payload) {
+        PendingMessage pendingMessage = new PendingMessage(null, null, 0, routingKey);
+        pendingMessage.request = this.toRequest(this.findRoutingKey(routingKey), payload);
+
+        synchronized (pendingMessages) {
+            if (pendingMessages.size() >= this.getQueueProperties().getMaxPending())
+                throw new RejectedExecutionException("elasticsearch pending messages are full. size=" + pendingMessages.size());
+        }
+
+        this.addPendingMessage(pendingMessage);
+    }
+
+    /**
+     * batch-size 만큼 차지 않은 메시지들을 batch-wait-millis 마다 처리한다.
+     */
+    @Scheduled(fixedDelayString = "${jakduk.rabbitmq.queues.elasticsearch.batch-wait-millis}")
+    public void flush() {
+        List<PendingMessage> batch;
+
+        synchronized (pendingMessages) {
+            if (this.isBackingOff())
+                return;
+
+            batch = this.drainPendingMessages();
+        }
+
+        if (! batch.isEmpty())
+            this.executeBulk(batch);
+    }
+
+    private void addPendingMessage(PendingMessage pendingMessage) {
+        List<PendingMessage> batch = null;
+        boolean superseded;
+
+        synchronized (pendingMessages) {
+            superseded = ! this.track(pendingMessage);
+
+            if (! superseded) {
+                pendingMessages.add(pendingMessage);
+
+                if (pendingMessages.size() >= this.getQueueProperties().getBatchSize() && ! this.isBackingOff())
+                    batch = this.drainPendingMessages();
+            }
+        }
+
+        if (superseded) {
+            log.info("superseded elasticsearch retry was skipped. routingKey={}", pendingMessage.routingKey);
+            this.ack(pendingMessage);
+            return;
+        }
+
+        if (batch != null)
+            this.executeBulk(batch);
+    }
+
+    /**
+     * 받은 순서를 매기고 문서의 마지막 순서로 남긴다.
+     * 이 listener 가 다시 발행했던 메시지는 처음 받은 순서를 그대로 쓰고, 그 사이 같은 문서의 나중 요청을 받았으면 false.
+     */
+    private boolean track(PendingMessage pendingMessage) {
+        String documentKey = toDocumentKey(pendingMessage.request);
+        String origin = Objects.nonNull(pendingMessage.message)
+                ? (String) pendingMessage.message.getMessageProperties().getHeaders().get(HEADER_RETRY_ORIGIN) : null;
+
+        if (Objects.nonNull(origin) && origin.startsWith(listenerId + "/")) {
+            pendingMessage.sequence = Long.parseLong(origin.substring(listenerId.length() + 1));
+
+            return Objects.isNull(documentKey) || ! this.isSuperseded(documentKey, pendingMessage.sequence);
+        }
+
+        pendingMessage.sequence = ++sequence;
+
+        if (Objects.nonNull(documentKey))
+            latestSequences.put(documentKey, pendingMessage.sequence);
+
+        return true;
+    }
+
+    private boolean isSuperseded(PendingMessage pendingMessage) {
+        String documentKey = toDocumentKey(pendingMessage.request);
+
+        if (Objects.isNull(documentKey))
+            return false;
+
+        synchronized (pendingMessages) {
+            return this.isSuperseded(documentKey, pendingMessage.sequence);
+        }
+    }
+
+    private boolean isSuperseded(String documentKey, long sequence) {
+        Long latest = latestSequences.get(documentKey);
+
+        return Objects.nonNull(latest) && latest > sequence;
+    }
+
+    private static String toDocumentKey(DocWriteRequest<?> request) {
+        if (Objects.isNull(request) || Objects.isNull(request.id()))
+            return null;
+
+        return request.index() + "/" + request.type() + "/" + request.id();
+    }
+
+    private List<PendingMessage> drainPendingMessages() {
+        List<PendingMessage> batch = new ArrayList<>(pendingMessages);
+        pendingMessages.clear();
+
+        return batch;
+    }
+
+    private void executeBulk(List<PendingMessage> batch) {
+
+        List<DocWriteRequest<?>> requests = batch.stream()
+                .map(pendingMessage -> pendingMessage.request)
+                .collect(Collectors.toList());
+
+        BulkResponse response;
+
+        try {
+            response = searchService.executeBulk(requests);
+        } catch (RuntimeException e) {
+            if (this.isUnavailable(ExceptionsHelper.status(e))) {
+                log.warn("elasticsearch is unavailable. size={}", batch.size(), e);
+                this.backOff(batch);
+                return;
+            }
+
+            log.warn("bulk request failed. size={}", batch.size(), e);
+            batch.forEach(this::retry);
+            return;
+        }
+
+        BulkItemResponse[] items = response.getItems();
+        List<PendingMessage> unavailable = new ArrayList<>();
 
-    @RabbitListener(queues = "${jakduk.rabbitmq.queues.elasticsearch.binding-queue-name}")
-    public void receive(Message message, @Header(AmqpHeaders.RECEIVED_ROUTING_KEY) String routingKey) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            if (! items[i].isFailed()) {
+                this.ack(batch.get(i));
+            } else if (this.isUnavailable(items[i].getFailure().getStatus())) {
+                unavailable.add(batch.get(i));
+            } else {
+                this.retry(batch.get(i));
+            }
+        }
+
+        if (unavailable.isEmpty()) {
+            synchronized (pendingMessages) {
+                unavailableCount = 0;
+            }
+        } else {
+            log.warn("elasticsearch rejected bulk items. size={}", unavailable.size());
+            this.backOff(unavailable);
+        }
+
+        log.debug("bulk request executed. size={}, took={}ms", batch.size(), response.getTook().getMillis());
+    }
+
+    /**
+     * 연결이 안 되거나(503) 밀려서 거절한(429) 것은 메시지 탓이 아니므로 retry 로 세지 않는다.
+     */
+    private boolean isUnavailable(RestStatus status) {
+        return status == RestStatus.SERVICE_UNAVAILABLE || status == RestStatus.TOO_MANY_REQUESTS;
+    }
 
-        String findKey = rabbitmqProperties.getRoutingKeys().entrySet().stream()
-                .filter(entity -> entity.getValue().equals(routingKey))
-                .findFirst()
-                .map(Map.Entry::getKey)
-                .orElseThrow(() -> new ServiceException(ServiceError.ILLEGAL_ARGUMENT));
+    /**
+     * 메시지들을 ack 하지 않은 채로 다시 모으고, 연이어 안 된 횟수에 따라 늘어나는 시간 동안 bulk 요청을 보내지 않는다.
+     */
+    private void backOff(List<PendingMessage> batch) {
+        long backoffMillis;
 
-        ElasticsearchRoutingKey elasticsearchRoutingKey = ElasticsearchRoutingKey.find(findKey);
+        synchronized (pendingMessages) {
+            backoffMillis = Math.min(this.getQueueProperties().getRetryBackoffMillis() << Math.min(unavailableCount++, 20),
+                    this.getQueueProperties().getMaxRetryBackoffMillis());
+
+            backoffUntilMillis = System.currentTimeMillis() + backoffMillis;
+            pendingMessages.addAll(0, batch);
+        }
+
+        log.warn("elasticsearch bulk request backed off. size={}, backoff={}ms", batch.size(), backoffMillis);
+    }
+
+    private boolean isBackingOff() {
+        return System.currentTimeMillis() < backoffUntilMillis;
+    }
+
+    private DocWriteRequest<?> toRequest(String routingKey, Message message) throws IOException {
+        ElasticsearchRoutingKey elasticsearchRoutingKey = this.findRoutingKey(routingKey);
+
+        return this.toRequest(elasticsearchRoutingKey, messageCodecs.fromMessage(message, elasticsearchRoutingKey.getPayloadType()));
+    }
+
+    private DocWriteRequest<?> toRequest(ElasticsearchRoutingKey elasticsearchRoutingKey, Object payload) {
 
         switch (elasticsearchRoutingKey) {
             case ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE:
-                EsArticle esArticle = ObjectMapperUtils.readValue(message.getBody(), EsArticle.class);
-                searchService.indexDocumentArticle(esArticle);
-                break;
+                return searchService.getIndexDocumentArticleRequest((EsArticle) payload);
 
-                case ELASTICSEARCH_DELETE_DOCUMENT_ARTICLE:
-                String boardId = ObjectMapperUtils.readValue(message.getBody(), String.class);
-                    searchService.deleteDocumentBoard(boardId);
-                break;
+            case ELASTICSEARCH_DELETE_DOCUMENT_ARTICLE:
+                return searchService.getDeleteDocumentBoardRequest((String) payload);
 
             case ELASTICSEARCH_INDEX_DOCUMENT_ARTICLE_COMMENT:
-                EsComment esComment = ObjectMapperUtils.readValue(message.getBody(), EsComment.class);
-                searchService.indexDocumentBoardComment(esComment);
-                break;
+                return searchService.getIndexDocumentBoardCommentRequest((EsComment) payload);
 
             case ELASTICSEARCH_DELETE_DOCUMENT_ARTICLE_COMMENT:
-                String commentId = ObjectMapperUtils.readValue(message.getBody(), String.class);
-                searchService.deleteDocumentBoardComment(commentId);
-                break;
+                return searchService.getDeleteDocumentBoardCommentRequest((String) payload);
 
             case ELASTICSEARCH_INDEX_DOCUMENT_GALLERY:
-                EsGallery esGallery = ObjectMapperUtils.readValue(message.getBody(), EsGallery.class);
-                searchService.indexDocumentGallery(esGallery);
-                break;
+                return searchService.getIndexDocumentGalleryRequest((EsGallery) payload);
 
             case ELASTICSEARCH_DELETE_DOCUMENT_GALLERY:
-                String galleryId = ObjectMapperUtils.readValue(message.getBody(), String.class);
-                searchService.deleteDocumentGallery(galleryId);
-                break;
+                return searchService.getDeleteDocumentGalleryRequest((String) payload);
 
             case ELASTICSEARCH_INDEX_DOCUMENT_SEARCH_WORD:
-                EsSearchWord esSearchWord = ObjectMapperUtils.readValue(message.getBody(), EsSearchWord.class);
-                searchService.indexDocumentSearchWord(esSearchWord);
-                break;
+                return searchService.getIndexDocumentSearchWordRequest((EsSearchWord) payload);
+
+            default:
+                throw new ServiceException(ServiceError.ILLEGAL_ARGUMENT);
+        }
+    }
+
+    private ElasticsearchRoutingKey findRoutingKey(String routingKey) {
+        ElasticsearchRoutingKey elasticsearchRoutingKey = routingKeys.get(routingKey);
+
+        if (Objects.isNull(elasticsearchRoutingKey))
+            throw new ServiceException(ServiceError.ILLEGAL_ARGUMENT);
+
+        return elasticsearchRoutingKey;
+    }
+
+    /**
+     * 실패한 메시지를 retry 횟수를 올려 다시 발행한다. max-retries 를 넘었으면 dead letter 큐로 보낸다.
+     * 같은 문서의 나중 요청을 이미 받았으면 다시 보내지 않고 ack 한다.
+     */
+    private void retry(PendingMessage pendingMessage) {
+        if (this.isSuperseded(pendingMessage)) {
+            log.info("failed elasticsearch request was superseded by a later one. routingKey={}", pendingMessage.routingKey);
+            this.ack(pendingMessage);
+            return;
+        }
+
+        if (Objects.isNull(pendingMessage.message)) {
+            this.retryInProcess(pendingMessage);
+            return;
+        }
+
+        Integer retryCount = (Integer) pendingMessage.message.getMessageProperties().getHeaders().get(HEADER_RETRY_COUNT);
+        int nextRetryCount = retryCount == null ? 1 : retryCount + 1;
+
+        if (nextRetryCount > this.getQueueProperties().getMaxRetries()) {
+            this.sendToDeadLetter(pendingMessage);
+            return;
+        }
+
+        try {
+            pendingMessage.message.getMessageProperties().setHeader(HEADER_RETRY_COUNT, nextRetryCount);
+            pendingMessage.message.getMessageProperties().setHeader(HEADER_RETRY_ORIGIN, listenerId + "/" + pendingMessage.sequence);
+            rabbitTemplate.send(rabbitmqProperties.getExchangeName(), pendingMessage.routingKey, pendingMessage.message);
+            this.ack(pendingMessage);
+        } catch (RuntimeException e) {
+            // 다시 발행하지 못했으면 원래 큐로 되돌린다.
+            log.warn("Can not republish elasticsearch message. routingKey={}", pendingMessage.routingKey, e);
+            this.nack(pendingMessage);
+        }
+    }
+
+    /**
+     * 같은 프로세스에서 받은 요청은 다음 flush 때 다시 보낸다. dead letter 큐가 없으므로 max-retries 를 넘으면 버린다.
+     */
+    private void retryInProcess(PendingMessage pendingMessage) {
+        if (++pendingMessage.retryCount > this.getQueueProperties().getMaxRetries()) {
+            log.warn("in-process elasticsearch request was dropped after retries. routingKey={}", pendingMessage.routingKey);
+            return;
+        }
+
+        synchronized (pendingMessages) {
+            pendingMessages.add(pendingMessage);
+        }
+    }
+
+    private void sendToDeadLetter(PendingMessage pendingMessage) {
+        try {
+            rabbitTemplate.send(this.getQueueProperties().getDeadLetterQueueName(), pendingMessage.message);
+            this.ack(pendingMessage);
+
+            log.warn("elasticsearch message was sent to dead letter queue. routingKey={}", pendingMessage.routingKey);
+        } catch (RuntimeException e) {
+            log.warn("Can not send elasticsearch message to dead letter queue. routingKey={}", pendingMessage.routingKey, e);
+            this.nack(pendingMessage);
+        }
+    }
+
+    private void ack(PendingMessage pendingMessage) {
+        if (Objects.isNull(pendingMessage.channel))
+            return;
+
+        try {
+            pendingMessage.channel.basicAck(pendingMessage.deliveryTag, false);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can not ack elasticsearch message. deliveryTag={}", pendingMessage.deliveryTag, e);
+        }
+    }
+
+    private void nack(PendingMessage pendingMessage) {
+        if (Objects.isNull(pendingMessage.channel))
+            return;
+
+        try {
+            pendingMessage.channel.basicNack(pendingMessage.deliveryTag, false, true);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can not nack elasticsearch message. deliveryTag={}", pendingMessage.deliveryTag, e);
+        }
+    }
+
+    private RabbitMQ getQueueProperties() {
+        return rabbitmqProperties.getQueues().get(QUEUE_ELASTICSEARCH);
+    }
+
+    private static class PendingMessage {
+        private final Message message;
+        private final Channel channel;
+        private final long deliveryTag;
+        private final String routingKey;
+        private DocWriteRequest<?> request;
+        private int retryCount; // 같은 프로세스에서 받은 요청의 retry 횟수
+        private long sequence; // 이 listener 가 처음 받은 순서
 
+        PendingMessage(Message message, Channel channel, long deliveryTag, String routingKey) {
+            this.message = message;
+            this.channel = channel;
+            this.deliveryTag = deliveryTag;
+            this.routingKey = routingKey;
         }
     }
 
@@ -1,16 +1,41 @@
 package com.jakduk.api.listener;
 
+import com.jakduk.api.common.rabbitmq.MessageCodecs;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import com.jakduk.api.mail.BulkEmailSender;
 import com.jakduk.api.mail.EmailService;
 import com.jakduk.api.model.rabbitmq.EmailPayload;
+import com.rabbitmq.client.Channel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
 import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 /**
+ * 메일 메시지를 모아서 SMTP 연결 하나로 보낸다.
+ *
+ * batch-size 만큼 모이거나 batch-wait-millis 가 지나면 BulkEmailSender 로 보내고, 메일 별로 ack 한다.
+ * 일시적으로 실패한 메일은 그 메일만 다음 묶음에 다시 넣고, max-retries 를 넘거나 주소가 잘못되었으면 dead letter 큐로 보낸다.
+ * 메일 서버에 연결할 수 없을 때는 retry 로 세지 않고, ack 하지 않은 채로 쥐고 있다가
+ * retry-backoff-millis 부터 두배씩 늘어나는 시간 동안 쉰 뒤에 다시 보낸다. 그 사이에는 prefetch 만큼만 더 받는다.
+ *
  * Created by pyohwanjang on 2017. 6. 17..
  */
 
@@ -19,22 +44,254 @@ public class EmailListener {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    @Autowired
-    private EmailService emailService;
-
-    @RabbitListener(queues = "${jakduk.rabbitmq.queues.email.binding-queue-name}")
-    public void receive(EmailPayload emailPayload) throws MessagingException {
-
-        switch (emailPayload.getType()) {
-            case WELCOME:
-                emailService.sendBulk(emailPayload);
-                break;
-            case RESET_PASSWORD:
-                emailService.sendResetPassword(emailPayload);
-                break;
-            case BULK:
-                emailService.sendBulk(emailPayload);
-                break;
+    private final String QUEUE_EMAIL = "email";
+
+    // 아직 보내지 않은 메일들
+    private final List<PendingEmail> pendingEmails = new ArrayList<>();
+
+    // 메일 서버에 연결할 수 없을 때 이 시각까지 보내지 않는다. pendingEmails 로 동기화한다.
+    private long backoffUntilMillis;
+
+    // 메일 서버에 연이어 연결하지 못한 횟수
+    private int unavailableCount;
+
+    @Resource private JakdukProperties.Rabbitmq rabbitmqProperties;
+
+    @Autowired private EmailService emailService;
+    @Autowired private BulkEmailSender bulkEmailSender;
+    @Autowired private MessageCodecs messageCodecs;
+    @Autowired private RabbitTemplate rabbitTemplate;
+
+    @RabbitListener(queues = "${jakduk.rabbitmq.queues.email.binding-queue-name}", containerFactory = "emailListenerContainerFactory")
+    public void receive(Message message, Channel channel, @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+        EmailPayload emailPayload;
+
+        try {
+            emailPayload = messageCodecs.fromMessage(message, EmailPayload.class);
+        } catch (IOException | RuntimeException e) {
+            // 다시 받아도 읽을 수 없는 메시지이므로 바로 dead letter 큐로 보낸다.
+            log.warn("Can not convert email message.", e);
+            this.sendToDeadLetter(new PendingEmail(null, message, channel, deliveryTag));
+            return;
+        }
+
+        this.addPendingEmail(new PendingEmail(emailPayload, message, channel, deliveryTag));
+    }
+
+    /**
+     * RabbitMQ 를 거치지 않고 같은 프로세스에서 받은 메일. RabbitMQ 로 받은 메일과 같이 모아서 보낸다.
+     *
+     * @throws RejectedExecutionException 모아둔 메일이 max-pending 만큼 찼을 때. 이벤트 버스가 overflow-policy 를 따른다.
+     */
+    public void receive(EmailPayload emailPayload) {
+        synchronized (pendingEmails) {
+            if (pendingEmails.size() >= this.getQueueProperties().getMaxPending())
+                throw new RejectedExecutionException("pending emails are full. size=" + pendingEmails.size());
+        }
+
+        this.addPendingEmail(new PendingEmail(emailPayload, null, null, 0));
+    }
+
+    /**
+     * batch-size 만큼 차지 않은 메일들을 batch-wait-millis 마다 보낸다.
+     */
+    @Scheduled(fixedDelayString = "${jakduk.rabbitmq.queues.email.batch-wait-millis}")
+    public void flush() {
+        List<PendingEmail> batch;
+
+        synchronized (pendingEmails) {
+            if (this.isBackingOff())
+                return;
+
+            batch = this.drainPendingEmails();
+        }
+
+        if (! batch.isEmpty())
+            this.send(batch);
+    }
+
+    private void addPendingEmail(PendingEmail pendingEmail) {
+        List<PendingEmail> batch = null;
+
+        synchronized (pendingEmails) {
+            pendingEmails.add(pendingEmail);
+
+            if (pendingEmails.size() >= this.getQueueProperties().getBatchSize() && ! this.isBackingOff())
+                batch = this.drainPendingEmails();
+        }
+
+        if (batch != null)
+            this.send(batch);
+    }
+
+    private List<PendingEmail> drainPendingEmails() {
+        List<PendingEmail> batch = new ArrayList<>(pendingEmails);
+        pendingEmails.clear();
+
+        return batch;
+    }
+
+    private void send(List<PendingEmail> batch) {
+        List<PendingEmail> prepared = new ArrayList<>(batch.size());
+
+        // 다시 보내는 메일은 처음 만든 본문을 그대로 쓴다.
+        for (PendingEmail pendingEmail : batch) {
+            if (Objects.isNull(pendingEmail.mimeMessage)) {
+                try {
+                    pendingEmail.mimeMessage = emailService.createMessage(pendingEmail.emailPayload);
+                } catch (MessagingException | RuntimeException e) {
+                    log.warn("Can not create email. templateName={}", pendingEmail.emailPayload.getTemplateName(), e);
+                    this.sendToDeadLetter(pendingEmail);
+                    continue;
+                }
+            }
+
+            prepared.add(pendingEmail);
+        }
+
+        List<BulkEmailSender.Result> results = bulkEmailSender.send(prepared.stream()
+                .map(pendingEmail -> pendingEmail.mimeMessage)
+                .collect(Collectors.toList()));
+
+        List<PendingEmail> unavailable = new ArrayList<>();
+
+        for (int i = 0; i < prepared.size(); i++) {
+            PendingEmail pendingEmail = prepared.get(i);
+
+            switch (results.get(i)) {
+                case SENT:
+                    this.afterSent(pendingEmail);
+                    break;
+                case RETRY:
+                    this.retry(pendingEmail);
+                    break;
+                case REJECTED:
+                    this.sendToDeadLetter(pendingEmail);
+                    break;
+                case UNAVAILABLE:
+                    unavailable.add(pendingEmail);
+                    break;
+            }
+        }
+
+        if (unavailable.isEmpty()) {
+            synchronized (pendingEmails) {
+                unavailableCount = 0;
+            }
+        } else {
+            this.backOff(unavailable);
+        }
+
+        log.debug("emails sent. size={}", prepared.size());
+    }
+
+    private void afterSent(PendingEmail pendingEmail) {
+        try {
+            emailService.afterSent(pendingEmail.emailPayload);
+        } catch (RuntimeException e) {
+            log.warn("Can not complete sent email. type={}", pendingEmail.emailPayload.getType(), e);
+        }
+
+        this.ack(pendingEmail);
+    }
+
+    /**
+     * 실패한 메일만 다음 묶음에 다시 넣는다. max-retries 를 넘으면 dead letter 큐로 보낸다.
+     * RabbitMQ 로 받은 메일은 다시 보낼 때까지 ack 하지 않는다.
+     */
+    private void retry(PendingEmail pendingEmail) {
+        if (++pendingEmail.retryCount > this.getQueueProperties().getMaxRetries()) {
+            log.warn("email failed after retries. type={}", pendingEmail.emailPayload.getType());
+            this.sendToDeadLetter(pendingEmail);
+            return;
+        }
+
+        synchronized (pendingEmails) {
+            pendingEmails.add(pendingEmail);
+        }
+    }
+
+    private void ack(PendingEmail pendingEmail) {
+        if (Objects.isNull(pendingEmail.channel))
+            return;
+
+        try {
+            pendingEmail.channel.basicAck(pendingEmail.deliveryTag, false);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can not ack email message. deliveryTag={}", pendingEmail.deliveryTag, e);
+        }
+    }
+
+    /**
+     * 메일들을 ack 하지 않은 채로 다시 모으고, 연이어 연결하지 못한 횟수에 따라 늘어나는 시간 동안 보내지 않는다.
+     */
+    private void backOff(List<PendingEmail> batch) {
+        long backoffMillis;
+
+        synchronized (pendingEmails) {
+            backoffMillis = Math.min(this.getQueueProperties().getRetryBackoffMillis() << Math.min(unavailableCount++, 20),
+                    this.getQueueProperties().getMaxRetryBackoffMillis());
+
+            backoffUntilMillis = System.currentTimeMillis() + backoffMillis;
+            pendingEmails.addAll(0, batch);
+        }
+
+        log.warn("mail server is unavailable. size={}, backoff={}ms", batch.size(), backoffMillis);
+    }
+
+    private boolean isBackingOff() {
+        return System.currentTimeMillis() < backoffUntilMillis;
+    }
+
+    /**
+     * 보낼 수 없는 메일을 dead letter 큐로 보낸다. 같은 프로세스에서 받은 메일은 dead letter 큐가 없으므로 버린다.
+     */
+    private void sendToDeadLetter(PendingEmail pendingEmail) {
+        if (Objects.isNull(pendingEmail.message)) {
+            log.warn("in-process email was dropped. type={}", pendingEmail.emailPayload.getType());
+            return;
+        }
+
+        try {
+            rabbitTemplate.send(this.getQueueProperties().getDeadLetterQueueName(), pendingEmail.message);
+            this.ack(pendingEmail);
+
+            log.warn("email message was sent to dead letter queue. deliveryTag={}", pendingEmail.deliveryTag);
+        } catch (RuntimeException e) {
+            // 보내지 못했으면 원래 큐로 되돌린다.
+            log.warn("Can not send email message to dead letter queue. deliveryTag={}", pendingEmail.deliveryTag, e);
+            this.nack(pendingEmail);
+        }
+    }
+
+    private void nack(PendingEmail pendingEmail) {
+        if (Objects.isNull(pendingEmail.channel))
+            return;
+
+        try {
+            pendingEmail.channel.basicNack(pendingEmail.deliveryTag, false, true);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Can not nack email message. deliveryTag={}", pendingEmail.deliveryTag, e);
+        }
+    }
+
+    private RabbitMQ getQueueProperties() {
+        return rabbitmqProperties.getQueues().get(QUEUE_EMAIL);
+    }
+
+    private static class PendingEmail {
+        private final EmailPayload emailPayload;
+        private final Message message;
+        private final Channel channel;
+        private final long deliveryTag;
+        private MimeMessage mimeMessage;
+        private int retryCount;
+
+        PendingEmail(EmailPayload emailPayload, Message message, Channel channel, long deliveryTag) {
+            this.emailPayload = emailPayload;
+            this.message = message;
+            this.channel = channel;
+            this.deliveryTag = deliveryTag;
         }
     }
 
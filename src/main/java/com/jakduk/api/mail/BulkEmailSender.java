@@ -0,0 +1,238 @@
+package com.jakduk.api.mail;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 메일을 SMTP 연결 하나로 이어서 보낸다.
+ *
+ * JavaMailSender.send 는 부를 때마다 연결을 새로 연다. 여기서는 Transport 를 직접 열어 max-messages-per-connection 까지 다시 쓰고,
+ * send-rate-per-second 를 넘지 않도록 메일 사이의 간격을 맞춘다. 간격은 모든 consumer 가 같이 지킨다.
+ * 메일 하나가 실패해도 나머지는 계속 보내고, 결과를 메일 별로 돌려준다. 메일 서버에 연결할 수 없으면 남은 메일은 UNAVAILABLE 이다.
+ */
+
+@Component
+public class BulkEmailSender {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	public enum Result {
+		SENT,       // 보냈다
+		RETRY,      // 연결이 끊기는 등 일시적인 실패. 다시 보내면 갈 수 있다
+		REJECTED,   // 받는 주소가 잘못되었다. 다시 보내도 소용 없다
+		UNAVAILABLE // 메일 서버에 연결할 수 없다. 메일 탓이 아니므로 서버가 살아나면 보낸다
+	}
+
+	private final Object paceLock = new Object();
+
+	// 다음 메일을 보낼 수 있는 시각 (System.nanoTime)
+	private long nextSendNanos = System.nanoTime();
+
+	@Resource private JakdukProperties.EmailSender emailSenderProperties;
+
+	@Autowired private JavaMailSenderImpl mailSender;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private Counter sentCounter;
+	private Counter retryCounter;
+	private Counter rejectedCounter;
+	private Counter unavailableCounter;
+	private Timer batchTimer;
+
+	@PostConstruct
+	public void init() {
+		sentCounter = this.resultCounter(Result.SENT);
+		retryCounter = this.resultCounter(Result.RETRY);
+		rejectedCounter = this.resultCounter(Result.REJECTED);
+		unavailableCounter = this.resultCounter(Result.UNAVAILABLE);
+
+		batchTimer = Timer.builder("jakduk.email.batch")
+				.description("메일 묶음을 보내는 시간")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 메일들을 순서대로 보낸다.
+	 *
+	 * @param messages 보낼 메일
+	 * @return messages 와 같은 순서의 결과
+	 */
+	public List<Result> send(List<MimeMessage> messages) {
+		List<Result> results = new ArrayList<>(messages.size());
+
+		Timer.Sample sample = Timer.start(meterRegistry);
+
+		Transport transport = null;
+		int sentOnConnection = 0;
+
+		try {
+			for (MimeMessage message : messages) {
+				if (Objects.isNull(transport) || ! transport.isConnected()
+						|| sentOnConnection >= emailSenderProperties.getMaxMessagesPerConnection()) {
+
+					this.close(transport);
+
+					try {
+						transport = this.connect();
+						sentOnConnection = 0;
+					} catch (MessagingException e) {
+						// 연결이 안 되면 남은 메일도 보낼 수 없다.
+						log.warn("Can not connect to mail server. remains={}", messages.size() - results.size(), e);
+
+						while (results.size() < messages.size())
+							results.add(this.count(Result.UNAVAILABLE));
+
+						transport = null;
+						break;
+					}
+				}
+
+				this.pace();
+
+				results.add(this.count(this.send(transport, message)));
+				sentOnConnection++;
+			}
+		} finally {
+			this.close(transport);
+			sample.stop(batchTimer);
+		}
+
+		return results;
+	}
+
+	private Result send(Transport transport, MimeMessage message) {
+		try {
+			// JavaMailSenderImpl 이 보내기 전에 하는 처리와 같다.
+			if (Objects.isNull(message.getSentDate()))
+				message.setSentDate(new Date());
+
+			String messageId = message.getMessageID();
+			message.saveChanges();
+
+			if (Objects.nonNull(messageId))
+				message.setHeader("Message-ID", messageId);
+
+			Address[] addresses = message.getAllRecipients();
+			transport.sendMessage(message, Objects.nonNull(addresses) ? addresses : new Address[0]);
+
+			return Result.SENT;
+		} catch (SendFailedException e) {
+			if (Objects.nonNull(e.getInvalidAddresses()) && e.getInvalidAddresses().length > 0
+					&& (Objects.isNull(e.getValidUnsentAddresses()) || e.getValidUnsentAddresses().length == 0)) {
+
+				log.warn("mail was rejected. invalidAddresses={}", Arrays.toString(e.getInvalidAddresses()));
+				return Result.REJECTED;
+			}
+
+			log.warn("Can not send mail.", e);
+			return Result.RETRY;
+		} catch (MessagingException e) {
+			log.warn("Can not send mail.", e);
+			return Result.RETRY;
+		}
+	}
+
+	private Transport connect() throws MessagingException {
+		// protocol 을 정하지 않았을 때는 JavaMailSenderImpl 과 같이 mail.transport.protocol, 그 다음 smtp 를 쓴다.
+		String protocol = mailSender.getProtocol();
+
+		if (Objects.isNull(protocol))
+			protocol = mailSender.getSession().getProperty("mail.transport.protocol");
+
+		Transport transport = mailSender.getSession().getTransport(Objects.nonNull(protocol) ? protocol : "smtp");
+
+		String username = mailSender.getUsername();
+		String password = mailSender.getPassword();
+
+		transport.connect(mailSender.getHost(), mailSender.getPort(), StringUtils.hasLength(username) ? username : null,
+				StringUtils.hasLength(password) ? password : null);
+
+		return transport;
+	}
+
+	private void close(Transport transport) {
+		if (Objects.isNull(transport))
+			return;
+
+		try {
+			transport.close();
+		} catch (MessagingException e) {
+			log.debug("Can not close mail transport.", e);
+		}
+	}
+
+	/**
+	 * send-rate-per-second 에 맞춰 보낼 차례가 될 때까지 기다린다.
+	 */
+	private void pace() {
+		Double sendRatePerSecond = emailSenderProperties.getSendRatePerSecond();
+
+		if (Objects.isNull(sendRatePerSecond) || sendRatePerSecond <= 0)
+			return;
+
+		long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / sendRatePerSecond);
+		long waitNanos;
+
+		synchronized (paceLock) {
+			long now = System.nanoTime();
+			long sendAt = nextSendNanos - now > 0 ? nextSendNanos : now;
+
+			nextSendNanos = sendAt + intervalNanos;
+			waitNanos = sendAt - now;
+		}
+
+		if (waitNanos <= 0)
+			return;
+
+		try {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Result count(Result result) {
+		switch (result) {
+			case SENT:
+				sentCounter.increment();
+				break;
+			case RETRY:
+				retryCounter.increment();
+				break;
+			case REJECTED:
+				rejectedCounter.increment();
+				break;
+			case UNAVAILABLE:
+				unavailableCounter.increment();
+				break;
+		}
+
+		return result;
+	}
+
+	private Counter resultCounter(Result result) {
+		return Counter.builder("jakduk.email.sent")
+				.tag("result", result.name().toLowerCase())
+				.description("보낸 메일")
+				.register(meterRegistry);
+	}
+
+}
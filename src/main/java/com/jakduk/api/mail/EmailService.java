@@ -1,31 +1,41 @@
 package com.jakduk.api.mail;
 
 import com.jakduk.api.common.Constants;
-import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.model.db.Token;
 import com.jakduk.api.model.rabbitmq.EmailPayload;
 import com.jakduk.api.repository.TokenRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class EmailService {
 
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+	private final String EXTRA_CODE = "code";
+
+	// classpath 경로, 이미지
+	private final Map<String, InputStreamSource> images = new ConcurrentHashMap<>();
+
 	@Autowired
 	private TokenRepository tokenRepository;
 
@@ -35,16 +45,44 @@ public class EmailService {
 	@Autowired
 	private TemplateEngine htmlTemplateEngine;
 
+	/**
+	 * 메일 종류에 맞게 본문을 그려 MimeMessage 를 만든다.
+	 * 비밀번호 재설정 메일이면 code 를 만들어 extra 에 넣어둔다. 다시 만들어도 같은 code 를 쓴다.
+	 */
+	public MimeMessage createMessage(EmailPayload emailPayload) throws MessagingException {
+		switch (emailPayload.getType()) {
+			case RESET_PASSWORD:
+				return this.createResetPasswordMessage(emailPayload);
+			default:
+				return this.createBulkMessage(emailPayload);
+		}
+	}
+
+	/**
+	 * 메일을 보낸 뒤 할 일. 비밀번호 재설정 메일이면 code 를 토큰으로 저장한다.
+	 */
+	public void afterSent(EmailPayload emailPayload) {
+		if (emailPayload.getType() == Constants.EMAIL_TYPE.RESET_PASSWORD)
+			this.saveResetPasswordToken(emailPayload.getRecipientEmail(), emailPayload.getExtra().get(EXTRA_CODE));
+	}
+
 	public void sendResetPassword(EmailPayload emailPayload) throws MessagingException {
+		this.mailSender.send(this.createResetPasswordMessage(emailPayload));
+		this.afterSent(emailPayload);
+	}
+
+	public void sendBulk(EmailPayload emailPayload) throws MessagingException {
+		this.mailSender.send(this.createBulkMessage(emailPayload));
+	}
+
+	private MimeMessage createResetPasswordMessage(EmailPayload emailPayload) throws MessagingException {
 
 		Locale locale = emailPayload.getLocale();
 		String recipientEmail = emailPayload.getRecipientEmail();
 
-		String code = UUID.randomUUID().toString();
+		String code = emailPayload.getExtra().computeIfAbsent(EXTRA_CODE, key -> UUID.randomUUID().toString());
 		String callbackUrl = emailPayload.getExtra().get("host") + "/" + code;
 
-		String language = JakdukUtils.getLanguageCode();
-
 		// Prepare the evaluation context
 		final Context ctx = new Context(locale);
 		ctx.setVariables(emailPayload.getBody());
@@ -64,17 +102,39 @@ public class EmailService {
 
 		String logoPath = "";
 
-		if (language.equals(Locale.KOREAN.getLanguage())) {
+		// 리스너 스레드에는 요청 locale 이 없으므로 메일에 담긴 locale 을 따른다.
+		if (Objects.nonNull(locale) && locale.getLanguage().equals(Locale.KOREAN.getLanguage())) {
 			logoPath = "public/images/logo_type_A_kr.png";
 		} else {
 			logoPath = "public/images/logo_type_A_en.png";
 		}
 
-		message.addInline("logo", new ClassPathResource(logoPath), "image/png");
+		message.addInline("logo", this.getImage(logoPath), "image/png");
 
-		// Send mail
-		this.mailSender.send(mimeMessage);
+		return mimeMessage;
+	}
+
+	private MimeMessage createBulkMessage(EmailPayload emailPayload) throws MessagingException {
+
+		// Prepare the evaluation context
+		final Context ctx = new Context(emailPayload.getLocale());
+		ctx.setVariables(emailPayload.getBody());
+
+		// Prepare message using a Spring helper
+		final MimeMessage mimeMessage = this.mailSender.createMimeMessage();
+		final MimeMessageHelper message = new MimeMessageHelper(mimeMessage, "UTF-8");
 
+		message.setSubject(emailPayload.getSubject());
+		message.setTo(emailPayload.getRecipientEmail());
+
+		// Create the HTML body using Thymeleaf
+		final String htmlContent = this.htmlTemplateEngine.process(emailPayload.getTemplateName(), ctx);
+		message.setText(htmlContent, true /* isHtml */);
+
+		return mimeMessage;
+	}
+
+	private void saveResetPasswordToken(String recipientEmail, String code) {
 		Optional<Token> optToken = tokenRepository.findOneByEmail(recipientEmail);
 
 		if (optToken.isPresent()) {
@@ -99,25 +159,17 @@ public class EmailService {
 		}
 	}
 
-	public void sendBulk(EmailPayload emailPayload) throws MessagingException {
-
-		// Prepare the evaluation context
-		final Context ctx = new Context(emailPayload.getLocale());
-		ctx.setVariables(emailPayload.getBody());
-
-		// Prepare message using a Spring helper
-		final MimeMessage mimeMessage = this.mailSender.createMimeMessage();
-		final MimeMessageHelper message = new MimeMessageHelper(mimeMessage, "UTF-8");
-
-		message.setSubject(emailPayload.getSubject());
-		message.setTo(emailPayload.getRecipientEmail());
-
-		// Create the HTML body using Thymeleaf
-		final String htmlContent = this.htmlTemplateEngine.process(emailPayload.getTemplateName(), ctx);
-		message.setText(htmlContent, true /* isHtml */);
-
-		// Send email
-		this.mailSender.send(mimeMessage);
+	/**
+	 * 메일에 넣는 이미지. 메일마다 classpath 에서 다시 읽지 않도록 한번 읽어 둔다.
+	 */
+	private InputStreamSource getImage(String path) {
+		return images.computeIfAbsent(path, key -> {
+			try {
+				return new ByteArrayResource(StreamUtils.copyToByteArray(new ClassPathResource(key).getInputStream()));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
 	}
 
 	/**
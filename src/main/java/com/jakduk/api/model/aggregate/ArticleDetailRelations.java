@@ -0,0 +1,35 @@
+package com.jakduk.api.model.aggregate;
+
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.model.simple.ArticleOnList;
+import com.jakduk.api.model.simple.ArticleSimple;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 글 보기에 함께 나가는 앞, 뒤 글, 글쓴이의 최근 글, 엮인 사진들. 가져오지 않은 것은 빈 목록이다.
+ */
+
+public class ArticleDetailRelations {
+	private List<ArticleSimple> prevArticles = Collections.emptyList(); // 앞 글. 최대 1개
+	private List<ArticleSimple> nextArticles = Collections.emptyList(); // 뒷 글. 최대 1개
+	private List<ArticleOnList> latestArticlesByWriter = Collections.emptyList(); // 글쓴이의 최근 글
+	private List<Gallery> galleries = Collections.emptyList(); // 엮인 사진들. 최대 100개
+
+	public List<ArticleSimple> getPrevArticles() {
+		return prevArticles;
+	}
+
+	public List<ArticleSimple> getNextArticles() {
+		return nextArticles;
+	}
+
+	public List<ArticleOnList> getLatestArticlesByWriter() {
+		return latestArticlesByWriter;
+	}
+
+	public List<Gallery> getGalleries() {
+		return galleries;
+	}
+}
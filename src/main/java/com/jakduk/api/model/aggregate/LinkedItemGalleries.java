@@ -0,0 +1,20 @@
+package com.jakduk.api.model.aggregate;
+
+import java.util.List;
+
+/**
+ * 연관된 아이템(글, 댓글) 별 사진 목록
+ */
+
+public class LinkedItemGalleries {
+	private String id; // 연관된 아이템 ID
+	private List<String> galleryIds; // 사진 ID 목록. 최근에 올린 순서
+
+	public String getId() {
+		return id;
+	}
+
+	public List<String> getGalleryIds() {
+		return galleryIds;
+	}
+}
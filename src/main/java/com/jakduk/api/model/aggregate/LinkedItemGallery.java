@@ -0,0 +1,18 @@
+package com.jakduk.api.model.aggregate;
+
+/**
+ * 연관된 아이템(글, 댓글) 별 대표 사진
+ */
+
+public class LinkedItemGallery {
+	private String id; // 연관된 아이템 ID
+	private String galleryId; // 가장 최근에 올린 사진 ID
+
+	public String getId() {
+		return id;
+	}
+
+	public String getGalleryId() {
+		return galleryId;
+	}
+}
@@ -5,6 +5,8 @@ import com.jakduk.api.model.embedded.BoardLog;
 import com.jakduk.api.model.embedded.CommonFeelingUser;
 import com.jakduk.api.model.embedded.CommonWriter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -17,6 +19,15 @@ import java.util.List;
  */
 
 @Document
+@CompoundIndexes({
+		@CompoundIndex(name = "board_id", def = "{'board': 1, '_id': -1}", background = true),
+		@CompoundIndex(name = "board_category_id", def = "{'board': 1, 'category': 1, '_id': -1}", background = true),
+		@CompoundIndex(name = "category_id", def = "{'category': 1, '_id': -1}", background = true),
+		@CompoundIndex(name = "seq", def = "{'seq': 1}", background = true), // seq 는 게시판에 상관없이 하나라서 board + seq 조회도 이걸 탄다.
+		@CompoundIndex(name = "writer_id", def = "{'writer.userId': 1, '_id': -1}", background = true),
+		@CompoundIndex(name = "notice_id", def = "{'status.notice': 1, '_id': -1}", background = true),
+		@CompoundIndex(name = "last_updated", def = "{'lastUpdated': 1}", background = true)
+})
 public class Article implements UsersFeeling {
 
 	@Id
@@ -36,6 +47,9 @@ public class Article implements UsersFeeling {
 	private String shortContent;
 	private LocalDateTime lastUpdated;
 	private Boolean linkedGallery;
+	private Integer commentCount; // 댓글 수
+	private Integer likeCount; // 좋아요 수
+	private Integer dislikeCount; // 싫어요 수
 
 	public String getId() {
 		return id;
@@ -168,4 +182,28 @@ public class Article implements UsersFeeling {
 	public void setLinkedGallery(Boolean linkedGallery) {
 		this.linkedGallery = linkedGallery;
 	}
+
+	public Integer getCommentCount() {
+		return commentCount;
+	}
+
+	public void setCommentCount(Integer commentCount) {
+		this.commentCount = commentCount;
+	}
+
+	public Integer getLikeCount() {
+		return likeCount;
+	}
+
+	public void setLikeCount(Integer likeCount) {
+		this.likeCount = likeCount;
+	}
+
+	public Integer getDislikeCount() {
+		return dislikeCount;
+	}
+
+	public void setDislikeCount(Integer dislikeCount) {
+		this.dislikeCount = dislikeCount;
+	}
 }
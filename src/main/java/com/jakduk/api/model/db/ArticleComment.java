@@ -5,6 +5,8 @@ import com.jakduk.api.model.embedded.BoardLog;
 import com.jakduk.api.model.embedded.CommonFeelingUser;
 import com.jakduk.api.model.embedded.CommonWriter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -17,6 +19,10 @@ import java.util.List;
  */
 
 @Document
+@CompoundIndexes({
+		@CompoundIndex(name = "article_id", def = "{'article._id': 1}", background = true),
+		@CompoundIndex(name = "article_seq_board_id", def = "{'article.seq': 1, 'article.board': 1, '_id': 1}", background = true)
+})
 public class ArticleComment implements UsersFeeling {
 
 	@Id
@@ -24,6 +30,7 @@ public class ArticleComment implements UsersFeeling {
 	private ArticleItem article;
 	private CommonWriter writer;
 	private String content;
+	private String shortContent; // HTML 태그를 뺀 본문 앞부분
 	private List<CommonFeelingUser> usersLiking;
 	private List<CommonFeelingUser> usersDisliking;
 	private Boolean linkedGallery;
@@ -62,6 +69,14 @@ public class ArticleComment implements UsersFeeling {
 		this.content = content;
 	}
 
+	public String getShortContent() {
+		return shortContent;
+	}
+
+	public void setShortContent(String shortContent) {
+		this.shortContent = shortContent;
+	}
+
 	@Override
 	public List<CommonFeelingUser> getUsersLiking() {
 		return usersLiking;
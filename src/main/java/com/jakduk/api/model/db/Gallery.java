@@ -4,6 +4,8 @@ import com.jakduk.api.model.embedded.CommonWriter;
 import com.jakduk.api.model.embedded.GalleryStatus;
 import com.jakduk.api.model.embedded.LinkedItem;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -16,6 +18,11 @@ import java.util.List;
  */
 
 @Document
+@CompoundIndexes({
+		@CompoundIndex(name = "status_id", def = "{'status.status': 1, '_id': -1}", background = true),
+		@CompoundIndex(name = "linked_items", def = "{'linkedItems._id': 1, 'linkedItems.from': 1}", background = true),
+		@CompoundIndex(name = "hash", def = "{'hash': 1}", background = true)
+})
 public class Gallery {
 	
 	@Id
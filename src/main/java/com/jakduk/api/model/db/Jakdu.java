@@ -3,6 +3,8 @@ package com.jakduk.api.model.db;
 import com.jakduk.api.model.embedded.CommonWriter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 
@@ -12,6 +14,9 @@ import org.springframework.data.mongodb.core.mapping.Document;
  */
 
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "writer", def = "{'writer.userId': 1}", background = true)
+})
 public class Jakdu {
 
     @Id
@@ -3,6 +3,8 @@ package com.jakduk.api.model.db;
 import com.jakduk.api.model.embedded.CommonFeelingUser;
 import com.jakduk.api.model.embedded.CommonWriter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotEmpty;
@@ -14,6 +16,9 @@ import java.util.List;
  */
 
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "schedule_id", def = "{'jakduScheduleId': 1, '_id': 1}", background = true)
+})
 public class JakduComment {
 
     @Id
@@ -3,6 +3,8 @@ package com.jakduk.api.model.db;
 import com.jakduk.api.model.embedded.JakduScheduleScore;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -13,6 +15,9 @@ import java.util.Date;
  */
 
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "time_up_date", def = "{'timeUp': 1, 'date': 1}", background = true)
+})
 public class JakduSchedule {
 
     @Id
@@ -2,6 +2,8 @@ package com.jakduk.api.model.db;
 
 import com.jakduk.api.common.Constants;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
@@ -12,6 +14,9 @@ import java.util.Date;
  */
 
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "seq", def = "{'seq': 1}", background = true)
+})
 public class JakduScheduleGroup {
 
     @Id
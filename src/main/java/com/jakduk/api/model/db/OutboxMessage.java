@@ -0,0 +1,161 @@
+package com.jakduk.api.model.db;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 아직 RabbitMQ 로 보내지 못한 메시지.
+ * 도메인 쓰기 직후에 쌓고, OutboxRelay 가 broker 의 확인(publisher confirm)을 받으면 지운다.
+ * 서버 여러 대가 같은 메시지를 보내지 않도록, 보내기 전에 owner 와 lockedUntil 을 적어 선점한다.
+ * max-redrives 번 다시 살려도 보내지 못한 메시지는 outboxDeadLetter 컬렉션으로 옮긴다.
+ */
+
+@Document(collection = "outbox")
+@CompoundIndexes({
+		@CompoundIndex(name = "attempts_id", def = "{'attempts': 1, '_id': 1}", background = true),
+		@CompoundIndex(name = "owner", def = "{'owner': 1}", background = true)
+})
+public class OutboxMessage {
+
+	@Id
+	private String id;
+	private String exchange;
+	private String routingKey;
+	private String contentType;
+	private String contentEncoding;
+	private Map<String, Object> headers;
+	private byte[] body;
+	private Integer attempts; // broker 가 이 메시지를 거절(nack)하거나 돌려보낸(return) 횟수
+	private Integer deferrals; // broker 에 연결할 수 없어 미룬 횟수. attempts 에는 세지 않는다
+	private Integer redrives; // max-attempts 를 넘긴 뒤 redrive 로 다시 살린 횟수
+	private Date nextAttemptAt; // 이 시각 전에는 다시 보내지 않는다
+	private String owner; // 이 메시지를 선점한 relay
+	private Date lockedUntil; // 선점이 풀리는 시각. 선점한 서버가 죽으면 이 뒤에 다른 서버가 가져간다
+	private String lastError;
+	private Date createdAt;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getExchange() {
+		return exchange;
+	}
+
+	public void setExchange(String exchange) {
+		this.exchange = exchange;
+	}
+
+	public String getRoutingKey() {
+		return routingKey;
+	}
+
+	public void setRoutingKey(String routingKey) {
+		this.routingKey = routingKey;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public String getContentEncoding() {
+		return contentEncoding;
+	}
+
+	public void setContentEncoding(String contentEncoding) {
+		this.contentEncoding = contentEncoding;
+	}
+
+	public Map<String, Object> getHeaders() {
+		return headers;
+	}
+
+	public void setHeaders(Map<String, Object> headers) {
+		this.headers = headers;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	public void setBody(byte[] body) {
+		this.body = body;
+	}
+
+	public Integer getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(Integer attempts) {
+		this.attempts = attempts;
+	}
+
+	public Integer getDeferrals() {
+		return deferrals;
+	}
+
+	public void setDeferrals(Integer deferrals) {
+		this.deferrals = deferrals;
+	}
+
+	public Integer getRedrives() {
+		return redrives;
+	}
+
+	public void setRedrives(Integer redrives) {
+		this.redrives = redrives;
+	}
+
+	public Date getNextAttemptAt() {
+		return nextAttemptAt;
+	}
+
+	public void setNextAttemptAt(Date nextAttemptAt) {
+		this.nextAttemptAt = nextAttemptAt;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public void setOwner(String owner) {
+		this.owner = owner;
+	}
+
+	public Date getLockedUntil() {
+		return lockedUntil;
+	}
+
+	public void setLockedUntil(Date lockedUntil) {
+		this.lockedUntil = lockedUntil;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+
+	public Date getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Date createdAt) {
+		this.createdAt = createdAt;
+	}
+}
@@ -1,11 +1,16 @@
 package com.jakduk.api.model.db;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotNull;
 
 @Document
+@CompoundIndexes({
+		@CompoundIndex(name = "name", def = "{'name': 1}", unique = true, background = true)
+})
 public class Sequence {
 	
 	@Id
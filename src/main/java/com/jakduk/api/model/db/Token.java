@@ -1,11 +1,17 @@
 package com.jakduk.api.model.db;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.Date;
 
 @Document
+@CompoundIndexes({
+		@CompoundIndex(name = "email", def = "{'email': 1}", background = true),
+		@CompoundIndex(name = "code", def = "{'code': 1}", background = true)
+})
 public class Token {
 
 	@Id
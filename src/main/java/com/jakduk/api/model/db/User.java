@@ -3,12 +3,19 @@ package com.jakduk.api.model.db;
 import com.jakduk.api.common.Constants;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document
+@CompoundIndexes({
+		@CompoundIndex(name = "email", def = "{'email': 1}", background = true),
+		@CompoundIndex(name = "username", def = "{'username': 1}", background = true),
+		@CompoundIndex(name = "provider", def = "{'providerId': 1, 'providerUserId': 1}", background = true)
+})
 public class User {
 
 	@Id
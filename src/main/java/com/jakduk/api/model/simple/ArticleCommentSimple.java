@@ -21,6 +21,7 @@ public class ArticleCommentSimple {
 	private ArticleItem article;
 	private CommonWriter writer;
 	private String content;
+	private String shortContent; // HTML 태그를 뺀 본문 앞부분
 
 	public String getId() {
 		return id;
@@ -41,4 +42,8 @@ public class ArticleCommentSimple {
 	public void setContent(String content) {
 		this.content = content;
 	}
+
+	public String getShortContent() {
+		return shortContent;
+	}
 }
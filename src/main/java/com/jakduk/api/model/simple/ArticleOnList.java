@@ -27,6 +27,9 @@ public class ArticleOnList {
 	private Integer views;
 	private String shortContent;
 	private Boolean linkedGallery;
+	private Integer commentCount;
+	private Integer likeCount;
+	private Integer dislikeCount;
 
 	public String getId() {
 		return id;
@@ -67,4 +70,16 @@ public class ArticleOnList {
 	public Boolean getLinkedGallery() {
 		return linkedGallery;
 	}
+
+	public Integer getCommentCount() {
+		return commentCount;
+	}
+
+	public Integer getLikeCount() {
+		return likeCount;
+	}
+
+	public Integer getDislikeCount() {
+		return dislikeCount;
+	}
 }
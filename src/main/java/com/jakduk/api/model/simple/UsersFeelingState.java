@@ -0,0 +1,45 @@
+package com.jakduk.api.model.simple;
+
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.model.embedded.CommonWriter;
+
+import java.util.List;
+
+/**
+ * 감정 표현을 바꾸기 전후의 상태.
+ * 감정 표현 목록은 해당 회원의 것만, 또는 userId 만 projection 해서 담는다.
+ */
+
+public class UsersFeelingState {
+
+	private String id;
+	private CommonWriter writer;
+	private List<CommonFeelingUser> usersLiking;
+	private List<CommonFeelingUser> usersDisliking;
+	private Integer likeCount;
+	private Integer dislikeCount;
+
+	public String getId() {
+		return id;
+	}
+
+	public CommonWriter getWriter() {
+		return writer;
+	}
+
+	public List<CommonFeelingUser> getUsersLiking() {
+		return usersLiking;
+	}
+
+	public List<CommonFeelingUser> getUsersDisliking() {
+		return usersDisliking;
+	}
+
+	public Integer getLikeCount() {
+		return likeCount;
+	}
+
+	public Integer getDislikeCount() {
+		return dislikeCount;
+	}
+}
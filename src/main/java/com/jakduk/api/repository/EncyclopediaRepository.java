@@ -11,7 +11,7 @@ import java.util.List;
  * @date     : 2014. 7. 4.
  * @desc     :
  */
-public interface EncyclopediaRepository extends MongoRepository<Encyclopedia, String> {
+public interface EncyclopediaRepository extends MongoRepository<Encyclopedia, String>, EncyclopediaRepositoryCustom {
 	
 	List<Encyclopedia> findListByLanguage(String language);
 
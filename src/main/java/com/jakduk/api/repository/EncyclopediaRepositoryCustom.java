@@ -0,0 +1,14 @@
+package com.jakduk.api.repository;
+
+import com.jakduk.api.model.db.Encyclopedia;
+
+import java.util.Optional;
+
+public interface EncyclopediaRepositoryCustom {
+
+    /**
+     * 해당 언어의 백과사전 하나를 무작위로 가져온다.
+     */
+    Optional<Encyclopedia> findOneByLanguageWithSample(String language);
+
+}
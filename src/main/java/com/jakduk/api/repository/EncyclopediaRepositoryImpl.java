@@ -0,0 +1,35 @@
+package com.jakduk.api.repository;
+
+import com.jakduk.api.model.db.Encyclopedia;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public class EncyclopediaRepositoryImpl implements EncyclopediaRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * 해당 언어의 백과사전 하나를 무작위로 가져온다.
+     *
+     * db.encyclopedia.aggregate([{$match:{'language':'ko'}}, {$sample:{size:1}}])
+     */
+    @Override
+    public Optional<Encyclopedia> findOneByLanguageWithSample(String language) {
+        AggregationOperation match1 = Aggregation.match(Criteria.where("language").is(language));
+        AggregationOperation sample1 = Aggregation.sample(1L);
+        Aggregation aggregation = Aggregation.newAggregation(match1, sample1);
+        AggregationResults<Encyclopedia> results = mongoTemplate.aggregate(aggregation, "encyclopedia", Encyclopedia.class);
+
+        return Optional.ofNullable(results.getUniqueMappedResult());
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.jakduk.api.repository;
+
+import com.jakduk.api.model.db.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface OutboxMessageRepository extends MongoRepository<OutboxMessage, String>, OutboxMessageRepositoryCustom {
+
+    List<OutboxMessage> findByAttemptsLessThanOrderByIdAsc(Integer attempts, Pageable pageable);
+    long countByAttemptsLessThan(Integer attempts);
+    long countByAttemptsGreaterThanEqual(Integer attempts);
+
+}
@@ -0,0 +1,60 @@
+package com.jakduk.api.repository;
+
+import com.jakduk.api.model.db.OutboxMessage;
+
+import java.util.Date;
+import java.util.List;
+
+public interface OutboxMessageRepositoryCustom {
+
+    /**
+     * 보낼 차례가 되었고 아무도 선점하지 않은(또는 선점이 풀린) 메시지를 오래된 순서로 선점한다.
+     *
+     * @param owner 이번에 선점하는 relay. 선점한 메시지를 다시 찾는 데 쓰므로 선점할 때마다 달라야 한다
+     * @param maxAttempts attempts 가 이보다 작은 메시지만
+     * @param now 지금 시각
+     * @param lockedUntil 선점이 풀리는 시각
+     * @param size 최대 개수
+     * @return 선점한 메시지
+     */
+    List<OutboxMessage> claim(String owner, Integer maxAttempts, Date now, Date lockedUntil, Integer size);
+
+    /**
+     * 선점한 메시지 중 broker 가 확인한 메시지를 지운다.
+     */
+    long deleteClaimed(String owner, List<String> ids);
+
+    /**
+     * 선점한 메시지를 놓아주고 nextAttemptAt 까지 미룬다.
+     *
+     * @param countAttempt true 면 attempts 를, false 면 deferrals 를 올린다
+     */
+    boolean release(String owner, String id, boolean countAttempt, Date nextAttemptAt, String error);
+
+    /**
+     * max-attempts 를 넘겨 멈춘 메시지 중 아직 max-redrives 번 살리지 않은 메시지의 attempts 를 0 으로 되돌리고 redrives 를 올린다.
+     *
+     * @return 되돌린 메시지 수
+     */
+    long redrive(Integer maxAttempts, Integer maxRedrives);
+
+    /**
+     * max-redrives 번 살려도 max-attempts 를 넘긴 메시지를 dead letter 컬렉션으로 옮긴다.
+     *
+     * @return 옮긴 메시지 수
+     */
+    long deadLetter(Integer maxAttempts, Integer maxRedrives);
+
+    /**
+     * 운영자가 고른 dead letter 메시지를 처음 쌓인 것처럼 outbox 로 되돌린다.
+     *
+     * @return 되돌린 메시지 수
+     */
+    long redriveDeadLetters(List<String> ids);
+
+    /**
+     * dead letter 컬렉션의 메시지 수
+     */
+    long countDeadLetters();
+
+}
@@ -0,0 +1,140 @@
+package com.jakduk.api.repository;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.db.OutboxMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Repository
+public class OutboxMessageRepositoryImpl implements OutboxMessageRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * 후보의 _id 를 읽은 뒤, 선점 조건을 다시 건 updateMulti 로 owner 를 적는다.
+     * 문서 하나의 update 는 원자적이므로 두 서버가 같은 후보를 읽어도 한쪽만 선점한다. 선점한 문서는 owner 로 다시 읽는다.
+     */
+    @Override
+    public List<OutboxMessage> claim(String owner, Integer maxAttempts, Date now, Date lockedUntil, Integer size) {
+        Query candidates = new Query(this.claimable(maxAttempts, now));
+        candidates.fields().include("_id");
+        candidates.with(new Sort(Sort.Direction.ASC, "_id"));
+        candidates.limit(size);
+
+        List<String> ids = mongoTemplate.find(candidates, OutboxMessage.class).stream()
+                .map(OutboxMessage::getId)
+                .collect(Collectors.toList());
+
+        if (ids.isEmpty())
+            return Collections.emptyList();
+
+        Query query = new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), this.claimable(maxAttempts, now)));
+        Update update = new Update().set("owner", owner).set("lockedUntil", lockedUntil);
+
+        mongoTemplate.updateMulti(query, update, OutboxMessage.class);
+
+        Query claimed = new Query(Criteria.where("owner").is(owner));
+        claimed.with(new Sort(Sort.Direction.ASC, "_id"));
+
+        return mongoTemplate.find(claimed, OutboxMessage.class);
+    }
+
+    @Override
+    public long deleteClaimed(String owner, List<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids).and("owner").is(owner));
+
+        return mongoTemplate.remove(query, OutboxMessage.class).getDeletedCount();
+    }
+
+    @Override
+    public boolean release(String owner, String id, boolean countAttempt, Date nextAttemptAt, String error) {
+        Query query = new Query(Criteria.where("_id").is(id).and("owner").is(owner));
+
+        Update update = new Update()
+                .inc(countAttempt ? "attempts" : "deferrals", 1)
+                .set("nextAttemptAt", nextAttemptAt)
+                .set("lastError", error)
+                .unset("owner")
+                .unset("lockedUntil");
+
+        return mongoTemplate.updateFirst(query, update, OutboxMessage.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public long redrive(Integer maxAttempts, Integer maxRedrives) {
+        Query query = new Query(Criteria.where("attempts").gte(maxAttempts)
+                .orOperator(Criteria.where("redrives").is(null), Criteria.where("redrives").lt(maxRedrives)));
+
+        Update update = new Update().set("attempts", 0).inc("redrives", 1).unset("nextAttemptAt");
+
+        return mongoTemplate.updateMulti(query, update, OutboxMessage.class).getModifiedCount();
+    }
+
+    /**
+     * dead letter 컬렉션에 같은 _id 로 먼저 적고 outbox 에서 지운다. 중간에 죽어도 다음 번에 같은 문서를 덮어쓰고 지운다.
+     */
+    @Override
+    public long deadLetter(Integer maxAttempts, Integer maxRedrives) {
+        Query query = new Query(Criteria.where("attempts").gte(maxAttempts).and("redrives").gte(maxRedrives));
+        long moved = 0;
+
+        for (OutboxMessage outboxMessage : mongoTemplate.find(query, OutboxMessage.class)) {
+            mongoTemplate.save(outboxMessage, Constants.COLLECTION_OUTBOX_DEAD_LETTER);
+            moved += mongoTemplate.remove(new Query(Criteria.where("_id").is(outboxMessage.getId())), OutboxMessage.class).getDeletedCount();
+        }
+
+        return moved;
+    }
+
+    /**
+     * outbox 에 같은 _id 로 먼저 적고 dead letter 컬렉션에서 지운다.
+     */
+    @Override
+    public long redriveDeadLetters(List<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        long redriven = 0;
+
+        for (OutboxMessage outboxMessage : mongoTemplate.find(query, OutboxMessage.class, Constants.COLLECTION_OUTBOX_DEAD_LETTER)) {
+            outboxMessage.setAttempts(0);
+            outboxMessage.setDeferrals(0);
+            outboxMessage.setRedrives(0);
+            outboxMessage.setNextAttemptAt(null);
+            outboxMessage.setOwner(null);
+            outboxMessage.setLockedUntil(null);
+
+            mongoTemplate.save(outboxMessage);
+            redriven += mongoTemplate.remove(new Query(Criteria.where("_id").is(outboxMessage.getId())), Constants.COLLECTION_OUTBOX_DEAD_LETTER)
+                    .getDeletedCount();
+        }
+
+        return redriven;
+    }
+
+    @Override
+    public long countDeadLetters() {
+        return mongoTemplate.count(new Query(), Constants.COLLECTION_OUTBOX_DEAD_LETTER);
+    }
+
+    /**
+     * 보낼 차례가 되었고, 아무도 선점하지 않았거나 선점이 풀린 메시지.
+     * 필드가 없는 메시지(처음 쌓인 메시지)는 null 과 같게 본다.
+     */
+    private Criteria claimable(Integer maxAttempts, Date now) {
+        return new Criteria().andOperator(
+                Criteria.where("attempts").lt(maxAttempts),
+                new Criteria().orOperator(Criteria.where("nextAttemptAt").is(null), Criteria.where("nextAttemptAt").lte(now)),
+                new Criteria().orOperator(Criteria.where("lockedUntil").is(null), Criteria.where("lockedUntil").lte(now)));
+    }
+
+}
@@ -1,7 +1,6 @@
 package com.jakduk.api.repository.article;
 
 import com.jakduk.api.model.db.ArticleComment;
-import com.jakduk.api.model.embedded.ArticleItem;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
@@ -17,7 +16,8 @@ public interface ArticleCommentRepository extends MongoRepository<ArticleComment
 
 	Optional<ArticleComment> findOneById(String id);
 
-	Integer countByArticle(ArticleItem articleItem);
+	// article 통째로 비교하면 article._id 인덱스를 못 탄다.
+	Integer countByArticleId(String articleId);
 	long count();
 
 	// for JUnit
@@ -1,6 +1,5 @@
 package com.jakduk.api.repository.article;
 
-import com.jakduk.api.common.Constants;
 import com.jakduk.api.model.db.ArticleComment;
 import com.jakduk.api.model.aggregate.CommonCount;
 import com.jakduk.api.model.simple.ArticleCommentSimple;
@@ -31,13 +30,6 @@ public interface ArticleCommentRepositoryCustom {
      */
     List<ArticleComment> findByBoardSeqAndGTId(String board, Integer articleSeq, ObjectId commentId);
 
-    /**
-     * boardItem의 objectId 기준 이상의 댓글 수를 가져온다
-     *
-     * @param boardId 기준이 되는 boardItem의 boardId
-     */
-    List<CommonCount> findCommentsCountGreaterThanBoardIdAndBoard(ObjectId boardId, Constants.BOARD_TYPE board);
-
     List<ArticleCommentSimple> findSimpleComments();
 
 }
@@ -87,28 +87,12 @@ public class ArticleCommentRepositoryImpl implements ArticleCommentRepositoryCus
         return mongoTemplate.find(query, ArticleComment.class);
     }
 
-    /**
-     * boardItem의 boardId 기준 이상의 댓글 수를 가져온다
-     *
-     * @param boardId 기준이 되는 boardItem의 boardId
-     */
-    @Override
-    public List<CommonCount> findCommentsCountGreaterThanBoardIdAndBoard(ObjectId boardId, Constants.BOARD_TYPE board) {
-        AggregationOperation match1 = Aggregation.match(Criteria.where("article._id").gt(boardId).and("article.board").is(board.name()));
-        AggregationOperation group = Aggregation.group("article").count().as("count");
-        AggregationOperation sort = Aggregation.sort(Sort.Direction.DESC, "count");
-        //AggregationOperation limit = Aggregation.limit(Constants.BOARD_TOP_LIMIT);
-        Aggregation aggregation = Aggregation.newAggregation(match1, group, sort/*, limit*/);
-        AggregationResults<CommonCount> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE_COMMENT, CommonCount.class);
-
-        return results.getMappedResults();
-    }
-
     @Override
     public List<ArticleCommentSimple> findSimpleComments() {
         Query query = new Query();
         query.with(new Sort(Sort.Direction.DESC, "_id"));
         query.limit(Constants.HOME_SIZE_LINE_NUMBER);
+        query.fields().include("article").include("writer").include("content").include("shortContent");
 
         return mongoTemplate.find(query, ArticleCommentSimple.class);
     }
@@ -16,4 +16,7 @@ public interface ArticleOnListRepository extends MongoRepository<ArticleOnList,
 	
 	Page<ArticleOnList> findByBoard(Constants.BOARD_TYPE board, Pageable pageable);
 	Page<ArticleOnList> findByBoardAndCategory(Constants.BOARD_TYPE board, String category, Pageable pageable);
+
+	Long countByBoard(Constants.BOARD_TYPE board);
+	Long countByBoardAndCategory(Constants.BOARD_TYPE board, String category);
 }
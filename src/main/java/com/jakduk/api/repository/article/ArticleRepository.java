@@ -1,7 +1,6 @@
 package com.jakduk.api.repository.article;
 
 import com.jakduk.api.model.db.Article;
-import com.jakduk.api.model.simple.ArticleSimple;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
@@ -16,11 +15,11 @@ public interface ArticleRepository extends MongoRepository<Article, String>, Art
 	Optional<Article> findOneByBoardAndSeq(String board, Integer seq);
 
 	List<Article> findByIdInAndLinkedGalleryIsTrue(List<String> ids);
-	List<Article> findByIdInAndBoard(List<String> ids, String board);
 	List<Article> findBySeqIn(List<Integer> seqs);
 
-	@Query(value="{'seq' : ?0}")
-    ArticleSimple findBoardFreeOfMinimumBySeq(Integer seq);
+	// 댓글 목록에 붙는 글 정보와 댓글 수만 가져온다.
+	@Query(value="{'board' : ?0, 'seq' : ?1}", fields="{'seq' : 1, 'board' : 1, 'status' : 1, 'writer' : 1, 'subject' : 1, 'commentCount' : 1}")
+	Optional<Article> findSimpleByBoardAndSeq(String board, Integer seq);
 
 	// for JUnit
 	Optional<Article> findTopByOrderByIdAsc();
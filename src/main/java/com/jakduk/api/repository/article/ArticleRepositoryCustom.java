@@ -1,6 +1,7 @@
 package com.jakduk.api.repository.article;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.aggregate.ArticleDetailRelations;
 import com.jakduk.api.model.aggregate.BoardFeelingCount;
 import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.db.Article;
@@ -11,6 +12,7 @@ import com.jakduk.api.model.simple.ArticleSimple;
 import org.bson.types.ObjectId;
 import org.springframework.data.domain.Sort;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -18,8 +20,6 @@ import java.util.List;
  */
 public interface ArticleRepositoryCustom {
 
-    List<ArticleOnList> findByIdAndUserId(ObjectId id, String userId, Integer limit);
-
     /**
      * 기준 Article ID 이상의 Article 목록을 가져온다.
      */
@@ -28,11 +28,12 @@ public interface ArticleRepositoryCustom {
     /**
      * RSS 용 게시물 목록
      *
+     * @param board 게시판 조건 추가 (null 이면 검사 안함)
      * @param objectId 해당 ID 이하의 조건 추가 (null 이면 검사 안함)
      * @param sort sort
      * @param limit limit
      */
-    List<ArticleOnRSS> findPostsOnRss(ObjectId objectId, Sort sort, Integer limit);
+    List<ArticleOnRSS> findPostsOnRss(String board, ObjectId objectId, Sort sort, Integer limit);
 
     /**
      * id 배열에 해당하는 Article 목록.
@@ -40,6 +41,16 @@ public interface ArticleRepositoryCustom {
      */
     List<ArticleSimple> findArticleSimplesByIds(List<ObjectId> ids);
 
+    /**
+     * 기준 글 ID 보다 오래된 글 목록. _id 역순.
+     *
+     * @param board 게시판
+     * @param category 말머리 (null 이면 검사 안함)
+     * @param before 해당 ID 미만의 조건
+     * @param limit limit
+     */
+    List<ArticleOnList> findByBoardAndCategoryAndIdLessThan(String board, String category, ObjectId before, Integer limit);
+
     /**
      * 공지 글 목록
      */
@@ -60,9 +71,35 @@ public interface ArticleRepositoryCustom {
     List<ArticleOnSitemap> findSitemapArticles(ObjectId objectId, Sort sort, Integer limit);
 
     /**
-     * 글 보기에서 앞 글, 뒷 글의 정보를 가져온다.
+     * 사이트맵 용 게시물 목록. seq 범위 안의 지워지지 않은 글을 seq 순서로 가져온다.
+     *
+     * @param fromSeq 시작 seq (포함)
+     * @param toSeq 끝 seq (포함)
+     */
+    List<ArticleOnSitemap> findSitemapArticlesBySeqRange(Integer fromSeq, Integer toSeq);
+
+    /**
+     * lastUpdated 가 기준 시각 이후인 글 목록. 지워진 글도 포함한다.
+     *
+     * @param lastUpdated 기준 시각 (포함)
+     */
+    List<ArticleOnSitemap> findSitemapArticlesByLastUpdatedGte(LocalDateTime lastUpdated);
+
+    /**
+     * 가장 큰 글 seq. 글이 없으면 0
+     */
+    Integer findMaxSeq();
+
+    /**
+     * 글 보기에 함께 나가는 앞, 뒤 글, 글쓴이의 최근 글, 엮인 사진들을 한번에 가져온다.
+     *
+     * @param id 글 ID
+     * @param category 말머리 (null 이면 검사 안함)
+     * @param userId 글쓴이 ID (null 이면 최근 글을 가져오지 않음)
+     * @param linkedGallery 엮인 사진을 가져올지
+     * @param latestLimit 글쓴이의 최근 글 수
      */
-    ArticleSimple findByIdAndCategoryWithOperator(ObjectId id, String category, Constants.CRITERIA_OPERATOR operator);
+    ArticleDetailRelations findArticleDetailRelations(ObjectId id, String category, String userId, Boolean linkedGallery, Integer latestLimit);
 
     /**
      * 게시물의 감정 갯수를 가져온다
@@ -77,4 +114,12 @@ public interface ArticleRepositoryCustom {
      */
     List<BoardTop> findTopLikes(Constants.BOARD_TYPE board, ObjectId commentId);
 
+    /**
+     * 댓글이 많은 게시물 조회
+     *
+     * @param board 게시판
+     * @param objectId 해당 ID 기준 이상
+     */
+    List<BoardTop> findTopComments(Constants.BOARD_TYPE board, ObjectId objectId);
+
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.jakduk.api.repository.article;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.aggregate.ArticleDetailRelations;
 import com.jakduk.api.model.aggregate.BoardFeelingCount;
 import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.db.Article;
@@ -8,7 +9,9 @@ import com.jakduk.api.model.simple.ArticleOnList;
 import com.jakduk.api.model.simple.ArticleOnRSS;
 import com.jakduk.api.model.simple.ArticleOnSitemap;
 import com.jakduk.api.model.simple.ArticleSimple;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
@@ -19,9 +22,13 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.ObjectUtils;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Created by pyohwan on 16. 10. 9.
@@ -33,18 +40,6 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
     @Autowired
     private MongoTemplate mongoTemplate;
 
-    @Override
-    public List<ArticleOnList> findByIdAndUserId(ObjectId id, String userId, Integer limit) {
-        AggregationOperation match1 = Aggregation.match(Criteria.where("writer.userId").is(userId));
-        AggregationOperation match2 = Aggregation.match(Criteria.where("_id").ne(id));
-        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.DESC, "_id");
-        AggregationOperation limit1 = Aggregation.limit(limit);
-        Aggregation aggregation = Aggregation.newAggregation(match1, match2, sort1, limit1);
-        AggregationResults<ArticleOnList> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE, ArticleOnList.class);
-
-        return results.getMappedResults();
-    }
-
     /**
      * 기준 Article ID 이상의 Article 목록을 가져온다.
      */
@@ -72,16 +67,20 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
     /**
      * RSS 용 게시물 목록
      *
+     * @param board 게시판 조건 추가 (null 이면 검사 안함)
      * @param objectId 해당 ID 이하의 조건 추가 (null 이면 검사 안함)
      * @param sort sort
      * @param limit limit
      */
     @Override
-    public List<ArticleOnRSS> findPostsOnRss(ObjectId objectId, Sort sort, Integer limit) {
+    public List<ArticleOnRSS> findPostsOnRss(String board, ObjectId objectId, Sort sort, Integer limit) {
 
         Query query = new Query();
         query.addCriteria(Criteria.where("status.delete").ne(true));
 
+        if (StringUtils.isNotBlank(board))
+            query.addCriteria(Criteria.where("board").is(board));
+
         if (Objects.nonNull(objectId))
             query.addCriteria(Criteria.where("_id").lt(objectId));
 
@@ -104,6 +103,25 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
         return results.getMappedResults();
     }
 
+    /**
+     * 기준 글 ID 보다 오래된 글 목록. _id 역순.
+     * (board, category, _id) 또는 (board, _id) 인덱스를 범위 조회한다.
+     */
+    @Override
+    public List<ArticleOnList> findByBoardAndCategoryAndIdLessThan(String board, String category, ObjectId before, Integer limit) {
+        Query query = new Query();
+        query.addCriteria(Criteria.where("board").is(board));
+
+        if (StringUtils.isNotBlank(category))
+            query.addCriteria(Criteria.where("category").is(category));
+
+        query.addCriteria(Criteria.where("_id").lt(before));
+        query.with(new Sort(Sort.Direction.DESC, "_id"));
+        query.limit(limit);
+
+        return mongoTemplate.find(query, ArticleOnList.class);
+    }
+
     /**
      * 공지 글 목록
      */
@@ -151,27 +169,108 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
     }
 
     /**
-     * 글 보기에서 앞 글, 뒷 글의 정보를 가져온다.
+     * 사이트맵 용 게시물 목록. seq 범위 안의 지워지지 않은 글을 seq 순서로 가져온다.
      */
     @Override
-    public ArticleSimple findByIdAndCategoryWithOperator(ObjectId id, String category, Constants.CRITERIA_OPERATOR operator) {
+    public List<ArticleOnSitemap> findSitemapArticlesBySeqRange(Integer fromSeq, Integer toSeq) {
         Query query = new Query();
+        query.addCriteria(Criteria.where("seq").gte(fromSeq).lte(toSeq));
+        query.addCriteria(Criteria.where("status.delete").ne(true));
+        query.with(new Sort(Sort.Direction.ASC, "seq"));
 
-        if (StringUtils.isNotBlank(category))
-            query.addCriteria(Criteria.where("category").is(category));
+        return mongoTemplate.find(query, ArticleOnSitemap.class);
+    }
 
-        switch (operator) {
-            case GT:
-                query.addCriteria(Criteria.where("_id").gt(id));
-                query.with(new Sort(Sort.Direction.ASC, "_id"));
-                break;
-            case LT:
-                query.addCriteria(Criteria.where("_id").lt(id));
-                query.with(new Sort(Sort.Direction.DESC, "_id"));
-                break;
+    /**
+     * lastUpdated 가 기준 시각 이후인 글 목록. 지워진 글도 포함한다.
+     */
+    @Override
+    public List<ArticleOnSitemap> findSitemapArticlesByLastUpdatedGte(LocalDateTime lastUpdated) {
+        Query query = new Query();
+        query.addCriteria(Criteria.where("lastUpdated").gte(lastUpdated));
+
+        return mongoTemplate.find(query, ArticleOnSitemap.class);
+    }
+
+    /**
+     * 가장 큰 글 seq. 글이 없으면 0
+     */
+    @Override
+    public Integer findMaxSeq() {
+        Query query = new Query();
+        query.fields().include("seq");
+        query.with(new Sort(Sort.Direction.DESC, "seq"));
+
+        ArticleOnSitemap article = mongoTemplate.findOne(query, ArticleOnSitemap.class);
+
+        return Objects.isNull(article) ? 0 : article.getSeq();
+    }
+
+    /**
+     * 글 보기에 함께 나가는 앞, 뒤 글, 글쓴이의 최근 글, 엮인 사진들을 한번에 가져온다.
+     *
+     * 글 하나에서 시작해서 각각을 값이 정해진 $lookup 하위 pipeline 으로 붙인다. (MongoDB 3.6 이상)
+     * $facet 은 입력 문서 안에서만 돌아서 인덱스를 못 타므로 쓰지 않는다.
+     * 글 자체는 따로 먼저 가져온다. 글의 category, writer 를 let 으로 넘기면 $expr 로 비교해야 하는데,
+     * MongoDB 5.0 전에는 $expr 범위 비교가 인덱스를 못 타서 앞, 뒤 글을 찾으려고 분류 전체를 훑는다.
+     * 그 사이에 글이 지워졌으면 빈 관계를 돌려준다.
+     */
+    @Override
+    public ArticleDetailRelations findArticleDetailRelations(ObjectId id, String category, String userId, Boolean linkedGallery,
+                                                             Integer latestLimit) {
+
+        Criteria prevCriteria = Criteria.where("_id").gt(id);
+        Criteria nextCriteria = Criteria.where("_id").lt(id);
+
+        if (StringUtils.isNotBlank(category)) {
+            prevCriteria.and("category").is(category);
+            nextCriteria.and("category").is(category);
         }
 
-        return mongoTemplate.findOne(query, ArticleSimple.class);
+        Document articleSimpleFields = this.fields("seq", "status", "board", "writer", "subject");
+
+        List<AggregationOperation> operations = new ArrayList<>();
+        operations.add(Aggregation.match(Criteria.where("_id").is(id)));
+        operations.add(Aggregation.project("_id"));
+
+        // 앞, 뒤 글
+        operations.add(this.lookup(Constants.COLLECTION_ARTICLE, "prevArticles",
+                new Document("$match", prevCriteria.getCriteriaObject()),
+                new Document("$sort", new Document("_id", 1)),
+                new Document("$limit", 1),
+                new Document("$project", articleSimpleFields)));
+
+        operations.add(this.lookup(Constants.COLLECTION_ARTICLE, "nextArticles",
+                new Document("$match", nextCriteria.getCriteriaObject()),
+                new Document("$sort", new Document("_id", -1)),
+                new Document("$limit", 1),
+                new Document("$project", articleSimpleFields)));
+
+        // 글쓴이의 최근 글
+        if (StringUtils.isNotBlank(userId)) {
+            operations.add(this.lookup(Constants.COLLECTION_ARTICLE, "latestArticlesByWriter",
+                    new Document("$match", Criteria.where("writer.userId").is(userId).and("_id").ne(id).getCriteriaObject()),
+                    new Document("$sort", new Document("_id", -1)),
+                    new Document("$limit", latestLimit),
+                    new Document("$project", this.fields("seq", "status", "board", "writer", "subject", "linkedGallery"))));
+        }
+
+        // 엮인 사진들
+        if (BooleanUtils.isTrue(linkedGallery)) {
+            Criteria galleryCriteria = Criteria.where("status.status").is(Constants.GALLERY_STATUS_TYPE.ENABLE.name())
+                    .and("linkedItems._id").is(id)
+                    .and("linkedItems.from").is(Constants.GALLERY_FROM_TYPE.ARTICLE.name());
+
+            operations.add(this.lookup(Constants.COLLECTION_GALLERY, "galleries",
+                    new Document("$match", galleryCriteria.getCriteriaObject()),
+                    new Document("$sort", new Document("_id", -1)),
+                    new Document("$limit", 100)));
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(operations);
+        AggregationResults<ArticleDetailRelations> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE, ArticleDetailRelations.class);
+
+        return Optional.ofNullable(results.getUniqueMappedResult()).orElseGet(ArticleDetailRelations::new);
     }
 
     /**
@@ -197,31 +296,53 @@ public class ArticleRepositoryImpl implements ArticleRepositoryCustom {
     }
 
     /**
-     * 인기있는 게시물 조회
+     * 주간 좋아요수 선두 글. 글의 likeCount 카운터 순서.
      *
-     * db.boardFree.aggregate(
-     *  {$match:{_id:{$gt:ObjectId("5947f1b8479fff0441f1b95b")}}},
-     *  {$project:{_id:1, seq:1, status:1, subject:1, views:1, count:{$size:{'$ifNull':['$usersLiking', []]}}}},
+     * db.article.aggregate(
+     *  {$match:{_id:{$gt:ObjectId("5947f1b8479fff0441f1b95b")}, board:'FREE'}},
+     *  {$project:{_id:1, seq:1, status:1, subject:1, views:1, count:{'$ifNull':['$likeCount', 0]}}},
      *  {$sort:{count:-1, views:-1}},
      *  {$limit:3})
      */
     @Override
     public List<BoardTop> findTopLikes(Constants.BOARD_TYPE board, ObjectId objectId) {
-        AggregationOperation match1 = Aggregation.match(Criteria.where("_id").gt(objectId).and("board").is(board.name()));
+        return this.findTops(board, objectId, "likeCount");
+    }
 
-        AggregationExpression usersLikingCount = ArrayOperators.Size.lengthOfArray(ConditionalOperators.ifNull("usersLiking").then(new ArrayList<>()));
+    /**
+     * 주간 댓글수 선두 글. 글의 commentCount 카운터 순서.
+     */
+    @Override
+    public List<BoardTop> findTopComments(Constants.BOARD_TYPE board, ObjectId objectId) {
+        return this.findTops(board, objectId, "commentCount");
+    }
+
+    private List<BoardTop> findTops(Constants.BOARD_TYPE board, ObjectId objectId, String countField) {
+        AggregationOperation match1 = Aggregation.match(Criteria.where("_id").gt(objectId).and("board").is(board.name()));
 
         AggregationOperation project1 = Aggregation.project("_id", "seq", "status", "subject", "views")
-                .and(usersLikingCount).as("count");
+                .and(ConditionalOperators.ifNull(countField).then(0)).as("count");
 
-        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.DESC, "count");
-        AggregationOperation sort2 = Aggregation.sort(Sort.Direction.DESC, "views");
+        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.DESC, "count", "views");
         AggregationOperation limit1 = Aggregation.limit(Constants.BOARD_TOP_LIMIT);
 
-        Aggregation aggregation = Aggregation.newAggregation(match1, project1, sort1, sort2, limit1);
+        Aggregation aggregation = Aggregation.newAggregation(match1, project1, sort1, limit1);
         AggregationResults<BoardTop> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_ARTICLE, BoardTop.class);
 
         return results.getMappedResults();
     }
 
+    private AggregationOperation lookup(String from, String as, Document... pipeline) {
+        return context -> new Document("$lookup", new Document("from", from)
+                .append("pipeline", Arrays.asList(pipeline))
+                .append("as", as));
+    }
+
+    private Document fields(String... fields) {
+        Document document = new Document();
+        Stream.of(fields).forEach(field -> document.append(field, 1));
+
+        return document;
+    }
+
 }
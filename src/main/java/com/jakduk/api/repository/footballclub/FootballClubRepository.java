@@ -14,7 +14,7 @@ import java.util.Optional;
  * @date     : 2014. 9. 17.
  * @desc     :
  */
-public interface FootballClubRepository extends MongoRepository<FootballClub, String>, FootballClubRepositoryCustom {
+public interface FootballClubRepository extends MongoRepository<FootballClub, String> {
 	
 	@Query(value="{'names.language' : ?0}", fields="{'active' : 1, 'origin' : 1, 'names.$' : 1}")
 	List<FootballClub> findByNamesLanguage(String language, Pageable pageable);
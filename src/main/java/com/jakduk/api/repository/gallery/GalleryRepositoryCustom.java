@@ -1,6 +1,8 @@
 package com.jakduk.api.repository.gallery;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.aggregate.LinkedItemGalleries;
+import com.jakduk.api.model.aggregate.LinkedItemGallery;
 import com.jakduk.api.model.db.Gallery;
 import com.jakduk.api.model.simple.GallerySimple;
 import org.bson.types.ObjectId;
@@ -22,6 +24,16 @@ public interface GalleryRepositoryCustom {
      */
     List<Gallery> findByItemIdAndFromType(ObjectId itemId, Constants.GALLERY_FROM_TYPE fromType, Integer limit);
 
+    /**
+     * ItemID 배열과 FromType에 해당하는 아이템 별 가장 최근 사진 ID를 한번에 가져온다.
+     */
+    List<LinkedItemGallery> findFirstByItemIdsAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType);
+
+    /**
+     * ItemID 배열과 FromType에 해당하는 아이템 별 사진 ID 목록을 한번에 가져온다.
+     */
+    List<LinkedItemGalleries> findByItemIdsAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType);
+
     /**
      * ItemID이 있으면 그 이전부터 최신순으로 GallerySimple 목록을 가져온다.
      */
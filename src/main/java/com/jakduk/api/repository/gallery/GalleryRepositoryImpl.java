@@ -1,12 +1,17 @@
 package com.jakduk.api.repository.gallery;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.aggregate.LinkedItemGalleries;
+import com.jakduk.api.model.aggregate.LinkedItemGallery;
 import com.jakduk.api.model.db.Gallery;
 import com.jakduk.api.model.simple.GallerySimple;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
@@ -65,6 +70,56 @@ public class GalleryRepositoryImpl implements GalleryRepositoryCustom {
         return mongoTemplate.find(query, Gallery.class);
     }
 
+    /**
+     * ItemID 배열과 FromType에 해당하는 아이템 별 가장 최근 사진 ID를 한번에 가져온다.
+     *
+     * db.gallery.aggregate([
+     *  {$match:{'status.status':'ENABLE', 'linkedItems._id':{$in:[...]}}},
+     *  {$unwind:'$linkedItems'},
+     *  {$match:{'linkedItems._id':{$in:[...]}, 'linkedItems.from':'ARTICLE'}},
+     *  {$sort:{_id:-1}},
+     *  {$group:{_id:'$linkedItems._id', galleryId:{$first:'$_id'}}}])
+     */
+    @Override
+    public List<LinkedItemGallery> findFirstByItemIdsAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType) {
+        AggregationOperation match1 = Aggregation.match(Criteria.where("status.status").is(Constants.GALLERY_STATUS_TYPE.ENABLE.name())
+                .and("linkedItems._id").in(itemIds));
+        AggregationOperation unwind1 = Aggregation.unwind("linkedItems");
+        AggregationOperation match2 = Aggregation.match(Criteria.where("linkedItems._id").in(itemIds)
+                .and("linkedItems.from").is(fromType.name()));
+        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.DESC, "_id");
+        AggregationOperation group1 = Aggregation.group("linkedItems._id").first("_id").as("galleryId");
+        Aggregation aggregation = Aggregation.newAggregation(match1, unwind1, match2, sort1, group1);
+        AggregationResults<LinkedItemGallery> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_GALLERY, LinkedItemGallery.class);
+
+        return results.getMappedResults();
+    }
+
+    /**
+     * ItemID 배열과 FromType에 해당하는 아이템 별 사진 ID 목록을 한번에 가져온다.
+     *
+     * db.gallery.aggregate([
+     *  {$match:{'status.status':'ENABLE', 'linkedItems._id':{$in:[...]}}},
+     *  {$unwind:'$linkedItems'},
+     *  {$match:{'linkedItems._id':{$in:[...]}, 'linkedItems.from':'ARTICLE_COMMENT'}},
+     *  {$sort:{_id:-1}},
+     *  {$group:{_id:'$linkedItems._id', galleryIds:{$push:'$_id'}}}])
+     */
+    @Override
+    public List<LinkedItemGalleries> findByItemIdsAndFromType(List<ObjectId> itemIds, Constants.GALLERY_FROM_TYPE fromType) {
+        AggregationOperation match1 = Aggregation.match(Criteria.where("status.status").is(Constants.GALLERY_STATUS_TYPE.ENABLE.name())
+                .and("linkedItems._id").in(itemIds));
+        AggregationOperation unwind1 = Aggregation.unwind("linkedItems");
+        AggregationOperation match2 = Aggregation.match(Criteria.where("linkedItems._id").in(itemIds)
+                .and("linkedItems.from").is(fromType.name()));
+        AggregationOperation sort1 = Aggregation.sort(Sort.Direction.DESC, "_id");
+        AggregationOperation group1 = Aggregation.group("linkedItems._id").push("_id").as("galleryIds");
+        Aggregation aggregation = Aggregation.newAggregation(match1, unwind1, match2, sort1, group1);
+        AggregationResults<LinkedItemGalleries> results = mongoTemplate.aggregate(aggregation, Constants.COLLECTION_GALLERY, LinkedItemGalleries.class);
+
+        return results.getMappedResults();
+    }
+
     @Override
     public List<GallerySimple> findSimpleById(ObjectId id, Integer limit) {
 
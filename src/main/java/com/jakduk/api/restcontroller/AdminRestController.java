@@ -647,6 +647,20 @@ public class AdminRestController {
 		return data;
 	}
 
+	// dead letter 로 옮긴 outbox 메시지 다시 보내기
+	@RequestMapping(value = "/outbox/dead-letters/redrive", method = RequestMethod.POST)
+	public Map<String, Object> redriveOutboxDeadLetters(@RequestBody List<String> ids) {
+
+		if (ObjectUtils.isEmpty(ids))
+			throw new IllegalArgumentException("다시 보낼 outbox 메시지 id 가 없습니다.");
+
+		Map<String, Object> response = new HashMap<>();
+
+		response.put("redriven", adminService.redriveOutboxDeadLetters(ids));
+
+		return response;
+	}
+
 	private FootballClub buildFootballClub(String id, FootballClubRequest request) {
 		FootballClubOrigin footballClubOrigin = adminService.findOriginFootballClubById(request.getOrigin());
 
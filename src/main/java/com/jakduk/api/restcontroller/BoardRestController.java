@@ -5,23 +5,20 @@ import com.jakduk.api.common.board.category.BoardCategory;
 import com.jakduk.api.common.board.category.BoardCategoryGenerator;
 import com.jakduk.api.common.rabbitmq.RabbitMQPublisher;
 import com.jakduk.api.common.util.AuthUtils;
-import com.jakduk.api.common.util.DateUtils;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
-import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.db.Article;
 import com.jakduk.api.model.db.ArticleComment;
 import com.jakduk.api.model.db.Gallery;
-import com.jakduk.api.model.embedded.CommonFeelingUser;
 import com.jakduk.api.model.embedded.CommonWriter;
 import com.jakduk.api.restcontroller.vo.EmptyJsonResponse;
 import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
 import com.jakduk.api.restcontroller.vo.board.*;
 import com.jakduk.api.service.ArticleService;
+import com.jakduk.api.service.ArticleTopsService;
 import com.jakduk.api.service.GalleryService;
 import org.apache.commons.lang3.StringUtils;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
@@ -29,10 +26,8 @@ import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.beans.PropertyEditorSupport;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -48,6 +43,7 @@ import java.util.stream.Collectors;
 public class BoardRestController {
 
     @Autowired private ArticleService articleService;
+    @Autowired private ArticleTopsService articleTopsService;
     @Autowired private GalleryService galleryService;
     @Autowired private RabbitMQPublisher rabbitMQPublisher;
 
@@ -57,9 +53,16 @@ public class BoardRestController {
             @PathVariable Constants.BOARD_TYPE board, // 게시판
             @RequestParam(required = false, defaultValue = "1") Integer page, // 페이지 번호(1부터 시작)
             @RequestParam(required = false, defaultValue = "20") Integer size, // 페이지 사이즈
-            @RequestParam(required = false, defaultValue = "ALL") String categoryCode // 말머리
+            @RequestParam(required = false, defaultValue = "ALL") String categoryCode, // 말머리
+            @RequestParam(required = false) String before // 이 글 ID 보다 오래된 글 목록. 있으면 page 는 무시
     ) {
 
+        if (size < 1 || size > Constants.BOARD_MAX_SIZE || page < 1)
+            throw new ServiceException(ServiceError.INVALID_PARAMETER);
+
+        if (StringUtils.isNotBlank(before))
+            return articleService.getArticlesBefore(board, categoryCode, before, size);
+
         return articleService.getArticles(board, categoryCode, page, size);
     }
 
@@ -69,13 +72,7 @@ public class BoardRestController {
             @PathVariable Constants.BOARD_TYPE board // 게시판
     ) {
 
-        LocalDate localDate = LocalDate.now().minusWeeks(1);
-        ObjectId objectId = new ObjectId(DateUtils.localDateToDate(localDate));
-
-        List<BoardTop> topLikes = articleService.getArticlesTopLikes(board, objectId);
-        List<BoardTop> topComments = articleService.getArticlesTopComments(board, objectId);
-
-        return new GetArticlesTopsResponse(topLikes, topComments);
+        return articleTopsService.getTops(board);
     }
 
     // 게시판 글 상세
@@ -83,14 +80,11 @@ public class BoardRestController {
     public ResponseEntity<GetArticleDetailResponse> getArticleDetail(
             @PathVariable Constants.BOARD_TYPE board, // 게시판
             @PathVariable Integer seq, // 글 seq
-            HttpServletRequest request,
-            HttpServletResponse response) {
-
-        Boolean isAddCookie = JakdukUtils.addViewsCookie(request, response, Constants.VIEWS_COOKIE_TYPE.ARTICLE, String.valueOf(seq));
+            HttpServletRequest request) {
 
         CommonWriter commonWriter = AuthUtils.getCommonWriterFromSession();
 
-        return articleService.getArticleDetail(commonWriter, board, seq, isAddCookie);
+        return articleService.getArticleDetail(commonWriter, board, seq, JakdukUtils.getVisitorId(request, commonWriter));
     }
 
     // 게시판 말머리 목록
@@ -307,16 +301,7 @@ public class BoardRestController {
 
         CommonWriter commonWriter = AuthUtils.getCommonWriterFromSession();
 
-        Article article = articleService.setArticleFeelings(commonWriter, board, seq, feeling);
-
-        List<CommonFeelingUser> usersLiking = article.getUsersLiking();
-        List<CommonFeelingUser> usersDisliking = article.getUsersDisliking();
-
-        return new UserFeelingResponse() {{
-            setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, usersLiking, usersDisliking));
-            setNumberOfLike(CollectionUtils.isEmpty(usersLiking) ? 0 : usersLiking.size());
-            setNumberOfDislike(CollectionUtils.isEmpty(usersDisliking) ? 0 : usersDisliking.size());
-        }};
+        return articleService.setArticleFeelings(commonWriter, board, seq, feeling);
     }
 
     // 자유게시판 글의 감정 표현 회원 목록
@@ -339,16 +324,7 @@ public class BoardRestController {
 
         CommonWriter commonWriter = AuthUtils.getCommonWriterFromSession();
 
-        ArticleComment boardComment = articleService.setArticleCommentFeeling(commonWriter, commentId, feeling);
-
-        List<CommonFeelingUser> usersLiking = boardComment.getUsersLiking();
-        List<CommonFeelingUser> usersDisliking = boardComment.getUsersDisliking();
-
-        return new UserFeelingResponse() {{
-            setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, usersLiking, usersDisliking));
-            setNumberOfLike(CollectionUtils.isEmpty(usersLiking) ? 0 : usersLiking.size());
-            setNumberOfDislike(CollectionUtils.isEmpty(usersDisliking) ? 0 : usersDisliking.size());
-        }};
+        return articleService.setArticleCommentFeeling(commonWriter, commentId, feeling);
     }
 
     // 게시판 글의 공지 활성화
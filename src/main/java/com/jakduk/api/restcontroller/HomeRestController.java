@@ -2,17 +2,34 @@ package com.jakduk.api.restcontroller;
 
 import com.jakduk.api.common.Constants;
 import com.jakduk.api.common.util.JakdukUtils;
+import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.model.db.Encyclopedia;
+import com.jakduk.api.model.db.HomeDescription;
+import com.jakduk.api.model.simple.UserSimple;
+import com.jakduk.api.restcontroller.vo.home.HomeArticle;
+import com.jakduk.api.restcontroller.vo.home.HomeArticleComment;
+import com.jakduk.api.restcontroller.vo.home.HomeGallery;
 import com.jakduk.api.restcontroller.vo.home.HomeLatestItemsResponse;
 import com.jakduk.api.service.ArticleService;
 import com.jakduk.api.service.GalleryService;
 import com.jakduk.api.service.HomeService;
 import com.jakduk.api.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * 홈 API
  *
@@ -24,6 +41,11 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api")
 public class HomeRestController {
 
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    @Resource private JakdukProperties.Home homeProperties;
+    @Resource private Executor homeExecutor;
+
     @Autowired private HomeService homeService;
     @Autowired private UserService userService;
     @Autowired private ArticleService articleService;
@@ -44,14 +66,56 @@ public class HomeRestController {
 
         String language = JakdukUtils.getLanguageCode();
 
-        return new HomeLatestItemsResponse() {{
-            setHomeDescription(homeService.getHomeDescription());
-            setUsers(userService.findSimpleUsers());
-            setComments(articleService.getLatestComments());
-            setArticles(articleService.getLatestArticles());
-            setGalleries(galleryService.findSimpleById(null, Constants.HOME_SIZE_GALLERY));
-        }};
+        return homeService.getLatestItems(language, this::loadLatestItems);
     }
 
-}
+    /**
+     * 홈 최근 데이터를 섹션별로 동시에 가져온다.
+     * section-timeout-millis 안에 가져오지 못한 섹션은 비워두고 partial 로 표시한다.
+     */
+    private HomeLatestItemsResponse loadLatestItems() {
+
+        long deadline = System.currentTimeMillis() + homeProperties.getSectionTimeoutMillis();
+
+        CompletableFuture<HomeDescription> homeDescription = CompletableFuture.supplyAsync(homeService::getHomeDescription, homeExecutor);
+        CompletableFuture<List<UserSimple>> users = CompletableFuture.supplyAsync(userService::findSimpleUsers, homeExecutor);
+        CompletableFuture<List<HomeArticleComment>> comments = CompletableFuture.supplyAsync(articleService::getLatestComments, homeExecutor);
+        CompletableFuture<List<HomeArticle>> articles = CompletableFuture.supplyAsync(articleService::getLatestArticles, homeExecutor);
+        CompletableFuture<List<HomeGallery>> galleries = CompletableFuture.supplyAsync(
+                () -> galleryService.findSimpleById(null, Constants.HOME_SIZE_GALLERY), homeExecutor);
+
+        List<String> failedSections = new ArrayList<>();
+
+        HomeLatestItemsResponse response = new HomeLatestItemsResponse();
+        response.setHomeDescription(this.getSection("homeDescription", homeDescription, deadline, failedSections));
+        response.setUsers(this.getSection("users", users, deadline, failedSections));
+        response.setComments(this.getSection("comments", comments, deadline, failedSections));
+        response.setArticles(this.getSection("articles", articles, deadline, failedSections));
+        response.setGalleries(this.getSection("galleries", galleries, deadline, failedSections));
 
+        if (! failedSections.isEmpty()) {
+            response.setPartial(true);
+            response.setFailedSections(failedSections);
+        }
+
+        return response;
+    }
+
+    private <T> T getSection(String section, CompletableFuture<T> future, long deadline, List<String> failedSections) {
+        try {
+            return future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("home section timed out. section={}", section);
+        } catch (ExecutionException e) {
+            log.warn("home section failed. section={}", section, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        failedSections.add(section);
+
+        return null;
+    }
+
+}
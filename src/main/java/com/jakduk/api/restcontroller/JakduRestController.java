@@ -16,7 +16,6 @@ import com.jakduk.api.restcontroller.vo.jakdu.JakduScheduleResponse;
 import com.jakduk.api.restcontroller.vo.user.SessionUser;
 import com.jakduk.api.service.FootballService;
 import com.jakduk.api.service.JakduService;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,7 +26,6 @@ import org.springframework.web.servlet.LocaleResolver;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 작두 API
@@ -59,27 +57,22 @@ public class JakduRestController {
         Sort sort = new Sort(Sort.Direction.ASC, Arrays.asList("group", "date"));
         Pageable pageable = new PageRequest(page - 1, size, sort);
 
-        Set<ObjectId> fcIds = new HashSet<>();
-        Set<ObjectId> competitionIds = new HashSet<>();
         List<JakduSchedule> jakduSchedules = jakduService.findAll(pageable).getContent();
 
+        Map<String, LocalName> footballClubNames = footballService.getFootballClubNames(language);
+        Map<String, LocalName> allCompetitionNames = footballService.getCompetitionNames(language);
+
+        Map<String, LocalName> fcNames = new HashMap<>();
+        Map<String, LocalName> competitionNames = new HashMap<>();
+
         for (JakduSchedule jakduSchedule : jakduSchedules) {
-            fcIds.add(new ObjectId(jakduSchedule.getHome().getId()));
-            fcIds.add(new ObjectId(jakduSchedule.getAway().getId()));
+            putName(fcNames, footballClubNames, jakduSchedule.getHome().getId());
+            putName(fcNames, footballClubNames, jakduSchedule.getAway().getId());
 
             if (Objects.nonNull(jakduSchedule.getCompetition()))
-                competitionIds.add(new ObjectId(jakduSchedule.getCompetition().getId()));
+                putName(competitionNames, allCompetitionNames, jakduSchedule.getCompetition().getId());
         }
 
-        List<FootballClub> footballClubs = footballService.getFootballClubs(new ArrayList<>(fcIds), language, Constants.NAME_TYPE.fullName);
-        List<Competition> competitions = footballService.getCompetitions(new ArrayList<>(competitionIds), language);
-
-        Map<String, LocalName> fcNames = footballClubs.stream()
-                .collect(Collectors.toMap(footballClub -> footballClub.getOrigin().getId(), footballClub -> footballClub.getNames().get(0)));
-
-        Map<String, LocalName> competitionNames = competitions.stream()
-                .collect(Collectors.toMap(Competition::getId, competition -> competition.getNames().get(0)));
-
         JakduScheduleResponse response = new JakduScheduleResponse();
         response.setSchedules(jakduSchedules);
         response.setFcNames(fcNames);
@@ -159,15 +152,13 @@ public class JakduRestController {
 
         CommonWriter commonWriter = AuthUtils.getCommonWriterFromSession();
 
-        JakduComment jakduComment = jakduService.setJakduCommentFeeling(commonWriter, commentId, feeling);
+        return jakduService.setJakduCommentFeeling(commonWriter, commentId, feeling);
+    }
 
-        Integer numberOfLike = Objects.nonNull(jakduComment.getUsersLiking()) ? jakduComment.getUsersLiking().size() : 0;
-        Integer numberOfDisLike = Objects.nonNull(jakduComment.getUsersDisliking()) ? jakduComment.getUsersDisliking().size() : 0;
+    private void putName(Map<String, LocalName> names, Map<String, LocalName> allNames, String id) {
+        LocalName name = allNames.get(id);
 
-        return new UserFeelingResponse() {{
-            setMyFeeling(feeling);
-            setNumberOfLike(numberOfLike);
-            setNumberOfDislike(numberOfDisLike);
-        }};
+        if (Objects.nonNull(name))
+            names.put(id, name);
     }
 }
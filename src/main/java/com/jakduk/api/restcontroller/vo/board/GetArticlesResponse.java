@@ -22,6 +22,7 @@ public class GetArticlesResponse {
     private Integer number; // 현재 페이지(0부터 시작)
     private Integer numberOfElements; // 현제 페이지에서 글 수
     private Long totalElements; // 전체 글 수
+    private String nextCursor; // 다음 글 목록을 가져올 때 before 로 쓰는 글 ID. 마지막 페이지면 없음
 
     public Map<String, String> getCategories() {
         return categories;
@@ -102,4 +103,12 @@ public class GetArticlesResponse {
     public void setTotalElements(Long totalElements) {
         this.totalElements = totalElements;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
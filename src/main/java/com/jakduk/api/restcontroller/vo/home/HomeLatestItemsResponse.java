@@ -18,6 +18,8 @@ public class HomeLatestItemsResponse {
     private List<HomeGallery> galleries; // 최근 사진
     private List<HomeArticleComment> comments; // 최근 댓글
     private HomeDescription homeDescription; // 상단 글
+    private Boolean partial; // 시간 안에 가져오지 못한 섹션이 있는지
+    private List<String> failedSections; // 가져오지 못한 섹션들
 
     public List<HomeArticle> getArticles() {
         return articles;
@@ -58,4 +60,20 @@ public class HomeLatestItemsResponse {
     public void setHomeDescription(HomeDescription homeDescription) {
         this.homeDescription = homeDescription;
     }
+
+    public Boolean getPartial() {
+        return partial;
+    }
+
+    public void setPartial(Boolean partial) {
+        this.partial = partial;
+    }
+
+    public List<String> getFailedSections() {
+        return failedSections;
+    }
+
+    public void setFailedSections(List<String> failedSections) {
+        this.failedSections = failedSections;
+    }
 }
@@ -2,6 +2,7 @@ package com.jakduk.api.service;
 
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.rabbitmq.OutboxRelay;
 import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.dao.JakdukDAO;
 import com.jakduk.api.exception.ServiceError;
@@ -69,6 +70,9 @@ public class AdminService {
 	@Autowired private JakduScheduleRepository jakduScheduleRepository;
 	@Autowired private JakduScheduleGroupRepository jakduScheduleGroupRepository;
 	@Autowired private CompetitionRepository competitionRepository; // 리팩토링 할때 없애자.
+	@Autowired private HomeService homeService;
+	@Autowired private ReferenceDataService referenceDataService;
+	@Autowired private OutboxRelay outboxRelay;
 
 	// 알림판 목록.
 	public List<HomeDescription> findHomeDescriptions() {
@@ -83,11 +87,15 @@ public class AdminService {
 	// 알림판 저장.
 	public void saveHomeDescription(HomeDescription homeDescription) {
 		homeDescriptionReposotiry.save(homeDescription);
+
+		homeService.evictLatestItems();
 	}
 
 	// 알림판 삭제.
 	public void deleteHomeDescriptionById(String id) {
 		homeDescriptionReposotiry.deleteById(id);
+
+		homeService.evictLatestItems();
 	}
 
 	// 백과사전 하나.
@@ -103,11 +111,15 @@ public class AdminService {
 	// 백과사전 저장.
 	public void saveEncyclopedia(Encyclopedia encyclopedia) {
 		encyclopediaRepository.save(encyclopedia);
+
+		homeService.refreshEncyclopedias();
 	}
 
 	// 백과사전 삭제.
 	public void deleteEncyclopediaById(String id) {
 		encyclopediaRepository.deleteById(id);
+
+		homeService.refreshEncyclopedias();
 	}
 
 	// 부모 추구단 목록.
@@ -123,11 +135,15 @@ public class AdminService {
 	// 새 부모 축구단 저장.
 	public void saveOriginFootballClub(FootballClubOrigin footballClubOrigin) {
 		footballClubOriginRepository.save(footballClubOrigin);
+
+		referenceDataService.rebuild();
 	}
 
 	// 부모 축구단 하나 지움.
 	public void deleteOriginFootballClub(String id) {
 		footballClubOriginRepository.deleteById(id);
+
+		referenceDataService.rebuild();
 	}
 
 	// 축구단 목록.
@@ -143,6 +159,8 @@ public class AdminService {
 	// 새 부모 축구단 저장.
 	public void saveFootballClub(FootballClub footballClub) {
 		footballClubRepository.save(footballClub);
+
+		referenceDataService.rebuild();
 	}
 
 	public List<AttendanceClub> getAttendanceClubList() {
@@ -437,7 +455,11 @@ public class AdminService {
 		}});
 		competition.setNames(names);
 
-		return competitionRepository.save(competition);
+		Competition savedCompetition = competitionRepository.save(competition);
+
+		referenceDataService.rebuild();
+
+		return savedCompetition;
 	}
 
 	public List<Competition> getCompetitions() {
@@ -446,6 +468,13 @@ public class AdminService {
 
 	public void deleteCompetition(String id) {
 		competitionRepository.deleteById(id);
+
+		referenceDataService.rebuild();
+	}
+
+	// dead letter 로 옮긴 outbox 메시지 중 고른 것만 다시 보낸다.
+	public long redriveOutboxDeadLetters(List<String> ids) {
+		return outboxRelay.redriveDeadLetters(ids);
 	}
 
 }
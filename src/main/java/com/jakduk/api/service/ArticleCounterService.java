@@ -0,0 +1,190 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.aggregate.BoardFeelingCount;
+import com.jakduk.api.model.aggregate.CommonCount;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.repository.article.ArticleCommentRepository;
+import com.jakduk.api.repository.article.ArticleRepository;
+import org.apache.commons.lang3.BooleanUtils;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 글의 댓글 수, 좋아요 수, 싫어요 수 카운터.
+ *
+ * 글 목록에서 매번 댓글과 감정 표현을 세지 않도록 글에 카운터를 두고 $inc 로 올리고 내린다.
+ * 감정 표현 카운터는 UsersFeelingService 가 감정 표현 목록과 같이 올리고 내린다.
+ * 카운터가 어긋날 수 있으므로(글 전체 저장과 $inc 가 겹치는 경우 등) 주기적으로 실제 값과 맞춘다.
+ */
+
+@Service
+public class ArticleCounterService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	@Resource private JakdukProperties.ArticleCounters articleCountersProperties;
+
+	@Autowired private MongoTemplate mongoTemplate;
+	@Autowired private ArticleRepository articleRepository;
+	@Autowired private ArticleCommentRepository articleCommentRepository;
+
+	/**
+	 * 댓글 수를 올리거나 내린다.
+	 *
+	 * @param articleId 글 ID
+	 * @param amount 증감량
+	 */
+	public void increaseCommentCount(String articleId, int amount) {
+		mongoTemplate.updateFirst(this.queryById(articleId), new Update().inc("commentCount", amount), Article.class);
+	}
+
+	/**
+	 * 카운터가 없는 글을 채운다. 기동이 끝나면 한번 돈다.
+	 */
+	@Async
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		if (BooleanUtils.isNotTrue(articleCountersProperties.getBackfillOnStartup()))
+			return;
+
+		long start = System.currentTimeMillis();
+		int fixed = this.reconcile(true);
+
+		log.info("article counters backfilled. articles={}, took={}ms", fixed, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * 모든 글의 카운터를 실제 댓글 수, 감정 표현 수와 맞춘다.
+	 */
+	@Scheduled(cron = "${jakduk.article-counters.reconcile-cron}")
+	public void reconcile() {
+		long start = System.currentTimeMillis();
+		int fixed = this.reconcile(false);
+
+		log.info("article counters reconciled. fixed={}, took={}ms", fixed, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * 글을 _id 순서로 batch-size 개씩 읽어 카운터를 맞춘다.
+	 *
+	 * @param onlyMissing true 면 카운터가 없는 글만 본다
+	 * @return 고친 글 수
+	 */
+	private int reconcile(boolean onlyMissing) {
+		int fixed = 0;
+		ObjectId lastId = null;
+
+		while (true) {
+			List<Article> articles = this.findCounters(lastId, onlyMissing);
+
+			if (articles.isEmpty())
+				break;
+
+			fixed += this.reconcileBatch(articles);
+			lastId = new ObjectId(articles.get(articles.size() - 1).getId());
+
+			if (articles.size() < articleCountersProperties.getBatchSize())
+				break;
+		}
+
+		return fixed;
+	}
+
+	private List<Article> findCounters(ObjectId lastId, boolean onlyMissing) {
+		Query query = new Query();
+
+		if (Objects.nonNull(lastId))
+			query.addCriteria(Criteria.where("_id").gt(lastId));
+
+		if (onlyMissing)
+			query.addCriteria(new Criteria().orOperator(
+					Criteria.where("commentCount").exists(false),
+					Criteria.where("likeCount").exists(false),
+					Criteria.where("dislikeCount").exists(false)));
+
+		query.fields().include("_id").include("commentCount").include("likeCount").include("dislikeCount");
+		query.with(new Sort(Sort.Direction.ASC, "_id"));
+		query.limit(articleCountersProperties.getBatchSize());
+
+		return mongoTemplate.find(query, Article.class);
+	}
+
+	/**
+	 * 실제 값과 다른 카운터만 고친다.
+	 * 읽은 뒤에 $inc 가 끼어들었으면 고치지 않고 다음 주기에 다시 맞춘다.
+	 */
+	private int reconcileBatch(List<Article> articles) {
+		List<ObjectId> ids = articles.stream()
+				.map(article -> new ObjectId(article.getId()))
+				.collect(Collectors.toList());
+
+		Map<String, Integer> commentCounts = articleCommentRepository.findCommentsCountByIds(ids).stream()
+				.collect(Collectors.toMap(CommonCount::getId, CommonCount::getCount));
+
+		Map<String, BoardFeelingCount> feelingCounts = articleRepository.findUsersFeelingCount(ids).stream()
+				.collect(Collectors.toMap(BoardFeelingCount::getId, Function.identity()));
+
+		BulkOperations bulkOperations = null;
+		int fixed = 0;
+
+		for (Article article : articles) {
+			int commentCount = commentCounts.getOrDefault(article.getId(), 0);
+			BoardFeelingCount feelingCount = feelingCounts.get(article.getId());
+			int likeCount = Objects.isNull(feelingCount) ? 0 : feelingCount.getUsersLikingCount();
+			int dislikeCount = Objects.isNull(feelingCount) ? 0 : feelingCount.getUsersDislikingCount();
+
+			if (Objects.equals(article.getCommentCount(), commentCount) && Objects.equals(article.getLikeCount(), likeCount)
+					&& Objects.equals(article.getDislikeCount(), dislikeCount))
+				continue;
+
+			if (Objects.isNull(bulkOperations))
+				bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Article.class);
+
+			Query query = this.queryById(article.getId())
+					.addCriteria(Criteria.where("commentCount").is(article.getCommentCount()))
+					.addCriteria(Criteria.where("likeCount").is(article.getLikeCount()))
+					.addCriteria(Criteria.where("dislikeCount").is(article.getDislikeCount()));
+
+			bulkOperations.updateOne(query, new Update()
+					.set("commentCount", commentCount)
+					.set("likeCount", likeCount)
+					.set("dislikeCount", dislikeCount));
+
+			log.debug("article counters drifted. id={}, commentCount={}->{}, likeCount={}->{}, dislikeCount={}->{}", article.getId(),
+					article.getCommentCount(), commentCount, article.getLikeCount(), likeCount, article.getDislikeCount(), dislikeCount);
+
+			fixed++;
+		}
+
+		if (Objects.nonNull(bulkOperations))
+			bulkOperations.execute();
+
+		return fixed;
+	}
+
+	private Query queryById(String id) {
+		return new Query(Criteria.where("_id").is(new ObjectId(id)));
+	}
+
+}
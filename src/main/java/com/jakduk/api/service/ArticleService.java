@@ -7,21 +7,22 @@ import com.jakduk.api.common.rabbitmq.RabbitMQPublisher;
 import com.jakduk.api.common.util.DateUtils;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
-import com.jakduk.api.model.aggregate.BoardFeelingCount;
-import com.jakduk.api.model.aggregate.BoardTop;
-import com.jakduk.api.model.aggregate.CommonCount;
+import com.jakduk.api.model.aggregate.ArticleDetailRelations;
+import com.jakduk.api.model.aggregate.LinkedItemGalleries;
+import com.jakduk.api.model.aggregate.LinkedItemGallery;
 import com.jakduk.api.model.db.Article;
 import com.jakduk.api.model.db.ArticleComment;
 import com.jakduk.api.model.db.Gallery;
-import com.jakduk.api.model.db.UsersFeeling;
 import com.jakduk.api.model.embedded.*;
 import com.jakduk.api.model.simple.*;
 import com.jakduk.api.repository.article.ArticleCommentRepository;
 import com.jakduk.api.repository.article.ArticleOnListRepository;
 import com.jakduk.api.repository.article.ArticleRepository;
 import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
 import com.jakduk.api.restcontroller.vo.board.*;
 import com.jakduk.api.restcontroller.vo.home.HomeArticle;
 import com.jakduk.api.restcontroller.vo.home.HomeArticleComment;
@@ -36,18 +37,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.ObjectUtils;
 
+import javax.annotation.Resource;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.Map.Entry;
-import java.util.function.Consumer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -56,13 +60,26 @@ public class ArticleService {
 
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+	// 게시판:말머리, 전체 글 수
+	private final ConcurrentHashMap<String, TotalCount> totalCounts = new ConcurrentHashMap<>();
+
+	@Resource private JakdukProperties.Board boardProperties;
+
 	@Autowired private UrlGenerationUtils urlGenerationUtils;
+	@Autowired private MongoTemplate mongoTemplate;
 	@Autowired private ArticleRepository articleRepository;
 	@Autowired private ArticleOnListRepository articleOnListRepository;
 	@Autowired private ArticleCommentRepository articleCommentRepository;
 	@Autowired private GalleryRepository galleryRepository;
 	@Autowired private CommonService commonService;
 	@Autowired private CommonGalleryService commonGalleryService;
+	@Autowired private ArticleViewsService articleViewsService;
+	@Autowired private ArticleViewersService articleViewersService;
+	@Autowired private ArticleCounterService articleCounterService;
+	@Autowired private UsersFeelingService usersFeelingService;
+	@Autowired private HomeService homeService;
+	@Autowired private RssFeedService rssFeedService;
+	@Autowired private ArticleTopsService articleTopsService;
 	@Autowired private RabbitMQPublisher rabbitMQPublisher;
 
 	public Article findOneBySeq(Constants.BOARD_TYPE board, Integer seq) {
@@ -85,8 +102,7 @@ public class ArticleService {
 			throw new ServiceException(ServiceError.NOT_FOUND_CATEGORY);
 
 		// shortContent 만듦
-		String stripHtmlContent = StringUtils.defaultIfBlank(JakdukUtils.stripHtmlTag(content), StringUtils.EMPTY);
-		String shortContent = StringUtils.truncate(stripHtmlContent, Constants.ARTICLE_SHORT_CONTENT_LENGTH);
+		String shortContent = this.toShortContent(content, Constants.ARTICLE_SHORT_CONTENT_LENGTH);
 
 		ObjectId objectId = new ObjectId();
 
@@ -102,9 +118,16 @@ public class ArticleService {
 		article.setLogs(this.initBoardLogs(objectId, Constants.ARTICLE_LOG_TYPE.CREATE.name(), writer));
 		article.setLastUpdated(LocalDateTime.ofInstant(objectId.getDate().toInstant(), ZoneId.systemDefault()));
 		article.setLinkedGallery(linkedGallery);
+		article.setCommentCount(0);
+		article.setLikeCount(0);
+		article.setDislikeCount(0);
 
 		articleRepository.save(article);
 
+		homeService.evictLatestItems();
+		rssFeedService.evictFeeds();
+		articleTopsService.recordWrite();
+
 		log.info("new post created. post seq={}, subject={}", article.getSeq(), article.getSubject());
 
 		return article;
@@ -133,8 +156,7 @@ public class ArticleService {
 			throw new ServiceException(ServiceError.NOT_FOUND_CATEGORY);
 
 		// shortContent 만듦
-		String stripHtmlContent = StringUtils.defaultIfBlank(JakdukUtils.stripHtmlTag(content), StringUtils.EMPTY);
-		String shortContent = StringUtils.truncate(stripHtmlContent, Constants.ARTICLE_SHORT_CONTENT_LENGTH);
+		String shortContent = this.toShortContent(content, Constants.ARTICLE_SHORT_CONTENT_LENGTH);
 
 		article.setSubject(subject);
 		article.setContent(content);
@@ -149,13 +171,31 @@ public class ArticleService {
 			logs = new ArrayList<>();
 
 		ObjectId logId = new ObjectId();
-		logs.add(new BoardLog(logId.toString(), Constants.ARTICLE_LOG_TYPE.EDIT.name(), new SimpleWriter(writer.getUserId(), writer.getUsername())));
+		BoardLog boardLog = new BoardLog(logId.toString(), Constants.ARTICLE_LOG_TYPE.EDIT.name(), new SimpleWriter(writer.getUserId(), writer.getUsername()));
+		logs.add(boardLog);
 		article.setLogs(logs);
 
 		// lastUpdated
 		article.setLastUpdated(LocalDateTime.ofInstant(logId.getDate().toInstant(), ZoneId.systemDefault()));
 
-		articleRepository.save(article);
+		Update update = new Update()
+				.set("subject", article.getSubject())
+				.set("content", article.getContent())
+				.set("shortContent", article.getShortContent())
+				.set("linkedGallery", article.getLinkedGallery())
+				.set("lastUpdated", article.getLastUpdated())
+				.push("logs", boardLog);
+
+		if (Objects.isNull(article.getCategory())) {
+			update.unset("category");
+		} else {
+			update.set("category", article.getCategory());
+		}
+
+		this.updateArticleFields(article.getId(), update);
+
+		homeService.evictLatestItems();
+		rssFeedService.evictFeeds();
 
 		log.info("post was edited. post seq={}, subject={}", article.getSeq(), article.getSubject());
 
@@ -177,9 +217,7 @@ public class ArticleService {
         if (! article.getWriter().getUserId().equals(writer.getUserId()))
             throw new ServiceException(ServiceError.FORBIDDEN);
 
-        ArticleItem articleItem = new ArticleItem(article.getId(), article.getSeq(), article.getBoard());
-
-        Integer count = articleCommentRepository.countByArticle(articleItem);
+        Integer count = articleCommentRepository.countByArticleId(article.getId());
 
         // 댓글이 하나라도 달리면 글을 몽땅 지우지 못한다.
         if (count > 0) {
@@ -209,7 +247,14 @@ public class ArticleService {
 			// lastUpdated
 			article.setLastUpdated(LocalDateTime.ofInstant(boardHistoryId.getDate().toInstant(), ZoneId.systemDefault()));
 
-			articleRepository.save(article);
+			this.updateArticleFields(article.getId(), new Update()
+					.unset("content")
+					.unset("subject")
+					.unset("writer")
+					.set("status.delete", true)
+					.set("linkedGallery", false)
+					.set("lastUpdated", article.getLastUpdated())
+					.push("logs", history));
 
 			log.info("A post was deleted(post only). post seq={}, subject={}", article.getSeq(), article.getSubject());
         }
@@ -227,6 +272,10 @@ public class ArticleService {
 		// 색인 지움
 		rabbitMQPublisher.deleteDocumentArticle(article.getId());
 
+		homeService.evictLatestItems();
+		rssFeedService.evictFeeds();
+		articleTopsService.recordWrite();
+
         return count > 0 ? Constants.ARTICLE_DELETE_TYPE.CONTENT : Constants.ARTICLE_DELETE_TYPE.ALL;
     }
 
@@ -245,73 +294,107 @@ public class ArticleService {
 			articlePages = articleOnListRepository.findByBoardAndCategory(board, categoryCode, pageable);
 		}
 
-		// 자유 게시판 공지글 목록
-		List<ArticleOnList> notices = articleRepository.findNotices(sort);
+		GetArticlesResponse response = this.toGetArticlesResponse(board, articlePages.getContent(), articlePages.isLast());
+		response.setFirst(articlePages.isFirst());
+		response.setLast(articlePages.isLast());
+		response.setTotalPages(articlePages.getTotalPages());
+		response.setTotalElements(articlePages.getTotalElements());
+		response.setNumberOfElements(articlePages.getNumberOfElements());
+		response.setSize(articlePages.getSize());
+		response.setNumber(articlePages.getNumber());
 
-		// 게시물 VO 변환 및 썸네일 URL 추가
-		Function<ArticleOnList, GetArticle> convertToGetArticle = article -> {
-			GetArticle getArticle = new GetArticle();
-			BeanUtils.copyProperties(article, getArticle);
+		return response;
+	}
 
-			if (article.getLinkedGallery()) {
-				List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
-						new ObjectId(article.getId()), Constants.GALLERY_FROM_TYPE.ARTICLE, 1);
+	/**
+	 * 자유게시판 글 목록. before 글 ID 보다 오래된 글을 가져온다.
+	 * skip 없이 _id 범위로 조회하고, 전체 글 수는 total-count-cache-ttl-millis 동안 캐시한 값을 쓴다.
+	 *
+	 * @param before 이전 응답의 nextCursor
+	 */
+	public GetArticlesResponse getArticlesBefore(Constants.BOARD_TYPE board, String categoryCode, String before, Integer size) {
 
-				if (! CollectionUtils.isEmpty(galleries)) {
-					List<BoardGallerySimple> boardGalleries = galleries.stream()
-							.map(gallery -> new BoardGallerySimple() {{
-								setId(gallery.getId());
-								setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
-							}})
-							.collect(Collectors.toList());
+		if (! ObjectId.isValid(before))
+			throw new ServiceException(ServiceError.INVALID_PARAMETER);
 
-					getArticle.setGalleries(boardGalleries);
-				}
-			}
+		// 다음 글이 있는지 알기 위해 하나 더 가져온다.
+		List<ArticleOnList> articles = articleRepository.findByBoardAndCategoryAndIdLessThan(board.name(),
+				"ALL".equals(categoryCode) ? null : categoryCode, new ObjectId(before), size + 1);
 
-			return getArticle;
-		};
+		boolean last = articles.size() <= size;
 
-		List<GetArticle> getArticles = articlePages.getContent().stream()
-				.map(convertToGetArticle)
-				.collect(Collectors.toList());
+		if (! last)
+			articles = articles.subList(0, size);
 
-		List<GetArticle> getNotices = notices.stream()
-				.map(convertToGetArticle)
-				.collect(Collectors.toList());
+		long totalElements = this.getArticlesTotalCount(board, categoryCode);
+
+		GetArticlesResponse response = this.toGetArticlesResponse(board, articles, last);
+		response.setFirst(false);
+		response.setLast(last);
+		response.setTotalPages((int) Math.ceil((double) totalElements / size));
+		response.setTotalElements(totalElements);
+		response.setNumberOfElements(articles.size());
+		response.setSize(size);
 
-		// Board ID 뽑아내기.
-		ArrayList<ObjectId> ids = new ArrayList<>();
+		return response;
+	}
+
+	/**
+	 * 게시판(말머리)의 전체 글 수. 캐시가 오래됐으면 다시 센다.
+	 */
+	private long getArticlesTotalCount(Constants.BOARD_TYPE board, String categoryCode) {
+
+		String key = String.format("%s:%s", board.name(), categoryCode);
+		long now = System.currentTimeMillis();
 
-		getArticles.forEach(article -> ids.add(new ObjectId(article.getId())));
-		getNotices.forEach(article -> ids.add(new ObjectId(article.getId())));
+		TotalCount totalCount = totalCounts.get(key);
 
-		// 게시물의 댓글수
-		Map<String, Integer> commentCounts = articleCommentRepository.findCommentsCountByIds(ids).stream()
-				.collect(Collectors.toMap(CommonCount::getId, CommonCount::getCount));
+		if (Objects.isNull(totalCount) || totalCount.expiresAt < now) {
+			Long count = "ALL".equals(categoryCode)
+					? articleOnListRepository.countByBoard(board)
+					: articleOnListRepository.countByBoardAndCategory(board, categoryCode);
 
-		// 게시물의 감정수
-		Map<String, BoardFeelingCount> feelingCounts = articleRepository.findUsersFeelingCount(ids).stream()
-				.collect(Collectors.toMap(BoardFeelingCount::getId, Function.identity()));
+			totalCount = new TotalCount(count, now + boardProperties.getTotalCountCacheTtlMillis());
+			totalCounts.put(key, totalCount);
+		}
 
-		// 댓글수, 감정 표현수 합치기.
-		Consumer<GetArticle> applyCounts = article -> {
-			String boardId = article.getId();
-			Integer commentCount = commentCounts.get(boardId);
+		return totalCount.count;
+	}
 
-			if (Objects.nonNull(commentCount))
-				article.setCommentCount(commentCount);
+	/**
+	 * 글 목록 응답에 공지글, 썸네일, 말머리, nextCursor 를 채운다.
+	 */
+	private GetArticlesResponse toGetArticlesResponse(Constants.BOARD_TYPE board, List<ArticleOnList> articles, boolean last) {
 
-			BoardFeelingCount feelingCount = feelingCounts.get(boardId);
+		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
 
-			if (Objects.nonNull(feelingCount)) {
-				article.setLikingCount(feelingCount.getUsersLikingCount());
-				article.setDislikingCount(feelingCount.getUsersDislikingCount());
-			}
+		// 자유 게시판 공지글 목록
+		List<ArticleOnList> notices = articleRepository.findNotices(sort);
+
+		// 글 목록과 공지글 목록의 썸네일을 한번에 가져옴
+		List<ArticleOnList> articlesAndNotices = new ArrayList<>(articles);
+		articlesAndNotices.addAll(notices);
+
+		Map<String, List<BoardGallerySimple>> thumbnails = this.getArticleThumbnails(articlesAndNotices);
+
+		// 게시물 VO 변환 및 썸네일 URL 추가. 댓글수, 감정 표현수는 글에 있는 카운터를 쓴다.
+		Function<ArticleOnList, GetArticle> convertToGetArticle = article -> {
+			GetArticle getArticle = new GetArticle();
+			BeanUtils.copyProperties(article, getArticle);
+			getArticle.setLikingCount(article.getLikeCount());
+			getArticle.setDislikingCount(article.getDislikeCount());
+			getArticle.setGalleries(thumbnails.get(article.getId()));
+
+			return getArticle;
 		};
 
-		getArticles.forEach(applyCounts);
-		getNotices.forEach(applyCounts);
+		List<GetArticle> getArticles = articles.stream()
+				.map(convertToGetArticle)
+				.collect(Collectors.toList());
+
+		List<GetArticle> getNotices = notices.stream()
+				.map(convertToGetArticle)
+				.collect(Collectors.toList());
 
 		// 말머리
 		List<BoardCategory> categories = BoardCategoryGenerator.getCategories(board, JakdukUtils.getLocale());
@@ -328,13 +411,9 @@ public class ArticleService {
 		response.setCategories(categoriesMap);
 		response.setArticles(getArticles);
 		response.setNotices(getNotices);
-		response.setFirst(articlePages.isFirst());
-		response.setLast(articlePages.isLast());
-		response.setTotalPages(articlePages.getTotalPages());
-		response.setTotalElements(articlePages.getTotalElements());
-		response.setNumberOfElements(articlePages.getNumberOfElements());
-		response.setSize(articlePages.getSize());
-		response.setNumber(articlePages.getNumber());
+
+		if (! last && ! articles.isEmpty())
+			response.setNextCursor(articles.get(articles.size() - 1).getId());
 
 		return response;
 	}
@@ -348,27 +427,14 @@ public class ArticleService {
 
 		List<ArticleOnList> articles = articleRepository.findLatest(sort, Constants.HOME_SIZE_POST);
 
+		Map<String, List<BoardGallerySimple>> thumbnails = this.getArticleThumbnails(articles);
+
 		// 게시물 VO 변환 및 썸네일 URL 추가
 		return articles.stream()
 				.map(post -> {
 					HomeArticle homeArticle = new HomeArticle();
 					BeanUtils.copyProperties(post, homeArticle);
-
-					if (post.getLinkedGallery()) {
-						List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
-								new ObjectId(post.getId()), Constants.GALLERY_FROM_TYPE.ARTICLE, 1);
-
-						List<BoardGallerySimple> boardGalleries = galleries.stream()
-								.sorted(Comparator.comparing(Gallery::getId))
-								.limit(1)
-								.map(gallery -> new BoardGallerySimple() {{
-									setId(gallery.getId());
-									setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
-								}})
-								.collect(Collectors.toList());
-
-						homeArticle.setGalleries(boardGalleries);
-					}
+					homeArticle.setGalleries(thumbnails.get(post.getId()));
 
 					return homeArticle;
 				})
@@ -401,10 +467,10 @@ public class ArticleService {
 							Optional.ofNullable(postsHavingComments.get(comment.getArticle().getId()))
 									.orElse(new ArticleSimple()));
 
-					return homeArticleComment;
-				})
-				.peek(comment -> {
-					String content = JakdukUtils.stripHtmlTag(comment.getContent());
+					// 쓸 때 만들어 둔 shortContent 를 쓴다. 그 전에 쓴 댓글만 여기서 태그를 뺀다.
+					String content = Objects.nonNull(comment.getShortContent())
+							? comment.getShortContent()
+							: JakdukUtils.htmlToText(comment.getContent());
 
 					if (StringUtils.isNotBlank(content)) {
 						Integer contentLength = content.length() + comment.getWriter().getUsername().length();
@@ -413,8 +479,10 @@ public class ArticleService {
 							content = content.substring(0, Constants.HOME_COMMENT_CONTENT_MAX_LENGTH - comment.getWriter().getUsername().length());
 							content = String.format("%s...", content);
 						}
-						comment.setContent(content);
+						homeArticleComment.setContent(content);
 					}
+
+					return homeArticleComment;
 				})
 				.collect(Collectors.toList());
 	}
@@ -422,25 +490,14 @@ public class ArticleService {
     /**
      * 글 감정 표현.
      */
-	public Article setArticleFeelings(CommonWriter writer, Constants.BOARD_TYPE board, Integer seq, Constants.FEELING_TYPE feeling) {
-
-		Article article = articleRepository.findOneByBoardAndSeq(board.name(), seq)
-                .orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_ARTICLE));
-
-        String userId = writer.getUserId();
-        String username = writer.getUsername();
+	public UserFeelingResponse setArticleFeelings(CommonWriter writer, Constants.BOARD_TYPE board, Integer seq, Constants.FEELING_TYPE feeling) {
 
-		CommonWriter articleWriter = article.getWriter();
+		UserFeelingResponse response = usersFeelingService.toggleFeeling(UsersFeelingService.Target.ARTICLE,
+				Criteria.where("board").is(board.name()).and("seq").is(seq), writer, feeling);
 
-		// 이 게시물의 작성자라서 감정 표현을 할 수 없음
-		if (userId.equals(articleWriter.getUserId()))
-			throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
+		articleTopsService.recordWrite();
 
-		this.setUsersFeeling(userId, username, feeling, article);
-
-		articleRepository.save(article);
-
-		return article;
+		return response;
 	}
 
 	/**
@@ -461,10 +518,15 @@ public class ArticleService {
 		articleComment.setArticle(new ArticleItem(article.getId(), article.getSeq(), article.getBoard()));
 		articleComment.setWriter(writer);
 		articleComment.setContent(content);
+		articleComment.setShortContent(this.toShortContent(content, Constants.ARTICLE_COMMENT_SHORT_CONTENT_LENGTH));
 		articleComment.setLinkedGallery(! galleries.isEmpty());
 		articleComment.setLogs(this.initBoardLogs(new ObjectId(), Constants.ARTICLE_COMMENT_LOG_TYPE.CREATE.name(), writer));
 
 		articleCommentRepository.save(articleComment);
+		articleCounterService.increaseCommentCount(article.getId(), 1);
+		articleTopsService.recordWrite();
+
+		homeService.evictLatestItems();
 
 		// 엘라스틱서치 색인 요청
 		rabbitMQPublisher.indexDocumentComment(articleComment.getId(), articleComment.getArticle(), articleComment.getWriter(),
@@ -487,6 +549,7 @@ public class ArticleService {
 
 		articleComment.setWriter(writer);
 		articleComment.setContent(StringUtils.trim(content));
+		articleComment.setShortContent(this.toShortContent(articleComment.getContent(), Constants.ARTICLE_COMMENT_SHORT_CONTENT_LENGTH));
 		articleComment.setLinkedGallery(! galleryIds.isEmpty());
 
 		// boardLogs
@@ -498,6 +561,8 @@ public class ArticleService {
 
 		articleCommentRepository.save(articleComment);
 
+		homeService.evictLatestItems();
+
 		// 엘라스틱서치 색인 요청
 		rabbitMQPublisher.indexDocumentComment(articleComment.getId(), articleComment.getArticle(), articleComment.getWriter(),
 				articleComment.getContent(), galleryIds);
@@ -517,6 +582,10 @@ public class ArticleService {
 			throw new ServiceException(ServiceError.FORBIDDEN);
 
 		articleCommentRepository.deleteById(id);
+		articleCounterService.increaseCommentCount(articleComment.getArticle().getId(), -1);
+		articleTopsService.recordWrite();
+
+		homeService.evictLatestItems();
 
 		// 색인 지움
 		rabbitMQPublisher.deleteDocumentComment(id);
@@ -529,19 +598,22 @@ public class ArticleService {
 	 */
 	public GetArticleDetailCommentsResponse getArticleDetailComments(CommonWriter commonWriter, Constants.BOARD_TYPE board, Integer seq, String commentId) {
 
-		List<ArticleComment> comments;
+		Article article = articleRepository.findSimpleByBoardAndSeq(board.name(), seq)
+				.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_ARTICLE));
+
+		List<ArticleComment> comments = articleCommentRepository.findByBoardSeqAndGTId(board.name(), seq,
+				StringUtils.isNotBlank(commentId) ? new ObjectId(commentId) : null);
 
-		if (StringUtils.isNotBlank(commentId)) {
-			comments  = articleCommentRepository.findByBoardSeqAndGTId(board.name(), seq, new ObjectId(commentId));
-		} else {
-			comments  = articleCommentRepository.findByBoardSeqAndGTId(board.name(), seq, null);
-		}
+		// 댓글들은 모두 이 글의 댓글이다.
+		ArticleSimple articleSimple = new ArticleSimple();
+		BeanUtils.copyProperties(article, articleSimple);
 
-		ArticleSimple articleSimple = articleRepository.findBoardFreeOfMinimumBySeq(seq);
-		ArticleItem articleItem = new ArticleItem(articleSimple.getId(), articleSimple.getSeq(), articleSimple.getBoard());
+		List<GetArticleComment> articleComments = this.toGetArticleComments(commonWriter, articleSimple, comments);
 
-		List<GetArticleComment> articleComments = this.toGetArticleComments(commonWriter, comments);
-		Integer count = articleCommentRepository.countByArticle(articleItem);
+		// 카운터가 아직 채워지지 않은 글은 직접 센다.
+		Integer count = Objects.nonNull(article.getCommentCount())
+				? article.getCommentCount()
+				: articleCommentRepository.countByArticleId(article.getId());
 
 		return new GetArticleDetailCommentsResponse(articleComments, count);
 	}
@@ -551,27 +623,15 @@ public class ArticleService {
 	 *
 	 * @param commentId 댓글 ID
 	 * @param feeling 감정표현 종류
-     * @return 자유게시판 댓글 객체
+     * @return 나의 감정 표현과 감정 표현 수
      */
-	public ArticleComment setArticleCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
+	public UserFeelingResponse setArticleCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
 
-		ArticleComment boardComment = articleCommentRepository.findOneById(commentId)
-				.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_COMMENT));
-
-		String userId = writer.getUserId();
-		String username = writer.getUsername();
-
-		CommonWriter postWriter = boardComment.getWriter();
-
-		// 이 게시물의 작성자라서 감정 표현을 할 수 없음
-		if (userId.equals(postWriter.getUserId()))
-			throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
-
-		this.setUsersFeeling(userId, username, feeling, boardComment);
-
-		articleCommentRepository.save(boardComment);
+		if (! ObjectId.isValid(commentId))
+			throw new ServiceException(ServiceError.NOT_FOUND_COMMENT);
 
-		return boardComment;
+		return usersFeelingService.toggleFeeling(UsersFeelingService.Target.ARTICLE_COMMENT,
+				Criteria.where("_id").is(new ObjectId(commentId)), writer, feeling);
 	}
 
 	public void enableArticleNotice(CommonWriter writer, Constants.BOARD_TYPE board, Integer seq) {
@@ -621,80 +681,32 @@ public class ArticleService {
 			histories = new ArrayList<>();
 
 		String historyType = isEnable ? Constants.ARTICLE_LOG_TYPE.ENABLE_NOTICE.name() : Constants.ARTICLE_LOG_TYPE.DISABLE_NOTICE.name();
-		histories.add(new BoardLog(new ObjectId().toString(), historyType, new SimpleWriter(writer.getUserId(), writer.getUsername())));
+		BoardLog history = new BoardLog(new ObjectId().toString(), historyType, new SimpleWriter(writer.getUserId(), writer.getUsername()));
+		histories.add(history);
 
 		article.setLogs(histories);
 
-		articleRepository.save(article);
-
-		if (log.isInfoEnabled())
-			log.info("Set notice for article. seq={}, type={}", article.getSeq(), status.getNotice());
-	}
-
-
-	/**
-	 * 자유게시판 주간 좋아요수 선두
-     */
-	public List<BoardTop> getArticlesTopLikes(Constants.BOARD_TYPE board, ObjectId objectId) {
-		return articleRepository.findTopLikes(board, objectId);
-	}
-
-	/**
-	 * 자유게시판 주간 댓글수 선두
-	 */
-	public List<BoardTop> getArticlesTopComments(Constants.BOARD_TYPE board, ObjectId objectId) {
-
-		// 게시물의 댓글수
-		Map<String, Integer> commentCounts = articleCommentRepository.findCommentsCountGreaterThanBoardIdAndBoard(objectId, board).stream()
-				.collect(Collectors.toMap(CommonCount::getId, CommonCount::getCount));
-
-		List<String> postIds = commentCounts.entrySet().stream()
-				.map(Entry::getKey)
-				.collect(Collectors.toList());
-
-		// commentIds를 파라미터로 다시 글을 가져온다.
-		List<Article> posts = articleRepository.findByIdInAndBoard(postIds, board.name());
-
-		// sort
-		Comparator<BoardTop> byCount = (b1, b2) -> b2.getCount() - b1.getCount();
-		Comparator<BoardTop> byView = (b1, b2) -> b2.getViews() - b1.getViews();
+		Update update = new Update().push("logs", history);
 
-		return posts.stream()
-				.map(boardFree -> {
-					BoardTop boardTop = new BoardTop();
-					BeanUtils.copyProperties(boardFree, boardTop);
-					boardTop.setCount(commentCounts.get(boardTop.getId()));
-					return boardTop;
-				})
-				.sorted(byCount.thenComparing(byView))
-				.limit(Constants.BOARD_TOP_LIMIT)
-				.collect(Collectors.toList());
-	}
-
-	/**
-	 * RSS 용 게시물 목록
-	 */
-	public List<ArticleOnRSS> getBoardFreeOnRss(ObjectId objectId, Integer limit) {
-		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
+		if (isEnable) {
+			update.set("status.notice", true);
+		} else {
+			update.unset("status.notice");
+		}
 
-		return articleRepository.findPostsOnRss(objectId, sort, limit);
+		this.updateArticleFields(article.getId(), update);
 
+		if (log.isInfoEnabled())
+			log.info("Set notice for article. seq={}, type={}", article.getSeq(), status.getNotice());
 	}
 
-	/**
-	 * 사이트맵 용 게시물 목록
-	 */
-	public List<ArticleOnSitemap> getBoardFreeOnSitemap(ObjectId objectId, Integer limit) {
-		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
-
-		return articleRepository.findSitemapArticles(objectId, sort, limit);
-
-	}
 
 	/**
 	 * 글 상세 객체 가져오기
+	 *
+	 * @param visitorId 읽음 중복 확인에 쓸 방문자 구분 값
 	 */
-	public ResponseEntity<GetArticleDetailResponse> getArticleDetail(CommonWriter commonWriter, Constants.BOARD_TYPE board, Integer seq, Boolean isAddCookie) {
+	public ResponseEntity<GetArticleDetailResponse> getArticleDetail(CommonWriter commonWriter, Constants.BOARD_TYPE board, Integer seq, String visitorId) {
 
 		Article article = articleRepository.findOneBySeq(seq)
 				.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_ARTICLE));
@@ -705,7 +717,7 @@ public class ArticleService {
 					.build();
 		}
 
-		if (isAddCookie)
+		if (articleViewersService.markViewed(visitorId, seq))
 			this.increaseViews(article);
 
         // 글 상세
@@ -736,64 +748,49 @@ public class ArticleService {
 		articleDetail.setNumberOfLike(CollectionUtils.isEmpty(article.getUsersLiking()) ? 0 : article.getUsersLiking().size());
 		articleDetail.setNumberOfDislike(CollectionUtils.isEmpty(article.getUsersDisliking()) ? 0 : article.getUsersDisliking().size());
 
+		boolean deleted = Objects.nonNull(articleDetail.getStatus()) && BooleanUtils.isTrue(articleDetail.getStatus().getDelete());
+
+		// 앞, 뒤 글, 글쓴이의 최근 글, 엮인 사진들을 한번에 가져온다.
+		ArticleDetailRelations relations = articleRepository.findArticleDetailRelations(new ObjectId(article.getId()),
+				Objects.nonNull(boardCategory) ? boardCategory.getCode() : null,
+				deleted ? null : articleDetail.getWriter().getUserId(),
+				article.getLinkedGallery(), 3);
+
 		// 엮인 사진들
-		if (article.getLinkedGallery()) {
-            List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
-                    new ObjectId(article.getId()), Constants.GALLERY_FROM_TYPE.ARTICLE, 100);
-
-            if (! CollectionUtils.isEmpty(galleries)) {
-                List<ArticleGallery> postDetailGalleries = galleries.stream()
-                        .map(gallery -> new ArticleGallery() {{
-                        	setId(gallery.getId());
-                        	setName(StringUtils.isNoneBlank(gallery.getName()) ? gallery.getName() : gallery.getFileName());
-                        	setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()));
-                        	setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
-						}})
-                        .collect(Collectors.toList());
-
-                articleDetail.setGalleries(postDetailGalleries);
-            }
-        }
+		if (! CollectionUtils.isEmpty(relations.getGalleries())) {
+			List<ArticleGallery> postDetailGalleries = relations.getGalleries().stream()
+					.map(gallery -> new ArticleGallery() {{
+						setId(gallery.getId());
+						setName(StringUtils.isNoneBlank(gallery.getName()) ? gallery.getName() : gallery.getFileName());
+						setImageUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.LARGE, gallery.getId()));
+						setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
+					}})
+					.collect(Collectors.toList());
+
+			articleDetail.setGalleries(postDetailGalleries);
+		}
 
         // 나의 감정 상태
 		if (Objects.nonNull(commonWriter))
 			articleDetail.setMyFeeling(JakdukUtils.getMyFeeling(commonWriter, article.getUsersLiking(), article.getUsersDisliking()));
 
 		// 앞, 뒤 글
-		ArticleSimple prevPost = articleRepository.findByIdAndCategoryWithOperator(new ObjectId(articleDetail.getId()),
-				Objects.nonNull(boardCategory) ? boardCategory.getCode() : null, Constants.CRITERIA_OPERATOR.GT);
-		ArticleSimple nextPost = articleRepository.findByIdAndCategoryWithOperator(new ObjectId(articleDetail.getId()),
-				Objects.nonNull(boardCategory) ? boardCategory.getCode() : null, Constants.CRITERIA_OPERATOR.LT);
+		ArticleSimple prevPost = CollectionUtils.isEmpty(relations.getPrevArticles()) ? null : relations.getPrevArticles().get(0);
+		ArticleSimple nextPost = CollectionUtils.isEmpty(relations.getNextArticles()) ? null : relations.getNextArticles().get(0);
 
         // 글쓴이의 최근 글
 		List<LatestArticle> latestArticles = null;
 
-		if (Objects.isNull(articleDetail.getStatus()) || BooleanUtils.isNotTrue(articleDetail.getStatus().getDelete())) {
-
-			List<ArticleOnList> latestPostsByWriter = articleRepository.findByIdAndUserId(
-					new ObjectId(articleDetail.getId()), articleDetail.getWriter().getUserId(), 3);
+		if (! CollectionUtils.isEmpty(relations.getLatestArticlesByWriter())) {
+			// 대표 사진은 글마다 하나만 가져온다. 엮인 사진을 모두 붙이면 사진이 많은 글에서 끝없이 커진다.
+			Map<String, List<BoardGallerySimple>> thumbnails = this.getArticleThumbnails(relations.getLatestArticlesByWriter());
 
 			// 게시물 VO 변환 및 썸네일 URL 추가
-			latestArticles = latestPostsByWriter.stream()
+			latestArticles = relations.getLatestArticlesByWriter().stream()
 					.map(post -> {
 						LatestArticle latestArticle = new LatestArticle();
 						BeanUtils.copyProperties(post, latestArticle);
-
-						if (! post.getLinkedGallery()) {
-							List<Gallery> latestPostGalleries = galleryRepository.findByItemIdAndFromType(new ObjectId(post.getId()),
-									Constants.GALLERY_FROM_TYPE.ARTICLE, 1);
-
-							if (! ObjectUtils.isEmpty(latestPostGalleries)) {
-								List<BoardGallerySimple> boardGalleries = latestPostGalleries.stream()
-										.map(gallery -> new BoardGallerySimple() {{
-											setId(gallery.getId());
-											setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
-										}})
-										.collect(Collectors.toList());
-
-								latestArticle.setGalleries(boardGalleries);
-							}
-						}
+						latestArticle.setGalleries(thumbnails.get(post.getId()));
 
 						return latestArticle;
 					})
@@ -811,17 +808,23 @@ public class ArticleService {
 	}
 
 	/**
-	 * 읽음수 1 증가
+	 * 읽음수 1 증가. DB 반영은 ArticleViewsService 가 모아서 한다.
 	 */
 	private void increaseViews(Article article) {
-		int views = article.getViews();
-		article.setViews(++views);
-		articleRepository.save(article);
+		article.setViews(articleViewsService.increaseViews(article));
 	}
 
 	/**
 	 * BoardLogs 생성
 	 */
+	/**
+	 * 고친 필드만 $set, $unset, $push 로 바꾼다.
+	 * 읽어온 글을 통째로 save 하면 그 사이 $inc 로 올라간 commentCount, likeCount, dislikeCount, views 와 감정 표현 목록을 덮어쓴다.
+	 */
+	private void updateArticleFields(String id, Update update) {
+		mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(new ObjectId(id))), update, Article.class);
+	}
+
 	private List<BoardLog> initBoardLogs(ObjectId objectId, String type, CommonWriter writer) {
 		List<BoardLog> logs = new ArrayList<>();
 		BoardLog history = new BoardLog(objectId.toString(), type, new SimpleWriter(writer.getUserId(), writer.getUsername()));
@@ -831,129 +834,88 @@ public class ArticleService {
 	}
 
 	/**
-	 * 감정 표현 CRUD
+	 * 글 목록에서 사진이 연동된 글들의 썸네일을 한번에 가져온다.
 	 *
-	 * @param userId 회원 ID
-	 * @param username 회원 별명
-	 * @param feeling 입력받은 감정
-	 * @param usersFeeling 편집할 객체
+	 * @param articles 글 목록
+	 * @return 글 ID 별 썸네일 목록
 	 */
-	private void setUsersFeeling(String userId, String username, Constants.FEELING_TYPE feeling, UsersFeeling usersFeeling) {
-
-		List<CommonFeelingUser> usersLiking = usersFeeling.getUsersLiking();
-		List<CommonFeelingUser> usersDisliking = usersFeeling.getUsersDisliking();
-
-		if (CollectionUtils.isEmpty(usersLiking)) usersLiking = new ArrayList<>();
-		if (CollectionUtils.isEmpty(usersDisliking)) usersDisliking = new ArrayList<>();
-
-		// 해당 회원이 좋아요를 이미 했는지 검사
-		Optional<CommonFeelingUser> alreadyLike = usersLiking.stream()
-				.filter(commonFeelingUser -> commonFeelingUser.getUserId().equals(userId))
-				.findFirst();
-
-		// 해당 회원이 싫어요를 이미 했는지 검사
-		Optional<CommonFeelingUser> alreadyDislike = usersDisliking.stream()
-				.filter(commonFeelingUser -> commonFeelingUser.getUserId().equals(userId))
-				.findFirst();
-
-		CommonFeelingUser feelingUser = new CommonFeelingUser(new ObjectId().toString(), userId, username);
-
-		switch (feeling) {
-			case LIKE:
-				// 이미 좋아요를 했을 때, 좋아요를 취소
-				if (alreadyLike.isPresent()) {
-					usersLiking.remove(alreadyLike.get());
-				}
-				// 이미 싫어요를 했을 때, 싫어요를 없애고 좋아요로 바꿈
-				else if (alreadyDislike.isPresent()) {
-					usersDisliking.remove(alreadyDislike.get());
-					usersLiking.add(feelingUser);
-
-					usersFeeling.setUsersDisliking(usersDisliking);
-				}
-				// 아직 감정 표현을 하지 않아 좋아요로 등록
-				else {
-					usersLiking.add(feelingUser);
-				}
-
-				usersFeeling.setUsersLiking(usersLiking);
-
-				break;
-
-			case DISLIKE:
-				// 이미 싫어요를 했을 때, 싫어요를 취소
-				if (alreadyDislike.isPresent()) {
-					usersDisliking.remove(alreadyDislike.get());
-				}
-				// 이미 좋아요를 했을 때, 좋아요를 없애고 싫어요로 바꿈
-				else if (alreadyLike.isPresent()) {
-					usersLiking.remove(alreadyLike.get());
-					usersDisliking.add(feelingUser);
-
-					usersFeeling.setUsersLiking(usersLiking);
-				}
-				// 아직 감정 표현을 하지 않아 싫어요로 등록
-				else {
-					usersDisliking.add(feelingUser);
-				}
-
-				usersFeeling.setUsersDisliking(usersDisliking);
-
-				break;
-		}
+	private Map<String, List<BoardGallerySimple>> getArticleThumbnails(List<ArticleOnList> articles) {
+
+		List<ObjectId> articleIds = articles.stream()
+				.filter(article -> BooleanUtils.isTrue(article.getLinkedGallery()))
+				.map(article -> new ObjectId(article.getId()))
+				.distinct()
+				.collect(Collectors.toList());
+
+		if (articleIds.isEmpty())
+			return Collections.emptyMap();
+
+		return galleryRepository.findFirstByItemIdsAndFromType(articleIds, Constants.GALLERY_FROM_TYPE.ARTICLE).stream()
+				.collect(Collectors.toMap(LinkedItemGallery::getId, linkedItemGallery -> {
+					BoardGallerySimple boardGallerySimple = new BoardGallerySimple();
+					boardGallerySimple.setId(linkedItemGallery.getGalleryId());
+					boardGallerySimple.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, linkedItemGallery.getGalleryId()));
+
+					return Collections.singletonList(boardGallerySimple);
+				}));
+	}
+
+	/**
+	 * HTML 태그를 뺀 본문 앞부분을 만든다.
+	 *
+	 * @param content 본문
+	 * @param length 최대 길이
+	 */
+	private String toShortContent(String content, Integer length) {
+		return StringUtils.truncate(JakdukUtils.htmlToText(content), length);
 	}
 
 	/**
-	 * 게시물 댓글에서 연관된 그림 목록을 가져온다.
+	 * 게시물 댓글들에 엮인 그림 목록을 한번에 가져온다.
 	 *
-	 * @param articleCommentId 댓글 ID
+	 * @param articleComments 댓글 목록
+	 * @return 댓글 ID, 그림 목록
 	 */
-	private List<BoardGallerySimple> getArticleCommentGalleries(String articleCommentId) {
+	private Map<String, List<BoardGallerySimple>> getArticleCommentGalleries(List<ArticleComment> articleComments) {
 
-		List<Gallery> galleries = galleryRepository.findByItemIdAndFromType(
-				new ObjectId(articleCommentId), Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT, 100);
+		List<ObjectId> commentIds = articleComments.stream()
+				.filter(comment -> BooleanUtils.isTrue(comment.getLinkedGallery()))
+				.map(comment -> new ObjectId(comment.getId()))
+				.collect(Collectors.toList());
 
-		if (! CollectionUtils.isEmpty(galleries)) {
-			return galleries.stream()
-					.map(gallery -> new BoardGallerySimple() {{
-						setId(gallery.getId());
-						setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, gallery.getId()));
-					}})
-					.collect(Collectors.toList());
-		}
+		if (commentIds.isEmpty())
+			return Collections.emptyMap();
+
+		return galleryRepository.findByItemIdsAndFromType(commentIds, Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT).stream()
+				.collect(Collectors.toMap(LinkedItemGalleries::getId, linkedItemGalleries -> linkedItemGalleries.getGalleryIds().stream()
+						.map(galleryId -> {
+							BoardGallerySimple boardGallerySimple = new BoardGallerySimple();
+							boardGallerySimple.setId(galleryId);
+							boardGallerySimple.setThumbnailUrl(urlGenerationUtils.generateGalleryUrl(Constants.IMAGE_SIZE_TYPE.SMALL, galleryId));
 
-		return null;
+							return boardGallerySimple;
+						})
+						.collect(Collectors.toList())));
 	}
 
 	/**
 	 * List<ArticleComment> 를 List<GetArticleComment> 로 변환한다.
 	 *
 	 * @param commonWriter 글쓴이
+	 * @param article 댓글들이 달린 글
 	 * @param articleComments ArticleComment 배열
 	 */
-	private List<GetArticleComment> toGetArticleComments(CommonWriter commonWriter, List<ArticleComment> articleComments) {
-
-		// article id 뽑아내기.
-		List<ObjectId> articleIds = articleComments.stream()
-				.map(comment -> new ObjectId(comment.getArticle().getId()))
-				.distinct()
-				.collect(Collectors.toList());
-
-		// 댓글을 가진 글 목록
-		List<ArticleSimple> articles = articleRepository.findArticleSimplesByIds(articleIds);
+	private List<GetArticleComment> toGetArticleComments(CommonWriter commonWriter, ArticleSimple article, List<ArticleComment> articleComments) {
 
-		Map<String, ArticleSimple> postsHavingComments = articles.stream()
-				.collect(Collectors.toMap(ArticleSimple::getId, Function.identity()));
+		// 엮인 사진들
+		Map<String, List<BoardGallerySimple>> galleries = this.getArticleCommentGalleries(articleComments);
 
 		return articleComments.stream()
 				.map(boardFreeComment -> {
 					GetArticleComment getArticleComment = new GetArticleComment();
 					BeanUtils.copyProperties(boardFreeComment, getArticleComment);
 
-					getArticleComment.setArticle(
-							Optional.ofNullable(postsHavingComments.get(boardFreeComment.getArticle().getId()))
-									.orElse(new ArticleSimple())
-					);
+					getArticleComment.setArticle(article);
 
 					List<CommonFeelingUser> usersLiking = boardFreeComment.getUsersLiking();
 					List<CommonFeelingUser> usersDisliking = boardFreeComment.getUsersDisliking();
@@ -981,13 +943,21 @@ public class ArticleService {
 						getArticleComment.setLogs(logs);
 					}
 
-					// 엮인 사진들
-					if (boardFreeComment.getLinkedGallery())
-						getArticleComment.setGalleries(this.getArticleCommentGalleries(boardFreeComment.getId()));
+					getArticleComment.setGalleries(galleries.get(boardFreeComment.getId()));
 
 					return getArticleComment;
 				})
 				.collect(Collectors.toList());
 	}
 
+	private static class TotalCount {
+		private final long count;
+		private final long expiresAt;
+
+		TotalCount(long count, long expiresAt) {
+			this.count = count;
+			this.expiresAt = expiresAt;
+		}
+	}
+
 }
@@ -0,0 +1,124 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.aggregate.BoardTop;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.restcontroller.vo.board.GetArticlesTopsResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 게시판 별 주간 선두 글(좋아요수, 댓글수).
+ *
+ * 요청마다 세지 않고, 주기적으로 모든 게시판의 선두 글을 만들어 통째로 바꿔 끼운다.
+ * 글, 댓글, 감정 표현이 많이 쌓이면 주기를 기다리지 않고 다음 확인 때 다시 만든다.
+ */
+
+@Service
+public class ArticleTopsService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	// 게시판, 주간 선두 글
+	private volatile Map<Constants.BOARD_TYPE, GetArticlesTopsResponse> tops = Collections.emptyMap();
+	private volatile long refreshedAt;
+
+	// 마지막으로 만든 뒤의 글, 댓글, 감정 표현 수
+	private final AtomicInteger writes = new AtomicInteger();
+
+	@Resource private JakdukProperties.Board boardProperties;
+
+	@Autowired private ArticleRepository articleRepository;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private Timer refreshTimer;
+
+	@PostConstruct
+	public void init() {
+		refreshTimer = Timer.builder("jakduk.board.tops.refresh")
+				.description("주간 선두 글 만드는 시간")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 주간 선두 글을 가져온다. 아직 한번도 만들지 않았으면 만든다.
+	 *
+	 * @param board 게시판
+	 */
+	public GetArticlesTopsResponse getTops(Constants.BOARD_TYPE board) {
+		if (tops.isEmpty())
+			this.refreshIfEmpty();
+
+		return tops.get(board);
+	}
+
+	/**
+	 * 글, 댓글, 감정 표현이 바뀌면 부른다.
+	 */
+	public void recordWrite() {
+		writes.incrementAndGet();
+	}
+
+	/**
+	 * 만든지 tops-refresh-interval-millis 가 지났거나, tops-refresh-writes 만큼 쓰기가 쌓였으면 다시 만든다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.board.tops-check-interval-millis}")
+	public void refreshIfNeeded() {
+		if (System.currentTimeMillis() - refreshedAt >= boardProperties.getTopsRefreshIntervalMillis()
+				|| writes.get() >= boardProperties.getTopsRefreshWrites())
+			this.refresh();
+	}
+
+	/**
+	 * 모든 게시판의 주간 선두 글을 다시 만든다.
+	 */
+	public synchronized void refresh() {
+		long start = System.currentTimeMillis();
+		int pendingWrites = writes.getAndSet(0);
+
+		ObjectId since = new ObjectId(DateUtils.localDateToDate(LocalDate.now().minusWeeks(1)));
+		Map<Constants.BOARD_TYPE, GetArticlesTopsResponse> newTops = new EnumMap<>(Constants.BOARD_TYPE.class);
+		int articles = 0;
+
+		Timer.Sample sample = Timer.start(meterRegistry);
+
+		for (Constants.BOARD_TYPE board : Constants.BOARD_TYPE.values()) {
+			List<BoardTop> topLikes = articleRepository.findTopLikes(board, since);
+			List<BoardTop> topComments = articleRepository.findTopComments(board, since);
+
+			newTops.put(board, new GetArticlesTopsResponse(topLikes, topComments));
+			articles += topLikes.size() + topComments.size();
+		}
+
+		sample.stop(refreshTimer);
+
+		tops = newTops;
+		refreshedAt = start;
+
+		log.info("board tops refreshed. boards={}, articles={}, writes={}, took={}ms", newTops.size(), articles, pendingWrites,
+				System.currentTimeMillis() - start);
+	}
+
+	private synchronized void refreshIfEmpty() {
+		if (tops.isEmpty())
+			this.refresh();
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.bloomfilter.BloomFilter;
+import com.jakduk.api.configuration.JakdukProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 같은 방문자가 같은 글을 잠깐 사이에 다시 읽었는지 확인한다.
+ *
+ * (방문자, 글번호) 를 dedup-window-millis 마다 돌아가는 Bloom filter 두 개에 기록한다.
+ * 한번 읽으면 한 구간 이상, 두 구간 미만 동안 기억한다.
+ * 필터 두 개를 번갈아 비워 쓰므로 방문자가 아무리 많아도 메모리는 dedup-max-memory-bytes 를 넘지 않는다.
+ * 방문자가 예상보다 많으면 오탐이 늘어 읽음수가 덜 오를 뿐이다.
+ */
+
+@Service
+public class ArticleViewersService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private volatile BloomFilter current;
+	private volatile BloomFilter previous;
+
+	// 지금 구간에서 새로 기록한 수
+	private final AtomicLong insertions = new AtomicLong();
+
+	@Autowired private JakdukProperties jakdukProperties;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private Counter firstViewCounter;
+	private Counter repeatedViewCounter;
+
+	@PostConstruct
+	public void init() {
+		JakdukProperties.ArticleViews properties = jakdukProperties.getArticleViews();
+
+		long maxBits = properties.getDedupMaxMemoryBytes() / 2 * Byte.SIZE;
+
+		current = BloomFilter.create(properties.getDedupExpectedViews(), properties.getDedupFalsePositiveRate(), maxBits);
+		previous = new BloomFilter(current.getNumBits(), current.getNumHashes());
+
+		firstViewCounter = Counter.builder("jakduk.article.viewers")
+				.tag("result", "first")
+				.description("글 읽음 중복 확인")
+				.register(meterRegistry);
+
+		repeatedViewCounter = Counter.builder("jakduk.article.viewers")
+				.tag("result", "repeated")
+				.description("글 읽음 중복 확인")
+				.register(meterRegistry);
+
+		Gauge.builder("jakduk.article.viewers.memory", this, service -> service.current.getNumBits() / Byte.SIZE * 2)
+				.description("글 읽음 중복 확인에 쓰는 메모리")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+
+		log.info("article viewers filter created. bits={}, hashes={}, expectedFalsePositiveRate={}", current.getNumBits(),
+				current.getNumHashes(), current.expectedFalsePositiveRate(properties.getDedupExpectedViews()));
+	}
+
+	/**
+	 * 방문자가 글을 읽었다고 기록한다.
+	 *
+	 * @param visitorId 회원 ID, 또는 비회원을 구분하는 값
+	 * @param seq 글번호
+	 * @return 최근에 읽은 적이 없으면 true
+	 */
+	public boolean markViewed(String visitorId, Integer seq) {
+		long hash = hash(visitorId, seq);
+
+		if (previous.mightContain(hash) || ! current.put(hash)) {
+			repeatedViewCounter.increment();
+			return false;
+		}
+
+		insertions.incrementAndGet();
+		firstViewCounter.increment();
+
+		return true;
+	}
+
+	/**
+	 * 지난 구간의 필터를 비워 이번 구간의 필터로 쓴다.
+	 */
+	@Scheduled(fixedRateString = "${jakduk.article-views.dedup-window-millis}",
+			initialDelayString = "${jakduk.article-views.dedup-window-millis}")
+	public synchronized void rotate() {
+		BloomFilter recycled = previous;
+		long windowInsertions = insertions.getAndSet(0);
+
+		previous = current;
+		recycled.clear();
+		current = recycled;
+
+		if (log.isDebugEnabled())
+			log.debug("article viewers filter rotated. insertions={}, expectedFalsePositiveRate={}", windowInsertions,
+					previous.expectedFalsePositiveRate(windowInsertions));
+	}
+
+	/**
+	 * (방문자, 글번호) 를 64비트로 섞는다. 방문자는 FNV-1a, 섞기는 SplitMix64 의 마무리 함수를 쓴다.
+	 */
+	private static long hash(String visitorId, Integer seq) {
+		long hash = 0xcbf29ce484222325L;
+
+		for (int i = 0; i < visitorId.length(); i++) {
+			hash ^= visitorId.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+
+		return mix(hash ^ mix(seq));
+	}
+
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+
+		return value ^ (value >>> 31);
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.Article;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 게시물 읽음수 누적기.
+ *
+ * 글을 읽을 때마다 게시물 전체를 저장하지 않고, 메모리에 글 ID 별 읽음수를 쌓아 두었다가
+ * 주기적으로 한번의 bulk $inc 로 반영한다.
+ */
+
+@Service
+public class ArticleViewsService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	// 글 ID, 반영되지 않은 읽음수
+	private final ConcurrentHashMap<String, Long> pendingViews = new ConcurrentHashMap<>();
+
+	@Autowired private MongoTemplate mongoTemplate;
+	@Autowired private JakdukProperties jakdukProperties;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private Timer flushTimer;
+
+	@PostConstruct
+	public void init() {
+		Gauge.builder("jakduk.article.views.pending.keys", pendingViews, Map::size)
+				.description("읽음수가 반영되지 않은 글 수")
+				.register(meterRegistry);
+
+		Gauge.builder("jakduk.article.views.pending.increments", this, ArticleViewsService::getPendingIncrements)
+				.description("반영되지 않은 읽음수 합계")
+				.register(meterRegistry);
+
+		flushTimer = Timer.builder("jakduk.article.views.flush")
+				.description("읽음수 bulk $inc 소요 시간")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 읽음수 1 증가.
+	 * 누적된 글 수가 한도를 넘으면 해당 글은 바로 $inc 한다.
+	 *
+	 * @param article 읽은 글
+	 * @return 아직 반영되지 않은 읽음수를 포함한 읽음수
+	 */
+	public Integer increaseViews(Article article) {
+		String id = article.getId();
+		int views = article.getViews() == null ? 0 : article.getViews();
+
+		if (pendingViews.size() >= jakdukProperties.getArticleViews().getMaxPendingKeys() && ! pendingViews.containsKey(id)) {
+			mongoTemplate.updateFirst(this.queryById(id), new Update().inc("views", 1), Article.class);
+
+			return views + 1;
+		}
+
+		Long pending = pendingViews.merge(id, 1L, Long::sum);
+
+		return views + pending.intValue();
+	}
+
+	/**
+	 * 누적된 읽음수를 한번의 bulk $inc 로 DB에 반영한다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.article-views.flush-interval-millis}")
+	public void flush() {
+		if (pendingViews.isEmpty())
+			return;
+
+		Map<String, Long> flushing = new HashMap<>();
+
+		pendingViews.keySet().forEach(id -> {
+			Long count = pendingViews.remove(id);
+
+			if (count != null)
+				flushing.put(id, count);
+		});
+
+		if (flushing.isEmpty())
+			return;
+
+		try {
+			flushTimer.record(() -> {
+				BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Article.class);
+				flushing.forEach((id, count) -> bulkOperations.updateOne(this.queryById(id), new Update().inc("views", count)));
+				bulkOperations.execute();
+			});
+
+			log.debug("article views flushed. articles={}", flushing.size());
+
+		} catch (RuntimeException e) {
+			// 실패한 읽음수는 다음 주기에 다시 반영한다.
+			flushing.forEach((id, count) -> pendingViews.merge(id, count, Long::sum));
+			log.warn("failed to flush article views. articles={}", flushing.size(), e);
+		}
+	}
+
+	@PreDestroy
+	public void destroy() {
+		this.flush();
+	}
+
+	private long getPendingIncrements() {
+		return pendingViews.values().stream()
+				.mapToLong(Long::longValue)
+				.sum();
+	}
+
+	private Query queryById(String id) {
+		return new Query(Criteria.where("_id").is(new ObjectId(id)));
+	}
+
+}
@@ -1,11 +1,12 @@
 package com.jakduk.api.service;
 
 
+import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.model.db.Sequence;
-import com.jakduk.api.repository.SequenceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -13,6 +14,12 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @author <a href="mailto:phjang1983@daum.net">Jang,Pyohwan</a>
  * @company  : http://jakduk.com
@@ -25,40 +32,96 @@ public class CommonService {
 
 	private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+	// 시퀀스 이름, 예약해 둔 번호 묶음
+	private final ConcurrentHashMap<String, SequenceBlock> sequenceBlocks = new ConcurrentHashMap<>();
+
+	@Resource private JakdukProperties.Sequence sequenceProperties;
+
 	@Autowired private MongoTemplate mongoTemplate;
-	@Autowired private SequenceRepository sequenceRepository;
 
 	/**
 	 * 차기 SEQUENCE를 가져온다.
 	 *
+	 * block-size 만큼의 번호를 findAndModify $inc 한번으로 예약해 두고, 다 쓸 때까지 메모리에서 나눠준다.
+	 * 서버가 여러 대면 번호가 글 쓴 순서와 어긋나거나 중간에 빌 수 있지만 겹치지는 않는다.
+	 *
 	 * @param name 게시판 ID
 	 * @return 다음 글번호
 	 */
 	public Integer getNextSequence(String name) {
-		
-		Integer nextSeq = 1;
-		
+
+		while (true) {
+			SequenceBlock block = sequenceBlocks.get(name);
+
+			if (Objects.nonNull(block)) {
+				long next = block.next.getAndIncrement();
+
+				if (next <= block.last)
+					return (int) next;
+			}
+
+			// 다 쓴 묶음을 처음 발견한 쓰레드만 새로 예약한다.
+			sequenceBlocks.compute(name, (key, current) -> current != block ? current : this.reserveBlock(key));
+		}
+	}
+
+	/**
+	 * 종료할 때 쓰지 않은 번호를 돌려 놓는다.
+	 * 그 사이 다른 서버가 다음 묶음을 예약했으면 돌려 놓지 못하고 빈 번호로 남는다.
+	 */
+	@PreDestroy
+	public void releaseSequenceBlocks() {
+		sequenceBlocks.forEach((name, block) -> {
+			long next = block.next.getAndSet(block.last + 1);
+
+			if (next > block.last)
+				return;
+
+			Query query = new Query(Criteria.where("name").is(name).and("seq").is((int) block.last));
+			boolean released = mongoTemplate.updateFirst(query, new Update().set("seq", (int) next - 1), Sequence.class)
+					.getModifiedCount() > 0;
+
+			log.info("sequence block released. name={}, unused={}~{}, released={}", name, next, block.last, released);
+		});
+	}
+
+	private SequenceBlock reserveBlock(String name) {
+
+		int blockSize = Math.max(1, sequenceProperties.getBlockSize(name));
+
 		Query query = new Query();
 		query.addCriteria(Criteria.where("name").is(name));
-		
+
 		Update update = new Update();
-		update.inc("seq", 1);
-		
+		update.inc("seq", blockSize);
+
 		FindAndModifyOptions options = new FindAndModifyOptions();
 		options.returnNew(true);
-		
-		Sequence sequence = mongoTemplate.findAndModify(query, update, options, Sequence.class);
-		
-		if (sequence == null) {
-			Sequence newSequence = new Sequence();
-			newSequence.setName(name);
-			sequenceRepository.save(newSequence);
-			log.debug("sequence is Null. Insert new Sequence.");
-			
-			return nextSeq;
-		} else {
-			nextSeq = sequence.getSeq();
-			return nextSeq;
+		options.upsert(true);
+
+		Sequence sequence;
+
+		try {
+			sequence = mongoTemplate.findAndModify(query, update, options, Sequence.class);
+		} catch (DuplicateKeyException e) {
+			// 처음 쓰는 시퀀스를 동시에 upsert 했다. 이제는 문서가 있으므로 다시 하면 된다.
+			sequence = mongoTemplate.findAndModify(query, update, options, Sequence.class);
+		}
+
+		long last = sequence.getSeq();
+
+		log.debug("sequence block reserved. name={}, block={}~{}", name, last - blockSize + 1, last);
+
+		return new SequenceBlock(last - blockSize + 1, last);
+	}
+
+	private static class SequenceBlock {
+		private final AtomicLong next;
+		private final long last;
+
+		SequenceBlock(long first, long last) {
+			this.next = new AtomicLong(first);
+			this.last = last;
 		}
 	}
 
@@ -2,20 +2,16 @@ package com.jakduk.api.service;
 
 
 import com.jakduk.api.common.Constants;
-import com.jakduk.api.dao.JakdukDAO;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
-import com.jakduk.api.model.db.Competition;
 import com.jakduk.api.model.db.FootballClub;
-import com.jakduk.api.model.db.FootballClubOrigin;
-import com.jakduk.api.repository.footballclub.FootballClubOriginRepository;
+import com.jakduk.api.model.embedded.LocalName;
 import com.jakduk.api.repository.footballclub.FootballClubRepository;
-import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * @author pyohwan
@@ -25,14 +21,11 @@ import java.util.stream.Collectors;
 @Service
 public class FootballService {
 
-    @Autowired
-    private JakdukDAO jakdukDAO;
-
     @Autowired
     private FootballClubRepository footballClubRepository;
 
     @Autowired
-    private FootballClubOriginRepository footballClubOriginRepository;
+    private ReferenceDataService referenceDataService;
 
     public FootballClub findOneById(String id) {
         return footballClubRepository.findOneById(id)
@@ -47,31 +40,24 @@ public class FootballService {
      * @param sortNameType 정렬 기준
      */
     public List<FootballClub> getFootballClubs(String language, Constants.CLUB_TYPE clubType, Constants.NAME_TYPE sortNameType) {
-
-        List<FootballClubOrigin> footballClubOrigins = footballClubOriginRepository.findByClubType(clubType);
-
-        List<ObjectId> ids = footballClubOrigins.stream()
-                .map(footballClubOrigin -> new ObjectId(footballClubOrigin.getId()))
-                .collect(Collectors.toList());
-
-        return footballClubRepository.findFootballClubs(ids, language, sortNameType);
+        return referenceDataService.getFootballClubs(language, clubType, sortNameType);
     }
 
     /**
-     * 조건에 맞는 축구단 목록을 가져온다.
+     * 부모 축구단 ID 별 축구단 이름을 가져온다.
      *
      * @param language 언어
-     * @param sortNameType 정렬 기준
-     * @param ids footballClub Id 배열
-     * @return 축구단 배열
      */
-    public List<FootballClub> getFootballClubs(List<ObjectId> ids, String language, Constants.NAME_TYPE sortNameType ) {
-
-        return footballClubRepository.findFootballClubs(ids, language, sortNameType);
+    public Map<String, LocalName> getFootballClubNames(String language) {
+        return referenceDataService.getFootballClubNames(language);
     }
 
-    // 대회 목록.
-    public List<Competition> getCompetitions(List<ObjectId> ids, String language) {
-        return jakdukDAO.getCompetitions(ids, language);
+    /**
+     * 대회 ID 별 대회 이름을 가져온다.
+     *
+     * @param language 언어
+     */
+    public Map<String, LocalName> getCompetitionNames(String language) {
+        return referenceDataService.getCompetitionNames(language);
     }
 }
@@ -69,6 +69,7 @@ public class GalleryService {
 	@Autowired private ArticleRepository articleRepository;
 	@Autowired private CommonGalleryService commonGalleryService;
 	@Autowired private RabbitMQPublisher rabbitMQPublisher;
+	@Autowired private HomeService homeService;
 
 	public Gallery findOneById(String id) {
 		return galleryRepository.findOneById(id).orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_GALLERY));
@@ -304,8 +305,8 @@ public class GalleryService {
 
 	}
 
-	// 이미지 가져오기.
-	public ByteArrayOutputStream getGalleryOutStream(String id, String contentType, Constants.IMAGE_TYPE imageType) {
+	// 이미지 파일 경로 가져오기.
+	public Path getGalleryFilePath(String id, String contentType, Constants.IMAGE_TYPE imageType) {
 
 		ObjectId objId = new ObjectId(id);
 		Instant instant = Instant.ofEpochMilli(objId.getDate().getTime());
@@ -327,26 +328,10 @@ public class GalleryService {
 		Path filePath = Paths.get(imagePath, String.valueOf(timePoint.getYear()), String.valueOf(timePoint.getMonthValue()),
 				String.valueOf(timePoint.getDayOfMonth()), id + "." + formatName);
 
-		if (Files.exists(filePath, LinkOption.NOFOLLOW_LINKS)) {
-			try {
-				BufferedInputStream in = new BufferedInputStream(new FileInputStream(filePath.toString()));
-				ByteArrayOutputStream byteStream = new ByteArrayOutputStream(512);
-
-				int imageByte;
-
-				while ((imageByte = in.read()) != -1){
-					byteStream.write(imageByte);
-				}
-
-				in.close();
-				return byteStream;
-
-			} catch (IOException e) {
-				throw new ServiceException(ServiceError.GALLERY_IO_ERROR, e);
-			}
-		} else {
+		if (Files.notExists(filePath, LinkOption.NOFOLLOW_LINKS))
 			throw new ServiceException(ServiceError.NOT_FOUND_GALLERY);
-		}
+
+		return filePath;
 	}
 
 	/**
@@ -452,6 +437,8 @@ public class GalleryService {
 				}
 			});
 		}
+
+		homeService.evictLatestItems();
 	}
 
 }
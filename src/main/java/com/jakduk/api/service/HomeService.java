@@ -1,17 +1,31 @@
 package com.jakduk.api.service;
 
 
+import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.exception.ServiceError;
 import com.jakduk.api.exception.ServiceException;
 import com.jakduk.api.model.db.Encyclopedia;
 import com.jakduk.api.model.db.HomeDescription;
 import com.jakduk.api.repository.EncyclopediaRepository;
 import com.jakduk.api.repository.HomeDescriptionRepository;
+import com.jakduk.api.restcontroller.vo.home.HomeLatestItemsResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
 
-import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:phjang1983@daum.net">Jang,Pyohwan</a>
@@ -23,22 +37,78 @@ import java.util.List;
 @Service
 public class HomeService {
 
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	// 언어, 백과사전 배열. 아직 읽지 못했으면 null
+	private volatile Map<String, Encyclopedia[]> encyclopedias;
+
+	// 언어, 홈 최근 데이터
+	private final ConcurrentHashMap<String, LatestItemsEntry> latestItemsCache = new ConcurrentHashMap<>();
+
+	// 캐시를 비울때마다 올라간다. 비우기 전에 읽기 시작한 데이터는 캐시에 넣지 않는다.
+	private final AtomicLong latestItemsGeneration = new AtomicLong();
+
+	@Resource private JakdukProperties.Home homeProperties;
+
 	@Autowired private EncyclopediaRepository encyclopediaRepository;
 	@Autowired private HomeDescriptionRepository homeDescriptionRepository;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private Counter latestItemsHitCounter;
+	private Counter latestItemsMissCounter;
+	private Counter latestItemsEvictionCounter;
+
+	@PostConstruct
+	public void init() {
+		latestItemsHitCounter = Counter.builder("jakduk.home.latest.cache")
+				.tag("result", "hit")
+				.description("홈 최근 데이터 캐시 조회")
+				.register(meterRegistry);
+
+		latestItemsMissCounter = Counter.builder("jakduk.home.latest.cache")
+				.tag("result", "miss")
+				.description("홈 최근 데이터 캐시 조회")
+				.register(meterRegistry);
+
+		latestItemsEvictionCounter = Counter.builder("jakduk.home.latest.cache.evictions")
+				.description("홈 최근 데이터 캐시 비움 횟수")
+				.register(meterRegistry);
+	}
 
 	/**
 	 * 랜덤하게 백과 사전 하나를 가져온다.
+	 * 아직 백과사전 목록을 읽지 못했으면 DB 에서 $sample 로 하나 가져온다.
 	 */
 	public Encyclopedia getEncyclopediaWithRandom(String language) {
 
-		List<Encyclopedia> encyclopedias = encyclopediaRepository.findListByLanguage(language);
+		Map<String, Encyclopedia[]> snapshot = encyclopedias;
+
+		if (Objects.isNull(snapshot))
+			return encyclopediaRepository.findOneByLanguageWithSample(language)
+					.orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_ENCYCLOPEDIA));
+
+		Encyclopedia[] languageEncyclopedias = snapshot.get(language);
 
-		if (CollectionUtils.isEmpty(encyclopedias))
+		if (Objects.isNull(languageEncyclopedias))
 			throw new ServiceException(ServiceError.NOT_FOUND_ENCYCLOPEDIA);
 
-		Integer random = (int)(Math.random() * encyclopedias.size());
+		return languageEncyclopedias[ThreadLocalRandom.current().nextInt(languageEncyclopedias.length)];
+	}
 
-		return encyclopedias.get(random);
+	/**
+	 * 백과사전 목록을 다시 읽어 언어별로 바꿔 끼운다.
+	 * 관리자가 백과사전을 고치면 부르고, 다른 서버에서 고친 것도 반영되도록 주기적으로 부른다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.home.encyclopedia-refresh-interval-millis}")
+	public void refreshEncyclopedias() {
+		Map<String, Encyclopedia[]> snapshot = encyclopediaRepository.findAll().stream()
+				.filter(encyclopedia -> Objects.nonNull(encyclopedia.getLanguage()))
+				.collect(Collectors.groupingBy(Encyclopedia::getLanguage,
+						Collectors.collectingAndThen(Collectors.toList(), list -> list.toArray(new Encyclopedia[0]))));
+
+		encyclopedias = snapshot;
+
+		log.info("encyclopedias refreshed. languages={}", snapshot.keySet());
 	}
 
 	// 알림판 가져오기.
@@ -46,5 +116,56 @@ public class HomeService {
 		return homeDescriptionRepository.findFirstByOrderByPriorityDesc()
 				.orElseGet(HomeDescription::new);
 	}
-	
+
+	/**
+	 * 홈 최근 데이터를 언어별 캐시에서 가져온다.
+	 * 캐시에 없거나 유지 시간이 지났으면 loader 로 다시 만든다.
+	 *
+	 * @param language 언어
+	 * @param loader 홈 최근 데이터를 만드는 함수
+	 */
+	public HomeLatestItemsResponse getLatestItems(String language, Supplier<HomeLatestItemsResponse> loader) {
+
+		long generation = latestItemsGeneration.get();
+		LatestItemsEntry entry = latestItemsCache.get(language);
+
+		if (Objects.nonNull(entry) && entry.generation == generation && entry.expiresAt > System.currentTimeMillis()) {
+			latestItemsHitCounter.increment();
+			return entry.response;
+		}
+
+		latestItemsMissCounter.increment();
+
+		HomeLatestItemsResponse response = loader.get();
+
+		// 읽는 동안 캐시가 비워졌으면 이미 지난 데이터일 수 있으므로 넣지 않는다. 일부 섹션이 빠진 데이터도 넣지 않는다.
+		if (latestItemsGeneration.get() == generation && ! Boolean.TRUE.equals(response.getPartial()))
+			latestItemsCache.put(language, new LatestItemsEntry(response, generation,
+					System.currentTimeMillis() + homeProperties.getLatestItemsCacheTtlMillis()));
+
+		return response;
+	}
+
+	/**
+	 * 홈 최근 데이터 캐시를 비운다.
+	 * 글, 댓글, 사진, 회원, 알림판이 바뀌면 부른다.
+	 */
+	public void evictLatestItems() {
+		latestItemsGeneration.incrementAndGet();
+		latestItemsCache.clear();
+		latestItemsEvictionCounter.increment();
+	}
+
+	private static class LatestItemsEntry {
+		private final HomeLatestItemsResponse response;
+		private final long generation;
+		private final long expiresAt;
+
+		LatestItemsEntry(HomeLatestItemsResponse response, long generation, long expiresAt) {
+			this.response = response;
+			this.generation = generation;
+			this.expiresAt = expiresAt;
+		}
+	}
+
 }
@@ -10,7 +10,6 @@ import com.jakduk.api.model.db.Jakdu;
 import com.jakduk.api.model.db.JakduComment;
 import com.jakduk.api.model.db.JakduSchedule;
 import com.jakduk.api.model.elasticsearch.EsJakduComment;
-import com.jakduk.api.model.embedded.CommonFeelingUser;
 import com.jakduk.api.model.embedded.CommonWriter;
 import com.jakduk.api.model.simple.JakduOnSchedule;
 import com.jakduk.api.repository.jakdu.JakduCommentRepository;
@@ -18,6 +17,7 @@ import com.jakduk.api.repository.jakdu.JakduRepository;
 import com.jakduk.api.repository.jakdu.JakduScheduleRepository;
 import com.jakduk.api.restcontroller.vo.admin.JakduCommentWriteRequest;
 import com.jakduk.api.restcontroller.vo.admin.JakduCommentsResponse;
+import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
 import com.jakduk.api.restcontroller.vo.admin.MyJakduRequest;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
@@ -25,9 +25,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -47,6 +47,7 @@ public class JakduService {
     @Autowired private JakduCommentRepository jakduCommentRepository;
     @Autowired private JakdukDAO jakdukDAO;
     @Autowired private SearchService searchService;
+    @Autowired private UsersFeelingService usersFeelingService;
 
     public JakduSchedule findScheduleById(String id) {
         return jakduScheduleRepository.findById(id).orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_JAKDUSCHEDULE));
@@ -145,53 +146,12 @@ public class JakduService {
     /**
      * 작두 댓글 감정 표현
      */
-    public JakduComment setJakduCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
+    public UserFeelingResponse setJakduCommentFeeling(CommonWriter writer, String commentId, Constants.FEELING_TYPE feeling) {
 
-        String userId = writer.getUserId();
-        String username = writer.getUsername();
+        if (! ObjectId.isValid(commentId))
+            throw new ServiceException(ServiceError.NOT_FOUND_COMMENT);
 
-        JakduComment jakduComment = jakduCommentRepository.findById(commentId).orElseThrow(() -> new ServiceException(ServiceError.NOT_FOUND_COMMENT));
-        CommonWriter jakdukWriter = jakduComment.getWriter();
-
-        List<CommonFeelingUser> usersLiking = jakduComment.getUsersLiking();
-        List<CommonFeelingUser> usersDisliking = jakduComment.getUsersDisliking();
-
-        if (Objects.isNull(usersLiking)) usersLiking = new ArrayList<>();
-        if (Objects.isNull(usersDisliking)) usersDisliking = new ArrayList<>();
-
-        // 이 게시물의 작성자라서 감정 표현을 할 수 없음
-        if (userId.equals(jakdukWriter.getUserId()))
-            throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
-
-        // 해당 회원이 좋아요를 이미 했는지 검사
-        for (CommonFeelingUser feelingUser : usersLiking) {
-            if (Objects.nonNull(feelingUser) && userId.equals(feelingUser.getUserId()))
-                throw new ServiceException(ServiceError.FEELING_SELECT_ALREADY_LIKE);
-        }
-
-        // 해당 회원이 싫어요를 이미 했는지 검사
-        for (CommonFeelingUser feelingUser : usersDisliking) {
-            if (Objects.nonNull(feelingUser) && userId.equals(feelingUser.getUserId()))
-                throw new ServiceException(ServiceError.FEELING_SELECT_ALREADY_LIKE);
-        }
-
-        CommonFeelingUser feelingUser = new CommonFeelingUser(new ObjectId().toString(), userId, username);
-
-        switch (feeling) {
-            case LIKE:
-                usersLiking.add(feelingUser);
-                jakduComment.setUsersLiking(usersLiking);
-                break;
-            case DISLIKE:
-                usersDisliking.add(feelingUser);
-                jakduComment.setUsersDisliking(usersDisliking);
-                break;
-            default:
-                break;
-        }
-
-        jakduCommentRepository.save(jakduComment);
-
-        return jakduComment;
+        return usersFeelingService.addFeeling(UsersFeelingService.Target.JAKDU_COMMENT,
+                Criteria.where("_id").is(new ObjectId(commentId)), writer, feeling);
     }
 }
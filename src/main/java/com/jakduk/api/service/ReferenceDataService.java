@@ -0,0 +1,224 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.db.Competition;
+import com.jakduk.api.model.db.FootballClub;
+import com.jakduk.api.model.embedded.LocalName;
+import com.jakduk.api.repository.CompetitionRepository;
+import com.jakduk.api.repository.footballclub.FootballClubRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 축구단, 대회 같이 거의 바뀌지 않는 기준 데이터.
+ *
+ * 언어별로 미리 정렬해 둔 읽기 전용 맵을 통째로 들고 있다가, 관리자가 축구단이나 대회를 고치면 다시 만들어 바꿔 끼운다.
+ * 다른 서버에서 고친 것도 반영되도록 refresh-interval-millis 마다 다시 만든다.
+ * 요청 처리 중에는 DB 를 읽지 않는다.
+ */
+
+@Service
+public class ReferenceDataService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private volatile ReferenceData referenceData;
+
+	@Autowired private FootballClubRepository footballClubRepository;
+	@Autowired private CompetitionRepository competitionRepository;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private Timer rebuildTimer;
+
+	@PostConstruct
+	public void init() {
+		rebuildTimer = Timer.builder("jakduk.reference.rebuild")
+				.description("기준 데이터 만드는 시간")
+				.register(meterRegistry);
+
+		Gauge.builder("jakduk.reference.age", this, ReferenceDataService::getAgeSeconds)
+				.description("기준 데이터를 만든 뒤 지난 시간")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * 축구단 목록을 가져온다.
+	 *
+	 * @param language 언어
+	 * @param clubType 클럽 성격
+	 * @param sortNameType 정렬 기준
+	 */
+	public List<FootballClub> getFootballClubs(String language, Constants.CLUB_TYPE clubType, Constants.NAME_TYPE sortNameType) {
+		return this.getReferenceData().footballClubs
+				.get(clubType)
+				.get(sortNameType)
+				.getOrDefault(language, Collections.emptyList());
+	}
+
+	/**
+	 * 부모 축구단 ID 별 축구단 이름을 가져온다.
+	 *
+	 * @param language 언어
+	 */
+	public Map<String, LocalName> getFootballClubNames(String language) {
+		return this.getReferenceData().footballClubNames.getOrDefault(language, Collections.emptyMap());
+	}
+
+	/**
+	 * 대회 ID 별 대회 이름을 가져온다.
+	 *
+	 * @param language 언어
+	 */
+	public Map<String, LocalName> getCompetitionNames(String language) {
+		return this.getReferenceData().competitionNames.getOrDefault(language, Collections.emptyMap());
+	}
+
+	/**
+	 * 기준 데이터를 다시 만든다. 축구단, 부모 축구단, 대회가 바뀌면 부르고, 주기적으로도 부른다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.reference-data.refresh-interval-millis}")
+	public synchronized void rebuild() {
+		long start = System.currentTimeMillis();
+
+		Timer.Sample sample = Timer.start(meterRegistry);
+
+		List<FootballClub> footballClubs = footballClubRepository.findAll();
+		List<Competition> competitions = competitionRepository.findAll();
+
+		// 클럽 성격, 정렬 기준, 언어, 축구단 목록
+		Map<Constants.CLUB_TYPE, Map<Constants.NAME_TYPE, Map<String, List<FootballClub>>>> footballClubsByType =
+				new EnumMap<>(Constants.CLUB_TYPE.class);
+
+		for (Constants.CLUB_TYPE clubType : Constants.CLUB_TYPE.values()) {
+			Map<String, List<FootballClub>> footballClubsByLanguage = new HashMap<>();
+
+			for (FootballClub footballClub : footballClubs) {
+				if (Objects.isNull(footballClub.getOrigin()) || Objects.isNull(footballClub.getNames())
+						|| ! clubType.equals(footballClub.getOrigin().getClubType()))
+					continue;
+
+				// 언어별로 그 언어의 이름 하나만 남긴다.
+				for (LocalName name : footballClub.getNames()) {
+					FootballClub localFootballClub = new FootballClub();
+					localFootballClub.setId(footballClub.getId());
+					localFootballClub.setOrigin(footballClub.getOrigin());
+					localFootballClub.setActive(footballClub.getActive());
+					localFootballClub.setNames(Collections.singletonList(name));
+
+					footballClubsByLanguage.computeIfAbsent(name.getLanguage(), language -> new ArrayList<>()).add(localFootballClub);
+				}
+			}
+
+			Map<Constants.NAME_TYPE, Map<String, List<FootballClub>>> footballClubsBySort = new EnumMap<>(Constants.NAME_TYPE.class);
+			footballClubsBySort.put(Constants.NAME_TYPE.fullName, sortedCopy(footballClubsByLanguage, LocalName::getFullName));
+			footballClubsBySort.put(Constants.NAME_TYPE.shortName, sortedCopy(footballClubsByLanguage, LocalName::getShortName));
+
+			footballClubsByType.put(clubType, Collections.unmodifiableMap(footballClubsBySort));
+		}
+
+		Map<String, Map<String, LocalName>> footballClubNames = new HashMap<>();
+
+		for (FootballClub footballClub : footballClubs) {
+			if (Objects.isNull(footballClub.getOrigin()) || Objects.isNull(footballClub.getNames()))
+				continue;
+
+			for (LocalName name : footballClub.getNames())
+				footballClubNames.computeIfAbsent(name.getLanguage(), language -> new HashMap<>())
+						.putIfAbsent(footballClub.getOrigin().getId(), name);
+		}
+
+		Map<String, Map<String, LocalName>> competitionNames = new HashMap<>();
+
+		for (Competition competition : competitions) {
+			if (Objects.isNull(competition.getNames()))
+				continue;
+
+			for (LocalName name : competition.getNames())
+				competitionNames.computeIfAbsent(name.getLanguage(), language -> new HashMap<>())
+						.putIfAbsent(competition.getId(), name);
+		}
+
+		referenceData = new ReferenceData(Collections.unmodifiableMap(footballClubsByType), unmodifiableCopy(footballClubNames),
+				unmodifiableCopy(competitionNames), start);
+
+		sample.stop(rebuildTimer);
+
+		log.info("reference data rebuilt. footballClubs={}, competitions={}, took={}ms", footballClubs.size(), competitions.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	private ReferenceData getReferenceData() {
+		ReferenceData current = referenceData;
+
+		if (Objects.nonNull(current))
+			return current;
+
+		synchronized (this) {
+			if (Objects.isNull(referenceData))
+				this.rebuild();
+
+			return referenceData;
+		}
+	}
+
+	private double getAgeSeconds() {
+		ReferenceData current = referenceData;
+
+		if (Objects.isNull(current))
+			return Double.NaN;
+
+		return (System.currentTimeMillis() - current.builtAt) / 1000.0;
+	}
+
+	private static Map<String, List<FootballClub>> sortedCopy(Map<String, List<FootballClub>> footballClubsByLanguage,
+															  Function<LocalName, String> sortName) {
+
+		Comparator<FootballClub> comparator = Comparator.comparing(footballClub -> sortName.apply(footballClub.getNames().get(0)),
+				Comparator.nullsLast(Comparator.naturalOrder()));
+
+		Map<String, List<FootballClub>> sorted = new HashMap<>();
+
+		footballClubsByLanguage.forEach((language, footballClubs) -> {
+			List<FootballClub> copy = new ArrayList<>(footballClubs);
+			copy.sort(comparator);
+			sorted.put(language, Collections.unmodifiableList(copy));
+		});
+
+		return Collections.unmodifiableMap(sorted);
+	}
+
+	private static Map<String, Map<String, LocalName>> unmodifiableCopy(Map<String, Map<String, LocalName>> namesByLanguage) {
+		Map<String, Map<String, LocalName>> copy = new HashMap<>();
+		namesByLanguage.forEach((language, names) -> copy.put(language, Collections.unmodifiableMap(names)));
+
+		return Collections.unmodifiableMap(copy);
+	}
+
+	private static class ReferenceData {
+		private final Map<Constants.CLUB_TYPE, Map<Constants.NAME_TYPE, Map<String, List<FootballClub>>>> footballClubs;
+		private final Map<String, Map<String, LocalName>> footballClubNames;
+		private final Map<String, Map<String, LocalName>> competitionNames;
+		private final long builtAt;
+
+		ReferenceData(Map<Constants.CLUB_TYPE, Map<Constants.NAME_TYPE, Map<String, List<FootballClub>>>> footballClubs,
+					  Map<String, Map<String, LocalName>> footballClubNames, Map<String, Map<String, LocalName>> competitionNames,
+					  long builtAt) {
+			this.footballClubs = footballClubs;
+			this.footballClubNames = footballClubNames;
+			this.competitionNames = competitionNames;
+			this.builtAt = builtAt;
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.util.JakdukUtils;
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.simple.ArticleOnRSS;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.rometools.rome.feed.rss.Channel;
+import com.rometools.rome.feed.rss.Content;
+import com.rometools.rome.feed.rss.Description;
+import com.rometools.rome.feed.rss.Item;
+import com.rometools.rome.io.FeedException;
+import com.rometools.rome.io.WireFeedOutput;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * RSS 피드 생성기.
+ *
+ * 최근 글 max-items 개로 피드를 만들어 직렬화한 채로 메모리에 들고 있다가 그대로 응답한다.
+ * 글이 써지거나 고쳐지거나 지워지면 비우고, 다음 요청에서 다시 만든다.
+ * 비우지 못한 변경(다른 서버에서 쓴 글 등)도 반영되도록 ttl-millis 가 지난 피드도 다시 만든다.
+ */
+
+@Service
+public class RssFeedService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private static final String ALL_BOARDS = "ALL";
+
+	// 언어:게시판, 피드
+	private final ConcurrentHashMap<String, RssFeed> feeds = new ConcurrentHashMap<>();
+
+	// 피드를 비울때마다 올라간다. 비우기 전에 만들기 시작한 피드는 쓰지 않는다.
+	private final AtomicLong generation = new AtomicLong();
+
+	@Resource private JakdukProperties jakdukProperties;
+	@Resource private JakdukProperties.Rss rssProperties;
+
+	@Autowired private UrlGenerationUtils urlGenerationUtils;
+	@Autowired private ArticleRepository articleRepository;
+
+	/**
+	 * RSS 피드를 가져온다. 없으면 만든다.
+	 *
+	 * @param language 언어
+	 * @param board 게시판 (null 이면 모든 게시판)
+	 */
+	public RssFeed getFeed(String language, Constants.BOARD_TYPE board) {
+
+		String key = String.format("%s:%s", language, Objects.isNull(board) ? ALL_BOARDS : board.name());
+
+		while (true) {
+			long currentGeneration = generation.get();
+			RssFeed feed = feeds.computeIfAbsent(key, k -> this.buildFeed(board, currentGeneration));
+
+			if (feed.generation == generation.get() && System.currentTimeMillis() < feed.expiresAt)
+				return feed;
+
+			feeds.remove(key, feed);
+		}
+	}
+
+	/**
+	 * 만들어 둔 RSS 피드를 모두 비운다.
+	 * 글이 써지거나 고쳐지거나 지워지면 부른다.
+	 */
+	public void evictFeeds() {
+		generation.incrementAndGet();
+		feeds.clear();
+	}
+
+	private RssFeed buildFeed(Constants.BOARD_TYPE board, long feedGeneration) {
+
+		long start = System.currentTimeMillis();
+
+		Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
+		List<ArticleOnRSS> articles = articleRepository.findPostsOnRss(Objects.isNull(board) ? null : board.name(), null, sort,
+				rssProperties.getMaxItems());
+
+		List<Item> items = articles.stream()
+				.map(article -> {
+					String url = urlGenerationUtils.generateArticleDetailUrl(article.getBoard(), article.getSeq());
+
+					Item item = new Item();
+					item.setAuthor(article.getWriter().getUsername());
+					item.setTitle(article.getSubject());
+					item.setUri(url);
+					item.setLink(url);
+					item.setDescription(this.createDescription(JakdukUtils.htmlToText(article.getContent())));
+					item.setPubDate(new ObjectId(article.getId()).getDate());
+
+					return item;
+				})
+				.collect(Collectors.toList());
+
+		Channel channel = new Channel("rss_2.0");
+		channel.setEncoding(StandardCharsets.UTF_8.name());
+		channel.setLink(Objects.isNull(board)
+				? String.format("%s/rss", jakdukProperties.getWebServerUrl())
+				: String.format("%s/board/%s", jakdukProperties.getWebServerUrl(), board.name().toLowerCase()));
+		channel.setTitle(JakdukUtils.getMessageSource("common.jakduk"));
+		channel.setDescription(JakdukUtils.getMessageSource("common.jakduk.rss.description"));
+		channel.setItems(items);
+
+		try {
+			byte[] body = new WireFeedOutput().outputString(channel).getBytes(StandardCharsets.UTF_8);
+
+			log.info("rss feed built. board={}, items={}, took={}ms", board, items.size(), System.currentTimeMillis() - start);
+
+			// Last-Modified 는 초 단위이므로 밀리초를 버린다.
+			return new RssFeed(body, DigestUtils.md5DigestAsHex(body), start / 1000 * 1000, feedGeneration,
+					start + rssProperties.getTtlMillis());
+
+		} catch (FeedException e) {
+			throw new ServiceException(ServiceError.INTERNAL_SERVER_ERROR, e);
+		}
+	}
+
+	private Description createDescription(String content) {
+		Description description = new Description();
+		description.setType(Content.HTML);
+		description.setValue(content);
+
+		return description;
+	}
+
+	public static class RssFeed {
+		private final byte[] body;
+		private final String eTag;
+		private final long lastModified;
+		private final long generation;
+		private final long expiresAt;
+
+		RssFeed(byte[] body, String eTag, long lastModified, long generation, long expiresAt) {
+			this.body = body;
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+			this.generation = generation;
+			this.expiresAt = expiresAt;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+
+		public long getLastModified() {
+			return lastModified;
+		}
+	}
+
+}
@@ -10,9 +10,11 @@ import com.jakduk.api.model.elasticsearch.*;
 import com.jakduk.api.restcontroller.vo.board.BoardGallerySimple;
 import com.jakduk.api.restcontroller.vo.search.*;
 import org.apache.commons.lang3.StringUtils;
-import org.elasticsearch.action.delete.DeleteResponse;
-import org.elasticsearch.action.index.IndexRequestBuilder;
-import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.MultiSearchRequestBuilder;
 import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
@@ -23,7 +25,6 @@ import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.InnerHitBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.join.query.JoinQueryBuilders;
-import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
@@ -35,10 +36,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.ObjectUtils;
 
 import javax.annotation.Resource;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -156,114 +159,97 @@ public class SearchService {
 		}};
 	}
 
-	public void indexDocumentArticle(EsArticle esArticle) {
+	/**
+	 * 여러 색인 요청을 한번의 bulk 요청으로 처리한다.
+	 * 응답의 item 순서는 요청 순서와 같다.
+	 *
+	 * @param requests 색인, 삭제 요청 목록
+	 */
+	public BulkResponse executeBulk(List<DocWriteRequest<?>> requests) {
+		BulkRequest bulkRequest = new BulkRequest();
+		requests.forEach(bulkRequest::add);
 
-		String id = esArticle.getId();
+		BulkResponse response = client.bulk(bulkRequest).actionGet();
+
+		if (response.hasFailures())
+			log.warn("bulk request has failures. took={}ms, {}", response.getTook().getMillis(), response.buildFailureMessage());
+
+		return response;
+	}
+
+	public IndexRequest getIndexDocumentArticleRequest(EsArticle esArticle) {
 
 		try {
-			IndexResponse response = client.prepareIndex()
-					.setIndex(elasticsearchProperties.getIndexBoard())
-					.setType(Constants.ES_TYPE_ARTICLE)
-					.setId(id)
-					.setSource(ObjectMapperUtils.writeValueAsString(esArticle), XContentType.JSON)
-					.get();
+			return new IndexRequest(elasticsearchProperties.getIndexBoard(), Constants.ES_TYPE_ARTICLE, esArticle.getId())
+					.source(ObjectMapperUtils.writeValueAsString(esArticle), XContentType.JSON);
 
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
 	}
 
-	public void deleteDocumentBoard(String id) {
-		DeleteResponse response = client.prepareDelete()
-				.setIndex(elasticsearchProperties.getIndexBoard())
-				.setType(Constants.ES_TYPE_ARTICLE)
-				.setId(id)
-				.get();
-
-		if (! response.status().equals(RestStatus.OK))
-			log.info("board id {} is not found. so can't delete it!", id);
+	public DeleteRequest getDeleteDocumentBoardRequest(String id) {
+		return new DeleteRequest(elasticsearchProperties.getIndexBoard(), Constants.ES_TYPE_ARTICLE, id);
 	}
 
-	public void indexDocumentBoardComment(EsComment esComment) {
-
-		String id = esComment.getId();
-		String parentBoardId = esComment.getArticle().getId();
+	public IndexRequest getIndexDocumentBoardCommentRequest(EsComment esComment) {
 
 		try {
-			IndexResponse response = client.prepareIndex()
-					.setIndex(elasticsearchProperties.getIndexBoard())
-					.setType(Constants.ES_TYPE_COMMENT)
-					.setId(id)
-					.setParent(parentBoardId)
-					.setSource(ObjectMapperUtils.writeValueAsString(esComment), XContentType.JSON)
-					.get();
+			return new IndexRequest(elasticsearchProperties.getIndexBoard(), Constants.ES_TYPE_COMMENT, esComment.getId())
+					.parent(esComment.getArticle().getId())
+					.source(ObjectMapperUtils.writeValueAsString(esComment), XContentType.JSON);
 
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
 	}
 
-	public void deleteDocumentBoardComment(String id) {
-
-		DeleteResponse response = client.prepareDelete()
-				.setIndex(elasticsearchProperties.getIndexBoard())
-				.setType(Constants.ES_TYPE_COMMENT)
-				.setId(id)
-				.get();
-
-		if (! response.status().equals(RestStatus.OK))
-			log.info("comment id {} is not found. so can't delete it!", id);
+	public DeleteRequest getDeleteDocumentBoardCommentRequest(String id) {
+		return new DeleteRequest(elasticsearchProperties.getIndexBoard(), Constants.ES_TYPE_COMMENT, id);
 	}
 
 	// TODO : 구현 해야 함
 	public void createDocumentJakduComment(EsJakduComment EsJakduComment) {}
 
-	public void indexDocumentGallery(EsGallery esGallery) {
-
-		String id = esGallery.getId();
+	public IndexRequest getIndexDocumentGalleryRequest(EsGallery esGallery) {
 
 		try {
-			IndexResponse response = client.prepareIndex()
-					.setIndex(elasticsearchProperties.getIndexGallery())
-					.setType(Constants.ES_TYPE_GALLERY)
-					.setId(id)
-					.setSource(ObjectMapperUtils.writeValueAsString(esGallery), XContentType.JSON)
-					.get();
+			return new IndexRequest(elasticsearchProperties.getIndexGallery(), Constants.ES_TYPE_GALLERY, esGallery.getId())
+					.source(ObjectMapperUtils.writeValueAsString(esGallery), XContentType.JSON);
 
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
 	}
 
-	public void deleteDocumentGallery(String id) {
-
-		DeleteResponse response = client.prepareDelete()
-				.setIndex(elasticsearchProperties.getIndexGallery())
-				.setType(Constants.ES_TYPE_GALLERY)
-				.setId(id)
-				.get();
-
-		if (! response.status().equals(RestStatus.OK))
-			log.info("gallery id {} is not found. so can't delete it!", id);
+	public DeleteRequest getDeleteDocumentGalleryRequest(String id) {
+		return new DeleteRequest(elasticsearchProperties.getIndexGallery(), Constants.ES_TYPE_GALLERY, id);
 	}
 
-	public void indexDocumentSearchWord(EsSearchWord esSearchWord) {
+	/**
+	 * 검색어 색인 요청. 같은 메시지를 다시 보내도 문서가 하나만 남도록 검색어, 등록 시각, 글쓴이로 ID 를 만든다.
+	 */
+	public IndexRequest getIndexDocumentSearchWordRequest(EsSearchWord esSearchWord) {
+
+		if (StringUtils.isBlank(esSearchWord.getId()))
+			esSearchWord.setId(this.toSearchWordId(esSearchWord));
 
 		try {
-			IndexRequestBuilder indexRequestBuilder = client.prepareIndex();
-			IndexResponse response = indexRequestBuilder
-					.setIndex(elasticsearchProperties.getIndexSearchWord())
-					.setType(Constants.ES_TYPE_SEARCH_WORD)
-					.setSource(ObjectMapperUtils.writeValueAsString(esSearchWord), XContentType.JSON)
-					.get();
-
-			log.debug("indexDocumentSearchWord Source:\n {}", indexRequestBuilder.request().getDescription());
+			return new IndexRequest(elasticsearchProperties.getIndexSearchWord(), Constants.ES_TYPE_SEARCH_WORD, esSearchWord.getId())
+					.source(ObjectMapperUtils.writeValueAsString(esSearchWord), XContentType.JSON);
 
 		} catch (IOException e) {
 			throw new ServiceException(ServiceError.ELASTICSEARCH_INDEX_FAILED, e.getCause());
 		}
 	}
 
+	private String toSearchWordId(EsSearchWord esSearchWord) {
+		String userId = Objects.nonNull(esSearchWord.getWriter()) ? esSearchWord.getWriter().getUserId() : null;
+		String key = String.join("|", esSearchWord.getWord(), String.valueOf(esSearchWord.getRegisterDate()), String.valueOf(userId));
+
+		return DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8));
+	}
+
 	private SearchRequestBuilder getArticleSearchRequestBuilder(String query, Integer from, Integer size, String preTags,
 																String postTags) {
 
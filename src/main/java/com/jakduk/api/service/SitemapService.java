@@ -0,0 +1,333 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.util.DateUtils;
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.simple.ArticleOnSitemap;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.redfin.sitemapgenerator.ChangeFreq;
+import com.redfin.sitemapgenerator.SitemapIndexGenerator;
+import com.redfin.sitemapgenerator.W3CDateFormat;
+import com.redfin.sitemapgenerator.WebSitemapGenerator;
+import com.redfin.sitemapgenerator.WebSitemapUrl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 사이트맵 파일 생성기.
+ *
+ * 글 seq 를 urls-per-file 단위로 잘라 sitemap-{번호}.xml 로 나누어 저장하고, 그 목록을 sitemap.xml(sitemap index) 로 저장한다.
+ * 글이 속한 파일은 seq 로 정해지므로, lastUpdated 기준 이후에 바뀐 글이 속한 파일만 다시 만든다.
+ * 완전히 지워진 글은 lastUpdated 로 알 수 없으므로 rebuild-cron 에 전체를 다시 만든다.
+ */
+
+@Service
+public class SitemapService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private static final String INDEX_FILE_NAME = "sitemap.xml";
+	private static final String STATE_FILE_NAME = "sitemap.properties";
+	private static final String STATE_HIGH_WATER_MARK = "high-water-mark";
+	private static final Pattern SHARD_FILE_NAME = Pattern.compile("sitemap-(\\d+)\\.xml");
+
+	// 글 저장 시각(lastUpdated)과 DB 반영 사이의 차이를 감안해서, 기준 시각을 이만큼 앞당겨 다시 살핀다.
+	private static final Duration HIGH_WATER_MARK_WINDOW = Duration.ofMinutes(1);
+
+	@Resource private JakdukProperties jakdukProperties;
+	@Resource private JakdukProperties.Storage storageProperties;
+	@Resource private JakdukProperties.Sitemap sitemapProperties;
+
+	@Autowired private UrlGenerationUtils urlGenerationUtils;
+	@Autowired private ArticleRepository articleRepository;
+
+	// 이 시각 이후에 바뀐 글을 다음 갱신 때 살핀다.
+	private LocalDateTime highWaterMark;
+
+	// 기준 시각 이후에 이미 반영한 글. seq, lastUpdated
+	private final Map<Integer, LocalDateTime> appliedArticles = new HashMap<>();
+
+	/**
+	 * sitemap index 파일 경로
+	 */
+	public Path getSitemapIndexPath() {
+		return this.getExistingFile(INDEX_FILE_NAME);
+	}
+
+	/**
+	 * 사이트맵 파일 경로
+	 *
+	 * @param shard 사이트맵 파일 번호
+	 */
+	public Path getSitemapPath(Integer shard) {
+		return this.getExistingFile(this.getShardFileName(shard));
+	}
+
+	/**
+	 * 기준 시각 이후에 바뀐 글이 속한 사이트맵 파일만 다시 만든다.
+	 * 아직 만든 적이 없으면 전체를 만든다.
+	 */
+	@Scheduled(fixedDelayString = "${jakduk.sitemap.refresh-interval-millis}")
+	public synchronized void refresh() {
+
+		if (Objects.isNull(highWaterMark))
+			highWaterMark = this.readHighWaterMark();
+
+		if (Objects.isNull(highWaterMark) || Files.notExists(this.getSitemapDirectory().resolve(INDEX_FILE_NAME))) {
+			this.rebuild();
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+		LocalDateTime nextHighWaterMark = LocalDateTime.now().minus(HIGH_WATER_MARK_WINDOW);
+
+		List<ArticleOnSitemap> changedArticles = articleRepository.findSitemapArticlesByLastUpdatedGte(highWaterMark);
+		Set<Integer> dirtyShards = new TreeSet<>();
+
+		changedArticles.forEach(article -> {
+			if (! article.getLastUpdated().equals(appliedArticles.get(article.getSeq())))
+				dirtyShards.add(this.getShard(article.getSeq()));
+
+			appliedArticles.put(article.getSeq(), article.getLastUpdated());
+		});
+
+		dirtyShards.forEach(this::writeShard);
+
+		if (! dirtyShards.isEmpty())
+			this.writeIndex();
+
+		this.updateHighWaterMark(nextHighWaterMark);
+
+		log.info("sitemap refreshed. changedArticles={}, shards={}, took={}ms", changedArticles.size(), dirtyShards,
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * 사이트맵 파일 전체를 다시 만든다.
+	 */
+	@Scheduled(cron = "${jakduk.sitemap.rebuild-cron}")
+	public synchronized void rebuild() {
+
+		long start = System.currentTimeMillis();
+		LocalDateTime nextHighWaterMark = LocalDateTime.now().minus(HIGH_WATER_MARK_WINDOW);
+
+		Integer maxSeq = articleRepository.findMaxSeq();
+		Integer lastShard = maxSeq > 0 ? this.getShard(maxSeq) : -1;
+
+		for (int shard = 0; shard <= lastShard; shard++)
+			this.writeShard(shard);
+
+		// 범위를 벗어난 예전 파일은 지운다.
+		this.getShardsOnDisk().stream()
+				.filter(shard -> shard > lastShard)
+				.forEach(this::deleteShard);
+
+		this.writeIndex();
+
+		appliedArticles.clear();
+		this.updateHighWaterMark(nextHighWaterMark);
+
+		log.info("sitemap rebuilt. maxSeq={}, shards={}, took={}ms", maxSeq, lastShard + 1, System.currentTimeMillis() - start);
+	}
+
+	private Integer getShard(Integer seq) {
+		return (seq - 1) / sitemapProperties.getUrlsPerFile();
+	}
+
+	/**
+	 * 사이트맵 파일 하나를 다시 만든다. 지워지지 않은 글이 없으면 파일을 지운다.
+	 */
+	private void writeShard(Integer shard) {
+
+		Integer fromSeq = shard * sitemapProperties.getUrlsPerFile() + 1;
+		Integer toSeq = fromSeq + sitemapProperties.getUrlsPerFile() - 1;
+
+		List<ArticleOnSitemap> articles = articleRepository.findSitemapArticlesBySeqRange(fromSeq, toSeq);
+
+		if (articles.isEmpty()) {
+			this.deleteShard(shard);
+			return;
+		}
+
+		try {
+			WebSitemapGenerator wsg = WebSitemapGenerator.builder(jakdukProperties.getWebServerUrl(), null)
+					.dateFormat(new W3CDateFormat(W3CDateFormat.Pattern.SECOND))
+					.maxUrls(sitemapProperties.getUrlsPerFile())
+					.build();
+
+			for (ArticleOnSitemap article : articles) {
+				WebSitemapUrl url = new WebSitemapUrl
+						.Options(urlGenerationUtils.generateArticleDetailUrl(article.getBoard(), article.getSeq()))
+						.lastMod(DateUtils.localDateTimeToDate(article.getLastUpdated()))
+						.priority(0.5)
+						.changeFreq(ChangeFreq.DAILY)
+						.build();
+
+				wsg.addUrl(url);
+			}
+
+			this.writeFile(this.getShardFileName(shard), wsg.writeAsStrings().get(0));
+
+		} catch (MalformedURLException e) {
+			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+		}
+	}
+
+	/**
+	 * 디스크에 있는 사이트맵 파일들로 sitemap index 를 만든다.
+	 */
+	private void writeIndex() {
+
+		try {
+			SitemapIndexGenerator sig = new SitemapIndexGenerator
+					.Options(jakdukProperties.getApiServerUrl(), this.getSitemapDirectory().resolve(INDEX_FILE_NAME).toFile())
+					.dateFormat(new W3CDateFormat(W3CDateFormat.Pattern.SECOND))
+					.allowEmptyIndex(true)
+					.build();
+
+			for (Integer shard : this.getShardsOnDisk()) {
+				Path shardFile = this.getSitemapDirectory().resolve(this.getShardFileName(shard));
+				sig.addUrl(urlGenerationUtils.generateSitemapUrl(shard), new Date(Files.getLastModifiedTime(shardFile).toMillis()));
+			}
+
+			this.writeFile(INDEX_FILE_NAME, sig.writeAsString());
+
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+		}
+	}
+
+	private SortedSet<Integer> getShardsOnDisk() {
+
+		SortedSet<Integer> shards = new TreeSet<>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.getSitemapDirectory(), "sitemap-*.xml")) {
+			for (Path path : stream) {
+				Matcher matcher = SHARD_FILE_NAME.matcher(path.getFileName().toString());
+
+				if (matcher.matches())
+					shards.add(Integer.valueOf(matcher.group(1)));
+			}
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+		}
+
+		return shards;
+	}
+
+	private void deleteShard(Integer shard) {
+		try {
+			Files.deleteIfExists(this.getSitemapDirectory().resolve(this.getShardFileName(shard)));
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+		}
+	}
+
+	/**
+	 * 읽는 쪽에서 쓰다 만 파일을 보지 않도록 임시 파일에 쓰고 바꿔친다.
+	 */
+	private void writeFile(String fileName, String content) {
+
+		Path directory = this.getSitemapDirectory();
+
+		try {
+			Path tempFile = Files.createTempFile(directory, fileName, ".tmp");
+
+			try {
+				Files.write(tempFile, content.getBytes(StandardCharsets.UTF_8));
+				Files.move(tempFile, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tempFile);
+			}
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+		}
+	}
+
+	private LocalDateTime readHighWaterMark() {
+
+		Path stateFile = this.getSitemapDirectory().resolve(STATE_FILE_NAME);
+
+		if (Files.notExists(stateFile))
+			return null;
+
+		try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+			Properties state = new Properties();
+			state.load(reader);
+
+			String highWaterMark = state.getProperty(STATE_HIGH_WATER_MARK);
+
+			return Objects.isNull(highWaterMark) ? null : LocalDateTime.parse(highWaterMark);
+
+		} catch (IOException | RuntimeException e) {
+			log.warn("Can not read sitemap state. It will be rebuilt.", e);
+			return null;
+		}
+	}
+
+	private void updateHighWaterMark(LocalDateTime nextHighWaterMark) {
+
+		Path stateFile = this.getSitemapDirectory().resolve(STATE_FILE_NAME);
+
+		try (Writer writer = Files.newBufferedWriter(stateFile, StandardCharsets.UTF_8)) {
+			Properties state = new Properties();
+			state.setProperty(STATE_HIGH_WATER_MARK, nextHighWaterMark.toString());
+			state.store(writer, null);
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+		}
+
+		highWaterMark = nextHighWaterMark;
+
+		// 기준 시각 이전의 글은 다음 갱신 때 살피지 않으므로 기억할 필요가 없다.
+		appliedArticles.values().removeIf(lastUpdated -> lastUpdated.isBefore(nextHighWaterMark));
+	}
+
+	private Path getExistingFile(String fileName) {
+
+		Path path = this.getSitemapDirectory().resolve(fileName);
+
+		if (Files.notExists(path))
+			throw new ServiceException(ServiceError.NOT_FOUND);
+
+		return path;
+	}
+
+	private Path getSitemapDirectory() {
+
+		Path directory = Paths.get(storageProperties.getSitemapPath());
+
+		try {
+			return Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new ServiceException(ServiceError.IO_EXCEPTION, e);
+		}
+	}
+
+	private String getShardFileName(Integer shard) {
+		return String.format("sitemap-%d.xml", shard);
+	}
+
+}
@@ -59,6 +59,7 @@ public class UserService {
 	@Autowired private UserProfileRepository userProfileRepository;
 	@Autowired private UserPictureRepository userPictureRepository;
 	@Autowired private TokenRepository tokenRepository;
+	@Autowired private HomeService homeService;
 
 	public Optional<User> findOneByProviderIdAndProviderUserId(Constants.ACCOUNT_TYPE providerId, String providerUserId) {
 		return userRepository.findOneByProviderIdAndProviderUserId(providerId, providerUserId);
@@ -130,6 +131,8 @@ public class UserService {
 			userPictureRepository.save(userPicture);
 		}
 
+		homeService.evictLatestItems();
+
 		log.info("JakduK user created. {}", user);
 
 		return user;
@@ -195,6 +198,8 @@ public class UserService {
 			userPictureRepository.save(userPicture);
 		}
 
+		homeService.evictLatestItems();
+
 		log.info("social user created. {}", user);
 
 		return user;
@@ -253,6 +258,8 @@ public class UserService {
 			userPictureRepository.save(userPicture);
 		}
 
+		homeService.evictLatestItems();
+
 		log.debug("User edited. user={}", user);
 
 		return user;
@@ -415,6 +422,8 @@ public class UserService {
 
 	public void deleteUser(String id) {
 		userRepository.deleteById(id);
+
+		homeService.evictLatestItems();
 	}
 
 }
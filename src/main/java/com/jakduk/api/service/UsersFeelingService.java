@@ -0,0 +1,239 @@
+package com.jakduk.api.service;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.db.ArticleComment;
+import com.jakduk.api.model.db.JakduComment;
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.model.simple.UsersFeelingState;
+import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 감정 표현(좋아요, 싫어요) 처리기.
+ *
+ * 문서 전체를 읽어 목록을 고친 뒤 저장하지 않고, userId 조건을 건 updateFirst 한번으로 목록에 넣거나 뺀다.
+ * 조건이 맞지 않으면(그 사이 다른 요청이 감정 표현을 바꿨으면) 해당 회원의 감정 표현만 다시 읽어서 재시도한다.
+ */
+
+@Service
+public class UsersFeelingService {
+
+	private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private static final String USERS_LIKING = "usersLiking";
+	private static final String USERS_DISLIKING = "usersDisliking";
+	private static final String LIKE_COUNT = "likeCount";
+	private static final String DISLIKE_COUNT = "dislikeCount";
+
+	@Autowired private MongoTemplate mongoTemplate;
+
+	/**
+	 * 감정 표현을 토글한다.
+	 * 같은 감정을 또 하면 취소하고, 반대 감정을 했었으면 바꾸고, 아직 안 했으면 넣는다.
+	 *
+	 * @param target 감정 표현 대상
+	 * @param criteria 대상 문서 조건
+	 * @param writer 감정 표현하는 회원
+	 * @param feeling 감정 표현 종류
+	 * @return 나의 감정 표현과 바뀐 뒤의 감정 표현 수
+	 */
+	public UserFeelingResponse toggleFeeling(Target target, Criteria criteria, CommonWriter writer, Constants.FEELING_TYPE feeling) {
+
+		String userId = writer.getUserId();
+
+		String sameField = Constants.FEELING_TYPE.LIKE.equals(feeling) ? USERS_LIKING : USERS_DISLIKING;
+		String oppositeField = Constants.FEELING_TYPE.LIKE.equals(feeling) ? USERS_DISLIKING : USERS_LIKING;
+
+		// 처음에는 아직 감정 표현을 안 했다고 보고 바로 넣어 본다.
+		UsersFeelingState state = null;
+
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			if (attempt > 0)
+				state = this.findState(target, criteria, userId);
+
+			Query query = this.newQuery(criteria, userId);
+			Update update = new Update();
+			Constants.FEELING_TYPE myFeeling;
+
+			// 이미 같은 감정 표현을 했을 때, 취소
+			if (Objects.nonNull(state) && ! CollectionUtils.isEmpty(this.getUsers(state, sameField))) {
+				query.addCriteria(Criteria.where(sameField + ".userId").is(userId));
+				this.pull(target, update, sameField, userId);
+				myFeeling = null;
+			}
+			// 반대 감정 표현을 했을 때, 반대 감정 표현을 없애고 바꿈
+			else if (Objects.nonNull(state) && ! CollectionUtils.isEmpty(this.getUsers(state, oppositeField))) {
+				query.addCriteria(Criteria.where(oppositeField + ".userId").is(userId));
+				query.addCriteria(Criteria.where(sameField + ".userId").ne(userId));
+				this.pull(target, update, oppositeField, userId);
+				this.push(target, update, sameField, writer);
+				myFeeling = feeling;
+			}
+			// 아직 감정 표현을 하지 않아 등록
+			else {
+				query.addCriteria(Criteria.where(sameField + ".userId").ne(userId));
+				query.addCriteria(Criteria.where(oppositeField + ".userId").ne(userId));
+				this.push(target, update, sameField, writer);
+				myFeeling = feeling;
+			}
+
+			UsersFeelingState changed = this.findAndModify(target, query, update);
+
+			if (Objects.nonNull(changed))
+				return this.toResponse(target, changed, myFeeling);
+		}
+
+		log.warn("feeling was changed concurrently. target={}, userId={}", target, userId);
+
+		throw new ServiceException(ServiceError.INTERNAL_SERVER_ERROR);
+	}
+
+	/**
+	 * 감정 표현을 넣는다. 이미 감정 표현을 했으면 FEELING_SELECT_ALREADY_LIKE.
+	 *
+	 * @param target 감정 표현 대상
+	 * @param criteria 대상 문서 조건
+	 * @param writer 감정 표현하는 회원
+	 * @param feeling 감정 표현 종류
+	 * @return 나의 감정 표현과 바뀐 뒤의 감정 표현 수
+	 */
+	public UserFeelingResponse addFeeling(Target target, Criteria criteria, CommonWriter writer, Constants.FEELING_TYPE feeling) {
+
+		String userId = writer.getUserId();
+
+		Query query = this.newQuery(criteria, userId)
+				.addCriteria(Criteria.where(USERS_LIKING + ".userId").ne(userId))
+				.addCriteria(Criteria.where(USERS_DISLIKING + ".userId").ne(userId));
+
+		Update update = new Update();
+		this.push(target, update, Constants.FEELING_TYPE.LIKE.equals(feeling) ? USERS_LIKING : USERS_DISLIKING, writer);
+
+		UsersFeelingState changed = this.findAndModify(target, query, update);
+
+		if (Objects.isNull(changed)) {
+			// 대상이 없거나 작성자면 findState 에서 예외가 난다. 그렇지 않으면 이미 감정 표현을 했다.
+			this.findState(target, criteria, userId);
+
+			throw new ServiceException(ServiceError.FEELING_SELECT_ALREADY_LIKE);
+		}
+
+		return this.toResponse(target, changed, feeling);
+	}
+
+	/**
+	 * 해당 회원의 감정 표현만 $elemMatch 로 가져온다.
+	 */
+	private UsersFeelingState findState(Target target, Criteria criteria, String userId) {
+		Query query = new Query(criteria);
+		query.fields()
+				.include("writer")
+				.elemMatch(USERS_LIKING, Criteria.where("userId").is(userId))
+				.elemMatch(USERS_DISLIKING, Criteria.where("userId").is(userId));
+
+		UsersFeelingState state = mongoTemplate.findOne(query, UsersFeelingState.class, this.getCollectionName(target));
+
+		if (Objects.isNull(state))
+			throw new ServiceException(target.notFound);
+
+		// 이 글(댓글)의 작성자라서 감정 표현을 할 수 없음
+		if (Objects.nonNull(state.getWriter()) && userId.equals(state.getWriter().getUserId()))
+			throw new ServiceException(ServiceError.FEELING_YOU_ARE_WRITER);
+
+		return state;
+	}
+
+	private UsersFeelingState findAndModify(Target target, Query query, Update update) {
+
+		// 바뀐 뒤의 감정 표현 수만 돌려 받는다. 카운터가 없으면 userId 만 받아서 센다.
+		if (target.counted) {
+			query.fields().include(LIKE_COUNT).include(DISLIKE_COUNT);
+		} else {
+			query.fields().include(USERS_LIKING + ".userId").include(USERS_DISLIKING + ".userId");
+		}
+
+		return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+				UsersFeelingState.class, this.getCollectionName(target));
+	}
+
+	private Query newQuery(Criteria criteria, String userId) {
+		return new Query(criteria)
+				.addCriteria(Criteria.where("writer.userId").ne(userId));
+	}
+
+	private void push(Target target, Update update, String field, CommonWriter writer) {
+		update.push(field, new CommonFeelingUser(new ObjectId().toString(), writer.getUserId(), writer.getUsername()));
+
+		if (target.counted)
+			update.inc(USERS_LIKING.equals(field) ? LIKE_COUNT : DISLIKE_COUNT, 1);
+	}
+
+	private void pull(Target target, Update update, String field, String userId) {
+		update.pull(field, new Document("userId", userId));
+
+		if (target.counted)
+			update.inc(USERS_LIKING.equals(field) ? LIKE_COUNT : DISLIKE_COUNT, -1);
+	}
+
+	private UserFeelingResponse toResponse(Target target, UsersFeelingState state, Constants.FEELING_TYPE myFeeling) {
+		UserFeelingResponse response = new UserFeelingResponse();
+		response.setMyFeeling(myFeeling);
+
+		if (target.counted) {
+			response.setNumberOfLike(Objects.isNull(state.getLikeCount()) ? 0 : state.getLikeCount());
+			response.setNumberOfDislike(Objects.isNull(state.getDislikeCount()) ? 0 : state.getDislikeCount());
+		} else {
+			response.setNumberOfLike(CollectionUtils.isEmpty(state.getUsersLiking()) ? 0 : state.getUsersLiking().size());
+			response.setNumberOfDislike(CollectionUtils.isEmpty(state.getUsersDisliking()) ? 0 : state.getUsersDisliking().size());
+		}
+
+		return response;
+	}
+
+	private List<CommonFeelingUser> getUsers(UsersFeelingState state, String field) {
+		return USERS_LIKING.equals(field) ? state.getUsersLiking() : state.getUsersDisliking();
+	}
+
+	private String getCollectionName(Target target) {
+		return mongoTemplate.getCollectionName(target.entityClass);
+	}
+
+	/**
+	 * 감정 표현 대상
+	 */
+	public enum Target {
+		ARTICLE(Article.class, ServiceError.NOT_FOUND_ARTICLE, true),
+		ARTICLE_COMMENT(ArticleComment.class, ServiceError.NOT_FOUND_COMMENT, false),
+		JAKDU_COMMENT(JakduComment.class, ServiceError.NOT_FOUND_COMMENT, false);
+
+		private final Class<?> entityClass;
+		private final ServiceError notFound;
+		private final boolean counted; // likeCount, dislikeCount 카운터가 있는지
+
+		Target(Class<?> entityClass, ServiceError notFound, boolean counted) {
+			this.entityClass = entityClass;
+			this.notFound = notFound;
+			this.counted = counted;
+		}
+	}
+
+}
@@ -2,18 +2,15 @@ package com.jakduk.api;
 
 
 import com.jakduk.api.dao.JakdukDAO;
-import com.jakduk.api.model.db.Competition;
 import com.jakduk.api.model.db.JakduComment;
 import com.jakduk.api.model.db.JakduSchedule;
 import com.jakduk.api.repository.jakdu.JakduScheduleRepository;
-import org.bson.types.ObjectId;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -30,16 +27,6 @@ public class JakduTest extends ApiApplicationTests {
     @Autowired
     private JakduScheduleRepository jakduScheduleRepository;
 
-    @Test
-    public void getSchedulesTest01() {
-        List<ObjectId> ids = new ArrayList<ObjectId>();
-        ids.add(new ObjectId("567e9af6e4b0c12e43d76157"));
-
-        List<Competition> competitions = jakdukDAO.getCompetitions(ids, "ko");
-
-        System.out.println("competitions=" + competitions);
-    }
-
     @Test
     public void getSchedulesTest02() {
         Sort sort = new Sort(Sort.Direction.ASC, Arrays.asList("group", "date"));
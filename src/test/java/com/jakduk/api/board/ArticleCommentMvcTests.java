@@ -19,6 +19,7 @@ import com.jakduk.api.restcontroller.vo.EmptyJsonResponse;
 import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
 import com.jakduk.api.restcontroller.vo.board.*;
 import com.jakduk.api.service.ArticleService;
+import com.jakduk.api.service.ArticleTopsService;
 import com.jakduk.api.service.GalleryService;
 import org.bson.types.ObjectId;
 import org.junit.Before;
@@ -68,6 +69,7 @@ public class ArticleCommentMvcTests {
     private MockMvc mvc;
 
     @MockBean private ArticleService articleService;
+    @MockBean private ArticleTopsService articleTopsService;
     @MockBean private GalleryService galleryService;
 
     @MockBean private RabbitMQPublisher rabbitMQPublisher;
@@ -332,9 +334,6 @@ public class ArticleCommentMvcTests {
     @WithMockJakdukUser
     public void setArticleCommentFeelingTest() throws Exception {
 
-        when(articleService.setArticleCommentFeeling(any(CommonWriter.class), anyString(), any(Constants.FEELING_TYPE.class)))
-                .thenReturn(articleComment);
-
         List<CommonFeelingUser> usersLiking = articleComment.getUsersLiking();
         List<CommonFeelingUser> usersDisliking = articleComment.getUsersDisliking();
 
@@ -343,6 +342,9 @@ public class ArticleCommentMvcTests {
         expectResponse.setNumberOfLike(CollectionUtils.isEmpty(usersLiking) ? 0 : usersLiking.size());
         expectResponse.setNumberOfDislike(CollectionUtils.isEmpty(usersDisliking) ? 0 : usersDisliking.size());
 
+        when(articleService.setArticleCommentFeeling(any(CommonWriter.class), anyString(), any(Constants.FEELING_TYPE.class)))
+                .thenReturn(expectResponse);
+
         mvc.perform(
                 post("/api/board/{board}/comment/{commentId}/{feeling}", articleComment.getArticle().getBoard().toLowerCase(),
                         articleComment.getId(), Constants.FEELING_TYPE.LIKE.name().toLowerCase())
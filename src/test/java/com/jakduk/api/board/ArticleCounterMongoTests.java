@@ -0,0 +1,128 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.MongodbConfig;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.db.ArticleComment;
+import com.jakduk.api.model.embedded.ArticleItem;
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.service.ArticleCounterService;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 글 카운터를 실제 MongoDB 에 올리고 채워서, $inc 가 빠지지 않고 카운터가 없는 글은 실제 값으로 채워지는지 확인한다.
+ * 테스트마다 새 글과 댓글을 넣고 지운다.
+ */
+@RunWith(SpringRunner.class)
+@DataMongoTest
+@EnableConfigurationProperties
+@Import({JakdukProperties.class, MongodbConfig.class, ArticleCounterService.class})
+public class ArticleCounterMongoTests {
+
+    @Autowired
+    private ArticleCounterService sut;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JakdukProperties.ArticleCounters articleCountersProperties;
+
+    private Article article;
+
+    @Before
+    public void setUp() {
+        article = new Article();
+        article.setBoard(Constants.BOARD_TYPE.FREE.name());
+        article.setSeq(0);
+        article.setSubject("카운터 테스트");
+        article.setUsersLiking(Collections.singletonList(new CommonFeelingUser(new ObjectId().toString(), new ObjectId().toString(), "test01")));
+
+        mongoTemplate.insert(article);
+
+        for (int i = 0; i < 2; i++) {
+            ArticleComment articleComment = new ArticleComment();
+            articleComment.setArticle(new ArticleItem(article.getId(), article.getSeq(), article.getBoard()));
+            articleComment.setContent("댓글 " + i);
+
+            mongoTemplate.insert(articleComment);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mongoTemplate.remove(new Query(Criteria.where("article._id").is(new ObjectId(article.getId()))), ArticleComment.class);
+        mongoTemplate.remove(article);
+    }
+
+    /**
+     * 카운터가 없는 글은 backfill 로 댓글 수와 감정 표현 수가 채워진다.
+     */
+    @Test
+    public void backfillMissingCounters() {
+        articleCountersProperties.setBackfillOnStartup(true);
+
+        sut.backfill();
+
+        Article stored = this.findArticle();
+        Assert.assertEquals(Integer.valueOf(2), stored.getCommentCount());
+        Assert.assertEquals(Integer.valueOf(1), stored.getLikeCount());
+        Assert.assertEquals(Integer.valueOf(0), stored.getDislikeCount());
+    }
+
+    /**
+     * 동시에 올려도 빠지는 $inc 가 없다.
+     */
+    @Test
+    public void increaseCommentCountConcurrently() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                sut.increaseCommentCount(article.getId(), 1);
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+
+        executor.shutdown();
+
+        Assert.assertEquals(Integer.valueOf(threads), this.findArticle().getCommentCount());
+
+        sut.increaseCommentCount(article.getId(), -1);
+
+        Assert.assertEquals(Integer.valueOf(threads - 1), this.findArticle().getCommentCount());
+    }
+
+    private Article findArticle() {
+        return mongoTemplate.findById(article.getId(), Article.class);
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.aggregate.BoardFeelingCount;
+import com.jakduk.api.model.aggregate.CommonCount;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.repository.article.ArticleCommentRepository;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.service.ArticleCounterService;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 글 카운터 $inc 와 backfill, reconcile 동작을 확인한다.
+ */
+public class ArticleCounterServiceTest {
+
+    private ArticleCounterService sut;
+    private JakdukProperties.ArticleCounters articleCountersProperties;
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private ArticleRepository articleRepository;
+    private ArticleCommentRepository articleCommentRepository;
+
+    @Before
+    public void setUp() {
+        articleCountersProperties = new JakdukProperties().new ArticleCounters();
+        articleCountersProperties.setBackfillOnStartup(true);
+        articleCountersProperties.setBatchSize(500);
+
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        articleRepository = mock(ArticleRepository.class);
+        articleCommentRepository = mock(ArticleCommentRepository.class);
+
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Article.class))).thenReturn(bulkOperations);
+
+        sut = new ArticleCounterService();
+        ReflectionTestUtils.setField(sut, "articleCountersProperties", articleCountersProperties);
+        ReflectionTestUtils.setField(sut, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(sut, "articleRepository", articleRepository);
+        ReflectionTestUtils.setField(sut, "articleCommentRepository", articleCommentRepository);
+    }
+
+    @Test
+    public void increaseCommentCount() {
+        String articleId = new ObjectId().toString();
+
+        sut.increaseCommentCount(articleId, -1);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Article.class));
+
+        Assert.assertEquals(new Document("commentCount", -1), update.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    public void reconcileOnlyDriftedArticles() {
+        Article correct = this.article(1, 0, 0);
+        Article drifted = this.article(3, 2, 0);
+        Article missing = this.article(null, null, null);
+
+        when(mongoTemplate.find(any(Query.class), eq(Article.class))).thenReturn(Arrays.asList(correct, drifted, missing));
+        when(articleCommentRepository.findCommentsCountByIds(anyList()))
+                .thenReturn(Arrays.asList(this.commentCount(correct, 1), this.commentCount(drifted, 2), this.commentCount(missing, 4)));
+        when(articleRepository.findUsersFeelingCount(anyList()))
+                .thenReturn(Arrays.asList(this.feelingCount(drifted, 2, 1), this.feelingCount(missing, 1, 0)));
+
+        sut.reconcile();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(query.capture(), update.capture());
+        verify(bulkOperations).execute();
+
+        // 읽은 값 그대로일 때만 고친다
+        Document driftedQuery = query.getAllValues().get(0).getQueryObject();
+        Assert.assertEquals(new ObjectId(drifted.getId()), driftedQuery.get("_id"));
+        Assert.assertEquals(3, driftedQuery.get("commentCount"));
+
+        Document driftedUpdate = (Document) update.getAllValues().get(0).getUpdateObject().get("$set");
+        Assert.assertEquals(2, driftedUpdate.get("commentCount"));
+        Assert.assertEquals(1, driftedUpdate.get("dislikeCount"));
+
+        Document missingUpdate = (Document) update.getAllValues().get(1).getUpdateObject().get("$set");
+        Assert.assertEquals(4, missingUpdate.get("commentCount"));
+        Assert.assertEquals(1, missingUpdate.get("likeCount"));
+        Assert.assertEquals(0, missingUpdate.get("dislikeCount"));
+    }
+
+    @Test
+    public void reconcileInBatches() {
+        articleCountersProperties.setBatchSize(2);
+
+        when(mongoTemplate.find(any(Query.class), eq(Article.class)))
+                .thenReturn(Arrays.asList(this.article(0, 0, 0), this.article(0, 0, 0)))
+                .thenReturn(Collections.singletonList(this.article(0, 0, 0)));
+
+        sut.reconcile();
+
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Article.class));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Article.class));
+    }
+
+    @Test
+    public void skipBackfillWhenDisabled() {
+        articleCountersProperties.setBackfillOnStartup(false);
+
+        sut.backfill();
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Article.class));
+    }
+
+    private Article article(Integer commentCount, Integer likeCount, Integer dislikeCount) {
+        Article article = new Article();
+        article.setId(new ObjectId().toString());
+        article.setCommentCount(commentCount);
+        article.setLikeCount(likeCount);
+        article.setDislikeCount(dislikeCount);
+
+        return article;
+    }
+
+    private CommonCount commentCount(Article article, Integer count) {
+        CommonCount commonCount = new CommonCount();
+        ReflectionTestUtils.setField(commonCount, "id", article.getId());
+        ReflectionTestUtils.setField(commonCount, "count", count);
+
+        return commonCount;
+    }
+
+    private BoardFeelingCount feelingCount(Article article, Integer usersLikingCount, Integer usersDislikingCount) {
+        BoardFeelingCount feelingCount = new BoardFeelingCount();
+        ReflectionTestUtils.setField(feelingCount, "id", article.getId());
+        ReflectionTestUtils.setField(feelingCount, "usersLikingCount", usersLikingCount);
+        ReflectionTestUtils.setField(feelingCount, "usersDislikingCount", usersDislikingCount);
+
+        return feelingCount;
+    }
+
+}
@@ -20,6 +20,7 @@ import com.jakduk.api.restcontroller.vo.EmptyJsonResponse;
 import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
 import com.jakduk.api.restcontroller.vo.board.*;
 import com.jakduk.api.service.ArticleService;
+import com.jakduk.api.service.ArticleTopsService;
 import com.jakduk.api.service.GalleryService;
 import org.bson.types.ObjectId;
 import org.junit.Before;
@@ -45,6 +46,7 @@ import org.springframework.util.CollectionUtils;
 import javax.servlet.http.Cookie;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +55,8 @@ import java.util.stream.Stream;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.restdocs.headers.HeaderDocumentation.headerWithName;
 import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
@@ -74,6 +78,7 @@ public class ArticleMvcTests {
     private MockMvc mvc;
 
     @MockBean private ArticleService articleService;
+    @MockBean private ArticleTopsService articleTopsService;
     @MockBean private GalleryService galleryService;
 
     @MockBean private RabbitMQPublisher rabbitMQPublisher;
@@ -184,6 +189,7 @@ public class ArticleMvcTests {
         expectResponse.setNumber(0);
         expectResponse.setNumberOfElements(20);
         expectResponse.setTotalElements(1011L);
+        expectResponse.setNextCursor(getArticle.getId());
 
         when(articleService.getArticles(any(Constants.BOARD_TYPE.class), anyString(), anyInt(), anyInt()))
                 .thenReturn(expectResponse);
@@ -227,11 +233,86 @@ public class ArticleMvcTests {
                                 fieldWithPath("size").type(JsonFieldType.NUMBER).description("페이지당 글 수"),
                                 fieldWithPath("number").type(JsonFieldType.NUMBER).description("현재 페이지(0부터 시작)"),
                                 fieldWithPath("numberOfElements").type(JsonFieldType.NUMBER).description("현제 페이지에서 글 수"),
-                                fieldWithPath("totalElements").type(JsonFieldType.NUMBER).description("전체 글 수")
+                                fieldWithPath("totalElements").type(JsonFieldType.NUMBER).description("전체 글 수"),
+                                fieldWithPath("nextCursor").type(JsonFieldType.STRING).description("다음 글 목록을 가져올 때 before 로 쓰는 글 ID. 마지막 페이지면 없음").optional()
                         )
                 ));
     }
 
+    @Test
+    @WithMockUser
+    public void getArticlesBeforeTest() throws Exception {
+
+        GetArticle getArticle = new GetArticle();
+        BeanUtils.copyProperties(article, getArticle);
+        getArticle.setGalleries(simpleGalleries);
+        getArticle.setCommentCount(5);
+        getArticle.setLikingCount(article.getUsersLiking().size());
+        getArticle.setDislikingCount(article.getUsersDisliking().size());
+
+        GetArticlesResponse expectResponse = new GetArticlesResponse();
+        expectResponse.setCategories(categoriesMap);
+        expectResponse.setArticles(Arrays.asList(getArticle));
+        expectResponse.setNotices(Collections.emptyList());
+        expectResponse.setLast(false);
+        expectResponse.setFirst(false);
+        expectResponse.setTotalPages(50);
+        expectResponse.setSize(20);
+        expectResponse.setNumberOfElements(20);
+        expectResponse.setTotalElements(1011L);
+        expectResponse.setNextCursor(getArticle.getId());
+
+        when(articleService.getArticlesBefore(any(Constants.BOARD_TYPE.class), anyString(), anyString(), anyInt()))
+                .thenReturn(expectResponse);
+
+        mvc.perform(
+                get("/api/board/{board}/articles", Constants.BOARD_TYPE.FOOTBALL.name().toLowerCase())
+                        .param("before", "58b7b9dd716dce06b10e449b")
+                        .param("size", "20")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(ObjectMapperUtils.writeValueAsString(expectResponse)))
+                .andDo(document("getArticlesBefore",
+                        pathParameters(
+                                parameterWithName("board").description("게시판 " +
+                                        Stream.of(Constants.BOARD_TYPE.values()).map(Enum::name).map(String::toLowerCase).collect(Collectors.toList()))
+                        ),
+                        requestParameters(
+                                parameterWithName("before").description("이 글 ID 보다 오래된 글 목록을 가져온다. 이전 응답의 nextCursor. 있으면 page 는 무시된다."),
+                                parameterWithName("size").description("(optional, default 20) 페이지 크기.").optional()
+                        ),
+                        responseFields(
+                                subsectionWithPath("categories").type(JsonFieldType.OBJECT).description("말머리 맵. key는 말머리코드, value는 표시되는 이름(Locale 지원)"),
+                                subsectionWithPath("articles").type(JsonFieldType.ARRAY).description("글 목록. json 형식은 getArticles 와 같음."),
+                                subsectionWithPath("notices").type(JsonFieldType.ARRAY).description("공지글 목록. json 형식은 articles와 같음."),
+                                fieldWithPath("last").type(JsonFieldType.BOOLEAN).description("마지막 페이지 여부"),
+                                fieldWithPath("first").type(JsonFieldType.BOOLEAN).description("첫 페이지 여부. 항상 false"),
+                                fieldWithPath("totalPages").type(JsonFieldType.NUMBER).description("전체 페이지 수 (캐시된 전체 글 수 기준)"),
+                                fieldWithPath("size").type(JsonFieldType.NUMBER).description("페이지당 글 수"),
+                                fieldWithPath("numberOfElements").type(JsonFieldType.NUMBER).description("현제 페이지에서 글 수"),
+                                fieldWithPath("totalElements").type(JsonFieldType.NUMBER).description("전체 글 수. 캐시된 값이라 정확하지 않을 수 있다."),
+                                fieldWithPath("nextCursor").type(JsonFieldType.STRING).description("다음 글 목록을 가져올 때 before 로 쓰는 글 ID. 마지막 페이지면 없음").optional()
+                        )
+                ));
+    }
+
+    @Test
+    @WithMockUser
+    public void getArticlesInvalidSizeTest() throws Exception {
+
+        for (String size : Arrays.asList("-1", "0", String.valueOf(Constants.BOARD_MAX_SIZE + 1))) {
+            mvc.perform(
+                    get("/api/board/{board}/articles", Constants.BOARD_TYPE.FOOTBALL.name().toLowerCase())
+                            .param("before", "58b7b9dd716dce06b10e449b")
+                            .param("size", size)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verify(articleService, never()).getArticlesBefore(any(Constants.BOARD_TYPE.class), anyString(), anyString(), anyInt());
+    }
+
     @Test
     @WithMockUser
     public void getTopsTest() throws Exception {
@@ -246,9 +327,6 @@ public class ArticleMvcTests {
                 }}
         );
 
-        when(articleService.getArticlesTopLikes(any(Constants.BOARD_TYPE.class), any(ObjectId.class)))
-                .thenReturn(expectTopLikes);
-
         List<BoardTop> expectTopComments = Arrays.asList(
                 new BoardTop() {{
                     setId("58b7b9dd716dce06b10e449a");
@@ -259,11 +337,11 @@ public class ArticleMvcTests {
                 }}
         );
 
-        when(articleService.getArticlesTopComments(any(Constants.BOARD_TYPE.class), any(ObjectId.class)))
-                .thenReturn(expectTopComments);
-
         GetArticlesTopsResponse expectResponse = new GetArticlesTopsResponse(expectTopLikes, expectTopComments);
 
+        when(articleTopsService.getTops(any(Constants.BOARD_TYPE.class)))
+                .thenReturn(expectResponse);
+
         mvc.perform(
                 get("/api/board/{board}/tops", Constants.BOARD_TYPE.FOOTBALL.name().toLowerCase())
                         .accept(MediaType.APPLICATION_JSON))
@@ -354,7 +432,7 @@ public class ArticleMvcTests {
         expectResponse.setNextArticle(nextPost);
         expectResponse.setLatestArticlesByWriter(Arrays.asList(latestArticle));
 
-        when(articleService.getArticleDetail(any(CommonWriter.class), any(Constants.BOARD_TYPE.class), anyInt(), anyBoolean()))
+        when(articleService.getArticleDetail(any(CommonWriter.class), any(Constants.BOARD_TYPE.class), anyInt(), anyString()))
                 .thenReturn(ResponseEntity.ok().body(expectResponse));
 
         mvc.perform(
@@ -556,10 +634,6 @@ public class ArticleMvcTests {
     @WithMockJakdukUser
     public void setArticleFeeling() throws Exception {
 
-        when(articleService.setArticleFeelings(any(CommonWriter.class), any(Constants.BOARD_TYPE.class), anyInt(),
-                any(Constants.FEELING_TYPE.class)))
-                .thenReturn(article);
-
         List<CommonFeelingUser> usersLiking = article.getUsersLiking();
         List<CommonFeelingUser> usersDisliking = article.getUsersDisliking();
 
@@ -568,6 +642,10 @@ public class ArticleMvcTests {
         expectResponse.setNumberOfLike(CollectionUtils.isEmpty(usersLiking) ? 0 : usersLiking.size());
         expectResponse.setNumberOfDislike(CollectionUtils.isEmpty(usersDisliking) ? 0 : usersDisliking.size());
 
+        when(articleService.setArticleFeelings(any(CommonWriter.class), any(Constants.BOARD_TYPE.class), anyInt(),
+                any(Constants.FEELING_TYPE.class)))
+                .thenReturn(expectResponse);
+
         mvc.perform(
                 post("/api/board/{board}/{seq}/{feeling}", article.getBoard().toLowerCase(), article.getSeq(),
                         Constants.FEELING_TYPE.LIKE.name().toLowerCase())
@@ -4,6 +4,7 @@ import com.jakduk.api.common.Constants;
 import com.jakduk.api.common.util.DateUtils;
 import com.jakduk.api.configuration.JakdukProperties;
 import com.jakduk.api.configuration.MongodbConfig;
+import com.jakduk.api.model.aggregate.ArticleDetailRelations;
 import com.jakduk.api.model.aggregate.BoardFeelingCount;
 import com.jakduk.api.model.aggregate.BoardTop;
 import com.jakduk.api.model.db.Article;
@@ -68,12 +69,33 @@ public class ArticleRepositoryTests {
 
     @Test
     public void findPostsOnRss() {
-        List<ArticleOnRSS> posts = repository.findPostsOnRss(null,
+        List<ArticleOnRSS> posts = repository.findPostsOnRss(null, null,
                 new Sort(Sort.Direction.DESC, Collections.singletonList("_id")), 10);
 
         Assert.assertTrue(! CollectionUtils.isEmpty(posts));
     }
 
+    @Test
+    public void findPostsOnRssByBoard() {
+        List<ArticleOnRSS> posts = repository.findPostsOnRss(board.name(), null,
+                new Sort(Sort.Direction.DESC, Collections.singletonList("_id")), 10);
+
+        Assert.assertTrue(posts.stream().allMatch(post -> board.name().equals(post.getBoard())));
+    }
+
+    @Test
+    public void findByBoardAndCategoryAndIdLessThan() {
+        ObjectId before = new ObjectId(randomArticle.getId());
+        List<ArticleOnList> articles = repository.findByBoardAndCategoryAndIdLessThan(randomArticle.getBoard(), null, before, 10);
+
+        Assert.assertTrue(articles.size() <= 10);
+        Assert.assertTrue(articles.stream().allMatch(article -> randomArticle.getBoard().equals(article.getBoard())));
+        Assert.assertTrue(articles.stream().allMatch(article -> new ObjectId(article.getId()).compareTo(before) < 0));
+
+        for (int i = 1; i < articles.size(); i++)
+            Assert.assertTrue(articles.get(i - 1).getId().compareTo(articles.get(i).getId()) > 0);
+    }
+
     @Test
     public void findNotices() {
         Sort sort = new Sort(Sort.Direction.DESC, Collections.singletonList("_id"));
@@ -89,6 +111,17 @@ public class ArticleRepositoryTests {
         Assert.assertTrue(! CollectionUtils.isEmpty(posts));
     }
 
+    @Test
+    public void findSitemapArticlesBySeqRange() {
+        Integer maxSeq = repository.findMaxSeq();
+
+        Assert.assertTrue(maxSeq >= randomArticle.getSeq());
+
+        List<ArticleOnSitemap> posts = repository.findSitemapArticlesBySeqRange(randomArticle.getSeq(), maxSeq);
+
+        Assert.assertTrue(posts.stream().allMatch(post -> post.getSeq() >= randomArticle.getSeq() && post.getSeq() <= maxSeq));
+    }
+
     @Test
     public void findByIdInAndLinkedGalleryIsTrue() {
         List<Article> posts = repository.findByIdInAndLinkedGalleryIsTrue(Arrays.asList(randomArticle.getId()));
@@ -114,4 +147,26 @@ public class ArticleRepositoryTests {
         List<BoardTop> topLikes = repository.findTopLikes(Constants.BOARD_TYPE.FOOTBALL, new ObjectId(DateUtils.localDateToDate(localDate)));
     }
 
+    @Test
+    public void findArticleDetailRelations() {
+        ArticleDetailRelations relations = repository.findArticleDetailRelations(new ObjectId(randomArticle.getId()),
+                randomArticle.getCategory(), randomArticle.getWriter().getUserId(), randomArticle.getLinkedGallery(), 3);
+
+        Assert.assertTrue(relations.getPrevArticles().size() <= 1);
+        Assert.assertTrue(relations.getNextArticles().size() <= 1);
+        Assert.assertTrue(relations.getLatestArticlesByWriter().size() <= 3);
+        Assert.assertTrue(relations.getLatestArticlesByWriter().stream()
+                .noneMatch(article -> article.getId().equals(randomArticle.getId())));
+    }
+
+    @Test
+    public void findArticleDetailRelationsOfMissingArticle() {
+        ArticleDetailRelations relations = repository.findArticleDetailRelations(new ObjectId(), null, "userId", true, 3);
+
+        Assert.assertTrue(relations.getPrevArticles().isEmpty());
+        Assert.assertTrue(relations.getNextArticles().isEmpty());
+        Assert.assertTrue(relations.getLatestArticlesByWriter().isEmpty());
+        Assert.assertTrue(relations.getGalleries().isEmpty());
+    }
+
 }
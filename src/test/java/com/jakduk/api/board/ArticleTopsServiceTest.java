@@ -0,0 +1,87 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.aggregate.BoardTop;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.restcontroller.vo.board.GetArticlesTopsResponse;
+import com.jakduk.api.service.ArticleTopsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 주간 선두 글을 미리 만들어 두고, 주기와 쓰기 수에 따라 다시 만드는지 확인한다.
+ */
+public class ArticleTopsServiceTest {
+
+    private ArticleTopsService sut;
+    private JakdukProperties.Board boardProperties;
+    private ArticleRepository articleRepository;
+
+    @Before
+    public void setUp() {
+        boardProperties = new JakdukProperties().new Board();
+        boardProperties.setTopsRefreshIntervalMillis(300000L);
+        boardProperties.setTopsRefreshWrites(2);
+
+        articleRepository = mock(ArticleRepository.class);
+
+        sut = new ArticleTopsService();
+        ReflectionTestUtils.setField(sut, "boardProperties", boardProperties);
+        ReflectionTestUtils.setField(sut, "articleRepository", articleRepository);
+        ReflectionTestUtils.setField(sut, "meterRegistry", new SimpleMeterRegistry());
+        sut.init();
+    }
+
+    @Test
+    public void buildOnceOnFirstRead() {
+        BoardTop boardTop = new BoardTop();
+        boardTop.setId(new ObjectId().toString());
+
+        when(articleRepository.findTopLikes(eq(Constants.BOARD_TYPE.FREE), any(ObjectId.class))).thenReturn(Collections.singletonList(boardTop));
+
+        GetArticlesTopsResponse tops = sut.getTops(Constants.BOARD_TYPE.FREE);
+        sut.getTops(Constants.BOARD_TYPE.FOOTBALL);
+
+        Assert.assertEquals(boardTop.getId(), tops.getTopLikes().get(0).getId());
+        Assert.assertTrue(tops.getTopComments().isEmpty());
+
+        int boards = Constants.BOARD_TYPE.values().length;
+        verify(articleRepository, times(boards)).findTopLikes(any(Constants.BOARD_TYPE.class), any(ObjectId.class));
+        verify(articleRepository, times(boards)).findTopComments(any(Constants.BOARD_TYPE.class), any(ObjectId.class));
+    }
+
+    @Test
+    public void refreshAfterWriteBurst() {
+        sut.refresh();
+        sut.recordWrite();
+
+        sut.refreshIfNeeded();
+        verify(articleRepository, times(1)).findTopLikes(eq(Constants.BOARD_TYPE.FREE), any(ObjectId.class));
+
+        sut.recordWrite();
+
+        sut.refreshIfNeeded();
+        verify(articleRepository, times(2)).findTopLikes(eq(Constants.BOARD_TYPE.FREE), any(ObjectId.class));
+    }
+
+    @Test
+    public void refreshAfterInterval() {
+        boardProperties.setTopsRefreshIntervalMillis(0L);
+
+        sut.refresh();
+        sut.refreshIfNeeded();
+
+        verify(articleRepository, times(2)).findTopLikes(eq(Constants.BOARD_TYPE.FREE), any(ObjectId.class));
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.bloomfilter.BloomFilter;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.service.ArticleViewersService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 같은 방문자의 같은 글 읽음을 두 구간 동안만 걸러내고, 메모리는 한도를 넘지 않는지 확인한다.
+ */
+public class ArticleViewersServiceTest {
+
+    private ArticleViewersService sut;
+    private JakdukProperties jakdukProperties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        jakdukProperties = new JakdukProperties();
+        jakdukProperties.getArticleViews().setDedupExpectedViews(10000L);
+        jakdukProperties.getArticleViews().setDedupFalsePositiveRate(0.01);
+        jakdukProperties.getArticleViews().setDedupMaxMemoryBytes(65536L);
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new ArticleViewersService();
+        ReflectionTestUtils.setField(sut, "jakdukProperties", jakdukProperties);
+        ReflectionTestUtils.setField(sut, "meterRegistry", meterRegistry);
+        sut.init();
+    }
+
+    @Test
+    public void repeatedViewInSameWindow() {
+        Assert.assertTrue(sut.markViewed("visitor1", 1));
+        Assert.assertFalse(sut.markViewed("visitor1", 1));
+        Assert.assertTrue(sut.markViewed("visitor1", 2));
+        Assert.assertTrue(sut.markViewed("visitor2", 1));
+    }
+
+    @Test
+    public void forgetAfterTwoWindows() {
+        Assert.assertTrue(sut.markViewed("visitor1", 1));
+
+        sut.rotate();
+        Assert.assertFalse(sut.markViewed("visitor1", 1));
+
+        sut.rotate();
+        sut.rotate();
+        Assert.assertTrue(sut.markViewed("visitor1", 1));
+    }
+
+    @Test
+    public void memoryWithinBudget() {
+        // 10000 개, 1% 라면 약 12KB 면 되므로 한도보다 작게 만든다.
+        Assert.assertEquals(2 * 11984, meterRegistry.get("jakduk.article.viewers.memory").gauge().value(), 2 * 8);
+
+        jakdukProperties.getArticleViews().setDedupExpectedViews(10000000L);
+        sut.init();
+
+        Assert.assertTrue(meterRegistry.get("jakduk.article.viewers.memory").gauge().value() <= 65536);
+    }
+
+    @Test
+    public void falsePositiveRate() {
+        int insertions = 10000;
+        BloomFilter bloomFilter = BloomFilter.create(insertions, 0.01, Long.MAX_VALUE);
+
+        for (long i = 0; i < insertions; i++)
+            bloomFilter.put(mix(i));
+
+        for (long i = 0; i < insertions; i++)
+            Assert.assertTrue(bloomFilter.mightContain(mix(i)));
+
+        int falsePositives = 0;
+
+        for (long i = insertions; i < insertions * 11; i++) {
+            if (bloomFilter.mightContain(mix(i)))
+                falsePositives++;
+        }
+
+        Assert.assertTrue("falsePositives=" + falsePositives, falsePositives < insertions * 10 * 0.02);
+    }
+
+    private long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+
+        return value ^ (value >>> 31);
+    }
+
+}
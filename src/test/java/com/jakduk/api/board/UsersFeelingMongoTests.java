@@ -0,0 +1,179 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.MongodbConfig;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.db.Article;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
+import com.jakduk.api.service.UsersFeelingService;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 감정 표현 토글을 실제 MongoDB 에 해서, 조건부 update 가 목록과 카운터를 함께 맞게 바꾸는지 확인한다.
+ * 테스트마다 새 글을 넣고 지운다.
+ */
+@RunWith(SpringRunner.class)
+@DataMongoTest
+@EnableConfigurationProperties
+@Import({JakdukProperties.class, MongodbConfig.class, UsersFeelingService.class})
+public class UsersFeelingMongoTests {
+
+    @Autowired
+    private UsersFeelingService sut;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private Article article;
+    private Criteria criteria;
+
+    @Before
+    public void setUp() {
+        article = new Article();
+        article.setBoard(Constants.BOARD_TYPE.FREE.name());
+        article.setSubject("감정 표현 테스트");
+        article.setWriter(this.writer(new ObjectId().toString()));
+        article.setLikeCount(0);
+        article.setDislikeCount(0);
+
+        mongoTemplate.insert(article);
+
+        criteria = Criteria.where("_id").is(new ObjectId(article.getId()));
+    }
+
+    @After
+    public void tearDown() {
+        mongoTemplate.remove(article);
+    }
+
+    @Test
+    public void toggleLikeThenDislikeThenCancel() {
+        CommonWriter writer = this.writer(new ObjectId().toString());
+
+        UserFeelingResponse response = sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.LIKE);
+        Assert.assertEquals(Constants.FEELING_TYPE.LIKE, response.getMyFeeling());
+        this.assertStored(1, 0);
+
+        response = sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.DISLIKE);
+        Assert.assertEquals(Constants.FEELING_TYPE.DISLIKE, response.getMyFeeling());
+        Assert.assertEquals(Integer.valueOf(0), response.getNumberOfLike());
+        Assert.assertEquals(Integer.valueOf(1), response.getNumberOfDislike());
+        this.assertStored(0, 1);
+
+        response = sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.DISLIKE);
+        Assert.assertNull(response.getMyFeeling());
+        this.assertStored(0, 0);
+    }
+
+    @Test
+    public void writerCanNotFeel() {
+        try {
+            sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, article.getWriter(), Constants.FEELING_TYPE.LIKE);
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertEquals(ServiceError.FEELING_YOU_ARE_WRITER.getCode(), e.getServiceError().getCode());
+        }
+
+        this.assertStored(0, 0);
+    }
+
+    /**
+     * 같은 회원이 동시에 여러번 눌러도 한번만 들어간다.
+     */
+    @Test
+    public void addFeelingOnceUnderConcurrency() throws Exception {
+        CommonWriter writer = this.writer(new ObjectId().toString());
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        this.runConcurrently(8, i -> {
+            try {
+                sut.addFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.LIKE);
+                added.incrementAndGet();
+            } catch (ServiceException e) {
+                Assert.assertEquals(ServiceError.FEELING_SELECT_ALREADY_LIKE.getCode(), e.getServiceError().getCode());
+                rejected.incrementAndGet();
+            }
+        });
+
+        Assert.assertEquals(1, added.get());
+        Assert.assertEquals(7, rejected.get());
+        this.assertStored(1, 0);
+    }
+
+    /**
+     * 여러 회원이 동시에 눌러도 카운터와 목록 길이가 같다.
+     */
+    @Test
+    public void countersMatchListsUnderConcurrency() throws Exception {
+        this.runConcurrently(16, i -> sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria,
+                this.writer(new ObjectId().toString()), i % 4 == 0 ? Constants.FEELING_TYPE.DISLIKE : Constants.FEELING_TYPE.LIKE));
+
+        this.assertStored(12, 4);
+    }
+
+    private void runConcurrently(int count, IntConsumer task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.accept(index);
+                return null;
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futures)
+            future.get(30, TimeUnit.SECONDS);
+
+        executor.shutdown();
+    }
+
+    private void assertStored(int likeCount, int dislikeCount) {
+        Article stored = mongoTemplate.findById(article.getId(), Article.class);
+
+        Assert.assertEquals(Integer.valueOf(likeCount), stored.getLikeCount());
+        Assert.assertEquals(Integer.valueOf(dislikeCount), stored.getDislikeCount());
+        Assert.assertEquals(likeCount, stored.getUsersLiking() == null ? 0 : stored.getUsersLiking().size());
+        Assert.assertEquals(dislikeCount, stored.getUsersDisliking() == null ? 0 : stored.getUsersDisliking().size());
+    }
+
+    private CommonWriter writer(String userId) {
+        CommonWriter writer = new CommonWriter();
+        writer.setUserId(userId);
+        writer.setUsername("user-" + userId.substring(18));
+        writer.setProviderId(Constants.ACCOUNT_TYPE.JAKDUK);
+
+        return writer;
+    }
+
+    private interface IntConsumer {
+        void accept(int index) throws Exception;
+    }
+
+}
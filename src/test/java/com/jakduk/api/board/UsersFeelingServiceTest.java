@@ -0,0 +1,190 @@
+package com.jakduk.api.board;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.exception.ServiceError;
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.embedded.CommonFeelingUser;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.model.simple.UsersFeelingState;
+import com.jakduk.api.restcontroller.vo.UserFeelingResponse;
+import com.jakduk.api.service.UsersFeelingService;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 감정 표현 토글이 조건부 update 한번으로 처리되는지 확인한다.
+ */
+public class UsersFeelingServiceTest {
+
+    private static final String USER_ID = "566d68d5e4b0dfaaa5b98685";
+
+    private UsersFeelingService sut;
+    private MongoTemplate mongoTemplate;
+    private CommonWriter writer;
+    private Criteria criteria;
+
+    @Before
+    public void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(any())).thenReturn("article");
+
+        sut = new UsersFeelingService();
+        ReflectionTestUtils.setField(sut, "mongoTemplate", mongoTemplate);
+
+        writer = new CommonWriter();
+        writer.setUserId(USER_ID);
+        writer.setUsername("test05");
+        criteria = Criteria.where("board").is("FREE").and("seq").is(1);
+    }
+
+    @Test
+    public void addLike() {
+        this.givenFindAndModify(this.state(null, 6, 2));
+
+        UserFeelingResponse response = sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.LIKE);
+
+        Assert.assertEquals(Constants.FEELING_TYPE.LIKE, response.getMyFeeling());
+        Assert.assertEquals(Integer.valueOf(6), response.getNumberOfLike());
+        Assert.assertEquals(Integer.valueOf(2), response.getNumberOfDislike());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(UsersFeelingState.class), eq("article"));
+        verify(mongoTemplate, never()).findOne(any(Query.class), any(), anyString());
+
+        Document queryObject = query.getValue().getQueryObject();
+        Assert.assertEquals(new Document("$ne", USER_ID), queryObject.get("usersLiking.userId"));
+        Assert.assertEquals(new Document("$ne", USER_ID), queryObject.get("usersDisliking.userId"));
+        Assert.assertEquals(new Document("$ne", USER_ID), queryObject.get("writer.userId"));
+
+        Document updateObject = update.getValue().getUpdateObject();
+        Assert.assertTrue(((Document) updateObject.get("$push")).containsKey("usersLiking"));
+        Assert.assertEquals(new Document("likeCount", 1), updateObject.get("$inc"));
+    }
+
+    @Test
+    public void cancelLike() {
+        this.givenFindAndModify(null, this.state(null, 5, 2));
+        when(mongoTemplate.findOne(any(Query.class), eq(UsersFeelingState.class), anyString()))
+                .thenReturn(this.state(Constants.FEELING_TYPE.LIKE, null, null));
+
+        UserFeelingResponse response = sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.LIKE);
+
+        Assert.assertNull(response.getMyFeeling());
+        Assert.assertEquals(Integer.valueOf(5), response.getNumberOfLike());
+
+        Document updateObject = this.captureUpdates().get(1).getUpdateObject();
+        Assert.assertEquals(new Document("usersLiking", new Document("userId", USER_ID)), updateObject.get("$pull"));
+        Assert.assertEquals(new Document("likeCount", -1), updateObject.get("$inc"));
+    }
+
+    @Test
+    public void switchDislikeToLike() {
+        this.givenFindAndModify(null, this.state(null, 6, 1));
+        when(mongoTemplate.findOne(any(Query.class), eq(UsersFeelingState.class), anyString()))
+                .thenReturn(this.state(Constants.FEELING_TYPE.DISLIKE, null, null));
+
+        UserFeelingResponse response = sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.LIKE);
+
+        Assert.assertEquals(Constants.FEELING_TYPE.LIKE, response.getMyFeeling());
+
+        Document updateObject = this.captureUpdates().get(1).getUpdateObject();
+        Assert.assertEquals(new Document("usersDisliking", new Document("userId", USER_ID)), updateObject.get("$pull"));
+        Assert.assertTrue(((Document) updateObject.get("$push")).containsKey("usersLiking"));
+        Assert.assertEquals(new Document("dislikeCount", -1).append("likeCount", 1), updateObject.get("$inc"));
+    }
+
+    @Test
+    public void countCommentFeelingsWithoutCounters() {
+        UsersFeelingState changed = this.state(null, null, null);
+        ReflectionTestUtils.setField(changed, "usersLiking", Collections.nCopies(3, new CommonFeelingUser(null, USER_ID, null)));
+        this.givenFindAndModify(changed);
+
+        UserFeelingResponse response = sut.toggleFeeling(UsersFeelingService.Target.ARTICLE_COMMENT,
+                Criteria.where("_id").is(new ObjectId()), writer, Constants.FEELING_TYPE.LIKE);
+
+        Assert.assertEquals(Integer.valueOf(3), response.getNumberOfLike());
+        Assert.assertEquals(Integer.valueOf(0), response.getNumberOfDislike());
+        Assert.assertNull(this.captureUpdates().get(0).getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    public void writerCanNotFeel() {
+        this.givenFindAndModify((UsersFeelingState) null);
+        UsersFeelingState state = this.state(null, null, null);
+        ReflectionTestUtils.setField(state, "writer", writer);
+        when(mongoTemplate.findOne(any(Query.class), eq(UsersFeelingState.class), anyString())).thenReturn(state);
+
+        try {
+            sut.toggleFeeling(UsersFeelingService.Target.ARTICLE, criteria, writer, Constants.FEELING_TYPE.LIKE);
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertEquals(ServiceError.FEELING_YOU_ARE_WRITER.getCode(), e.getServiceError().getCode());
+        }
+    }
+
+    @Test
+    public void addFeelingOnlyOnce() {
+        this.givenFindAndModify((UsersFeelingState) null);
+        when(mongoTemplate.findOne(any(Query.class), eq(UsersFeelingState.class), anyString()))
+                .thenReturn(this.state(Constants.FEELING_TYPE.LIKE, null, null));
+
+        try {
+            sut.addFeeling(UsersFeelingService.Target.JAKDU_COMMENT, Criteria.where("_id").is(new ObjectId()), writer,
+                    Constants.FEELING_TYPE.DISLIKE);
+            Assert.fail();
+        } catch (ServiceException e) {
+            Assert.assertEquals(ServiceError.FEELING_SELECT_ALREADY_LIKE.getCode(), e.getServiceError().getCode());
+        }
+    }
+
+    private void givenFindAndModify(UsersFeelingState first, UsersFeelingState... next) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(UsersFeelingState.class), anyString()))
+                .thenReturn(first, next);
+    }
+
+    private List<Update> captureUpdates() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(UsersFeelingState.class), anyString());
+
+        return update.getAllValues();
+    }
+
+    /**
+     * @param myFeeling 해당 회원이 이미 한 감정 표현 ($elemMatch projection 결과)
+     */
+    private UsersFeelingState state(Constants.FEELING_TYPE myFeeling, Integer likeCount, Integer dislikeCount) {
+        UsersFeelingState state = new UsersFeelingState();
+        List<CommonFeelingUser> me = Collections.singletonList(new CommonFeelingUser(new ObjectId().toString(), USER_ID, "test05"));
+
+        if (Constants.FEELING_TYPE.LIKE.equals(myFeeling))
+            ReflectionTestUtils.setField(state, "usersLiking", me);
+        else if (Constants.FEELING_TYPE.DISLIKE.equals(myFeeling))
+            ReflectionTestUtils.setField(state, "usersDisliking", me);
+
+        ReflectionTestUtils.setField(state, "likeCount", likeCount);
+        ReflectionTestUtils.setField(state, "dislikeCount", dislikeCount);
+
+        return state;
+    }
+
+}
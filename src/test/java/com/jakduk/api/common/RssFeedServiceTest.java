@@ -0,0 +1,118 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.embedded.CommonWriter;
+import com.jakduk.api.model.simple.ArticleOnRSS;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.service.RssFeedService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RSS 피드를 한번만 만들고, 글이 바뀌어 비워진 뒤에만 다시 만드는지 확인한다.
+ */
+public class RssFeedServiceTest {
+
+    private RssFeedService sut;
+    private ArticleRepository articleRepository;
+    private JakdukProperties.Rss rssProperties;
+
+    @Before
+    public void setUp() {
+        JakdukProperties jakdukProperties = new JakdukProperties();
+        jakdukProperties.setWebServerUrl("https://jakduk.com");
+
+        rssProperties = jakdukProperties.new Rss();
+        rssProperties.setMaxItems(50);
+        rssProperties.setTtlMillis(600000L);
+
+        UrlGenerationUtils urlGenerationUtils = new UrlGenerationUtils();
+        ReflectionTestUtils.setField(urlGenerationUtils, "jakdukProperties", jakdukProperties);
+
+        articleRepository = mock(ArticleRepository.class);
+
+        when(articleRepository.findPostsOnRss(nullable(String.class), isNull(), any(Sort.class), anyInt()))
+                .thenReturn(Collections.singletonList(this.article()));
+
+        sut = new RssFeedService();
+        ReflectionTestUtils.setField(sut, "jakdukProperties", jakdukProperties);
+        ReflectionTestUtils.setField(sut, "rssProperties", rssProperties);
+        ReflectionTestUtils.setField(sut, "urlGenerationUtils", urlGenerationUtils);
+        ReflectionTestUtils.setField(sut, "articleRepository", articleRepository);
+    }
+
+    @Test
+    public void buildOnce() {
+        RssFeedService.RssFeed first = sut.getFeed("ko", null);
+        RssFeedService.RssFeed second = sut.getFeed("ko", null);
+
+        Assert.assertSame(first, second);
+        verify(articleRepository, times(1)).findPostsOnRss(isNull(), isNull(), any(Sort.class), eq(50));
+
+        String body = new String(first.getBody(), StandardCharsets.UTF_8);
+        Assert.assertTrue(body.contains("https://jakduk.com/board/free/3"));
+        Assert.assertFalse(body.contains("<p>"));
+    }
+
+    @Test
+    public void rebuildAfterEviction() {
+        RssFeedService.RssFeed first = sut.getFeed("ko", null);
+
+        sut.evictFeeds();
+
+        RssFeedService.RssFeed second = sut.getFeed("ko", null);
+
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first.getETag(), second.getETag());
+        verify(articleRepository, times(2)).findPostsOnRss(isNull(), isNull(), any(Sort.class), eq(50));
+    }
+
+    @Test
+    public void rebuildAfterTtl() throws Exception {
+        rssProperties.setTtlMillis(20L);
+
+        RssFeedService.RssFeed first = sut.getFeed("ko", null);
+
+        Thread.sleep(50);
+
+        RssFeedService.RssFeed second = sut.getFeed("ko", null);
+
+        Assert.assertNotSame(first, second);
+        verify(articleRepository, times(2)).findPostsOnRss(isNull(), isNull(), any(Sort.class), eq(50));
+    }
+
+    @Test
+    public void feedPerBoard() {
+        sut.getFeed("ko", null);
+        sut.getFeed("ko", Constants.BOARD_TYPE.FREE);
+
+        verify(articleRepository).findPostsOnRss(isNull(), isNull(), any(Sort.class), eq(50));
+        verify(articleRepository).findPostsOnRss(eq(Constants.BOARD_TYPE.FREE.name()), isNull(), any(Sort.class), eq(50));
+    }
+
+    private ArticleOnRSS article() {
+        CommonWriter writer = new CommonWriter();
+        writer.setUsername("test07");
+
+        ArticleOnRSS article = new ArticleOnRSS();
+        ReflectionTestUtils.setField(article, "id", "58b9050b807d714eaf50a111");
+        ReflectionTestUtils.setField(article, "board", Constants.BOARD_TYPE.FREE.name());
+        ReflectionTestUtils.setField(article, "seq", 3);
+        ReflectionTestUtils.setField(article, "writer", writer);
+        ReflectionTestUtils.setField(article, "subject", "글 제목입니다.");
+        ReflectionTestUtils.setField(article, "content", "<p>글 내용입니다.</p>");
+
+        return article;
+    }
+
+}
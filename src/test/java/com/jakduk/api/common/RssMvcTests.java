@@ -0,0 +1,90 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.TestMvcConfig;
+import com.jakduk.api.controller.DefaultViewController;
+import com.jakduk.api.service.GalleryService;
+import com.jakduk.api.service.RssFeedService;
+import com.jakduk.api.service.SitemapService;
+import com.jakduk.api.service.UserPictureService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(DefaultViewController.class)
+@Import({TestMvcConfig.class})
+public class RssMvcTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean private RssFeedService rssFeedService;
+    @MockBean private SitemapService sitemapService;
+    @MockBean private GalleryService galleryService;
+    @MockBean private UserPictureService userPictureService;
+
+    @MockBean private UserDetailsService userDetailsService;
+
+    @Before
+    public void setUp() {
+        RssFeedService.RssFeed feed = Mockito.mock(RssFeedService.RssFeed.class);
+        when(feed.getBody()).thenReturn("<rss/>".getBytes());
+        when(feed.getETag()).thenReturn("9f6e6800cfae7749eb6c486619254b9c");
+        when(feed.getLastModified()).thenReturn(1489485600000L);
+
+        when(rssFeedService.getFeed(anyString(), nullable(Constants.BOARD_TYPE.class)))
+                .thenReturn(feed);
+    }
+
+    @Test
+    @WithMockUser
+    public void getRssTest() throws Exception {
+        mvc.perform(get("/rss"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/rss+xml;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"9f6e6800cfae7749eb6c486619254b9c\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().string("<rss/>"));
+    }
+
+    @Test
+    @WithMockUser
+    public void getRssNotModifiedTest() throws Exception {
+        mvc.perform(get("/rss")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"9f6e6800cfae7749eb6c486619254b9c\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser
+    public void getBoardRssTest() throws Exception {
+        mvc.perform(get("/rss/{board}", "free"))
+                .andExpect(status().isOk());
+
+        Mockito.verify(rssFeedService).getFeed(anyString(), eq(Constants.BOARD_TYPE.FREE));
+    }
+
+    @Test
+    @WithMockUser
+    public void getUnknownBoardRssTest() throws Exception {
+        mvc.perform(get("/rss/{board}", "unknown"))
+                .andExpect(status().isBadRequest());
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.TestMvcConfig;
+import com.jakduk.api.controller.DefaultViewController;
+import com.jakduk.api.service.GalleryService;
+import com.jakduk.api.service.RssFeedService;
+import com.jakduk.api.service.SitemapService;
+import com.jakduk.api.service.UserPictureService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(DefaultViewController.class)
+@Import({TestMvcConfig.class})
+public class SitemapMvcTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean private SitemapService sitemapService;
+    @MockBean private RssFeedService rssFeedService;
+    @MockBean private GalleryService galleryService;
+    @MockBean private UserPictureService userPictureService;
+
+    @MockBean private UserDetailsService userDetailsService;
+
+    private Path indexFile;
+    private Path shardFile;
+    private Instant lastModified = Instant.parse("2017-03-14T10:00:00Z");
+
+    @Before
+    public void setUp() throws Exception {
+        indexFile = Files.createTempFile("sitemap", ".xml");
+        Files.write(indexFile, "<sitemapindex/>".getBytes());
+        Files.setLastModifiedTime(indexFile, FileTime.from(lastModified));
+
+        shardFile = Files.createTempFile("sitemap-0", ".xml");
+        Files.write(shardFile, "<urlset/>".getBytes());
+
+        when(sitemapService.getSitemapIndexPath()).thenReturn(indexFile);
+        when(sitemapService.getSitemapPath(0)).thenReturn(shardFile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(indexFile);
+        Files.deleteIfExists(shardFile);
+    }
+
+    @Test
+    @WithMockUser
+    public void getSitemapIndexTest() throws Exception {
+        mvc.perform(get("/sitemap"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_XML))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().string("<sitemapindex/>"));
+
+        verifyZeroInteractions(galleryService, userPictureService);
+    }
+
+    @Test
+    @WithMockUser
+    public void getSitemapIndexNotModifiedTest() throws Exception {
+        mvc.perform(get("/sitemap")
+                .header(HttpHeaders.IF_MODIFIED_SINCE,
+                        DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(lastModified, ZoneOffset.UTC))))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser
+    public void getSitemapShardTest() throws Exception {
+        mvc.perform(get("/sitemap/{shard}", 0))
+                .andExpect(status().isOk())
+                .andExpect(content().string("<urlset/>"));
+    }
+
+}
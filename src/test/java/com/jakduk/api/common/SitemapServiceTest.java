@@ -0,0 +1,137 @@
+package com.jakduk.api.common;
+
+import com.jakduk.api.common.util.UrlGenerationUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.simple.ArticleOnSitemap;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.service.SitemapService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 사이트맵 파일 분할과 lastUpdated 기준 부분 갱신을 확인한다.
+ */
+public class SitemapServiceTest {
+
+    private SitemapService sut;
+    private ArticleRepository articleRepository;
+    private Path sitemapPath;
+
+    @Before
+    public void setUp() throws Exception {
+        sitemapPath = Files.createTempDirectory("sitemap");
+
+        JakdukProperties jakdukProperties = new JakdukProperties();
+        jakdukProperties.setApiServerUrl("https://api.jakduk.com");
+        jakdukProperties.setWebServerUrl("https://jakduk.com");
+
+        JakdukProperties.Storage storageProperties = jakdukProperties.new Storage();
+        storageProperties.setSitemapPath(sitemapPath.toString());
+
+        JakdukProperties.Sitemap sitemapProperties = jakdukProperties.new Sitemap();
+        sitemapProperties.setUrlsPerFile(2);
+
+        UrlGenerationUtils urlGenerationUtils = new UrlGenerationUtils();
+        ReflectionTestUtils.setField(urlGenerationUtils, "jakdukProperties", jakdukProperties);
+
+        articleRepository = mock(ArticleRepository.class);
+
+        sut = new SitemapService();
+        ReflectionTestUtils.setField(sut, "jakdukProperties", jakdukProperties);
+        ReflectionTestUtils.setField(sut, "storageProperties", storageProperties);
+        ReflectionTestUtils.setField(sut, "sitemapProperties", sitemapProperties);
+        ReflectionTestUtils.setField(sut, "urlGenerationUtils", urlGenerationUtils);
+        ReflectionTestUtils.setField(sut, "articleRepository", articleRepository);
+    }
+
+    @After
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(sitemapPath.toFile());
+    }
+
+    @Test
+    public void rebuildShards() throws Exception {
+        when(articleRepository.findMaxSeq()).thenReturn(5);
+        when(articleRepository.findSitemapArticlesBySeqRange(1, 2)).thenReturn(Arrays.asList(this.article(1), this.article(2)));
+        when(articleRepository.findSitemapArticlesBySeqRange(3, 4)).thenReturn(Arrays.asList(this.article(3), this.article(4)));
+        when(articleRepository.findSitemapArticlesBySeqRange(5, 6)).thenReturn(Collections.singletonList(this.article(5)));
+
+        sut.refresh();
+
+        String index = this.read(sut.getSitemapIndexPath());
+        Assert.assertTrue(index.contains("https://api.jakduk.com/sitemap/0"));
+        Assert.assertTrue(index.contains("https://api.jakduk.com/sitemap/2"));
+
+        String lastShard = this.read(sut.getSitemapPath(2));
+        Assert.assertTrue(lastShard.contains("https://jakduk.com/board/free/5"));
+        Assert.assertFalse(lastShard.contains("https://jakduk.com/board/free/4"));
+    }
+
+    @Test
+    public void refreshOnlyChangedShards() throws Exception {
+        this.rebuildShards();
+        clearInvocations(articleRepository);
+
+        LocalDateTime now = LocalDateTime.now();
+
+        when(articleRepository.findSitemapArticlesByLastUpdatedGte(any())).thenReturn(Collections.singletonList(this.article(6, now)));
+        when(articleRepository.findSitemapArticlesBySeqRange(5, 6)).thenReturn(Arrays.asList(this.article(5), this.article(6, now)));
+
+        sut.refresh();
+
+        verify(articleRepository).findSitemapArticlesBySeqRange(5, 6);
+        verify(articleRepository, never()).findSitemapArticlesBySeqRange(1, 2);
+        verify(articleRepository, never()).findMaxSeq();
+        Assert.assertTrue(this.read(sut.getSitemapPath(2)).contains("https://jakduk.com/board/free/6"));
+
+        // 이미 반영한 글은 다시 만들지 않는다.
+        sut.refresh();
+
+        verify(articleRepository, times(1)).findSitemapArticlesBySeqRange(5, 6);
+    }
+
+    @Test
+    public void deleteEmptyShard() throws Exception {
+        this.rebuildShards();
+
+        when(articleRepository.findSitemapArticlesByLastUpdatedGte(any())).thenReturn(Collections.singletonList(this.article(5, LocalDateTime.now())));
+        when(articleRepository.findSitemapArticlesBySeqRange(5, 6)).thenReturn(Collections.emptyList());
+
+        sut.refresh();
+
+        Assert.assertFalse(Files.exists(sitemapPath.resolve("sitemap-2.xml")));
+        Assert.assertFalse(this.read(sut.getSitemapIndexPath()).contains("https://api.jakduk.com/sitemap/2"));
+    }
+
+    private ArticleOnSitemap article(Integer seq) {
+        return this.article(seq, LocalDateTime.of(2017, 3, 14, 10, 0));
+    }
+
+    private ArticleOnSitemap article(Integer seq, LocalDateTime lastUpdated) {
+        ArticleOnSitemap article = new ArticleOnSitemap();
+        ReflectionTestUtils.setField(article, "board", Constants.BOARD_TYPE.FREE.name());
+        ReflectionTestUtils.setField(article, "seq", seq);
+        ReflectionTestUtils.setField(article, "lastUpdated", lastUpdated);
+
+        return article;
+    }
+
+    private String read(Path path) throws Exception {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+}
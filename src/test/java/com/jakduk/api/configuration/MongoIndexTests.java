@@ -0,0 +1,194 @@
+package com.jakduk.api.configuration;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.repository.OutboxMessageRepository;
+import com.jakduk.api.repository.TokenRepository;
+import com.jakduk.api.repository.article.ArticleCommentRepository;
+import com.jakduk.api.repository.article.ArticleRepository;
+import com.jakduk.api.repository.gallery.GalleryRepository;
+import com.jakduk.api.repository.jakdu.JakduCommentRepository;
+import com.jakduk.api.repository.jakdu.JakduRepository;
+import com.jakduk.api.repository.jakdu.JakduScheduleGroupRepository;
+import com.jakduk.api.repository.jakdu.JakduScheduleRepository;
+import com.jakduk.api.repository.user.UserProfileRepository;
+import com.jakduk.api.repository.user.UserRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 모든 저장소 조회가 인덱스를 타는지 확인한다.
+ *
+ * profiler 를 켠 채로 조회를 실제로 돌리고, system.profile 의 planSummary (explain 의 winningPlan 요약) 에
+ * COLLSCAN 이 있으면 실패한다. 조회를 추가하면 여기에도 추가해야 한다.
+ * 전체를 읽는 findAll 류와 통계용 집계는 뺐다.
+ */
+@RunWith(SpringRunner.class)
+@DataMongoTest
+@EnableConfigurationProperties
+@Import({JakdukProperties.class, MongodbConfig.class})
+public class MongoIndexTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ArticleCommentRepository articleCommentRepository;
+
+    @Autowired
+    private GalleryRepository galleryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private JakduRepository jakduRepository;
+
+    @Autowired
+    private JakduCommentRepository jakduCommentRepository;
+
+    @Autowired
+    private JakduScheduleRepository jakduScheduleRepository;
+
+    @Autowired
+    private JakduScheduleGroupRepository jakduScheduleGroupRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Before
+    public void setUp() {
+        this.setProfilingLevel(0);
+        mongoTemplate.getCollection("system.profile").drop();
+        this.setProfilingLevel(2);
+    }
+
+    @After
+    public void tearDown() {
+        this.setProfilingLevel(0);
+    }
+
+    @Test
+    public void noCollectionScan() {
+        ObjectId id = new ObjectId();
+        String userId = new ObjectId().toString();
+        String board = Constants.BOARD_TYPE.FREE.name();
+        Sort idDesc = new Sort(Sort.Direction.DESC, "_id");
+
+        // article
+        articleRepository.findOneById(id.toString());
+        articleRepository.findOneBySeq(1);
+        articleRepository.findOneByBoardAndSeq(board, 1);
+        articleRepository.findSimpleByBoardAndSeq(board, 1);
+        articleRepository.findBySeqIn(Collections.singletonList(1));
+        articleRepository.findByIdInAndLinkedGalleryIsTrue(Collections.singletonList(id.toString()));
+        articleRepository.findPostsGreaterThanId(id, 10);
+        articleRepository.findPostsOnRss(null, null, idDesc, 10);
+        articleRepository.findPostsOnRss(board, id, idDesc, 10);
+        articleRepository.findArticleSimplesByIds(Collections.singletonList(id));
+        articleRepository.findByBoardAndCategoryAndIdLessThan(board, null, id, 10);
+        articleRepository.findByBoardAndCategoryAndIdLessThan(board, "ALL", id, 10);
+        articleRepository.findNotices(idDesc);
+        articleRepository.findLatest(idDesc, 10);
+        articleRepository.findSitemapArticles(id, idDesc, 10);
+        articleRepository.findSitemapArticlesBySeqRange(1, 100);
+        articleRepository.findSitemapArticlesByLastUpdatedGte(LocalDateTime.now());
+        articleRepository.findMaxSeq();
+        articleRepository.findArticleDetailRelations(id, null, userId, true, 3);
+        articleRepository.findArticleDetailRelations(id, "ALL", userId, true, 3);
+        articleRepository.findUsersFeelingCount(Collections.singletonList(id));
+        articleRepository.findTopLikes(Constants.BOARD_TYPE.FREE, id);
+        articleRepository.findTopComments(Constants.BOARD_TYPE.FREE, id);
+
+        // articleComment
+        articleCommentRepository.findOneById(id.toString());
+        articleCommentRepository.countByArticleId(id.toString());
+        articleCommentRepository.findCommentsGreaterThanId(id, 10);
+        articleCommentRepository.findCommentsCountByIds(Collections.singletonList(id));
+        articleCommentRepository.findByBoardSeqAndGTId(board, 1, null);
+        articleCommentRepository.findByBoardSeqAndGTId(board, 1, id);
+        articleCommentRepository.findSimpleComments();
+
+        // gallery
+        galleryRepository.findOneById(id.toString());
+        galleryRepository.findOneByHashAndStatusStatus("hash", Constants.GALLERY_STATUS_TYPE.ENABLE);
+        galleryRepository.findByIdIn(Collections.singletonList(id.toString()));
+        galleryRepository.findGalleriesById(id, Constants.CRITERIA_OPERATOR.GT, 10);
+        galleryRepository.findByItemIdAndFromType(id, Constants.GALLERY_FROM_TYPE.ARTICLE, 10);
+        galleryRepository.findFirstByItemIdsAndFromType(Collections.singletonList(id), Constants.GALLERY_FROM_TYPE.ARTICLE);
+        galleryRepository.findByItemIdsAndFromType(Collections.singletonList(id), Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT);
+        galleryRepository.findSimpleById(id, 10);
+
+        // user
+        userRepository.findOneById(userId);
+        userRepository.findOneByEmail("test@jakduk.com");
+        userRepository.findOneByUsername("test");
+        userRepository.findOneByProviderIdAndProviderUserId(Constants.ACCOUNT_TYPE.FACEBOOK, "providerUserId");
+        userRepository.findUserOnPasswordUpdateById(userId);
+        userRepository.findSimpleUsers();
+        userProfileRepository.findByNEIdAndEmail(userId, "test@jakduk.com");
+        userProfileRepository.findByNEIdAndUsername(userId, "test");
+        tokenRepository.findOneByEmail("test@jakduk.com");
+        tokenRepository.findOneByCode("code");
+
+        // jakdu
+        jakduRepository.findByUserIdAndWriter(userId, id);
+        jakduCommentRepository.countByJakduScheduleId(id.toString());
+        jakduScheduleRepository.findByTimeUpOrderByDateAsc(false);
+        jakduScheduleGroupRepository.findBySeq(1);
+
+        // outbox
+        outboxMessageRepository.findByAttemptsLessThanOrderByIdAsc(10, PageRequest.of(0, 100));
+        outboxMessageRepository.countByAttemptsLessThan(10);
+        outboxMessageRepository.countByAttemptsGreaterThanEqual(10);
+        outboxMessageRepository.claim("relay#1", 10, new Date(), new Date(), 100);
+        outboxMessageRepository.release("relay#1", id.toString(), true, new Date(), "nack");
+        outboxMessageRepository.deleteClaimed("relay#1", Collections.singletonList(id.toString()));
+        outboxMessageRepository.redrive(10, 3);
+        outboxMessageRepository.deadLetter(10, 3);
+        outboxMessageRepository.redriveDeadLetters(Collections.singletonList(id.toString()));
+
+        List<String> collectionScans = mongoTemplate.getCollection("system.profile")
+                .find(new Document("planSummary", Pattern.compile("COLLSCAN"))
+                        .append("ns", new Document("$not", Pattern.compile("\\.system\\."))))
+                .into(new ArrayList<>()).stream()
+                .map(profile -> profile.getString("ns") + " " + profile.get("command"))
+                .collect(Collectors.toList());
+
+        Assert.assertTrue("COLLSCAN 이 있다.\n" + String.join("\n", collectionScans), collectionScans.isEmpty());
+    }
+
+    private void setProfilingLevel(int level) {
+        mongoTemplate.getDb().runCommand(new Document("profile", level));
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.jakduk.api.football;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.db.Competition;
+import com.jakduk.api.model.db.FootballClub;
+import com.jakduk.api.model.db.FootballClubOrigin;
+import com.jakduk.api.model.embedded.LocalName;
+import com.jakduk.api.repository.CompetitionRepository;
+import com.jakduk.api.repository.footballclub.FootballClubRepository;
+import com.jakduk.api.service.ReferenceDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * 기준 데이터를 한번 만든 뒤에는 DB 를 읽지 않고, 다시 만들면 바뀐 데이터로 바꿔 끼우는지 확인한다.
+ */
+public class ReferenceDataServiceTest {
+
+    private ReferenceDataService sut;
+    private FootballClubRepository footballClubRepository;
+    private CompetitionRepository competitionRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        footballClubRepository = mock(FootballClubRepository.class);
+        competitionRepository = mock(CompetitionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new ReferenceDataService();
+        ReflectionTestUtils.setField(sut, "footballClubRepository", footballClubRepository);
+        ReflectionTestUtils.setField(sut, "competitionRepository", competitionRepository);
+        ReflectionTestUtils.setField(sut, "meterRegistry", meterRegistry);
+        sut.init();
+
+        when(footballClubRepository.findAll()).thenReturn(Arrays.asList(
+                newFootballClub("fc1", "origin1", Constants.CLUB_TYPE.FOOTBALL_CLUB, "수원 삼성 블루윙즈", "Suwon Samsung Bluewings"),
+                newFootballClub("fc2", "origin2", Constants.CLUB_TYPE.FOOTBALL_CLUB, "FC 서울", "FC Seoul"),
+                newFootballClub("fc3", "origin3", Constants.CLUB_TYPE.NATIONAL_TEAM, "대한민국", "Korea Republic")));
+
+        Competition competition = new Competition();
+        competition.setId("competition1");
+        competition.setNames(Collections.singletonList(new LocalName("ko", "K리그 1", "K1")));
+
+        when(competitionRepository.findAll()).thenReturn(Collections.singletonList(competition));
+    }
+
+    @Test
+    public void noReadsAfterFirstBuild() {
+        List<FootballClub> footballClubs = sut.getFootballClubs("en", Constants.CLUB_TYPE.FOOTBALL_CLUB, Constants.NAME_TYPE.fullName);
+        sut.getFootballClubNames("ko");
+        sut.getCompetitionNames("ko");
+
+        Assert.assertEquals(Arrays.asList("FC Seoul", "Suwon Samsung Bluewings"), footballClubs.stream()
+                .map(footballClub -> footballClub.getNames().get(0).getFullName())
+                .collect(Collectors.toList()));
+        Assert.assertEquals(1, footballClubs.get(0).getNames().size());
+        Assert.assertEquals("대한민국", sut.getFootballClubNames("ko").get("origin3").getFullName());
+        Assert.assertEquals("K리그 1", sut.getCompetitionNames("ko").get("competition1").getFullName());
+        Assert.assertTrue(sut.getCompetitionNames("en").isEmpty());
+
+        verify(footballClubRepository, times(1)).findAll();
+        verify(competitionRepository, times(1)).findAll();
+        Assert.assertFalse(Double.isNaN(meterRegistry.get("jakduk.reference.age").gauge().value()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableSnapshot() {
+        sut.getFootballClubs("ko", Constants.CLUB_TYPE.FOOTBALL_CLUB, Constants.NAME_TYPE.shortName).clear();
+    }
+
+    @Test
+    public void rebuildSwapsSnapshot() {
+        Assert.assertEquals(2, sut.getFootballClubs("ko", Constants.CLUB_TYPE.FOOTBALL_CLUB, Constants.NAME_TYPE.fullName).size());
+
+        when(footballClubRepository.findAll()).thenReturn(Collections.singletonList(
+                newFootballClub("fc2", "origin2", Constants.CLUB_TYPE.FOOTBALL_CLUB, "FC 서울", "FC Seoul")));
+
+        sut.rebuild();
+
+        Assert.assertEquals(1, sut.getFootballClubs("ko", Constants.CLUB_TYPE.FOOTBALL_CLUB, Constants.NAME_TYPE.fullName).size());
+        Assert.assertEquals(2L, meterRegistry.get("jakduk.reference.rebuild").timer().count());
+    }
+
+    private FootballClub newFootballClub(String id, String originId, Constants.CLUB_TYPE clubType, String koreanName, String englishName) {
+        FootballClubOrigin origin = new FootballClubOrigin();
+        origin.setId(originId);
+        origin.setClubType(clubType);
+
+        FootballClub footballClub = new FootballClub();
+        footballClub.setId(id);
+        footballClub.setOrigin(origin);
+        footballClub.setActive("active");
+        footballClub.setNames(Arrays.asList(
+                new LocalName("ko", koreanName, koreanName),
+                new LocalName("en", englishName, englishName)));
+
+        return footballClub;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.jakduk.api.gallery;
+
+import com.jakduk.api.TestMvcConfig;
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.controller.DefaultViewController;
+import com.jakduk.api.model.db.Gallery;
+import com.jakduk.api.service.GalleryService;
+import com.jakduk.api.service.RssFeedService;
+import com.jakduk.api.service.SitemapService;
+import com.jakduk.api.service.UserPictureService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(DefaultViewController.class)
+@Import({TestMvcConfig.class})
+public class GalleryImageMvcTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean private GalleryService galleryService;
+    @MockBean private UserPictureService userPictureService;
+    @MockBean private SitemapService sitemapService;
+    @MockBean private RssFeedService rssFeedService;
+
+    @MockBean private UserDetailsService userDetailsService;
+
+    private Path imageFile;
+
+    @Before
+    public void setUp() throws Exception {
+        imageFile = Files.createTempFile("gallery", ".png");
+        Files.write(imageFile, "0123456789".getBytes());
+
+        Gallery gallery = new Gallery();
+        gallery.setId("58b9050b807d714eaf50a111");
+        gallery.setContentType("image/png");
+        gallery.setHash("3d2a3a0c4f9bfb22d4a4e7b0a1c3b9a5");
+
+        when(galleryService.findOneById(anyString()))
+                .thenReturn(gallery);
+
+        when(galleryService.getGalleryFilePath(anyString(), anyString(), any(Constants.IMAGE_TYPE.class)))
+                .thenReturn(imageFile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(imageFile);
+    }
+
+    @Test
+    @WithMockUser
+    public void getGalleryTest() throws Exception {
+        mvc.perform(get("/gallery/{id}", "58b9050b807d714eaf50a111"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10L))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3d2a3a0c4f9bfb22d4a4e7b0a1c3b9a5\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().string("0123456789"));
+    }
+
+    @Test
+    @WithMockUser
+    public void getGalleryNotModifiedTest() throws Exception {
+        mvc.perform(get("/gallery/{id}", "58b9050b807d714eaf50a111")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3d2a3a0c4f9bfb22d4a4e7b0a1c3b9a5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser
+    public void getGalleryThumbnailRangeTest() throws Exception {
+        mvc.perform(get("/gallery/thumbnail/{id}", "58b9050b807d714eaf50a111")
+                .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+}
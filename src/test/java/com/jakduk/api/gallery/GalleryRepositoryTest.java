@@ -3,6 +3,8 @@ package com.jakduk.api.gallery;
 import com.jakduk.api.ApiApplicationTests;
 
 import com.jakduk.api.common.Constants;
+import com.jakduk.api.model.aggregate.LinkedItemGalleries;
+import com.jakduk.api.model.aggregate.LinkedItemGallery;
 import com.jakduk.api.model.db.Gallery;
 import com.jakduk.api.repository.gallery.GalleryRepository;
 import org.bson.types.ObjectId;
@@ -10,6 +12,7 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -34,5 +37,21 @@ public class GalleryRepositoryTest extends ApiApplicationTests {
 
         Assert.assertTrue(Objects.nonNull(galleries));
     }
+
+    @Test
+    public void findFirstByItemIdsAndFromType() {
+        List<LinkedItemGallery> linkedItemGalleries = sut.findFirstByItemIdsAndFromType(
+                Collections.singletonList(new ObjectId("58ee422be846b60526cd3382")), Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT);
+
+        Assert.assertTrue(Objects.nonNull(linkedItemGalleries));
+    }
+
+    @Test
+    public void findByItemIdsAndFromType() {
+        List<LinkedItemGalleries> linkedItemGalleries = sut.findByItemIdsAndFromType(
+                Collections.singletonList(new ObjectId("58ee422be846b60526cd3382")), Constants.GALLERY_FROM_TYPE.ARTICLE_COMMENT);
+
+        Assert.assertTrue(Objects.nonNull(linkedItemGalleries));
+    }
     
 }
@@ -0,0 +1,80 @@
+package com.jakduk.api.home;
+
+import com.jakduk.api.exception.ServiceException;
+import com.jakduk.api.model.db.Encyclopedia;
+import com.jakduk.api.repository.EncyclopediaRepository;
+import com.jakduk.api.service.HomeService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 무작위 백과사전을 언어별 목록에서 고르고, 목록을 읽기 전에는 $sample 로 가져오는지 확인한다.
+ */
+public class HomeEncyclopediaTest {
+
+    private HomeService sut;
+    private EncyclopediaRepository encyclopediaRepository;
+
+    @Before
+    public void setUp() {
+        encyclopediaRepository = mock(EncyclopediaRepository.class);
+
+        sut = new HomeService();
+        ReflectionTestUtils.setField(sut, "encyclopediaRepository", encyclopediaRepository);
+
+        when(encyclopediaRepository.findAll()).thenReturn(Arrays.asList(
+                newEncyclopedia("1", "ko"), newEncyclopedia("2", "ko"), newEncyclopedia("3", "en")));
+    }
+
+    @Test
+    public void sampleWhenCold() {
+        Encyclopedia sampled = newEncyclopedia("1", "ko");
+        when(encyclopediaRepository.findOneByLanguageWithSample("ko")).thenReturn(Optional.of(sampled));
+
+        Assert.assertSame(sampled, sut.getEncyclopediaWithRandom("ko"));
+        verify(encyclopediaRepository, never()).findAll();
+    }
+
+    @Test
+    public void pickFromSnapshot() {
+        sut.refreshEncyclopedias();
+
+        Set<String> ids = new HashSet<>();
+
+        for (int i = 0; i < 100; i++) {
+            Encyclopedia encyclopedia = sut.getEncyclopediaWithRandom("ko");
+            Assert.assertEquals("ko", encyclopedia.getLanguage());
+            ids.add(encyclopedia.getId());
+        }
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2")), ids);
+        verify(encyclopediaRepository, times(1)).findAll();
+        verify(encyclopediaRepository, never()).findOneByLanguageWithSample(anyString());
+    }
+
+    @Test(expected = ServiceException.class)
+    public void notFoundLanguage() {
+        sut.refreshEncyclopedias();
+
+        sut.getEncyclopediaWithRandom("ja");
+    }
+
+    private Encyclopedia newEncyclopedia(String id, String language) {
+        Encyclopedia encyclopedia = new Encyclopedia();
+        encyclopedia.setId(id);
+        encyclopedia.setLanguage(language);
+
+        return encyclopedia;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.jakduk.api.home;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.model.db.HomeDescription;
+import com.jakduk.api.restcontroller.vo.home.HomeLatestItemsResponse;
+import com.jakduk.api.service.HomeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 홈 최근 데이터 캐시의 hit/miss, 비움, 유지 시간을 확인한다.
+ */
+public class HomeLatestItemsCacheTest {
+
+    private HomeService sut;
+    private MeterRegistry meterRegistry;
+    private JakdukProperties.Home homeProperties;
+    private AtomicInteger loadCount;
+    private Supplier<HomeLatestItemsResponse> loader;
+
+    @Before
+    public void setUp() {
+        homeProperties = new JakdukProperties().new Home();
+        homeProperties.setLatestItemsCacheTtlMillis(60000L);
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new HomeService();
+        ReflectionTestUtils.setField(sut, "homeProperties", homeProperties);
+        ReflectionTestUtils.setField(sut, "meterRegistry", meterRegistry);
+        sut.init();
+
+        loadCount = new AtomicInteger();
+        loader = () -> {
+            loadCount.incrementAndGet();
+
+            HomeLatestItemsResponse response = new HomeLatestItemsResponse();
+            response.setHomeDescription(new HomeDescription());
+
+            return response;
+        };
+    }
+
+    @Test
+    public void hitAfterFirstLoad() {
+        HomeLatestItemsResponse first = sut.getLatestItems("ko", loader);
+        HomeLatestItemsResponse second = sut.getLatestItems("ko", loader);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals(1.0, this.count("hit"), 0);
+        Assert.assertEquals(1.0, this.count("miss"), 0);
+    }
+
+    @Test
+    public void cachePerLanguage() {
+        sut.getLatestItems("ko", loader);
+        sut.getLatestItems("en", loader);
+        sut.getLatestItems("en", loader);
+
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void loadAgainAfterEviction() {
+        sut.getLatestItems("ko", loader);
+        sut.evictLatestItems();
+        sut.getLatestItems("ko", loader);
+
+        Assert.assertEquals(2, loadCount.get());
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.home.latest.cache.evictions").counter().count(), 0);
+    }
+
+    @Test
+    public void notCacheWhenEvictedWhileLoading() {
+        sut.getLatestItems("ko", () -> {
+            sut.evictLatestItems();
+            return loader.get();
+        });
+
+        sut.getLatestItems("ko", loader);
+
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void loadAgainAfterTtl() {
+        homeProperties.setLatestItemsCacheTtlMillis(0L);
+
+        sut.getLatestItems("ko", loader);
+        sut.getLatestItems("ko", loader);
+
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("jakduk.home.latest.cache").tag("result", result).counter().count();
+    }
+
+}
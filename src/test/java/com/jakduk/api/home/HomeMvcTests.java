@@ -6,6 +6,7 @@ import com.jakduk.api.common.board.category.BoardCategory;
 import com.jakduk.api.common.board.category.BoardCategoryGenerator;
 import com.jakduk.api.common.util.JakdukUtils;
 import com.jakduk.api.common.util.ObjectMapperUtils;
+import com.jakduk.api.configuration.AsyncConfig;
 import com.jakduk.api.model.db.Encyclopedia;
 import com.jakduk.api.model.db.HomeDescription;
 import com.jakduk.api.model.embedded.ArticleStatus;
@@ -40,19 +41,23 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.contains;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.mockmvc.RestDocumentationRequestBuilders.get;
 import static org.springframework.restdocs.payload.PayloadDocumentation.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(HomeRestController.class)
-@Import({TestMvcConfig.class})
+@Import({TestMvcConfig.class, AsyncConfig.class})
 @AutoConfigureRestDocs(outputDir = "build/snippets")
 public class HomeMvcTests {
 
@@ -184,6 +189,9 @@ public class HomeMvcTests {
         when(galleryService.findSimpleById(nullable(ObjectId.class), anyInt()))
                 .thenReturn(galleries);
 
+        when(homeService.getLatestItems(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<HomeLatestItemsResponse>>getArgument(1).get());
+
         HomeLatestItemsResponse response = new HomeLatestItemsResponse();
         response.setHomeDescription(homeDescription);
         response.setUsers(users);
@@ -228,8 +236,47 @@ public class HomeMvcTests {
                                 fieldWithPath("galleries.[].name").type(JsonFieldType.STRING).description("사진 이름"),
                                 subsectionWithPath("galleries.[].writer").type(JsonFieldType.OBJECT).description("사진 올린이"),
                                 fieldWithPath("galleries.[].imageUrl").type(JsonFieldType.STRING).description("큰 사진 URL"),
-                                fieldWithPath("galleries.[].thumbnailUrl").type(JsonFieldType.STRING).description("작은 사진 URL")
+                                fieldWithPath("galleries.[].thumbnailUrl").type(JsonFieldType.STRING).description("작은 사진 URL"),
+                                fieldWithPath("partial").type(JsonFieldType.BOOLEAN).optional().description("시간 안에 가져오지 못한 섹션이 있으면 true"),
+                                fieldWithPath("failedSections").type(JsonFieldType.ARRAY).optional().description("가져오지 못한 섹션 목록")
                         )
                 ));
     }
+
+    @Test
+    @WithMockUser
+    public void getLatestItemsPartialTest() throws Exception {
+
+        HomeDescription homeDescription = new HomeDescription();
+        homeDescription.setId("55875f3784ae8ca220de4956");
+        homeDescription.setDesc("알림판");
+        homeDescription.setPriority(5);
+
+        when(homeService.getHomeDescription())
+                .thenReturn(homeDescription);
+
+        when(userService.findSimpleUsers())
+                .thenThrow(new IllegalStateException("users section failed"));
+
+        when(articleService.getLatestComments())
+                .thenReturn(Collections.emptyList());
+
+        when(articleService.getLatestArticles())
+                .thenReturn(Collections.emptyList());
+
+        when(galleryService.findSimpleById(nullable(ObjectId.class), anyInt()))
+                .thenReturn(Collections.emptyList());
+
+        when(homeService.getLatestItems(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<HomeLatestItemsResponse>>getArgument(1).get());
+
+        mvc.perform(
+                get("/api/home/latest")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.partial").value(true))
+                .andExpect(jsonPath("$.failedSections", contains("users")))
+                .andExpect(jsonPath("$.users").doesNotExist())
+                .andExpect(jsonPath("$.homeDescription.desc").value("알림판"));
+    }
 }
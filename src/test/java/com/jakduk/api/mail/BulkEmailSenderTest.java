@@ -0,0 +1,171 @@
+package com.jakduk.api.mail;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.*;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.*;
+
+/**
+ * 메일 묶음을 SMTP 연결 하나로 보내고, 속도 제한과 메일 별 실패를 지키는지 확인한다.
+ * SMTP 서버 대신 같은 프로세스의 Transport 를 smtp provider 로 등록해서 연결과 보낸 메일을 센다.
+ */
+public class BulkEmailSenderTest {
+
+    private BulkEmailSender sut;
+    private JakdukProperties.EmailSender emailSenderProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private Session session;
+
+    @Before
+    public void setUp() throws Exception {
+        RecordingTransport.reset();
+
+        session = Session.getInstance(new Properties());
+        session.setProvider(new Provider(Provider.Type.TRANSPORT, "smtp", RecordingTransport.class.getName(), "jakduk", "test"));
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setSession(session);
+        mailSender.setHost("localhost");
+
+        emailSenderProperties = new JakdukProperties().new EmailSender();
+        emailSenderProperties.setSendRatePerSecond(0D);
+        emailSenderProperties.setMaxMessagesPerConnection(100);
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new BulkEmailSender();
+        ReflectionTestUtils.setField(sut, "emailSenderProperties", emailSenderProperties);
+        ReflectionTestUtils.setField(sut, "mailSender", mailSender);
+        ReflectionTestUtils.setField(sut, "meterRegistry", meterRegistry);
+        sut.init();
+    }
+
+    @Test
+    public void reuseOneConnection() throws Exception {
+        List<BulkEmailSender.Result> results = sut.send(this.newMessages(50));
+
+        Assert.assertEquals(Collections.nCopies(50, BulkEmailSender.Result.SENT), results);
+        Assert.assertEquals(1, RecordingTransport.connects);
+        Assert.assertEquals(50, RecordingTransport.recipients.size());
+        Assert.assertEquals("user0@jakduk.com", RecordingTransport.recipients.get(0));
+    }
+
+    @Test
+    public void reconnectAfterMaxMessages() throws Exception {
+        emailSenderProperties.setMaxMessagesPerConnection(20);
+
+        sut.send(this.newMessages(50));
+
+        Assert.assertEquals(3, RecordingTransport.connects);
+        Assert.assertEquals(50, RecordingTransport.recipients.size());
+    }
+
+    @Test
+    public void failuresPerRecipient() throws Exception {
+        RecordingTransport.invalid.add("user1@jakduk.com");
+        RecordingTransport.disconnect.add("user3@jakduk.com");
+
+        List<BulkEmailSender.Result> results = sut.send(this.newMessages(5));
+
+        Assert.assertEquals(Arrays.asList(BulkEmailSender.Result.SENT, BulkEmailSender.Result.REJECTED, BulkEmailSender.Result.SENT,
+                BulkEmailSender.Result.RETRY, BulkEmailSender.Result.SENT), results);
+
+        // 연결이 끊긴 뒤에는 다시 연결해서 나머지를 보낸다.
+        Assert.assertEquals(2, RecordingTransport.connects);
+        Assert.assertEquals(Arrays.asList("user0@jakduk.com", "user2@jakduk.com", "user4@jakduk.com"), RecordingTransport.recipients);
+        Assert.assertEquals(1D, meterRegistry.get("jakduk.email.sent").tag("result", "rejected").counter().count(), 0);
+        Assert.assertEquals(1D, meterRegistry.get("jakduk.email.sent").tag("result", "retry").counter().count(), 0);
+    }
+
+    @Test
+    public void mailServerUnavailable() throws Exception {
+        RecordingTransport.refuseConnect = true;
+
+        List<BulkEmailSender.Result> results = sut.send(this.newMessages(3));
+
+        Assert.assertEquals(Collections.nCopies(3, BulkEmailSender.Result.UNAVAILABLE), results);
+        Assert.assertEquals(0, RecordingTransport.recipients.size());
+        Assert.assertEquals(3D, meterRegistry.get("jakduk.email.sent").tag("result", "unavailable").counter().count(), 0);
+    }
+
+    @Test
+    public void sendRate() throws Exception {
+        emailSenderProperties.setSendRatePerSecond(100D);
+
+        // 처음 하나는 바로 보내고, 나머지 10개는 10ms 간격으로 보낸다.
+        sut.send(this.newMessages(1));
+        long start = System.nanoTime();
+        sut.send(this.newMessages(10));
+        long tookMillis = (System.nanoTime() - start) / 1000000;
+
+        Assert.assertTrue("took=" + tookMillis, tookMillis >= 90);
+    }
+
+    private List<MimeMessage> newMessages(int size) throws MessagingException {
+        List<MimeMessage> messages = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            MimeMessage message = new MimeMessage(session);
+            message.setRecipient(Message.RecipientType.TO, new InternetAddress("user" + i + "@jakduk.com"));
+            message.setSubject("K리그 작두왕 공지", "UTF-8");
+            message.setText("공지 본문", "UTF-8");
+            messages.add(message);
+        }
+
+        return messages;
+    }
+
+    public static class RecordingTransport extends Transport {
+
+        static int connects;
+        static List<String> recipients;
+        static Set<String> invalid;
+        static Set<String> disconnect;
+        static boolean refuseConnect;
+
+        public RecordingTransport(Session session, URLName urlName) {
+            super(session, urlName);
+        }
+
+        static void reset() {
+            connects = 0;
+            recipients = new ArrayList<>();
+            invalid = new HashSet<>();
+            disconnect = new HashSet<>();
+            refuseConnect = false;
+        }
+
+        @Override
+        protected boolean protocolConnect(String host, int port, String user, String password) throws MessagingException {
+            if (refuseConnect)
+                throw new MessagingException("Connection refused");
+
+            connects++;
+            return true;
+        }
+
+        @Override
+        public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+            String recipient = addresses[0].toString();
+
+            if (invalid.contains(recipient))
+                throw new SendFailedException("550 no such user", null, new Address[0], new Address[0], addresses);
+
+            if (disconnect.contains(recipient)) {
+                this.setConnected(false);
+                throw new MessagingException("421 closing connection");
+            }
+
+            recipients.add(recipient);
+        }
+    }
+
+}
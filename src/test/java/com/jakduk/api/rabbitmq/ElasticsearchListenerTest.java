@@ -0,0 +1,373 @@
+package com.jakduk.api.rabbitmq;
+
+import com.jakduk.api.common.rabbitmq.MessageCodecs;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.MessageCodec;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import com.jakduk.api.listener.ElasticsearchListener;
+import com.jakduk.api.service.SearchService;
+import com.rabbitmq.client.Channel;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.client.transport.NoNodeAvailableException;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 색인 메시지 burst 를 재생해서 bulk 요청 횟수와 ack, retry, dead letter 동작을 확인한다.
+ * 엘라스틱서치 노드 대신 요청 한번에 ROUND_TRIP_MILLIS 가 걸리는 SearchService 로 대신한다.
+ */
+public class ElasticsearchListenerTest {
+
+    private static final String ROUTING_KEY = "dev.elasticsearch.delete-document-article";
+    private static final long ROUND_TRIP_MILLIS = 2;
+    private static final int BURST_SIZE = 1000;
+
+    private ElasticsearchListener sut;
+    private SearchService searchService;
+    private RabbitTemplate rabbitTemplate;
+    private Channel channel;
+    private RabbitMQ queueProperties;
+    private MessageCodecs messageCodecs;
+
+    @Before
+    public void setUp() {
+        queueProperties = new RabbitMQ();
+        queueProperties.setBindingQueueName("dev.elasticsearch");
+        queueProperties.setBatchSize(100);
+        queueProperties.setMaxRetries(3);
+        queueProperties.setRetryBackoffMillis(50L);
+        queueProperties.setMaxRetryBackoffMillis(1000L);
+        queueProperties.setMaxPending(1000);
+
+        JakdukProperties.Rabbitmq rabbitmqProperties = new JakdukProperties().new Rabbitmq();
+        rabbitmqProperties.setExchangeName("jakduk-dev");
+        rabbitmqProperties.getQueues().put("elasticsearch", queueProperties);
+        rabbitmqProperties.getRoutingKeys().put("elasticsearch-delete-document-article", ROUTING_KEY);
+
+        messageCodecs = new MessageCodecs();
+        ReflectionTestUtils.setField(messageCodecs, "rabbitmqProperties", rabbitmqProperties);
+
+        searchService = mock(SearchService.class);
+        when(searchService.getDeleteDocumentBoardRequest(anyString())).thenAnswer(invocation ->
+                new DeleteRequest("jakduk_dev_board", "article", invocation.getArgument(0)));
+        rabbitTemplate = mock(RabbitTemplate.class);
+        channel = mock(Channel.class);
+
+        sut = new ElasticsearchListener();
+        ReflectionTestUtils.setField(sut, "rabbitmqProperties", rabbitmqProperties);
+        ReflectionTestUtils.setField(sut, "searchService", searchService);
+        ReflectionTestUtils.setField(sut, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(sut, "messageCodecs", messageCodecs);
+        sut.init();
+    }
+
+    @Test
+    public void replayBurst() throws Exception {
+        AtomicInteger roundTrips = this.givenBulkResponses(index -> false);
+
+        queueProperties.setBatchSize(1);
+        this.replay(BURST_SIZE);
+
+        Assert.assertEquals(BURST_SIZE, roundTrips.getAndSet(0));
+
+        queueProperties.setBatchSize(100);
+        this.replay(BURST_SIZE);
+
+        Assert.assertEquals(BURST_SIZE / 100, roundTrips.get());
+        verify(channel, times(BURST_SIZE * 2)).basicAck(anyLong(), eq(false));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    @Test
+    public void flushPartialBatch() throws Exception {
+        AtomicInteger roundTrips = this.givenBulkResponses(index -> false);
+
+        this.replay(10);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+
+        sut.flush();
+
+        Assert.assertEquals(1, roundTrips.get());
+        verify(channel, times(10)).basicAck(anyLong(), eq(false));
+    }
+
+    @Test
+    public void retryFailedItem() throws Exception {
+        this.givenBulkResponses(index -> index == 3);
+
+        queueProperties.setBatchSize(5);
+        this.replay(5);
+
+        verify(channel, times(5)).basicAck(anyLong(), eq(false));
+        verify(rabbitTemplate).send(eq("jakduk-dev"), eq(ROUTING_KEY),
+                argThat(message -> Integer.valueOf(1).equals(message.getMessageProperties().getHeaders().get("x-retry-count"))));
+    }
+
+    @Test
+    public void deadLetterAfterMaxRetries() throws Exception {
+        this.givenBulkResponses(index -> true);
+
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setHeader("x-retry-count", 3);
+
+        sut.receive(new Message("\"5a2b3c4d5e6f7a8b9c0d1e2f\"".getBytes(), messageProperties), channel, 1L, ROUTING_KEY);
+        sut.flush();
+
+        verify(rabbitTemplate).send(eq("dev.elasticsearch.dead-letter"), any(Message.class));
+        verify(channel).basicAck(1L, false);
+    }
+
+    /**
+     * 같은 묶음 안에 같은 문서의 나중 요청이 있으면 실패한 요청을 다시 보내지 않는다.
+     */
+    @Test
+    public void skipRetrySupersededInSameBatch() throws Exception {
+        this.givenBulkResponses(index -> index == 0);
+
+        queueProperties.setBatchSize(2);
+        sut.receive(new Message("\"5a2b3c4d5e6f7a8b9c0d1e2f\"".getBytes(), new MessageProperties()), channel, 1L, ROUTING_KEY);
+        sut.receive(new Message("\"5a2b3c4d5e6f7a8b9c0d1e2f\"".getBytes(), new MessageProperties()), channel, 2L, ROUTING_KEY);
+
+        verify(channel).basicAck(1L, false);
+        verify(channel).basicAck(2L, false);
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    /**
+     * 다시 발행한 요청이 돌아오기 전에 같은 문서의 나중 요청을 받았으면, 돌아온 요청은 보내지 않고 ack 한다.
+     */
+    @Test
+    public void skipRepublishedRetrySuperseded() throws Exception {
+        AtomicInteger items = new AtomicInteger();
+        AtomicInteger roundTrips = this.givenBulkResponses(index -> items.getAndIncrement() == 0);
+
+        queueProperties.setBatchSize(1);
+        sut.receive(new Message("\"5a2b3c4d5e6f7a8b9c0d1e2f\"".getBytes(), new MessageProperties()), channel, 1L, ROUTING_KEY);
+
+        ArgumentCaptor<Message> republished = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq("jakduk-dev"), eq(ROUTING_KEY), republished.capture());
+
+        sut.receive(new Message("\"5a2b3c4d5e6f7a8b9c0d1e2f\"".getBytes(), new MessageProperties()), channel, 2L, ROUTING_KEY);
+        sut.receive(republished.getValue(), channel, 3L, ROUTING_KEY);
+
+        Assert.assertEquals(2, roundTrips.get());
+        verify(channel).basicAck(3L, false);
+        verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class));
+    }
+
+    @Test
+    public void requeueWhenRepublishFails() throws Exception {
+        this.givenBulkResponses(index -> true);
+        doThrow(new AmqpException("broker is down")).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        sut.receive(new Message("\"5a2b3c4d5e6f7a8b9c0d1e2f\"".getBytes(), new MessageProperties()), channel, 1L, ROUTING_KEY);
+        sut.flush();
+
+        verify(channel).basicNack(1L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void requeueWhenDeadLetterFails() throws Exception {
+        doThrow(new AmqpException("broker is down")).when(rabbitTemplate).send(anyString(), any(Message.class));
+
+        sut.receive(new Message("{}".getBytes(), new MessageProperties()), channel, 1L, "dev.elasticsearch.unknown");
+
+        verify(channel).basicNack(1L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    /**
+     * 엘라스틱서치가 통째로 안 되면 retry 로 세지 않고 쥐고 있다가, 쉬는 시간이 지난 뒤에 다시 보낸다.
+     */
+    @Test
+    public void backOffWhileUnavailable() throws Exception {
+        AtomicInteger roundTrips = new AtomicInteger();
+
+        when(searchService.executeBulk(any())).thenAnswer(invocation -> {
+            if (roundTrips.incrementAndGet() <= 5)
+                throw new NoNodeAvailableException("None of the configured nodes are available");
+
+            List<DocWriteRequest<?>> requests = invocation.getArgument(0);
+            BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+
+            for (int i = 0; i < items.length; i++)
+                items[i] = new BulkItemResponse(i, DocWriteRequest.OpType.DELETE, (org.elasticsearch.action.DocWriteResponse) null);
+
+            return new BulkResponse(items, ROUND_TRIP_MILLIS);
+        });
+
+        queueProperties.setBatchSize(5);
+        this.replay(5);
+
+        // 쉬는 동안에는 bulk 요청을 보내지 않는다.
+        sut.flush();
+        sut.flush();
+        Assert.assertEquals(1, roundTrips.get());
+
+        // max-retries 보다 많이 실패해도 dead letter 큐로 보내지 않는다.
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (roundTrips.get() <= 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            sut.flush();
+        }
+
+        Assert.assertEquals(6, roundTrips.get());
+        verify(channel, times(5)).basicAck(anyLong(), eq(false));
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        verify(rabbitTemplate, never()).send(anyString(), any(Message.class));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    /**
+     * 엘라스틱서치가 안 되는 동안 같은 프로세스에서 오는 요청은 max-pending 까지만 받는다.
+     */
+    @Test
+    public void rejectInProcessWhenFull() throws Exception {
+        when(searchService.executeBulk(any())).thenThrow(new NoNodeAvailableException("None of the configured nodes are available"));
+
+        queueProperties.setBatchSize(2);
+        queueProperties.setMaxPending(3);
+
+        for (int i = 0; i < 3; i++)
+            sut.receive(ROUTING_KEY, "5a2b3c4d5e6f7a8b9c0d1e2f");
+
+        try {
+            sut.receive(ROUTING_KEY, "5a2b3c4d5e6f7a8b9c0d1e2f");
+            Assert.fail("pending messages should be full");
+        } catch (RejectedExecutionException ignored) {
+        }
+
+        verify(searchService, times(1)).executeBulk(any());
+    }
+
+    @Test
+    public void deadLetterUnknownRoutingKey() throws Exception {
+        sut.receive(new Message("{}".getBytes(), new MessageProperties()), channel, 1L, "dev.elasticsearch.unknown");
+
+        verify(searchService, never()).executeBulk(any());
+        verify(rabbitTemplate).send(eq("dev.elasticsearch.dead-letter"), any(Message.class));
+        verify(channel).basicAck(1L, false);
+    }
+
+    @Test
+    public void dispatchByRoutingKey() throws Exception {
+        JakdukProperties.Rabbitmq rabbitmqProperties = (JakdukProperties.Rabbitmq) ReflectionTestUtils.getField(sut, "rabbitmqProperties");
+        rabbitmqProperties.getRoutingKeys().put("elasticsearch-delete-document-gallery", "dev.elasticsearch.delete-document-gallery");
+        sut.init();
+
+        this.givenBulkResponses(index -> false);
+
+        sut.receive(new Message("\"5a2b3c4d5e6f7a8b9c0d1e2f\"".getBytes(), new MessageProperties()), channel, 1L,
+                "dev.elasticsearch.delete-document-gallery");
+        sut.flush();
+
+        verify(searchService).getDeleteDocumentGalleryRequest("5a2b3c4d5e6f7a8b9c0d1e2f");
+        verify(searchService, never()).getDeleteDocumentBoardRequest(anyString());
+        verify(channel).basicAck(1L, false);
+    }
+
+    @Test
+    public void concurrentConsumers() throws Exception {
+        AtomicInteger roundTrips = this.givenBulkResponses(index -> false);
+
+        int consumers = 4;
+        Thread[] threads = new Thread[consumers];
+
+        for (int i = 0; i < consumers; i++) {
+            threads[i] = new Thread(() -> this.replay(BURST_SIZE / consumers));
+            threads[i].start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        sut.flush();
+
+        Assert.assertEquals(BURST_SIZE / 100, roundTrips.get());
+        verify(channel, times(BURST_SIZE)).basicAck(anyLong(), eq(false));
+    }
+
+    @Test
+    public void readCompressedSmileMessage() throws Exception {
+        this.givenBulkResponses(index -> false);
+
+        queueProperties.setCodec(MessageCodec.SMILE);
+        queueProperties.setCompressThresholdBytes(0);
+
+        sut.receive(messageCodecs.toMessage("elasticsearch", "5a2b3c4d5e6f7a8b9c0d1e2f"), channel, 1L, ROUTING_KEY);
+        sut.flush();
+
+        verify(searchService).getDeleteDocumentBoardRequest("5a2b3c4d5e6f7a8b9c0d1e2f");
+        verify(channel).basicAck(1L, false);
+    }
+
+    @Test
+    public void inProcessRetryThenDrop() throws Exception {
+        AtomicInteger roundTrips = this.givenBulkResponses(index -> true);
+
+        sut.receive(ROUTING_KEY, "5a2b3c4d5e6f7a8b9c0d1e2f");
+
+        for (int i = 0; i < 5; i++)
+            sut.flush();
+
+        // 처음 한번과 max-retries 번
+        Assert.assertEquals(4, roundTrips.get());
+        verify(searchService).getDeleteDocumentBoardRequest("5a2b3c4d5e6f7a8b9c0d1e2f");
+        verify(rabbitTemplate, never()).send(anyString(), any(Message.class));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    private void replay(int count) {
+        for (int i = 0; i < count; i++) {
+            Message message = new Message(String.format("\"5a2b3c4d5e6f7a8b9c%06x\"", i).getBytes(), new MessageProperties());
+            sut.receive(message, channel, i, ROUTING_KEY);
+        }
+    }
+
+    /**
+     * bulk 요청 한번에 ROUND_TRIP_MILLIS 가 걸리고, isFailed 가 true 인 순서의 item 은 실패로 응답한다.
+     */
+    private AtomicInteger givenBulkResponses(IntPredicate isFailed) {
+        AtomicInteger roundTrips = new AtomicInteger();
+
+        when(searchService.executeBulk(any())).thenAnswer(invocation -> {
+            List<DocWriteRequest<?>> requests = invocation.getArgument(0);
+            roundTrips.incrementAndGet();
+            Thread.sleep(ROUND_TRIP_MILLIS);
+
+            BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+
+            for (int i = 0; i < items.length; i++) {
+                items[i] = isFailed.test(i)
+                        ? new BulkItemResponse(i, DocWriteRequest.OpType.DELETE,
+                                new BulkItemResponse.Failure("jakduk_dev_board", "article", null, new IllegalStateException("test")))
+                        : new BulkItemResponse(i, DocWriteRequest.OpType.DELETE, (org.elasticsearch.action.DocWriteResponse) null);
+            }
+
+            return new BulkResponse(items, ROUND_TRIP_MILLIS);
+        });
+
+        return roundTrips;
+    }
+
+}
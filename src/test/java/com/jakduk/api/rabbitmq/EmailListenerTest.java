@@ -0,0 +1,198 @@
+package com.jakduk.api.rabbitmq;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.rabbitmq.MessageCodecs;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import com.jakduk.api.listener.EmailListener;
+import com.jakduk.api.mail.BulkEmailSender;
+import com.jakduk.api.mail.EmailService;
+import com.jakduk.api.model.rabbitmq.EmailPayload;
+import com.rabbitmq.client.Channel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 메일을 batch-size 만큼 모아 보내고, 실패한 메일만 다시 보낸 뒤 ack 하는지 확인한다.
+ * 메일 서버가 안 될 때는 retry 로 세지 않고 쉬었다가 보내는지, 끝내 못 보낸 메일은 dead letter 큐로 가는지 확인한다.
+ */
+public class EmailListenerTest {
+
+    private EmailListener sut;
+    private EmailService emailService;
+    private BulkEmailSender bulkEmailSender;
+    private MessageCodecs messageCodecs;
+    private Channel channel;
+    private RabbitTemplate rabbitTemplate;
+    private RabbitMQ queueProperties;
+
+    @Before
+    public void setUp() throws Exception {
+        queueProperties = new RabbitMQ();
+        queueProperties.setBindingQueueName("dev.email");
+        queueProperties.setBatchSize(2);
+        queueProperties.setMaxRetries(1);
+        queueProperties.setRetryBackoffMillis(50L);
+        queueProperties.setMaxRetryBackoffMillis(1000L);
+        queueProperties.setMaxPending(10);
+
+        JakdukProperties.Rabbitmq rabbitmqProperties = new JakdukProperties().new Rabbitmq();
+        rabbitmqProperties.getQueues().put("email", queueProperties);
+
+        messageCodecs = new MessageCodecs();
+        ReflectionTestUtils.setField(messageCodecs, "rabbitmqProperties", rabbitmqProperties);
+
+        emailService = mock(EmailService.class);
+        bulkEmailSender = mock(BulkEmailSender.class);
+        channel = mock(Channel.class);
+        rabbitTemplate = mock(RabbitTemplate.class);
+
+        Session session = Session.getInstance(new Properties());
+        when(emailService.createMessage(any())).thenAnswer(invocation -> new MimeMessage(session));
+
+        sut = new EmailListener();
+        ReflectionTestUtils.setField(sut, "rabbitmqProperties", rabbitmqProperties);
+        ReflectionTestUtils.setField(sut, "emailService", emailService);
+        ReflectionTestUtils.setField(sut, "bulkEmailSender", bulkEmailSender);
+        ReflectionTestUtils.setField(sut, "messageCodecs", messageCodecs);
+        ReflectionTestUtils.setField(sut, "rabbitTemplate", rabbitTemplate);
+    }
+
+    @Test
+    public void retryOnlyFailedRecipient() throws Exception {
+        when(bulkEmailSender.send(anyList()))
+                .thenReturn(Arrays.asList(BulkEmailSender.Result.SENT, BulkEmailSender.Result.RETRY))
+                .thenReturn(Collections.singletonList(BulkEmailSender.Result.SENT));
+
+        sut.receive(this.newMessage("user1@jakduk.com"), channel, 1L);
+        verify(bulkEmailSender, never()).send(anyList());
+
+        sut.receive(this.newMessage("user2@jakduk.com"), channel, 2L);
+        verify(channel).basicAck(1L, false);
+        verify(channel, never()).basicAck(eq(2L), anyBoolean());
+
+        sut.flush();
+
+        verify(bulkEmailSender, times(2)).send(anyList());
+        verify(channel).basicAck(2L, false);
+        verify(emailService, times(2)).createMessage(any());
+        verify(emailService, times(2)).afterSent(any());
+    }
+
+    @Test
+    public void deadLetterAfterRetries() throws Exception {
+        when(bulkEmailSender.send(anyList())).thenReturn(Collections.singletonList(BulkEmailSender.Result.RETRY));
+
+        Message message = this.newMessage("user1@jakduk.com");
+        sut.receive(message, channel, 1L);
+        sut.flush();
+        sut.flush();
+
+        verify(bulkEmailSender, times(2)).send(anyList());
+        verify(rabbitTemplate).send("dev.email.dead-letter", message);
+        verify(channel).basicAck(1L, false);
+        verify(channel, never()).basicReject(anyLong(), anyBoolean());
+        verify(emailService, never()).afterSent(any());
+    }
+
+    @Test
+    public void deadLetterRejectedRecipient() throws Exception {
+        when(bulkEmailSender.send(anyList())).thenReturn(Collections.singletonList(BulkEmailSender.Result.REJECTED));
+
+        sut.receive(this.newMessage("nobody@jakduk.com"), channel, 1L);
+        sut.flush();
+
+        verify(rabbitTemplate).send(eq("dev.email.dead-letter"), any(Message.class));
+        verify(channel).basicAck(1L, false);
+    }
+
+    @Test
+    public void requeueWhenDeadLetterFails() throws Exception {
+        when(bulkEmailSender.send(anyList())).thenReturn(Collections.singletonList(BulkEmailSender.Result.REJECTED));
+        doThrow(new AmqpException("broker is down")).when(rabbitTemplate).send(anyString(), any(Message.class));
+
+        sut.receive(this.newMessage("nobody@jakduk.com"), channel, 1L);
+        sut.flush();
+
+        verify(channel).basicNack(1L, false, true);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    }
+
+    /**
+     * 메일 서버에 연결할 수 없으면 max-retries 보다 많이 실패해도 버리지 않고, 쉬는 시간이 지난 뒤에 다시 보낸다.
+     */
+    @Test
+    public void backOffWhileMailServerUnavailable() throws Exception {
+        AtomicInteger sends = new AtomicInteger();
+
+        when(bulkEmailSender.send(anyList())).thenAnswer(invocation -> sends.incrementAndGet() <= 3
+                ? Collections.nCopies(2, BulkEmailSender.Result.UNAVAILABLE)
+                : Collections.nCopies(2, BulkEmailSender.Result.SENT));
+
+        sut.receive(this.newMessage("user1@jakduk.com"), channel, 1L);
+        sut.receive(this.newMessage("user2@jakduk.com"), channel, 2L);
+
+        // 쉬는 동안에는 보내지 않는다.
+        sut.flush();
+        Assert.assertEquals(1, sends.get());
+
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (sends.get() <= 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            sut.flush();
+        }
+
+        Assert.assertEquals(4, sends.get());
+        verify(channel).basicAck(1L, false);
+        verify(channel).basicAck(2L, false);
+        verify(rabbitTemplate, never()).send(anyString(), any(Message.class));
+        verify(emailService, times(2)).createMessage(any());
+    }
+
+    /**
+     * 메일 서버가 안 되는 동안 같은 프로세스에서 오는 메일은 max-pending 까지만 받는다.
+     */
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectInProcessWhenFull() throws Exception {
+        when(bulkEmailSender.send(anyList())).thenReturn(Collections.nCopies(2, BulkEmailSender.Result.UNAVAILABLE));
+        queueProperties.setMaxPending(2);
+
+        sut.receive(this.newPayload("user1@jakduk.com"));
+        sut.receive(this.newPayload("user2@jakduk.com"));
+        sut.receive(this.newPayload("user3@jakduk.com"));
+    }
+
+    private Message newMessage(String recipientEmail) {
+        return messageCodecs.toMessage("email", this.newPayload(recipientEmail));
+    }
+
+    private EmailPayload newPayload(String recipientEmail) {
+        EmailPayload emailPayload = new EmailPayload();
+        emailPayload.setLocale(Locale.KOREAN);
+        emailPayload.setType(Constants.EMAIL_TYPE.BULK);
+        emailPayload.setTemplateName("mail/bulk01");
+        emailPayload.setRecipientEmail(recipientEmail);
+        emailPayload.setSubject("K리그 작두왕 공지");
+
+        return emailPayload;
+    }
+
+}
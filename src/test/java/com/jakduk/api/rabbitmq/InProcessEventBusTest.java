@@ -0,0 +1,229 @@
+package com.jakduk.api.rabbitmq;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.eventbus.InProcessEventBus;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.listener.ElasticsearchListener;
+import com.jakduk.api.listener.EmailListener;
+import com.jakduk.api.model.elasticsearch.EsArticle;
+import com.jakduk.api.model.rabbitmq.EmailPayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 꺼둔 큐의 메시지를 같은 프로세스의 리스너로 넘기고, 큐가 다 찼을 때 overflow-policy 대로 처리하는지 확인한다.
+ * 리스너 스레드 하나, 큐 한 칸으로 만들고 첫 메시지에서 리스너를 세워 큐를 채운다.
+ */
+public class InProcessEventBusTest {
+
+    private static final String ROUTING_KEY = "dev.elasticsearch.delete-document-article";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private InProcessEventBus sut;
+    private JakdukProperties.EventBus eventBusProperties;
+    private ElasticsearchListener elasticsearchListener;
+    private EmailListener emailListener;
+    private SimpleMeterRegistry meterRegistry;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Object> delivered = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        eventBusProperties = new JakdukProperties().new EventBus();
+        eventBusProperties.setEnabled(true);
+        eventBusProperties.setPoolSize(1);
+        eventBusProperties.setQueueCapacity(1);
+        eventBusProperties.setBlockTimeoutMillis(100L);
+        eventBusProperties.setSpillPath(temporaryFolder.getRoot().getAbsolutePath());
+
+        elasticsearchListener = mock(ElasticsearchListener.class);
+        emailListener = mock(EmailListener.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        // "block" 을 받으면 release 될 때까지 리스너 스레드를 세운다.
+        doAnswer(invocation -> {
+            Object payload = invocation.getArgument(1);
+
+            if ("block".equals(payload)) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+
+            delivered.add(payload);
+            return null;
+        }).when(elasticsearchListener).receive(anyString(), any(Object.class));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        sut.shutdown();
+    }
+
+    @Test
+    public void deliverToListeners() throws Exception {
+        this.start(Constants.EVENT_BUS_OVERFLOW_POLICY.BLOCK);
+
+        EsArticle esArticle = new EsArticle();
+        esArticle.setId("595bb024290ad3035636f2ba");
+
+        EmailPayload emailPayload = new EmailPayload();
+        emailPayload.setType(Constants.EMAIL_TYPE.WELCOME);
+
+        sut.publish("elasticsearch", "dev.elasticsearch.index-document-article", esArticle);
+        sut.publish("email", "dev.email.welcome", emailPayload);
+
+        verify(elasticsearchListener, timeout(1000)).receive("dev.elasticsearch.index-document-article", esArticle);
+        verify(emailListener, timeout(1000)).receive(emailPayload);
+    }
+
+    @Test
+    public void blockThenDrop() throws Exception {
+        this.start(Constants.EVENT_BUS_OVERFLOW_POLICY.BLOCK);
+        this.fillQueue("queued");
+
+        long start = System.currentTimeMillis();
+        sut.publish("elasticsearch", ROUTING_KEY, "overflow");
+
+        Assert.assertTrue(System.currentTimeMillis() - start >= 100);
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.event-bus.overflow").tag("action", "dropped").counter().count(), 0);
+
+        release.countDown();
+        verify(elasticsearchListener, timeout(1000).times(2)).receive(anyString(), any(Object.class));
+        Assert.assertFalse(delivered.contains("overflow"));
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        this.start(Constants.EVENT_BUS_OVERFLOW_POLICY.DROP_OLDEST);
+        this.fillQueue("oldest");
+
+        sut.publish("elasticsearch", ROUTING_KEY, "newest");
+
+        release.countDown();
+        verify(elasticsearchListener, timeout(1000)).receive(ROUTING_KEY, "newest");
+        verify(elasticsearchListener, never()).receive(ROUTING_KEY, "oldest");
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.event-bus.overflow").tag("action", "dropped").counter().count(), 0);
+    }
+
+    @Test
+    public void spillAndRestore() throws Exception {
+        this.start(Constants.EVENT_BUS_OVERFLOW_POLICY.SPILL);
+        this.fillQueue("queued");
+
+        EsArticle esArticle = new EsArticle();
+        esArticle.setId("595bb024290ad3035636f2ba");
+        esArticle.setSubject("subject01");
+
+        sut.publish("elasticsearch", "dev.elasticsearch.index-document-article", esArticle);
+
+        File spillFile = new File(temporaryFolder.getRoot(), "events.spill");
+        Assert.assertTrue(spillFile.exists());
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.event-bus.overflow").tag("action", "spilled").counter().count(), 0);
+
+        release.countDown();
+        verify(elasticsearchListener, timeout(1000).times(2)).receive(anyString(), any(Object.class));
+
+        sut.drainSpill();
+
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(elasticsearchListener, timeout(1000)).receive(eq("dev.elasticsearch.index-document-article"), payload.capture());
+
+        EsArticle restored = (EsArticle) payload.getValue();
+        Assert.assertEquals("595bb024290ad3035636f2ba", restored.getId());
+        Assert.assertEquals("subject01", restored.getSubject());
+        Assert.assertFalse(spillFile.exists());
+        Assert.assertFalse(new File(temporaryFolder.getRoot(), "events.spill.draining").exists());
+    }
+
+    /**
+     * 메일 서버가 안 돼서 리스너가 받지 않으면 BLOCK 은 기다렸다가 다시 넘긴다.
+     */
+    @Test
+    public void blockUntilListenerAccepts() throws Exception {
+        this.start(Constants.EVENT_BUS_OVERFLOW_POLICY.BLOCK);
+
+        EmailPayload emailPayload = new EmailPayload();
+        emailPayload.setType(Constants.EMAIL_TYPE.WELCOME);
+
+        doThrow(new RejectedExecutionException("full")).doNothing().when(emailListener).receive(emailPayload);
+
+        sut.publish("email", "dev.email.welcome", emailPayload);
+
+        verify(emailListener, timeout(1000).times(2)).receive(emailPayload);
+        verify(emailListener, after(200).times(2)).receive(emailPayload);
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.event-bus.events").tag("result", "delivered").counter().count(), 0);
+    }
+
+    /**
+     * 리스너가 계속 받지 않으면 SPILL 은 디스크에 적어두고, 나중에 다시 넘긴다.
+     */
+    @Test
+    public void spillWhenListenerIsFull() throws Exception {
+        this.start(Constants.EVENT_BUS_OVERFLOW_POLICY.SPILL);
+
+        EmailPayload emailPayload = new EmailPayload();
+        emailPayload.setType(Constants.EMAIL_TYPE.WELCOME);
+        emailPayload.setRecipientEmail("user1@jakduk.com");
+
+        doThrow(new RejectedExecutionException("full")).doNothing().when(emailListener).receive(any(EmailPayload.class));
+
+        sut.publish("email", "dev.email.welcome", emailPayload);
+
+        File spillFile = new File(temporaryFolder.getRoot(), "events.spill");
+        verify(emailListener, timeout(1000)).receive(any(EmailPayload.class));
+        Thread.sleep(100);
+        Assert.assertTrue(spillFile.exists());
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.event-bus.overflow").tag("action", "spilled").counter().count(), 0);
+
+        sut.drainSpill();
+
+        ArgumentCaptor<EmailPayload> payload = ArgumentCaptor.forClass(EmailPayload.class);
+        verify(emailListener, timeout(1000).times(2)).receive(payload.capture());
+        Assert.assertEquals("user1@jakduk.com", payload.getValue().getRecipientEmail());
+    }
+
+    private void start(Constants.EVENT_BUS_OVERFLOW_POLICY overflowPolicy) {
+        eventBusProperties.setOverflowPolicy(overflowPolicy);
+
+        sut = new InProcessEventBus();
+        ReflectionTestUtils.setField(sut, "eventBusProperties", eventBusProperties);
+        ReflectionTestUtils.setField(sut, "elasticsearchListener", elasticsearchListener);
+        ReflectionTestUtils.setField(sut, "emailListener", emailListener);
+        ReflectionTestUtils.setField(sut, "meterRegistry", meterRegistry);
+        sut.init();
+    }
+
+    /**
+     * 리스너 스레드를 세우고 큐 한 칸을 채운다.
+     */
+    private void fillQueue(String queued) throws InterruptedException {
+        sut.publish("elasticsearch", ROUTING_KEY, "block");
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        sut.publish("elasticsearch", ROUTING_KEY, queued);
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.event-bus.queue").gauge().value(), 0);
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.jakduk.api.rabbitmq;
+
+import com.jakduk.api.common.Constants;
+import com.jakduk.api.common.rabbitmq.MessageCodecs;
+import com.jakduk.api.common.util.JakdukUtils;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.MessageCodec;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import com.jakduk.api.model.elasticsearch.EsArticle;
+import com.jakduk.api.model.embedded.CommonWriter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 큐 별 codec 으로 만든 메시지를 헤더만 보고 다시 읽는지, 예전 JSON 메시지도 읽는지 확인하고 메시지 크기를 비교한다.
+ */
+public class MessageCodecsTest {
+
+    private static final String[] SENTENCES = {
+            "오늘 수원과 서울의 경기는 정말 치열했습니다.",
+            "후반 35분 교체로 들어간 공격수가 극장골을 넣었어요.",
+            "관중석 분위기가 대단했고 원정석도 꽉 찼습니다.",
+            "전반에는 점유율에서 밀렸지만 역습이 날카로웠습니다.",
+            "다음 주 전북 원정도 이 기세로 이겼으면 좋겠네요.",
+            "주심 판정에 대해서는 말이 많았지만 결과는 깔끔했습니다.",
+            "K League 1 Round 12, Suwon Samsung Bluewings vs FC Seoul, attendance 24,117.",
+            "골키퍼 선방이 없었다면 전반에 이미 두 골은 먹었을 겁니다."
+    };
+
+    private MessageCodecs sut;
+    private RabbitMQ queueProperties;
+
+    @Before
+    public void setUp() {
+        queueProperties = new RabbitMQ();
+
+        JakdukProperties.Rabbitmq rabbitmqProperties = new JakdukProperties().new Rabbitmq();
+        rabbitmqProperties.getQueues().put("elasticsearch", queueProperties);
+
+        sut = new MessageCodecs();
+        ReflectionTestUtils.setField(sut, "rabbitmqProperties", rabbitmqProperties);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        EsArticle esArticle = newEsArticle(20);
+
+        for (MessageCodec codec : MessageCodec.values()) {
+            for (Integer compressThresholdBytes : Arrays.asList(null, 1024)) {
+                queueProperties.setCodec(codec);
+                queueProperties.setCompressThresholdBytes(compressThresholdBytes);
+
+                Message message = sut.toMessage("elasticsearch", esArticle);
+                MessageProperties messageProperties = message.getMessageProperties();
+
+                Assert.assertEquals(codec.getContentType(), messageProperties.getContentType());
+                Assert.assertEquals(EsArticle.class.getName(), messageProperties.getHeaders().get("__TypeId__"));
+                Assert.assertEquals(compressThresholdBytes == null ? (codec == MessageCodec.JSON ? "UTF-8" : null) : "deflate",
+                        messageProperties.getContentEncoding());
+
+                EsArticle decoded = sut.fromMessage(message, EsArticle.class);
+                Assert.assertEquals(esArticle.getContent(), decoded.getContent());
+                Assert.assertEquals(esArticle.getWriter().getUsername(), decoded.getWriter().getUsername());
+                Assert.assertEquals(esArticle.getGalleries(), decoded.getGalleries());
+            }
+        }
+    }
+
+    @Test
+    public void smallMessageIsNotCompressed() throws Exception {
+        queueProperties.setCodec(MessageCodec.SMILE);
+        queueProperties.setCompressThresholdBytes(1024);
+
+        Message message = sut.toMessage("elasticsearch", "595bb024290ad3035636f2ba");
+
+        Assert.assertNull(message.getMessageProperties().getContentEncoding());
+        Assert.assertEquals("595bb024290ad3035636f2ba", sut.fromMessage(message, String.class));
+    }
+
+    @Test
+    public void readLegacyJsonMessage() throws Exception {
+        EsArticle esArticle = newEsArticle(3);
+
+        Message message = new Jackson2JsonMessageConverter().toMessage(esArticle, new MessageProperties());
+
+        Assert.assertEquals(esArticle.getContent(), sut.fromMessage(message, EsArticle.class).getContent());
+
+        // content-type 이 없는 메시지도 JSON 으로 읽는다.
+        message.getMessageProperties().setContentType(null);
+        Assert.assertEquals(esArticle.getSubject(), sut.fromMessage(message, EsArticle.class).getSubject());
+    }
+
+    @Test
+    public void bytesPerMessage() {
+        for (int paragraphs : new int[]{1, 10, 100}) {
+            EsArticle esArticle = newEsArticle(paragraphs);
+
+            int json = this.size(esArticle, MessageCodec.JSON, null);
+            int smile = this.size(esArticle, MessageCodec.SMILE, null);
+            int cbor = this.size(esArticle, MessageCodec.CBOR, null);
+
+            // 바이너리 포맷은 따옴표, 필드 구분자가 없으므로 JSON 보다 작다.
+            Assert.assertTrue("paragraphs=" + paragraphs, smile < json);
+            Assert.assertTrue("paragraphs=" + paragraphs, cbor < json);
+
+            // 본문이 길면 압축하는 편이 작다.
+            if (paragraphs > 1) {
+                Assert.assertTrue("paragraphs=" + paragraphs, this.size(esArticle, MessageCodec.JSON, 0) < json);
+                Assert.assertTrue("paragraphs=" + paragraphs, this.size(esArticle, MessageCodec.SMILE, 0) < smile);
+            }
+        }
+
+        // 본문이 길수록 압축 효과가 크다.
+        EsArticle esArticle = newEsArticle(100);
+        Assert.assertTrue(this.size(esArticle, MessageCodec.SMILE, 0) * 2 < this.size(esArticle, MessageCodec.JSON, null));
+    }
+
+    private int size(EsArticle esArticle, MessageCodec codec, Integer compressThresholdBytes) {
+        queueProperties.setCodec(codec);
+        queueProperties.setCompressThresholdBytes(compressThresholdBytes);
+
+        return sut.toMessage("elasticsearch", esArticle).getBody().length;
+    }
+
+    /**
+     * 글 본문처럼 문장을 섞어 paragraphs 개 문단을 만들고, 색인할 때처럼 태그를 걷어낸다.
+     */
+    private EsArticle newEsArticle(int paragraphs) {
+        Random random = new Random(paragraphs);
+        StringBuilder html = new StringBuilder();
+
+        for (int i = 0; i < paragraphs; i++) {
+            html.append("<p>");
+
+            for (int j = 0; j < 4; j++)
+                html.append(SENTENCES[random.nextInt(SENTENCES.length)]).append(' ');
+
+            html.append("</p>");
+        }
+
+        CommonWriter writer = new CommonWriter();
+        writer.setUserId("58b2dbe4807d714eaf50a111");
+        writer.setUsername("수원블루윙즈");
+        writer.setProviderId(Constants.ACCOUNT_TYPE.JAKDUK);
+
+        EsArticle esArticle = new EsArticle();
+        esArticle.setId("595bb024290ad3035636f2ba");
+        esArticle.setSeq(262);
+        esArticle.setBoard("FREE");
+        esArticle.setCategory("FOOTBALL");
+        esArticle.setWriter(writer);
+        esArticle.setSubject("수원 vs 서울 경기 후기");
+        esArticle.setContent(JakdukUtils.htmlToText(html.toString()));
+        esArticle.setGalleries(Arrays.asList("58b9050b807d714eaf50a111", "58b9050b807d714eaf50a112"));
+
+        return esArticle;
+    }
+
+}
@@ -0,0 +1,449 @@
+package com.jakduk.api.rabbitmq;
+
+import com.jakduk.api.common.rabbitmq.MessageCodecs;
+import com.jakduk.api.common.rabbitmq.OutboxRelay;
+import com.jakduk.api.common.rabbitmq.RabbitMQPublisher;
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.rabbitmq.RabbitMQ;
+import com.jakduk.api.model.db.OutboxMessage;
+import com.jakduk.api.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ConnectException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 메시지를 outbox 에 쌓고, broker 가 확인한 메시지만 지우며, 실패한 메시지는 다음 주기로 넘기는지 확인한다.
+ */
+public class OutboxRelayTest {
+
+    private static final String EXCHANGE = "jakduk-dev";
+    private static final String ROUTING_KEY = "dev.elasticsearch.delete-document-article";
+
+    private OutboxRelay sut;
+    private RabbitTemplate rabbitTemplate;
+    private OutboxMessageRepository outboxMessageRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private JakdukProperties.Outbox outboxProperties;
+    private JakdukProperties.Rabbitmq rabbitmqProperties;
+    private RabbitMQ queueProperties;
+    private MessageCodecs messageCodecs;
+
+    // 저장소 대신 쓰는 outbox. _id 순서를 지키도록 TreeMap 에 둔다.
+    private final Map<String, OutboxMessage> outbox = new TreeMap<>();
+    private final Map<String, OutboxMessage> deadLetters = new TreeMap<>();
+    private final Set<String> nackRoutingKeys = new HashSet<>();
+    private final Set<String> returnRoutingKeys = new HashSet<>();
+
+    @Before
+    public void setUp() {
+        outboxProperties = new JakdukProperties().new Outbox();
+        outboxProperties.setEnabled(true);
+        outboxProperties.setBatchSize(2);
+        outboxProperties.setConfirmTimeoutMillis(100L);
+        outboxProperties.setMaxAttempts(3);
+        outboxProperties.setMaxRedrives(2);
+        outboxProperties.setLeaseMillis(30000L);
+        outboxProperties.setRetryBackoffMillis(0L);
+        outboxProperties.setMaxRetryBackoffMillis(0L);
+
+        rabbitTemplate = mock(RabbitTemplate.class);
+
+        this.confirmImmediately();
+
+        outboxMessageRepository = mock(OutboxMessageRepository.class);
+
+        when(outboxMessageRepository.insert(any(OutboxMessage.class))).thenAnswer(invocation -> {
+            OutboxMessage outboxMessage = invocation.getArgument(0);
+            outboxMessage.setId(String.format("%08d", outbox.size() + 1));
+            outbox.put(outboxMessage.getId(), outboxMessage);
+            return outboxMessage;
+        });
+
+        when(outboxMessageRepository.findByAttemptsLessThanOrderByIdAsc(anyInt(), any(Pageable.class))).thenAnswer(invocation -> {
+            Integer maxAttempts = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return outbox.values().stream()
+                    .filter(outboxMessage -> outboxMessage.getAttempts() < maxAttempts)
+                    .limit(pageable.getPageSize())
+                    .collect(Collectors.toList());
+        });
+
+        when(outboxMessageRepository.claim(anyString(), anyInt(), any(Date.class), any(Date.class), anyInt())).thenAnswer(invocation -> {
+            String owner = invocation.getArgument(0);
+            Integer maxAttempts = invocation.getArgument(1);
+            Date now = invocation.getArgument(2);
+            Date lockedUntil = invocation.getArgument(3);
+            Integer size = invocation.getArgument(4);
+
+            List<OutboxMessage> claimed = outbox.values().stream()
+                    .filter(outboxMessage -> outboxMessage.getAttempts() < maxAttempts)
+                    .filter(outboxMessage -> outboxMessage.getNextAttemptAt() == null || ! outboxMessage.getNextAttemptAt().after(now))
+                    .filter(outboxMessage -> outboxMessage.getLockedUntil() == null || ! outboxMessage.getLockedUntil().after(now))
+                    .limit(size)
+                    .collect(Collectors.toList());
+
+            claimed.forEach(outboxMessage -> {
+                outboxMessage.setOwner(owner);
+                outboxMessage.setLockedUntil(lockedUntil);
+            });
+
+            return claimed;
+        });
+
+        when(outboxMessageRepository.release(anyString(), anyString(), anyBoolean(), any(Date.class), anyString())).thenAnswer(invocation -> {
+            OutboxMessage outboxMessage = outbox.get(invocation.<String>getArgument(1));
+
+            if (outboxMessage == null || ! invocation.getArgument(0).equals(outboxMessage.getOwner()))
+                return false;
+
+            if (invocation.getArgument(2)) {
+                outboxMessage.setAttempts(outboxMessage.getAttempts() + 1);
+            } else {
+                outboxMessage.setDeferrals(Optional.ofNullable(outboxMessage.getDeferrals()).orElse(0) + 1);
+            }
+
+            outboxMessage.setNextAttemptAt(invocation.getArgument(3));
+            outboxMessage.setLastError(invocation.getArgument(4));
+            outboxMessage.setOwner(null);
+            outboxMessage.setLockedUntil(null);
+            return true;
+        });
+
+        when(outboxMessageRepository.countByAttemptsLessThan(anyInt())).thenAnswer(invocation ->
+                outbox.values().stream().filter(outboxMessage -> outboxMessage.getAttempts() < (Integer) invocation.getArgument(0)).count());
+
+        when(outboxMessageRepository.countByAttemptsGreaterThanEqual(anyInt())).thenAnswer(invocation ->
+                outbox.values().stream().filter(outboxMessage -> outboxMessage.getAttempts() >= (Integer) invocation.getArgument(0)).count());
+
+        when(outboxMessageRepository.deleteClaimed(anyString(), anyList())).thenAnswer(invocation -> {
+            String owner = invocation.getArgument(0);
+            List<String> ids = invocation.getArgument(1);
+            return ids.stream()
+                    .filter(id -> outbox.containsKey(id) && owner.equals(outbox.get(id).getOwner()))
+                    .peek(outbox::remove)
+                    .count();
+        });
+
+        when(outboxMessageRepository.redrive(anyInt(), anyInt())).thenAnswer(invocation -> {
+            Integer maxAttempts = invocation.getArgument(0);
+            Integer maxRedrives = invocation.getArgument(1);
+            List<OutboxMessage> stuck = outbox.values().stream()
+                    .filter(outboxMessage -> outboxMessage.getAttempts() >= maxAttempts)
+                    .filter(outboxMessage -> outboxMessage.getRedrives() == null || outboxMessage.getRedrives() < maxRedrives)
+                    .collect(Collectors.toList());
+
+            stuck.forEach(outboxMessage -> {
+                outboxMessage.setAttempts(0);
+                outboxMessage.setRedrives(Optional.ofNullable(outboxMessage.getRedrives()).orElse(0) + 1);
+                outboxMessage.setNextAttemptAt(null);
+            });
+
+            return (long) stuck.size();
+        });
+
+        when(outboxMessageRepository.deadLetter(anyInt(), anyInt())).thenAnswer(invocation -> {
+            Integer maxAttempts = invocation.getArgument(0);
+            Integer maxRedrives = invocation.getArgument(1);
+            List<OutboxMessage> parked = outbox.values().stream()
+                    .filter(outboxMessage -> outboxMessage.getAttempts() >= maxAttempts)
+                    .filter(outboxMessage -> outboxMessage.getRedrives() != null && outboxMessage.getRedrives() >= maxRedrives)
+                    .collect(Collectors.toList());
+
+            parked.forEach(outboxMessage -> deadLetters.put(outbox.remove(outboxMessage.getId()).getId(), outboxMessage));
+
+            return (long) parked.size();
+        });
+
+        when(outboxMessageRepository.redriveDeadLetters(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return ids.stream()
+                    .map(deadLetters::remove)
+                    .filter(Objects::nonNull)
+                    .peek(outboxMessage -> {
+                        outboxMessage.setAttempts(0);
+                        outboxMessage.setRedrives(0);
+                        outboxMessage.setNextAttemptAt(null);
+                        outbox.put(outboxMessage.getId(), outboxMessage);
+                    })
+                    .count();
+        });
+
+        when(outboxMessageRepository.countDeadLetters()).thenAnswer(invocation -> (long) deadLetters.size());
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        queueProperties = new RabbitMQ();
+        queueProperties.setEnabled(true);
+
+        rabbitmqProperties = new JakdukProperties().new Rabbitmq();
+        rabbitmqProperties.setExchangeName(EXCHANGE);
+        rabbitmqProperties.getQueues().put("elasticsearch", queueProperties);
+
+        messageCodecs = new MessageCodecs();
+        ReflectionTestUtils.setField(messageCodecs, "rabbitmqProperties", rabbitmqProperties);
+
+        sut = new OutboxRelay();
+        ReflectionTestUtils.setField(sut, "outboxProperties", outboxProperties);
+        ReflectionTestUtils.setField(sut, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(sut, "outboxMessageRepository", outboxMessageRepository);
+        ReflectionTestUtils.setField(sut, "meterRegistry", meterRegistry);
+        sut.init();
+    }
+
+    @Test
+    public void publisherOnlyWritesOutbox() {
+        RabbitMQPublisher publisher = newPublisher(true);
+
+        publisher.publishElasticsearch(ROUTING_KEY, "595bb024290ad3035636f2ba");
+
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        verify(rabbitTemplate, never()).send(anyString(), anyString(), any(Message.class));
+
+        OutboxMessage outboxMessage = outbox.values().iterator().next();
+        Assert.assertEquals(EXCHANGE, outboxMessage.getExchange());
+        Assert.assertEquals(ROUTING_KEY, outboxMessage.getRoutingKey());
+        Assert.assertEquals("\"595bb024290ad3035636f2ba\"", new String(outboxMessage.getBody()));
+        Assert.assertEquals(String.class.getName(), outboxMessage.getHeaders().get("__TypeId__"));
+        Assert.assertEquals(Integer.valueOf(0), outboxMessage.getAttempts());
+    }
+
+    @Test
+    public void disabledQueueIsCounted() {
+        RabbitMQPublisher publisher = newPublisher(false);
+
+        publisher.publishElasticsearch(ROUTING_KEY, "595bb024290ad3035636f2ba");
+
+        Assert.assertTrue(outbox.isEmpty());
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.rabbitmq.dropped").tag("queue", "elasticsearch").counter().count(), 0);
+    }
+
+    @Test
+    public void relayInOrderAndDelete() {
+        for (int i = 0; i < 5; i++)
+            sut.enqueue(EXCHANGE, ROUTING_KEY, messageCodecs.toMessage("elasticsearch", "id" + i));
+
+        sut.relay();
+
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(5)).send(eq(EXCHANGE), eq(ROUTING_KEY), messages.capture(), any(CorrelationData.class));
+
+        for (int i = 0; i < 5; i++) {
+            Message message = messages.getAllValues().get(i);
+            Assert.assertEquals("\"id" + i + "\"", new String(message.getBody()));
+            Assert.assertEquals("application/json", message.getMessageProperties().getContentType());
+            Assert.assertEquals(String.class.getName(), message.getMessageProperties().getHeaders().get("__TypeId__"));
+        }
+
+        Assert.assertTrue(outbox.isEmpty());
+        Assert.assertEquals(5.0, meterRegistry.get("jakduk.outbox.messages").tag("result", "published").counter().count(), 0);
+        Assert.assertEquals(0.0, meterRegistry.get("jakduk.outbox.backlog").gauge().value(), 0);
+        Assert.assertEquals(0.0, meterRegistry.get("jakduk.outbox.lag").gauge().value(), 0);
+        Assert.assertEquals(3L, meterRegistry.get("jakduk.outbox.publish").timer().count());
+    }
+
+    @Test
+    public void keepUnconfirmedUntilMaxAttempts() {
+        nackRoutingKeys.add("dev.email.welcome");
+
+        sut.enqueue(EXCHANGE, "dev.email.welcome", messageCodecs.toMessage("elasticsearch", "nack"));
+        sut.enqueue(EXCHANGE, ROUTING_KEY, messageCodecs.toMessage("elasticsearch", "ack"));
+
+        sut.relay();
+
+        Assert.assertEquals(1, outbox.size());
+        OutboxMessage outboxMessage = outbox.values().iterator().next();
+        Assert.assertEquals(Integer.valueOf(1), outboxMessage.getAttempts());
+        Assert.assertEquals("nack: rejected", outboxMessage.getLastError());
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.outbox.backlog").gauge().value(), 0);
+        Assert.assertTrue(meterRegistry.get("jakduk.outbox.lag").gauge().value() >= 0);
+
+        sut.relay();
+        sut.relay();
+        sut.relay();
+
+        Assert.assertEquals(Integer.valueOf(3), outboxMessage.getAttempts());
+        Assert.assertEquals(0.0, meterRegistry.get("jakduk.outbox.backlog").gauge().value(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.outbox.stuck").gauge().value(), 0);
+        verify(rabbitTemplate, times(3)).send(eq(EXCHANGE), eq("dev.email.welcome"), any(Message.class), any(CorrelationData.class));
+
+        // 멈춘 메시지는 redrive 로 다시 보낸다.
+        sut.redrive();
+        sut.relay();
+
+        verify(rabbitTemplate, times(4)).send(eq(EXCHANGE), eq("dev.email.welcome"), any(Message.class), any(CorrelationData.class));
+        Assert.assertEquals(Integer.valueOf(1), outboxMessage.getAttempts());
+    }
+
+    @Test
+    public void parkAfterMaxRedrives() {
+        nackRoutingKeys.add("dev.email.welcome");
+
+        sut.enqueue(EXCHANGE, "dev.email.welcome", messageCodecs.toMessage("elasticsearch", "nack"));
+        String id = outbox.keySet().iterator().next();
+
+        // max-redrives 번까지는 살려서 다시 보낸다.
+        for (int redrive = 0; redrive <= 2; redrive++) {
+            for (int attempt = 0; attempt < 3; attempt++)
+                sut.relay();
+
+            sut.redrive();
+        }
+
+        Assert.assertTrue(outbox.isEmpty());
+        Assert.assertTrue(deadLetters.containsKey(id));
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.outbox.messages").tag("result", "dead_letter").counter().count(), 0);
+        Assert.assertEquals(1.0, meterRegistry.get("jakduk.outbox.dead-letter").gauge().value(), 0);
+        verify(rabbitTemplate, times(9)).send(eq(EXCHANGE), eq("dev.email.welcome"), any(Message.class), any(CorrelationData.class));
+
+        // dead letter 는 주기적인 redrive 로 살아나지 않는다.
+        sut.redrive();
+        sut.relay();
+
+        verify(rabbitTemplate, times(9)).send(eq(EXCHANGE), eq("dev.email.welcome"), any(Message.class), any(CorrelationData.class));
+
+        // 운영자가 고른 메시지만 outbox 로 돌아간다.
+        nackRoutingKeys.clear();
+
+        Assert.assertEquals(0, sut.redriveDeadLetters(Collections.singletonList("unknown")));
+        Assert.assertEquals(1, sut.redriveDeadLetters(Collections.singletonList(id)));
+        Assert.assertEquals(0.0, meterRegistry.get("jakduk.outbox.dead-letter").gauge().value(), 0);
+
+        sut.relay();
+
+        Assert.assertTrue(outbox.isEmpty());
+        verify(rabbitTemplate, times(10)).send(eq(EXCHANGE), eq("dev.email.welcome"), any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void returnedMessageCountsAttempt() {
+        returnRoutingKeys.add("dev.unbound");
+
+        sut.enqueue(EXCHANGE, "dev.unbound", messageCodecs.toMessage("elasticsearch", "returned"));
+
+        sut.relay();
+
+        OutboxMessage outboxMessage = outbox.values().iterator().next();
+        Assert.assertEquals(Integer.valueOf(1), outboxMessage.getAttempts());
+        Assert.assertTrue(outboxMessage.getLastError().startsWith("returned"));
+    }
+
+    @Test
+    public void stopWhenBrokerIsDown() {
+        outboxProperties.setRetryBackoffMillis(1000L);
+        outboxProperties.setMaxRetryBackoffMillis(60000L);
+
+        doThrow(new AmqpConnectException(new ConnectException("Connection refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        for (int i = 0; i < 5; i++)
+            sut.enqueue(EXCHANGE, ROUTING_KEY, messageCodecs.toMessage("elasticsearch", "id" + i));
+
+        long start = System.currentTimeMillis();
+        sut.relay();
+
+        verify(rabbitTemplate, times(1)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+        Assert.assertEquals(5, outbox.size());
+        Assert.assertEquals(5.0, meterRegistry.get("jakduk.outbox.backlog").gauge().value(), 0);
+        Assert.assertEquals(0.0, meterRegistry.get("jakduk.outbox.messages").tag("result", "failed").counter().count(), 0);
+        Assert.assertEquals(2.0, meterRegistry.get("jakduk.outbox.messages").tag("result", "deferred").counter().count(), 0);
+
+        // 묶음 전체를 미뤘으므로 다음 주기에는 뒤의 메시지를 시도한다. 미룬 메시지는 retry-backoff-millis 뒤에 다시 간다.
+        OutboxMessage head = outbox.values().iterator().next();
+        Assert.assertEquals(Integer.valueOf(0), head.getAttempts());
+        Assert.assertTrue(head.getNextAttemptAt().getTime() >= start + 1000);
+        Assert.assertNull(head.getOwner());
+    }
+
+    @Test
+    public void brokerOutageDoesNotExhaustAttempts() {
+        doThrow(new AmqpConnectException(new ConnectException("Connection refused")))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+        sut.enqueue(EXCHANGE, ROUTING_KEY, messageCodecs.toMessage("elasticsearch", "id"));
+
+        for (int i = 0; i < 20; i++)
+            sut.relay();
+
+        OutboxMessage outboxMessage = outbox.values().iterator().next();
+        Assert.assertEquals(Integer.valueOf(0), outboxMessage.getAttempts());
+        Assert.assertEquals(Integer.valueOf(20), outboxMessage.getDeferrals());
+        Assert.assertEquals(0.0, meterRegistry.get("jakduk.outbox.stuck").gauge().value(), 0);
+
+        // broker 가 돌아오면 보낸다.
+        this.confirmImmediately();
+
+        sut.relay();
+
+        Assert.assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    public void skipRowsClaimedByOtherNode() {
+        for (int i = 0; i < 4; i++)
+            sut.enqueue(EXCHANGE, ROUTING_KEY, messageCodecs.toMessage("elasticsearch", "id" + i));
+
+        Date now = new Date();
+        List<OutboxMessage> claimedByOther = outboxMessageRepository.claim("other#1", 3, now, new Date(now.getTime() + 30000), 2);
+
+        sut.relay();
+
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(eq(EXCHANGE), eq(ROUTING_KEY), messages.capture(), any(CorrelationData.class));
+        Assert.assertEquals("\"id2\"", new String(messages.getAllValues().get(0).getBody()));
+        Assert.assertEquals(new ArrayList<>(claimedByOther), new ArrayList<>(outbox.values()));
+
+        // 다른 서버가 lease 안에 끝내지 못하면 가져간다.
+        claimedByOther.forEach(outboxMessage -> outboxMessage.setLockedUntil(new Date(now.getTime() - 1)));
+
+        sut.relay();
+
+        Assert.assertTrue(outbox.isEmpty());
+    }
+
+    /**
+     * 보내자마자 확인한다. nackRoutingKeys 의 메시지는 거절하고, returnRoutingKeys 의 메시지는 돌려보낸다.
+     */
+    private void confirmImmediately() {
+        doAnswer(invocation -> {
+            String routingKey = invocation.getArgument(1);
+            CorrelationData correlationData = invocation.getArgument(3);
+
+            if (returnRoutingKeys.contains(routingKey))
+                ReflectionTestUtils.invokeMethod(correlationData, "setReturnedMessage", invocation.<Message>getArgument(2));
+
+            correlationData.getFuture().set(new CorrelationData.Confirm(! nackRoutingKeys.contains(routingKey), "rejected"));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    }
+
+    private RabbitMQPublisher newPublisher(boolean queueEnabled) {
+        queueProperties.setEnabled(queueEnabled);
+
+        RabbitMQPublisher publisher = new RabbitMQPublisher();
+        ReflectionTestUtils.setField(publisher, "rabbitmqProperties", rabbitmqProperties);
+        ReflectionTestUtils.setField(publisher, "outboxProperties", outboxProperties);
+        ReflectionTestUtils.setField(publisher, "eventBusProperties", new JakdukProperties().new EventBus());
+        ReflectionTestUtils.setField(publisher, "rabbitTemplate", rabbitTemplate);
+        ReflectionTestUtils.setField(publisher, "outboxRelay", sut);
+        ReflectionTestUtils.setField(publisher, "messageCodecs", messageCodecs);
+        ReflectionTestUtils.setField(publisher, "meterRegistry", meterRegistry);
+
+        return publisher;
+    }
+
+}
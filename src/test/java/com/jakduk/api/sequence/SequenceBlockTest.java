@@ -0,0 +1,168 @@
+package com.jakduk.api.sequence;
+
+import com.jakduk.api.configuration.JakdukProperties;
+import com.jakduk.api.configuration.MongodbConfig;
+import com.jakduk.api.model.db.Sequence;
+import com.jakduk.api.service.CommonService;
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 서버(CommonService)가 하나의 sequence 문서에서 번호 묶음을 예약해도 번호가 겹치지 않는지 확인한다.
+ * 서버마다 CommonService 를 따로 만들고, 테스트마다 새 시퀀스 이름을 써서 처음 upsert 부터 확인한다.
+ */
+@RunWith(SpringRunner.class)
+@DataMongoTest
+@EnableConfigurationProperties
+@Import({JakdukProperties.class, MongodbConfig.class})
+public class SequenceBlockTest {
+
+    private static final int BLOCK_SIZE = 20;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JakdukProperties.Sequence sequenceProperties;
+
+    private String name;
+
+    @Before
+    public void setUp() {
+        // upsert 가 겹쳤을 때 DuplicateKeyException 이 나도록 Sequence 의 unique 인덱스를 만들어 둔다.
+        mongoTemplate.indexOps(Sequence.class).ensureIndex(new Index().on("name", Sort.Direction.ASC).named("name").unique().background());
+
+        name = "TEST_" + new ObjectId();
+        sequenceProperties.getBlockSizes().put(name, BLOCK_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        sequenceProperties.getBlockSizes().remove(name);
+        mongoTemplate.remove(this.queryByName(), Sequence.class);
+    }
+
+    @Test
+    public void noDuplicatesAcrossInstances() throws Exception {
+        int instances = 4;
+        int threadsPerInstance = 4;
+        int sequencesPerThread = 100;
+
+        List<CommonService> services = new ArrayList<>();
+
+        for (int i = 0; i < instances; i++)
+            services.add(this.newCommonService());
+
+        ExecutorService executor = Executors.newFixedThreadPool(instances * threadsPerInstance);
+        Set<Integer> sequences = ConcurrentHashMap.newKeySet();
+        AtomicInteger handedOut = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // 모든 쓰레드가 함께 시작하므로 처음 예약은 아직 없는 문서를 동시에 upsert 한다.
+        for (CommonService service : services) {
+            for (int i = 0; i < threadsPerInstance; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int j = 0; j < sequencesPerThread; j++) {
+                        sequences.add(service.getNextSequence(name));
+                        handedOut.incrementAndGet();
+                    }
+
+                    return null;
+                }));
+            }
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futures)
+            future.get(60, TimeUnit.SECONDS);
+
+        executor.shutdown();
+
+        Assert.assertEquals(instances * threadsPerInstance * sequencesPerThread, handedOut.get());
+        Assert.assertEquals(handedOut.get(), sequences.size());
+
+        // 문서는 하나만 생기고, 예약한 번호는 나눠준 번호를 모두 덮는다. 서버마다 많아야 한 묶음씩 남는다.
+        List<Sequence> stored = mongoTemplate.find(this.queryByName(), Sequence.class);
+        Assert.assertEquals(1, stored.size());
+
+        int reserved = stored.get(0).getSeq();
+        Assert.assertTrue(reserved % BLOCK_SIZE == 0);
+        Assert.assertTrue(reserved >= sequences.stream().mapToInt(Integer::intValue).max().getAsInt());
+        Assert.assertTrue(reserved <= handedOut.get() + instances * BLOCK_SIZE);
+    }
+
+    @Test
+    public void releaseUnusedTail() {
+        CommonService service = this.newCommonService();
+
+        Assert.assertEquals(Integer.valueOf(1), service.getNextSequence(name));
+        Assert.assertEquals(Integer.valueOf(2), service.getNextSequence(name));
+        Assert.assertEquals(Integer.valueOf(BLOCK_SIZE), this.storedSeq());
+
+        service.releaseSequenceBlocks();
+
+        Assert.assertEquals(Integer.valueOf(2), this.storedSeq());
+
+        // 다음 서버는 돌려 놓은 번호부터 쓴다.
+        Assert.assertEquals(Integer.valueOf(3), this.newCommonService().getNextSequence(name));
+    }
+
+    @Test
+    public void keepTailWhenAnotherInstanceReserved() {
+        CommonService first = this.newCommonService();
+        CommonService second = this.newCommonService();
+
+        Assert.assertEquals(Integer.valueOf(1), first.getNextSequence(name));
+        Assert.assertEquals(Integer.valueOf(BLOCK_SIZE + 1), second.getNextSequence(name));
+
+        // 다른 서버가 다음 묶음을 예약했으므로 돌려 놓으면 그 묶음과 겹친다. 빈 번호로 남긴다.
+        first.releaseSequenceBlocks();
+
+        Assert.assertEquals(Integer.valueOf(BLOCK_SIZE * 2), this.storedSeq());
+        Assert.assertEquals(Integer.valueOf(BLOCK_SIZE * 2 + 1), this.newCommonService().getNextSequence(name));
+    }
+
+    private CommonService newCommonService() {
+        CommonService service = new CommonService();
+        applicationContext.getAutowireCapableBeanFactory().autowireBean(service);
+
+        return service;
+    }
+
+    private Integer storedSeq() {
+        return mongoTemplate.findOne(this.queryByName(), Sequence.class).getSeq();
+    }
+
+    private Query queryByName() {
+        return new Query(Criteria.where("name").is(name));
+    }
+
+}
@@ -1,12 +1,106 @@
 package com.jakduk.api.utils;
 
 import com.jakduk.api.common.util.JakdukUtils;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.connector.Request;
+import org.apache.catalina.connector.Response;
+import org.apache.catalina.valves.RemoteIpValve;
+import org.apache.catalina.valves.ValveBase;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class JakdukUtilsTests {
 
     @Test
     public void generateTemporaryEmail() {
         System.out.println(JakdukUtils.generateTemporaryEmail());
     }
+
+    @Test
+    public void htmlToText() {
+        String[] htmls = {
+                "<p>안녕하세요.</p><p>수원 <b>삼성</b> 블루윙즈 <a href=\"/board/free\">팬</a>입니다.</p>",
+                "<p>첫 줄<br>둘째 줄<br/>셋째 줄</p>\n\n<div>  공백이   많은   글 </div>",
+                "<p>&lt;script&gt; 는 글자로, &amp;amp; 도 &#39;글자&#39; 로, &#x1F600; 이모지도.</p>",
+                "<p>이미지 <img src=\"a.png\" alt=\"a > b\"> 뒤 글</p><!-- 주석 <p>숨김</p> -->",
+                "<style>p { color: red; }</style><p>보이는 글</p><script>alert('<p>x</p>');</script>",
+                "<ul><li>하나</li><li>둘</li></ul><table><tr><td>칸1</td><td>칸2</td></tr></table>",
+                "1 < 2 그리고 a&b 그리고 &unknown; 그리고 &nbsp;끝",
+                "그냥 글자",
+                ""
+        };
+
+        for (String html : htmls)
+            Assert.assertEquals(html, JakdukUtils.stripHtmlTag(html), JakdukUtils.htmlToText(html));
+    }
+
+    @Test
+    public void htmlToTextBlank() {
+        Assert.assertEquals("", JakdukUtils.htmlToText(null));
+        Assert.assertEquals("", JakdukUtils.htmlToText("<p> </p><br>"));
+    }
+
+    /**
+     * 닫히지 않은 '&' 가 많아도 한번 훑고 끝나야 하고, 글자가 아닌 코드는 엔티티로 바꾸지 않는다.
+     */
+    @Test(timeout = 2000)
+    public void htmlToTextUnterminatedEntities() {
+        String html = StringUtils.repeat("R&D ", 100000);
+        String text = JakdukUtils.htmlToText(html);
+
+        Assert.assertEquals(StringUtils.repeat("R&D", " ", 100000), text);
+
+        Assert.assertEquals("a&#0;b", JakdukUtils.htmlToText("a&#0;b"));
+        Assert.assertEquals("a&#xD800;b", JakdukUtils.htmlToText("a&#xD800;b"));
+        Assert.assertEquals("a&#x110000;b", JakdukUtils.htmlToText("a&#x110000;b"));
+        Assert.assertEquals("a&b", JakdukUtils.htmlToText("a&amp;b"));
+    }
+
+    /**
+     * '>' 로 닫히지 않은 태그는 글자로 남기고, 뒤의 본문을 버리지 않는다. 많아도 한번 훑고 끝나야 한다.
+     */
+    @Test(timeout = 2000)
+    public void htmlToTextUnterminatedTags() {
+        Assert.assertEquals("<a title=\"x>text", JakdukUtils.htmlToText("<a title=\"x>text"));
+        Assert.assertEquals("<a title=\"x>text bold", JakdukUtils.htmlToText("<a title=\"x>text <b>bold</b>"));
+        Assert.assertEquals("1 <2 그리고 3", JakdukUtils.htmlToText("<p>1 <2 그리고 3"));
+
+        String html = StringUtils.repeat("<a ", 100000);
+
+        Assert.assertEquals(StringUtils.repeat("<a", " ", 100000), JakdukUtils.htmlToText(html));
+    }
+
+    /**
+     * 같은 프록시를 거쳐 온 서로 다른 비회원은 X-Forwarded-For 의 IP 로 구분한다.
+     * server.use-forward-headers 를 켜면 Tomcat 에 붙는 RemoteIpValve 를 거쳐 확인한다.
+     */
+    @Test
+    public void visitorIdBehindProxy() throws Exception {
+        List<String> visitorIds = new ArrayList<>();
+
+        RemoteIpValve remoteIpValve = new RemoteIpValve();
+        remoteIpValve.setNext(new ValveBase() {
+            @Override
+            public void invoke(Request request, Response response) {
+                visitorIds.add(JakdukUtils.getVisitorId(request, null));
+            }
+        });
+
+        for (String forwardedFor : Arrays.asList("203.0.113.10", "198.51.100.20")) {
+            Request request = new Request(new Connector());
+            request.setCoyoteRequest(new org.apache.coyote.Request());
+            request.setRemoteAddr("10.0.0.5");
+            request.getCoyoteRequest().getMimeHeaders().addValue("X-Forwarded-For").setString(forwardedFor);
+            request.getCoyoteRequest().getMimeHeaders().addValue("User-Agent").setString("Mozilla/5.0");
+
+            remoteIpValve.invoke(request, null);
+        }
+
+        Assert.assertEquals(Arrays.asList("203.0.113.10|Mozilla/5.0", "198.51.100.20|Mozilla/5.0"), visitorIds);
+    }
 }